@@ -0,0 +1,83 @@
+package dev.vudovenko.springbootmvcpractice;
+
+import dev.vudovenko.springbootmvcpractice.batch.BatchItemResult;
+import dev.vudovenko.springbootmvcpractice.batch.BatchProcessor;
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import dev.vudovenko.springbootmvcpractice.users.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates {@code batchSize} entities per operation, either one service call per entity (what a client of
+ * {@code POST /users} ends up doing) or through the {@code /batch} path. HTTP round trips are not included,
+ * so the real gain for remote clients is larger.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class BatchCreateBenchmark {
+
+    @Param({"100", "10000"})
+    public int batchSize;
+
+    private ServiceFixture fixture;
+
+    private BatchProcessor batchProcessor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = ServiceFixture.populate(1000, 0, "batch.max-size=10000");
+        batchProcessor = fixture.bean(BatchProcessor.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void createUsersOneByOne(Blackhole blackhole) {
+        UserService userService = fixture.userService();
+        for (int i = 0; i < batchSize; i++) {
+            blackhole.consume(userService.createUser(ServiceFixture.newUser()));
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<List<BatchItemResult<User>>> createUsersBatch() {
+        List<User> users = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            users.add(ServiceFixture.newUser());
+        }
+
+        return batchProcessor.process(users, "user", fixture.userService()::createUsers);
+    }
+
+    @Benchmark
+    public void createPetsOneByOne(Blackhole blackhole) {
+        PetService petService = fixture.petService();
+        for (int i = 0; i < batchSize; i++) {
+            blackhole.consume(petService.createPet(ServiceFixture.newPet(fixture.randomUserId())));
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<List<BatchItemResult<Pet>>> createPetsBatch() {
+        List<Pet> pets = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            pets.add(ServiceFixture.newPet(fixture.randomUserId()));
+        }
+
+        return batchProcessor.process(pets, "pet", fixture.petService()::createPets);
+    }
+}
@@ -0,0 +1,269 @@
+package dev.vudovenko.springbootmvcpractice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.vudovenko.springbootmvcpractice.load.LatencyRecorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drives a mixed CRUD workload over HTTP against the application started on platform request threads, with the
+ * {@code virtual} profile and with the {@code reactive} profile (WebFlux on Netty), and reports latency percentiles
+ * and throughput per concurrency level side by side.
+ * <p>
+ * The highest level that stays within {@link #MAX_ERROR_RATE} and {@link #P99_BUDGET_MILLIS} is reported as the mode's
+ * max concurrent connections. The access log only exists on the servlet stack, so it is off in every mode, and so is
+ * admission control, which would turn the single client away. Client and server share the machine, so compare modes
+ * with each other rather than with production numbers. The modes run one after another in this JVM; the arguments
+ * pick which and in what order, all of them by default. The first mode also warms up the JVM, client included, so it
+ * gets {@link #JVM_WARMUP} at its first level: with the per-level warmup alone it served a fifth of the requests it
+ * served when run second. Results go to {@code target/execution-mode-load.json}:
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.main=dev.vudovenko.springbootmvcpractice.ExecutionModeLoadBenchmark
+ * -Djmh.args="platform virtual reactive" -Djmh.jvmArgs=-Djdk.tracePinnedThreads=short}
+ */
+public final class ExecutionModeLoadBenchmark {
+
+    private static final List<String> MODES = List.of("platform", "virtual", "reactive");
+
+    private static final int[] CONCURRENCY_LEVELS = {16, 64, 256, 1024, 4096};
+
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+
+    private static final Duration JVM_WARMUP = Duration.ofSeconds(60);
+
+    private static final Duration MEASUREMENT = Duration.ofSeconds(15);
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final int SEED_USERS = 10_000;
+
+    private static final double MAX_ERROR_RATE = 0.01;
+
+    private static final double P99_BUDGET_MILLIS = 100;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private ExecutionModeLoadBenchmark() {
+    }
+
+    /**
+     * Devtools would relaunch {@link #main} in its restart class loader, so restarts are off.
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> modes = args.length == 0 ? MODES : List.of(args);
+        for (String mode : modes) {
+            if (!MODES.contains(mode)) {
+                throw new IllegalArgumentException("Unknown mode %s, expected one of %s".formatted(mode, MODES));
+            }
+        }
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        List<ModeResult> results = new ArrayList<>();
+        for (String mode : modes) {
+            results.add(runMode(mode, results.isEmpty() ? JVM_WARMUP : WARMUP));
+        }
+
+        File output = new File("target/execution-mode-load.json");
+        output.getParentFile().mkdirs();
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(output, results);
+        System.out.println("Results written to " + output.getPath());
+    }
+
+    private static ModeResult runMode(String mode, Duration firstWarmup) throws Exception {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(SpringBootMvcPracticeApplication.class)
+                .properties("server.port=0", "logging.level.dev.vudovenko=warn");
+        if (!mode.equals("platform")) {
+            builder.profiles(mode);
+        }
+
+        try (
+                ConfigurableApplicationContext context = builder.run(
+                        "--access-log.enabled=false",
+                        "--admission.enabled=false"
+                );
+                ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(clientThreads)
+                        .connectTimeout(REQUEST_TIMEOUT)
+                        .build()
+        ) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            Workload workload = new Workload(client, baseUrl, seedUsers(client, baseUrl));
+
+            List<LevelResult> levels = new ArrayList<>();
+            int maxConcurrentConnections = 0;
+            for (int concurrency : CONCURRENCY_LEVELS) {
+                runLevel(workload, concurrency, levels.isEmpty() ? firstWarmup : WARMUP);
+                LevelResult level = runLevel(workload, concurrency, MEASUREMENT);
+                levels.add(level);
+                System.out.printf("%-8s %s%n", mode, level);
+
+                if (level.errorRate() <= MAX_ERROR_RATE && level.p99Millis() <= P99_BUDGET_MILLIS) {
+                    maxConcurrentConnections = concurrency;
+                }
+            }
+
+            return new ModeResult(mode, maxConcurrentConnections, levels);
+        }
+    }
+
+    private static long[] seedUsers(HttpClient client, String baseUrl) throws IOException, InterruptedException {
+        long[] userIds = new long[SEED_USERS];
+        for (int i = 0; i < SEED_USERS; i++) {
+            HttpResponse<String> response = client.send(
+                    Workload.json(baseUrl + "/users", "POST", Workload.userJson()),
+                    HttpResponse.BodyHandlers.ofString()
+            );
+            userIds[i] = OBJECT_MAPPER.readTree(response.body()).get("id").asLong();
+        }
+
+        return userIds;
+    }
+
+    private static LevelResult runLevel(Workload workload, int concurrency, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Recorder>> futures = new ArrayList<>(concurrency);
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(workers.submit(() -> workload.run(deadline)));
+            }
+        }
+
+        Recorder total = new Recorder();
+        for (Future<Recorder> future : futures) {
+            total.merge(future.get());
+        }
+
+        return total.toResult(concurrency, duration);
+    }
+
+    /**
+     * 60% reads, 20% user updates, 10% user creates, and 10% pet creates alternating with deletes of that pet.
+     */
+    private record Workload(HttpClient client, String baseUrl, long[] userIds) {
+
+        private Recorder run(long deadline) {
+            Recorder recorder = new Recorder();
+            long createdPetId = -1;
+            while (System.nanoTime() < deadline) {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long userId = userIds[random.nextInt(userIds.length)];
+                int operation = random.nextInt(100);
+
+                HttpRequest request;
+                if (operation < 60) {
+                    request = HttpRequest.newBuilder(URI.create(baseUrl + "/users/" + userId))
+                            .timeout(REQUEST_TIMEOUT)
+                            .GET()
+                            .build();
+                } else if (operation < 80) {
+                    request = json(baseUrl + "/users/" + userId, "PUT", userJson());
+                } else if (operation < 90) {
+                    request = json(baseUrl + "/users", "POST", userJson());
+                } else if (createdPetId < 0) {
+                    request = json(baseUrl + "/pets", "POST", "{\"name\":\"loadPet\",\"userId\":" + userId + "}");
+                } else {
+                    request = HttpRequest.newBuilder(URI.create(baseUrl + "/pets/" + createdPetId))
+                            .timeout(REQUEST_TIMEOUT)
+                            .DELETE()
+                            .build();
+                    createdPetId = -1;
+                }
+
+                long start = System.nanoTime();
+                try {
+                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    recorder.record(System.nanoTime() - start, response.statusCode() >= 400);
+                    if (operation >= 90 && request.method().equals("POST") && response.statusCode() == 201) {
+                        createdPetId = OBJECT_MAPPER.readTree(response.body()).get("id").asLong();
+                    }
+                } catch (IOException e) {
+                    recorder.record(System.nanoTime() - start, true);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            return recorder;
+        }
+
+        private static HttpRequest json(String url, String method, String body) {
+            return HttpRequest.newBuilder(URI.create(url))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+
+        private static String userJson() {
+            int n = ThreadLocalRandom.current().nextInt(1_000_000);
+
+            return "{\"name\":\"loadUser\",\"email\":\"load" + n + "@load.com\",\"age\":30}";
+        }
+    }
+
+    private static final class Recorder {
+
+        private final LatencyRecorder latencies = new LatencyRecorder();
+
+        private long errors;
+
+        private void record(long latencyNanos, boolean error) {
+            latencies.record(latencyNanos);
+            if (error) {
+                errors++;
+            }
+        }
+
+        private void merge(Recorder other) {
+            latencies.merge(other.latencies);
+            errors += other.errors;
+        }
+
+        private LevelResult toResult(int concurrency, Duration duration) {
+            long count = latencies.count();
+            LatencyRecorder.Percentiles percentiles = latencies.percentiles();
+
+            return new LevelResult(
+                    concurrency,
+                    count,
+                    count == 0 ? 0 : (double) errors / count,
+                    count / (double) duration.toSeconds(),
+                    percentiles.p50Millis(),
+                    percentiles.p99Millis(),
+                    percentiles.p999Millis(),
+                    percentiles.maxMillis()
+            );
+        }
+    }
+
+    public record LevelResult(
+            int concurrency,
+            long requests,
+            double errorRate,
+            double requestsPerSecond,
+            double p50Millis,
+            double p99Millis,
+            double p999Millis,
+            double maxMillis
+    ) {
+    }
+
+    public record ModeResult(String mode, int maxConcurrentConnections, List<LevelResult> levels) {
+    }
+}
@@ -0,0 +1,75 @@
+package dev.vudovenko.springbootmvcpractice;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson (de)serialization of the entities with the application's {@link ObjectMapper}, as done for every
+ * request and response body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"0", "10", "1000", "100000"})
+    public int petsPerUser;
+
+    private ServiceFixture fixture;
+
+    private ObjectMapper objectMapper;
+
+    private User user;
+
+    private Pet pet;
+
+    private String userRequestJson;
+
+    private String petJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        fixture = ServiceFixture.populate(1 + petsPerUser, petsPerUser);
+        objectMapper = fixture.objectMapper();
+
+        user = fixture.userService().getById(fixture.randomUserId());
+        pet = fixture.hasPets()
+                ? fixture.petService().getPetById(fixture.randomPetId())
+                : new Pet(1L, "benchmark", user.getId());
+        userRequestJson = objectMapper.writeValueAsString(ServiceFixture.newUser());
+        petJson = objectMapper.writeValueAsString(pet);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public User deserializeUser() throws JsonProcessingException {
+        return objectMapper.readValue(userRequestJson, User.class);
+    }
+
+    @Benchmark
+    public byte[] serializePet() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(pet);
+    }
+
+    @Benchmark
+    public Pet deserializePet() throws JsonProcessingException {
+        return objectMapper.readValue(petJson, Pet.class);
+    }
+}
@@ -0,0 +1,124 @@
+package dev.vudovenko.springbootmvcpractice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import dev.vudovenko.springbootmvcpractice.users.service.UserService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Boots the application without a web server and fills the services through their public API,
+ * so benchmarks measure the real beans.
+ * <p>
+ * {@code storeSize} is the total number of entities: it is split into owners with {@code petsPerUser} pets each.
+ * A {@code petsPerUser} of {@code storeSize} or more is rejected, as the store would hold one owner with all its pets
+ * whatever {@code storeSize} says.
+ */
+public final class ServiceFixture implements AutoCloseable {
+
+    private static final AtomicLong USER_COUNTER = new AtomicLong();
+
+    private final ConfigurableApplicationContext context;
+
+    private final UserService userService;
+
+    private final PetService petService;
+
+    private final ObjectMapper objectMapper;
+
+    private final long[] userIds;
+
+    private final long[] petIds;
+
+    private ServiceFixture(int storeSize, int petsPerUser, String... properties) {
+        if (petsPerUser > 0 && petsPerUser >= storeSize) {
+            throw new IllegalArgumentException(
+                    "petsPerUser=%d does not fit in storeSize=%d".formatted(petsPerUser, storeSize)
+            );
+        }
+        this.context = new SpringApplicationBuilder(SpringBootMvcPracticeApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(
+                        "spring.devtools.restart.enabled=false",
+                        "logging.level.root=WARN"
+                )
+                .run(Arrays.stream(properties).map(property -> "--" + property).toArray(String[]::new));
+        this.userService = context.getBean(UserService.class);
+        this.petService = context.getBean(PetService.class);
+        this.objectMapper = context.getBean(ObjectMapper.class);
+
+        int userCount = Math.max(1, storeSize / (1 + petsPerUser));
+        this.userIds = new long[userCount];
+        this.petIds = new long[userCount * petsPerUser];
+        int pet = 0;
+        for (int i = 0; i < userCount; i++) {
+            userIds[i] = userService.createUser(newUser()).getId();
+            for (int j = 0; j < petsPerUser; j++) {
+                petIds[pet++] = petService.createPet(newPet(userIds[i])).getId();
+            }
+        }
+    }
+
+    public static ServiceFixture populate(int storeSize, int petsPerUser) {
+        return new ServiceFixture(storeSize, petsPerUser);
+    }
+
+    /**
+     * Like {@link #populate(int, int)}, with application properties as {@code key=value} pairs that take precedence
+     * over {@code application.properties}.
+     */
+    public static ServiceFixture populate(int storeSize, int petsPerUser, String... properties) {
+        return new ServiceFixture(storeSize, petsPerUser, properties);
+    }
+
+    public UserService userService() {
+        return userService;
+    }
+
+    public PetService petService() {
+        return petService;
+    }
+
+    public ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public Long randomUserId() {
+        return userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+    }
+
+    public Long randomPetId() {
+        return petIds[ThreadLocalRandom.current().nextInt(petIds.length)];
+    }
+
+    public boolean hasPets() {
+        return petIds.length > 0;
+    }
+
+    public static User newUser() {
+        long n = USER_COUNTER.incrementAndGet();
+
+        return new User(null, "benchmark", "benchmark" + n + "@benchmark.com", 30, null);
+    }
+
+    public static Pet newPet(Long ownerId) {
+        return new Pet(null, "benchmark", ownerId);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,84 @@
+package dev.vudovenko.springbootmvcpractice.accesslog;
+
+import dev.vudovenko.springbootmvcpractice.ServiceFixture;
+import dev.vudovenko.springbootmvcpractice.users.controllers.UserController;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-thread cost of the old controller logging, which formatted the whole entity including its pets,
+ * against recording an {@link AccessLog} event. Sample mode reports the p99 per owner size; both write to
+ * {@code target/access-log-benchmark.log} with console logging off.
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.args="AccessLogBenchmark -rf json -rff target/jmh-result.json"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessLogBenchmark {
+
+    private static final Logger LEGACY_LOG = LogManager.getLogger(UserController.class);
+
+    @Param({"0", "100", "10000"})
+    public int petsPerUser;
+
+    private ServiceFixture fixture;
+
+    private User owner;
+
+    private AccessLog accessLog;
+
+    private HandlerMethod getUser;
+
+    private MockHttpServletRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        fixture = ServiceFixture.populate(
+                1 + petsPerUser,
+                petsPerUser,
+                "logging.level." + UserController.class.getName() + "=INFO",
+                "logging.level.access=INFO",
+                "logging.file.name=target/access-log-benchmark.log",
+                "logging.pattern.console="
+        );
+        owner = fixture.userService().getById(fixture.randomUserId());
+        accessLog = fixture.bean(AccessLog.class);
+        getUser = new HandlerMethod(
+                fixture.bean(UserController.class),
+                UserController.class.getMethod("getUser", Long.class)
+        );
+
+        request = new MockHttpServletRequest("GET", "/users/" + owner.getId());
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/users/{id}");
+        request.setAttribute(
+                HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE,
+                Map.of("id", owner.getId().toString())
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void entityDump() {
+        LEGACY_LOG.info("Get user: {}", owner);
+    }
+
+    @Benchmark
+    public void accessLogRecord() {
+        accessLog.record(getUser, request, 200, 1_000);
+    }
+}
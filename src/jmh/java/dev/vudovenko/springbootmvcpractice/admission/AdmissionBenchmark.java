@@ -0,0 +1,83 @@
+package dev.vudovenko.springbootmvcpractice.admission;
+
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The admission decision on its own: admitting and releasing a read from one of {@value #CLIENTS} clients, and turning
+ * a request away for its client's rate or for the concurrency limit of its class. Run with {@code -prof gc} to see
+ * that admitting allocates nothing. {@code mvn -Pjmh test-compile exec:exec -Djmh.args="AdmissionBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdmissionBenchmark {
+
+    private static final int CLIENTS = 1024;
+
+    private AdmissionControl admitting;
+
+    private AdmissionControl rateLimiting;
+
+    private AdmissionControl overloaded;
+
+    private String[] clients;
+
+    @Setup
+    public void setUp() {
+        admitting = new AdmissionControl(properties(1e9, Integer.MAX_VALUE, 256), new SimpleMeterRegistry());
+        rateLimiting = new AdmissionControl(properties(0.001, 1, 256), new SimpleMeterRegistry());
+        rateLimiting.admit(RequestClass.WRITE, "flooding");
+        rateLimiting.release(RequestClass.WRITE);
+        overloaded = new AdmissionControl(properties(1e9, Integer.MAX_VALUE, 1), new SimpleMeterRegistry());
+        overloaded.admit(RequestClass.WRITE, "first");
+
+        clients = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            clients[i] = "10.0." + i / 256 + "." + i % 256;
+        }
+    }
+
+    @Benchmark
+    public void admitted() {
+        admitting.admit(RequestClass.READ, clients[ThreadLocalRandom.current().nextInt(CLIENTS)]);
+        admitting.release(RequestClass.READ);
+    }
+
+    @Benchmark
+    public Object rateLimited() {
+        try {
+            rateLimiting.admit(RequestClass.WRITE, "flooding");
+
+            return null;
+        } catch (TooManyRequestsException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object overloaded() {
+        try {
+            overloaded.admit(RequestClass.WRITE, clients[ThreadLocalRandom.current().nextInt(CLIENTS)]);
+
+            return null;
+        } catch (TooManyRequestsException e) {
+            return e;
+        }
+    }
+
+    private static AdmissionProperties properties(double clientRate, int clientBurst, int maxConcurrent) {
+        return new AdmissionProperties(
+                true, "X-Client-Id", List.of(), clientRate, clientBurst, 65_536, maxConcurrent, maxConcurrent,
+                maxConcurrent
+        );
+    }
+}
@@ -0,0 +1,56 @@
+package dev.vudovenko.springbootmvcpractice.changes;
+
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the change feed adds to a write, publishing one pet event, and what a consumer pays per event when it reads a
+ * batch of {@value #BATCH_SIZE} behind a publisher. Run with {@code -prof gc} to see that publishing allocates nothing.
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.args="ChangeFeedBenchmark -prof gc"}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChangeFeedBenchmark {
+
+    private static final int BATCH_SIZE = 256;
+
+    private ChangeFeed feed;
+
+    private ChangeCursor cursor;
+
+    private Pet pet;
+
+    @Setup
+    public void setUp() {
+        feed = new ChangeFeed(
+                new ChangeFeedProperties(65_536, BATCH_SIZE, Duration.ofMillis(10), Duration.ofMinutes(5)),
+                new SimpleMeterRegistry()
+        );
+        cursor = feed.cursorAfter(0);
+        pet = new Pet(1L, "pet", 1L).withVersion(1);
+    }
+
+    @Benchmark
+    public void publish() {
+        feed.petSaved(pet);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<ChangeFeedItem> publishAndRead() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            feed.petSaved(pet);
+        }
+
+        return cursor.next(BATCH_SIZE);
+    }
+}
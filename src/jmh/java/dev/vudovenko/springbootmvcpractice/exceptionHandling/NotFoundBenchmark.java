@@ -0,0 +1,90 @@
+package dev.vudovenko.springbootmvcpractice.exceptionHandling;
+
+import dev.vudovenko.springbootmvcpractice.SpringBootMvcPracticeApplication;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.dto.ErrorMessageResponse;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.UserNotFoundException;
+import dev.vudovenko.springbootmvcpractice.users.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of lookups for ids that do not exist: in process, through the service and the exception handler,
+ * and as {@code GET /users/{id}} over HTTP. Logs go to {@code target/not-found-benchmark.log} with console logging off,
+ * as they would in production.
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.args="NotFoundBenchmark -rf json -rff target/jmh-result.json"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotFoundBenchmark {
+
+    private static final long FIRST_MISSING_ID = 1_000_000_000L;
+
+    private ConfigurableApplicationContext context;
+
+    private UserService userService;
+
+    private GlobalExceptionHandler exceptionHandler;
+
+    private HttpClient client;
+
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringBootMvcPracticeApplication.class)
+                .logStartupInfo(false)
+                .run(
+                        "--server.port=0",
+                        "--logging.file.name=target/not-found-benchmark.log",
+                        "--logging.pattern.console=",
+                        "--admission.enabled=false"
+                );
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/users/";
+        userService = context.getBean(UserService.class);
+        exceptionHandler = context.getBean(GlobalExceptionHandler.class);
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorMessageResponse> handleMissingUser() {
+        try {
+            userService.getById(missingId());
+            throw new IllegalStateException("User should not exist");
+        } catch (UserNotFoundException e) {
+            return exceptionHandler.handleEntityNotFoundException(e);
+        }
+    }
+
+    @Benchmark
+    public int getMissingUser() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + missingId())).GET().build();
+
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static long missingId() {
+        return FIRST_MISSING_ID + ThreadLocalRandom.current().nextInt(1_000_000);
+    }
+}
@@ -0,0 +1,88 @@
+package dev.vudovenko.springbootmvcpractice.journal;
+
+import dev.vudovenko.springbootmvcpractice.SpringBootMvcPracticeApplication;
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import dev.vudovenko.springbootmvcpractice.users.service.UserService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Restart time: writes a snapshot of {@code users} users with one pet each and a journal tail of {@code tail} updates
+ * straight to a temporary directory, then boots the application on it and reports how long startup took.
+ * <p>
+ * Arguments are {@code [users] [tail]}, 5,000,000 and 1,000,000 by default (10M entities):
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.main=dev.vudovenko.springbootmvcpractice.journal.JournalRecoveryBenchmark
+ * -Djmh.args= -Djmh.jvmArgs=-Xmx16g}
+ */
+public final class JournalRecoveryBenchmark {
+
+    private JournalRecoveryBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        long users = args.length > 0 ? Long.parseLong(args[0]) : 5_000_000;
+        int tail = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        Path directory = Files.createTempDirectory("journal-recovery");
+        try {
+            long writeStart = System.nanoTime();
+            SnapshotFile.write(
+                    directory,
+                    1,
+                    users,
+                    users,
+                    sink -> {
+                        for (long id = 1; id <= users; id++) {
+                            sink.accept(JournalCodec.userSaved(new User(id, "user" + id, "user" + id + "@recovery.com", 30, null)));
+                        }
+                    },
+                    sink -> {
+                        for (long id = 1; id <= users; id++) {
+                            sink.accept(JournalCodec.petSaved(new Pet(id, "pet" + id, id)));
+                        }
+                    }
+            );
+            try (MappedJournal journal = new MappedJournal(directory, 64 << 20, false)) {
+                for (int i = 0; i < tail; i++) {
+                    long id = ThreadLocalRandom.current().nextLong(1, users + 1);
+                    journal.userSaved(new User(id, "renamed" + i, "renamed" + i + "@recovery.com", 40, null));
+                }
+            }
+            System.out.printf(
+                    "Wrote %,d entities and %,d journal entries in %d ms%n",
+                    users * 2, tail, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - writeStart)
+            );
+
+            long start = System.nanoTime();
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootMvcPracticeApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .logStartupInfo(false)
+                    .properties("logging.level.root=WARN")
+                    .run(
+                            "--journal.enabled=true",
+                            "--journal.directory=" + directory,
+                            "--journal.snapshot-interval=1h"
+                    )) {
+                long elapsed = System.nanoTime() - start;
+
+                LongAdder restored = new LongAdder();
+                context.getBean(UserService.class).forEachUser(0, user -> restored.increment());
+                System.out.printf(
+                        "Started with %,d users in %d ms%n",
+                        restored.sum(), TimeUnit.NANOSECONDS.toMillis(elapsed)
+                );
+            }
+        } finally {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+}
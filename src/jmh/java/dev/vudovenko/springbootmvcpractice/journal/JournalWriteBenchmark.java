@@ -0,0 +1,82 @@
+package dev.vudovenko.springbootmvcpractice.journal;
+
+import dev.vudovenko.springbootmvcpractice.ServiceFixture;
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write latency through the services with the journal off, appending without waiting, and waiting for the group
+ * commit fsync. Sample mode reports percentiles; run {@link #main} to sweep 1, 8 and 32 threads, since concurrent
+ * writers are what group commit batches:
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.main=dev.vudovenko.springbootmvcpractice.journal.JournalWriteBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JournalWriteBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 8, 32};
+
+    @Param({"off", "async", "sync"})
+    public String journal;
+
+    private Path directory;
+
+    private ServiceFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-write");
+        fixture = ServiceFixture.populate(
+                100_000,
+                1,
+                "journal.enabled=" + !journal.equals("off"),
+                "journal.directory=" + directory,
+                "journal.sync-writes=" + journal.equals("sync"),
+                "journal.snapshot-interval=1h"
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public User updateUser() {
+        return fixture.userService().updateUser(fixture.randomUserId(), ServiceFixture.newUser());
+    }
+
+    @Benchmark
+    public Pet createPet() {
+        return fixture.petService().createPet(ServiceFixture.newPet(fixture.randomUserId()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            new Runner(
+                    new OptionsBuilder()
+                            .include(JournalWriteBenchmark.class.getSimpleName())
+                            .threads(threads)
+                            .resultFormat(ResultFormatType.JSON)
+                            .result("target/journal-write-%dt.json".formatted(threads))
+                            .build()
+            ).run();
+        }
+    }
+}
@@ -0,0 +1,553 @@
+package dev.vudovenko.springbootmvcpractice.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.vudovenko.springbootmvcpractice.SpringBootMvcPracticeApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Drives a weighted mix of {@link LoadOperation}s over HTTP from {@code concurrency} virtual threads and reports
+ * throughput and latency percentiles per operation.
+ * <p>
+ * By default each thread is a closed loop that sends its next request as soon as the previous one is answered. A slow
+ * answer then also delays the requests that would have been sent meanwhile, and their wait is never measured
+ * (coordinated omission), so closed-loop percentiles understate the latency of a stalled server. With {@code rate=}
+ * the run is open loop: requests are due at a fixed rate whatever the answers, each latency counts from when its
+ * request was due, and the threads only bound how many are in flight. If they all wait for answers, due requests
+ * queue up and that wait shows in the latencies; every request due within {@code duration} is still sent.
+ * <p>
+ * The application is booted in this JVM unless {@code url=} points at a running one. {@code users} owners with
+ * {@code petsPerUser} pets each are created first; requests then pick their targets from that population. Deletes,
+ * cascade deletes and stale 404s replace the entity they removed with a new one; those refill requests are not
+ * measured, only counted when they fail. A 4xx answer counts as a client error and a 5xx or I/O failure as a server
+ * error. See {@link LoadSettings} for the arguments. The report goes to {@code target/load-report.json} by default:
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.main=dev.vudovenko.springbootmvcpractice.load.LoadGenerator
+ * -Djmh.args="concurrency=128 duration=60s mix=getUser:60,movePet:30,deleteUser:10"}
+ * <p>
+ * {@link LatencyRecorder} and {@link Pacer} are kept in the test sources, so {@link LatencyRecorderTest} and
+ * {@link PacerTest} run with every {@code mvn test}.
+ */
+public final class LoadGenerator {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    private static final int PAGE_SIZE = 50;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS);
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadSettings settings = LoadSettings.parse(args);
+
+        LoadReport report;
+        if (settings.url().isBlank()) {
+            try (ConfigurableApplicationContext context = boot(settings)) {
+                report = run(settings, "http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+            }
+        } else {
+            report = run(settings, settings.url());
+        }
+
+        File output = new File(settings.output());
+        if (output.getParentFile() != null) {
+            output.getParentFile().mkdirs();
+        }
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(output, report);
+        System.out.println("Results written to " + output.getPath());
+    }
+
+    /**
+     * Devtools would relaunch {@link #main} with the application arguments, so restarts are off.
+     */
+    private static ConfigurableApplicationContext boot(LoadSettings settings) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(SpringBootMvcPracticeApplication.class)
+                .properties("server.port=0", "logging.level.dev.vudovenko=warn");
+        if (!settings.profile().isBlank()) {
+            builder.profiles(settings.profile().split(","));
+        }
+        List<String> applicationArgs = new ArrayList<>();
+        applicationArgs.add("--access-log.enabled=false");
+        applicationArgs.add("--admission.enabled=false");
+        applicationArgs.addAll(settings.applicationArgs());
+
+        return builder.run(applicationArgs.toArray(String[]::new));
+    }
+
+    private static LoadReport run(LoadSettings settings, String baseUrl) throws Exception {
+        try (
+                ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(clientThreads)
+                        .connectTimeout(REQUEST_TIMEOUT)
+                        .build()
+        ) {
+            Population population = Population.seed(client, baseUrl, settings);
+            System.out.printf(
+                    "Seeded %d users and %d pets, warming up for %s%n",
+                    settings.users(),
+                    settings.users() * settings.petsPerUser(),
+                    settings.warmup()
+            );
+
+            if (!settings.warmup().isZero()) {
+                drive(population, settings, settings.warmup());
+            }
+            Instant startedAt = Instant.now();
+            Map<LoadOperation, Stats> stats = drive(population, settings, settings.duration());
+
+            LoadReport report = LoadReport.of(settings, baseUrl, startedAt, stats);
+            report.print();
+
+            return report;
+        }
+    }
+
+    private static Map<LoadOperation, Stats> drive(
+            Population population,
+            LoadSettings settings,
+            Duration duration
+    ) throws Exception {
+        long origin = System.nanoTime();
+        long deadline = origin + duration.toNanos();
+        Mix mix = new Mix(settings.mix());
+        Pacer pacer = settings.rate() > 0 ? new Pacer(origin, settings.rate()) : null;
+        List<Future<Map<LoadOperation, Stats>>> futures = new ArrayList<>(settings.concurrency());
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < settings.concurrency(); i++) {
+                futures.add(workers.submit(
+                        () -> new Worker(population, mix, pacer, settings.asyncDeleteUser()).run(deadline)
+                ));
+            }
+        }
+
+        Map<LoadOperation, Stats> total = new EnumMap<>(LoadOperation.class);
+        for (Future<Map<LoadOperation, Stats>> future : futures) {
+            future.get().forEach((operation, stats) -> total.computeIfAbsent(operation, ignored -> new Stats())
+                    .merge(stats));
+        }
+
+        return total;
+    }
+
+    private static final class Mix {
+
+        private final LoadOperation[] operations;
+
+        private final int[] cumulativeWeights;
+
+        private Mix(Map<LoadOperation, Integer> weights) {
+            List<LoadOperation> operations = new ArrayList<>();
+            List<Integer> cumulativeWeights = new ArrayList<>();
+            int sum = 0;
+            for (Map.Entry<LoadOperation, Integer> entry : weights.entrySet()) {
+                if (entry.getValue() > 0) {
+                    sum += entry.getValue();
+                    operations.add(entry.getKey());
+                    cumulativeWeights.add(sum);
+                }
+            }
+            this.operations = operations.toArray(LoadOperation[]::new);
+            this.cumulativeWeights = cumulativeWeights.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private LoadOperation next(ThreadLocalRandom random) {
+            int point = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            int i = 0;
+            while (cumulativeWeights[i] <= point) {
+                i++;
+            }
+
+            return operations[i];
+        }
+    }
+
+    /**
+     * Ids the workers pick their targets from. A slot is overwritten whenever its entity is deleted or turns out to be
+     * gone, so the population keeps its size however the mix is weighted.
+     */
+    private record Population(HttpClient client, String baseUrl, AtomicLongArray userIds, AtomicLongArray petIds) {
+
+        private static Population seed(HttpClient client, String baseUrl, LoadSettings settings) throws Exception {
+            Population population = new Population(
+                    client,
+                    baseUrl,
+                    new AtomicLongArray(settings.users()),
+                    new AtomicLongArray(settings.users() * settings.petsPerUser())
+            );
+
+            List<String> users = new ArrayList<>();
+            for (int i = 0; i < settings.users(); i++) {
+                users.add(userJson("seedUser"));
+            }
+            population.createAll("/users", users, population.userIds);
+
+            List<String> pets = new ArrayList<>();
+            for (int i = 0; i < population.petIds.length(); i++) {
+                pets.add(petJson("seedPet", population.userIds.get(i / settings.petsPerUser())));
+            }
+            population.createAll("/pets", pets, population.petIds);
+
+            return population;
+        }
+
+        private void createAll(String path, List<String> entities, AtomicLongArray ids) throws Exception {
+            for (int from = 0; from < entities.size(); from += SEED_BATCH_SIZE) {
+                List<String> chunk = entities.subList(from, Math.min(from + SEED_BATCH_SIZE, entities.size()));
+                HttpResponse<String> response = client.send(
+                        json(baseUrl + path + "/batch", "POST", "[" + String.join(",", chunk) + "]"),
+                        HttpResponse.BodyHandlers.ofString()
+                );
+                for (JsonNode result : OBJECT_MAPPER.readTree(response.body())) {
+                    if (result.get("status").asInt() != 201) {
+                        throw new IllegalStateException("Seeding " + path + " failed: " + result);
+                    }
+                    ids.set(from + result.get("index").asInt(), result.get("entity").get("id").asLong());
+                }
+            }
+        }
+
+        private long randomUser(ThreadLocalRandom random) {
+            return userIds.get(random.nextInt(userIds.length()));
+        }
+
+        private void replaceUser(int slot) throws IOException, InterruptedException {
+            userIds.set(slot, create("/users", () -> userJson("loadUser")));
+        }
+
+        private void replacePet(int slot) throws IOException, InterruptedException {
+            petIds.set(slot, create("/pets", () -> petJson("loadPet", randomUser(ThreadLocalRandom.current()))));
+        }
+
+        /**
+         * Unmeasured. A pet may lose its freshly picked owner to a concurrent cascade delete, so a 404 is retried with
+         * a new body.
+         */
+        private long create(String path, Supplier<String> body) throws IOException, InterruptedException {
+            for (int attempt = 0; attempt < 10; attempt++) {
+                HttpResponse<String> response = client.send(
+                        json(baseUrl + path, "POST", body.get()),
+                        HttpResponse.BodyHandlers.ofString()
+                );
+                if (response.statusCode() == 201) {
+                    return idOf(response);
+                }
+                if (response.statusCode() != 404) {
+                    break;
+                }
+            }
+
+            throw new IOException("Could not create a replacement in " + path);
+        }
+    }
+
+    private static final class Worker {
+
+        private final Population population;
+
+        private final Mix mix;
+
+        /**
+         * {@code null} for a closed loop.
+         */
+        private final Pacer pacer;
+
+        private final boolean asyncDeleteUser;
+
+        private final Map<LoadOperation, Stats> stats = new EnumMap<>(LoadOperation.class);
+
+        private Worker(Population population, Mix mix, Pacer pacer, boolean asyncDeleteUser) {
+            this.population = population;
+            this.mix = mix;
+            this.pacer = pacer;
+            this.asyncDeleteUser = asyncDeleteUser;
+        }
+
+        private Map<LoadOperation, Stats> run(long deadline) {
+            while (true) {
+                long due = pacer == null ? System.nanoTime() : pacer.nextDue();
+                if (due >= deadline || !Pacer.awaitDue(due)) {
+                    break;
+                }
+
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                LoadOperation operation = mix.next(random);
+                int userSlot = random.nextInt(population.userIds.length());
+                int petSlot = random.nextInt(population.petIds.length());
+                HttpRequest request = request(operation, random, userSlot, petSlot);
+                Stats operationStats = stats.computeIfAbsent(operation, ignored -> new Stats());
+
+                long start = pacer == null ? System.nanoTime() : due;
+                HttpResponse<String> response;
+                try {
+                    response = population.client.send(request, HttpResponse.BodyHandlers.ofString());
+                    operationStats.record(System.nanoTime() - start, response.statusCode());
+                } catch (IOException e) {
+                    operationStats.record(System.nanoTime() - start, 0);
+                    continue;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+
+                try {
+                    afterResponse(operation, response, userSlot, petSlot);
+                } catch (IOException e) {
+                    operationStats.refillFailures++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            return stats;
+        }
+
+        private HttpRequest request(LoadOperation operation, ThreadLocalRandom random, int userSlot, int petSlot) {
+            String baseUrl = population.baseUrl;
+            long userId = population.userIds.get(userSlot);
+            long petId = population.petIds.get(petSlot);
+
+            return switch (operation) {
+                case GET_USER -> get(baseUrl + "/users/" + userId);
+                case GET_PET -> get(baseUrl + "/pets/" + petId);
+                case LIST_USERS -> get(baseUrl + "/users?limit=" + PAGE_SIZE + "&after=" + userId);
+                case LIST_PETS -> get(baseUrl + "/pets?limit=" + PAGE_SIZE + "&after=" + petId);
+                case CREATE_USER -> json(baseUrl + "/users", "POST", userJson("loadUser"));
+                case UPDATE_USER -> json(baseUrl + "/users/" + userId, "PUT", userJson("updatedUser"));
+                case CREATE_PET -> json(baseUrl + "/pets", "POST", petJson("loadPet", userId));
+                case MOVE_PET -> json(
+                        baseUrl + "/pets/" + petId,
+                        "PUT",
+                        petJson("movedPet", population.randomUser(random))
+                );
+                case DELETE_PET -> delete(baseUrl + "/pets/" + petId);
+                case DELETE_USER -> delete(baseUrl + "/users/" + userId + "?async=" + asyncDeleteUser);
+            };
+        }
+
+        /**
+         * Keeps the population at its size: created entities take over a slot, deleted or vanished ones are replaced.
+         */
+        private void afterResponse(
+                LoadOperation operation,
+                HttpResponse<String> response,
+                int userSlot,
+                int petSlot
+        ) throws IOException, InterruptedException {
+            int status = response.statusCode();
+            switch (operation) {
+                case CREATE_USER -> {
+                    if (status == 201) {
+                        population.userIds.set(userSlot, idOf(response));
+                    }
+                }
+                case CREATE_PET -> {
+                    if (status == 201) {
+                        population.petIds.set(petSlot, idOf(response));
+                    }
+                }
+                case DELETE_USER, GET_USER, UPDATE_USER -> {
+                    if (status < 300 && operation == LoadOperation.DELETE_USER || status == 404) {
+                        population.replaceUser(userSlot);
+                    }
+                }
+                case DELETE_PET, GET_PET, MOVE_PET -> {
+                    if (status < 300 && operation == LoadOperation.DELETE_PET || status == 404) {
+                        population.replacePet(petSlot);
+                    }
+                }
+                case LIST_USERS, LIST_PETS -> {
+                }
+            }
+        }
+    }
+
+    private static final class Stats {
+
+        private final LatencyRecorder latencies = new LatencyRecorder();
+
+        private long clientErrors;
+
+        private long serverErrors;
+
+        private long refillFailures;
+
+        /**
+         * @param status {@code 0} when no response arrived
+         */
+        private void record(long latencyNanos, int status) {
+            latencies.record(latencyNanos);
+            if (status >= 400 && status < 500) {
+                clientErrors++;
+            } else if (status == 0 || status >= 500) {
+                serverErrors++;
+            }
+        }
+
+        private void merge(Stats other) {
+            latencies.merge(other.latencies);
+            clientErrors += other.clientErrors;
+            serverErrors += other.serverErrors;
+            refillFailures += other.refillFailures;
+        }
+
+        private OperationResult toResult(Duration duration) {
+            long requests = latencies.count();
+
+            return new OperationResult(
+                    requests,
+                    clientErrors,
+                    serverErrors,
+                    refillFailures,
+                    requests / (duration.toMillis() / 1000.0),
+                    latencies.percentiles()
+            );
+        }
+    }
+
+    public record OperationResult(
+            long requests,
+            long clientErrors,
+            long serverErrors,
+            long refillFailures,
+            double requestsPerSecond,
+            LatencyRecorder.Percentiles latency
+    ) {
+    }
+
+    public record LoadReport(
+            Instant startedAt,
+            String javaVersion,
+            String target,
+            LoadSettings settings,
+            OperationResult total,
+            Map<String, OperationResult> operations
+    ) {
+
+        private static LoadReport of(
+                LoadSettings settings,
+                String target,
+                Instant startedAt,
+                Map<LoadOperation, Stats> stats
+        ) {
+            Stats total = new Stats();
+            Map<String, OperationResult> operations = new LinkedHashMap<>();
+            stats.forEach((operation, operationStats) -> {
+                total.merge(operationStats);
+                operations.put(operation.key(), operationStats.toResult(settings.duration()));
+            });
+
+            return new LoadReport(
+                    startedAt,
+                    Runtime.version().toString(),
+                    target,
+                    settings,
+                    total.toResult(settings.duration()),
+                    operations
+            );
+        }
+
+        private void print() {
+            if (settings.rate() > 0) {
+                System.out.printf(
+                        "Open loop at %.1f req/s: latencies count from when each request was due%n",
+                        settings.rate()
+                );
+            } else {
+                System.out.println(
+                        "Closed loop: latencies leave out how long requests waited behind slow answers "
+                                + "(coordinated omission); use rate= for open-loop latencies"
+                );
+            }
+            System.out.printf(
+                    "%-11s %9s %8s %8s %9s %9s %9s %9s %9s%n",
+                    "operation", "req/s", "4xx", "5xx/io", "p50 ms", "p95 ms", "p99 ms", "p999 ms", "max ms"
+            );
+            operations.forEach(LoadReport::printRow);
+            printRow("total", total);
+        }
+
+        private static void printRow(String name, OperationResult result) {
+            LatencyRecorder.Percentiles latency = result.latency();
+            System.out.printf(
+                    "%-11s %9.1f %8d %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    name,
+                    result.requestsPerSecond(),
+                    result.clientErrors(),
+                    result.serverErrors(),
+                    latency.p50Millis(),
+                    latency.p95Millis(),
+                    latency.p99Millis(),
+                    latency.p999Millis(),
+                    latency.maxMillis()
+            );
+        }
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+    }
+
+    private static HttpRequest delete(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .DELETE()
+                .build();
+    }
+
+    private static HttpRequest json(String url, String method, String body) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static long idOf(HttpResponse<String> response) throws IOException {
+        return OBJECT_MAPPER.readTree(response.body()).get("id").asLong();
+    }
+
+    private static String userJson(String name) {
+        int n = ThreadLocalRandom.current().nextInt(1_000_000);
+
+        return "{\"name\":\"" + name + "\",\"email\":\"load" + n + "@load.com\",\"age\":30}";
+    }
+
+    private static String petJson(String name, long userId) {
+        return "{\"name\":\"" + name + "\",\"userId\":" + userId + "}";
+    }
+}
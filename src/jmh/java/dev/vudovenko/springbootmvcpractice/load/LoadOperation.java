@@ -0,0 +1,50 @@
+package dev.vudovenko.springbootmvcpractice.load;
+
+import java.util.Arrays;
+
+/**
+ * One kind of request in the {@link LoadGenerator} mix. The default weights add up to 100 and approximate a
+ * read-mostly API; {@code mix=} replaces them.
+ */
+public enum LoadOperation {
+
+    GET_USER("getUser", 35),
+    GET_PET("getPet", 25),
+    LIST_USERS("listUsers", 4),
+    LIST_PETS("listPets", 4),
+    CREATE_USER("createUser", 5),
+    UPDATE_USER("updateUser", 10),
+    CREATE_PET("createPet", 5),
+    MOVE_PET("movePet", 8),
+    DELETE_PET("deletePet", 3),
+    DELETE_USER("deleteUser", 1);
+
+    private final String key;
+
+    private final int defaultWeight;
+
+    LoadOperation(String key, int defaultWeight) {
+        this.key = key;
+        this.defaultWeight = defaultWeight;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public int defaultWeight() {
+        return defaultWeight;
+    }
+
+    public static LoadOperation ofKey(String key) {
+        return Arrays.stream(values())
+                .filter(operation -> operation.key.equals(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Unknown operation %s, expected one of %s".formatted(
+                                key,
+                                Arrays.stream(values()).map(LoadOperation::key).toList()
+                        )
+                ));
+    }
+}
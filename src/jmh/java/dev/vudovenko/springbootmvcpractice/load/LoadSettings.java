@@ -0,0 +1,128 @@
+package dev.vudovenko.springbootmvcpractice.load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link LoadGenerator} arguments, given as {@code key=value}. Arguments starting with {@code --} are passed on to the
+ * application when it is booted locally, e.g. {@code --journal.enabled=true}.
+ *
+ * @param rate            requests per second over all client threads, each timed from when it was due to be sent;
+ *                        {@code 0} runs each thread as a closed loop instead
+ * @param url             an already running application to drive; blank boots one locally with {@code profile}
+ * @param asyncDeleteUser whether {@code deleteUser} reclaims the pets in the background ({@code ?async=true})
+ */
+public record LoadSettings(
+        int concurrency,
+        double rate,
+        Duration warmup,
+        Duration duration,
+        int users,
+        int petsPerUser,
+        Map<LoadOperation, Integer> mix,
+        boolean asyncDeleteUser,
+        String profile,
+        String url,
+        String output,
+        List<String> applicationArgs
+) {
+
+    public static LoadSettings parse(String... args) {
+        int concurrency = 64;
+        double rate = 0;
+        Duration warmup = Duration.ofSeconds(10);
+        Duration duration = Duration.ofSeconds(30);
+        int users = 10_000;
+        int petsPerUser = 3;
+        Map<LoadOperation, Integer> mix = defaultMix();
+        boolean asyncDeleteUser = false;
+        String profile = "";
+        String url = "";
+        String output = "target/load-report.json";
+        List<String> applicationArgs = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                applicationArgs.add(arg);
+                continue;
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected key=value but got " + arg);
+            }
+            String value = arg.substring(separator + 1);
+            switch (arg.substring(0, separator)) {
+                case "concurrency" -> concurrency = Integer.parseInt(value);
+                case "rate" -> rate = Double.parseDouble(value);
+                case "warmup" -> warmup = DurationStyle.detectAndParse(value);
+                case "duration" -> duration = DurationStyle.detectAndParse(value);
+                case "users" -> users = Integer.parseInt(value);
+                case "petsPerUser" -> petsPerUser = Integer.parseInt(value);
+                case "mix" -> mix = parseMix(value);
+                case "asyncDeleteUser" -> asyncDeleteUser = Boolean.parseBoolean(value);
+                case "profile" -> profile = value;
+                case "url" -> url = value;
+                case "output" -> output = value;
+                default -> throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+        }
+        if (concurrency < 1 || users < 1 || petsPerUser < 1 || duration.isZero()) {
+            throw new IllegalArgumentException("concurrency, users, petsPerUser and duration must be positive");
+        }
+        if (rate < 0) {
+            throw new IllegalArgumentException("rate must not be negative");
+        }
+
+        return new LoadSettings(
+                concurrency,
+                rate,
+                warmup,
+                duration,
+                users,
+                petsPerUser,
+                mix,
+                asyncDeleteUser,
+                profile,
+                url,
+                output,
+                List.copyOf(applicationArgs)
+        );
+    }
+
+    /**
+     * Parses {@code getUser:50,movePet:10,...}. Operations that are not listed are not run.
+     */
+    private static Map<LoadOperation, Integer> parseMix(String value) {
+        Map<LoadOperation, Integer> mix = new EnumMap<>(LoadOperation.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight but got " + entry);
+            }
+            int weight = Integer.parseInt(parts[1]);
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight of " + parts[0] + " must not be negative");
+            }
+            mix.put(LoadOperation.ofKey(parts[0]), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Mix must contain at least one operation with a positive weight");
+        }
+
+        return mix;
+    }
+
+    private static Map<LoadOperation, Integer> defaultMix() {
+        Map<LoadOperation, Integer> mix = new EnumMap<>(LoadOperation.class);
+        for (LoadOperation operation : LoadOperation.values()) {
+            mix.put(operation, operation.defaultWeight());
+        }
+
+        return mix;
+    }
+}
@@ -0,0 +1,76 @@
+package dev.vudovenko.springbootmvcpractice.managingID;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IDs/sec of the id strategies against a boxed counter (the previous {@code IDManager}, made safe with
+ * {@code synchronized}) and a single shared {@link AtomicLong}.
+ * Run {@link #main} to sweep 1 to 32 threads:
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.main=dev.vudovenko.springbootmvcpractice.managingID.IdGenerationBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGenerationBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32};
+
+    private Long boxedCounter;
+
+    private AtomicLong atomicCounter;
+
+    private IdGenerationStrategy sequential;
+
+    private IdGenerationStrategy snowflake;
+
+    @Setup
+    public void setUp() {
+        boxedCounter = 0L;
+        atomicCounter = new AtomicLong();
+        sequential = new SequentialIdGenerationStrategy();
+        snowflake = new SnowflakeIdGenerationStrategy(1);
+    }
+
+    @Benchmark
+    public synchronized Long synchronizedBoxedCounter() {
+        return ++boxedCounter;
+    }
+
+    @Benchmark
+    public long sharedAtomicLong() {
+        return atomicCounter.incrementAndGet();
+    }
+
+    @Benchmark
+    public long sequentialBlocks() {
+        return sequential.nextId();
+    }
+
+    @Benchmark
+    public long snowflakeBlocks() {
+        return snowflake.nextId();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            new Runner(
+                    new OptionsBuilder()
+                            .include(IdGenerationBenchmark.class.getSimpleName())
+                            .threads(threads)
+                            .resultFormat(ResultFormatType.JSON)
+                            .result("target/id-generation-%dt.json".formatted(threads))
+                            .build()
+            ).run();
+        }
+    }
+}
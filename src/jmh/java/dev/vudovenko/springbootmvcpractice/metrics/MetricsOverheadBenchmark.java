@@ -0,0 +1,78 @@
+package dev.vudovenko.springbootmvcpractice.metrics;
+
+import dev.vudovenko.springbootmvcpractice.ServiceFixture;
+import dev.vudovenko.springbootmvcpractice.SpringBootMvcPracticeApplication;
+import dev.vudovenko.springbootmvcpractice.users.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /users/{id}} over HTTP with the {@code http.server.requests} histogram recorded and with it switched off,
+ * so the difference is the recording cost on the read path. Client and server share the machine.
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.args="MetricsOverheadBenchmark -rf json -rff target/jmh-result.json"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    private static final int USERS = 10_000;
+
+    @Param({"true", "false"})
+    public boolean metrics;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private HttpRequest[] requests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringBootMvcPracticeApplication.class)
+                .logStartupInfo(false)
+                .run(
+                        "--server.port=0",
+                        "--logging.level.root=WARN",
+                        "--access-log.enabled=false",
+                        "--admission.enabled=false",
+                        "--management.observations.enable.http.server.requests=" + metrics
+                );
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+        UserService userService = context.getBean(UserService.class);
+        requests = new HttpRequest[USERS];
+        for (int i = 0; i < USERS; i++) {
+            Long id = userService.createUser(ServiceFixture.newUser()).getId();
+            requests[i] = HttpRequest.newBuilder(URI.create(baseUrl + "/users/" + id)).GET().build();
+        }
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int getUser() throws IOException, InterruptedException {
+        HttpRequest request = requests[ThreadLocalRandom.current().nextInt(USERS)];
+
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
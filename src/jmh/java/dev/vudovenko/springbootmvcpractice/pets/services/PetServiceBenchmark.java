@@ -0,0 +1,86 @@
+package dev.vudovenko.springbootmvcpractice.pets.services;
+
+import dev.vudovenko.springbootmvcpractice.ServiceFixture;
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class PetServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int storeSize;
+
+    /**
+     * Crossed with {@link #storeSize}; the combinations where it is not smaller than the store fail in setup, see
+     * {@link ServiceFixture}.
+     */
+    @Param({"1", "10", "1000", "100000"})
+    public int petsPerUser;
+
+    private ServiceFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = ServiceFixture.populate(storeSize, petsPerUser);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Pet createPet() {
+        return fixture.petService().createPet(ServiceFixture.newPet(fixture.randomUserId()));
+    }
+
+    @Benchmark
+    public Pet renamePet() {
+        Long petId = fixture.randomPetId();
+        Long ownerId = fixture.petService().getPetById(petId).getUserId();
+
+        return fixture.petService().updatePet(petId, ServiceFixture.newPet(ownerId));
+    }
+
+    @Benchmark
+    public Pet movePet() {
+        return fixture.petService().updatePet(fixture.randomPetId(), ServiceFixture.newPet(fixture.randomUserId()));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Measurement(iterations = 200, batchSize = 1)
+    @Warmup(iterations = 50, batchSize = 1)
+    public void removePetFromOwner(AttachedPet target) {
+        fixture.petService().removePetFromOwner(target.petId);
+    }
+
+    /**
+     * A pet appended to a populated owner for every invocation, so the removal has to find it behind
+     * the owner's existing pets.
+     */
+    @State(Scope.Thread)
+    public static class AttachedPet {
+
+        private Long petId;
+
+        @Setup(Level.Invocation)
+        public void attach(PetServiceBenchmark benchmark) {
+            petId = benchmark.fixture.petService()
+                    .createPet(ServiceFixture.newPet(benchmark.fixture.randomUserId()))
+                    .getId();
+        }
+
+        @TearDown(Level.Invocation)
+        public void delete(PetServiceBenchmark benchmark) {
+            benchmark.fixture.petService().deletePet(petId);
+        }
+    }
+}
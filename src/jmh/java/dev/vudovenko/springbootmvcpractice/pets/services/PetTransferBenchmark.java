@@ -0,0 +1,74 @@
+package dev.vudovenko.springbootmvcpractice.pets.services;
+
+import dev.vudovenko.springbootmvcpractice.ServiceFixture;
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moving all {@code pets} pets of one user to another, as an account merge does: with one
+ * {@link PetService#transferPets} call, and with one {@link PetService#updatePet} per pet as before it existed. Each
+ * invocation moves the pets back to the user they came from.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PetTransferBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int pets;
+
+    private ServiceFixture fixture;
+
+    private PetService petService;
+
+    private Long from;
+
+    private Long to;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = ServiceFixture.populate(0, 0);
+        petService = fixture.petService();
+        from = fixture.userService().createUser(ServiceFixture.newUser()).getId();
+        to = fixture.userService().createUser(ServiceFixture.newUser()).getId();
+        for (int i = 0; i < pets; i++) {
+            petService.createPet(ServiceFixture.newPet(from));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public List<Pet> transferPets() {
+        List<Pet> moved = petService.transferPets(from, to, null);
+        swapOwners();
+
+        return moved;
+    }
+
+    @Benchmark
+    public int updatePetByPet() {
+        List<Pet> owned = fixture.userService().getById(from).getPets();
+        for (Pet pet : owned) {
+            petService.updatePet(pet.getId(), new Pet(null, pet.getName(), to));
+        }
+        swapOwners();
+
+        return owned.size();
+    }
+
+    private void swapOwners() {
+        Long previous = from;
+        from = to;
+        to = previous;
+    }
+}
@@ -0,0 +1,119 @@
+package dev.vudovenko.springbootmvcpractice.pets.storage;
+
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup cost of the two {@link PetStore}s, each filled with {@code size} pets spread over owners a hundred apiece.
+ * A hit reads the pet's name, as serializing the pet would.
+ * <p>
+ * Run {@link #main} with store names and sizes to print, for each, the heap and direct memory the pets retain, the
+ * collection time spent while filling the store, and how long a full collection takes with the store alive:
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.main=dev.vudovenko.springbootmvcpractice.pets.storage.PetStorageBenchmark
+ * -Djmh.args="heap,off-heap 1000000,10000000" -Djmh.jvmArgs="-Xmx4g -XX:MaxDirectMemorySize=4g"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-XX:MaxDirectMemorySize=4g"})
+public class PetStorageBenchmark {
+
+    private static final int PETS_PER_OWNER = 100;
+
+    @Param({"heap", "off-heap"})
+    public String store;
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    private PetStore pets;
+
+    @Setup
+    public void setUp() {
+        pets = filledStore(store, size);
+    }
+
+    @Benchmark
+    public Object hit() {
+        return pets.findById(ThreadLocalRandom.current().nextLong(size) + 1)
+                .map(pet -> pet.getName().length());
+    }
+
+    @Benchmark
+    public Object miss() {
+        return pets.findById(ThreadLocalRandom.current().nextLong(size) + 1 + size);
+    }
+
+    private static PetStore filledStore(String store, int size) {
+        PetStore pets = switch (store) {
+            case "heap" -> new HeapPetStore();
+            case "off-heap" -> new OffHeapPetStore();
+            default -> throw new IllegalArgumentException("Unknown store " + store);
+        };
+        for (long id = 1; id <= size; id++) {
+            pets.save(new Pet(id, "pet-" + id, id / PETS_PER_OWNER + 1).withVersion(1));
+        }
+
+        return pets;
+    }
+
+    /**
+     * Prints what keeping the pets costs outside of lookups, for each store in {@code args[0]} and size in
+     * {@code args[1]}, both comma-separated.
+     */
+    public static void main(String[] args) {
+        String[] stores = args.length > 0 ? args[0].split(",") : new String[]{"heap", "off-heap"};
+        String[] sizes = args.length > 1 ? args[1].split(",") : new String[]{"1000000"};
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        for (String size : sizes) {
+            for (String store : stores) {
+                int count = Integer.parseInt(size);
+                long heapBefore = usedHeapAfterGc(memory);
+                long gcBefore = collectionMillis();
+
+                PetStore pets = filledStore(store, count);
+
+                long fillGc = collectionMillis() - gcBefore;
+                long heap = usedHeapAfterGc(memory) - heapBefore;
+                long offHeap = pets instanceof OffHeapPetStore offHeapPets ? offHeapPets.offHeapBytes() : 0;
+                long start = System.nanoTime();
+                System.gc();
+                long fullGc = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                System.out.printf(
+                        "%-8s %,12d pets: heap %,15d bytes (%5.1f per pet), direct %,15d bytes (%5.1f per pet),"
+                                + " GC while filling %,6d ms, full GC %,5d ms%n",
+                        store, pets.size(), heap, (double) heap / count, offHeap, (double) offHeap / count,
+                        fillGc, fullGc
+                );
+            }
+        }
+    }
+
+    private static long collectionMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+
+        return millis;
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
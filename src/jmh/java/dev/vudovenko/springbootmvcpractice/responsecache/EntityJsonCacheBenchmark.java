@@ -0,0 +1,53 @@
+package dev.vudovenko.springbootmvcpractice.responsecache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import dev.vudovenko.springbootmvcpractice.ServiceFixture;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Producing the body of {@code GET /users/{id}}: serializing the owner and its pets on every call, against a hit in
+ * {@link EntityJsonCache}.
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.args="EntityJsonCacheBenchmark -rf json -rff target/jmh-result.json"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityJsonCacheBenchmark {
+
+    @Param({"0", "100", "10000"})
+    public int petsPerUser;
+
+    private ServiceFixture fixture;
+
+    private EntityJsonCache jsonCache;
+
+    private User owner;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = ServiceFixture.populate(1 + petsPerUser, petsPerUser);
+        jsonCache = fixture.bean(EntityJsonCache.class);
+        owner = fixture.userService().getById(fixture.randomUserId());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return fixture.objectMapper().writeValueAsBytes(owner);
+    }
+
+    @Benchmark
+    public byte[] cached() {
+        return jsonCache.jsonOf(User.class, owner.getId(), owner.getVersion(), owner);
+    }
+}
@@ -0,0 +1,103 @@
+package dev.vudovenko.springbootmvcpractice.storage;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup cost of the email {@link HashIndex} against the linear scan it replaces.
+ * <p>
+ * Run {@link #main} to print the heap the index retains per entry:
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.main=dev.vudovenko.springbootmvcpractice.storage.HashIndexBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class HashIndexBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private String[] emails;
+
+    private HashIndex<String> index;
+
+    @Setup
+    public void setUp() {
+        emails = emailsOf(size);
+        index = indexOf(emails);
+    }
+
+    @Benchmark
+    public void indexLookup(Blackhole blackhole) {
+        index.forEach(randomEmail(), blackhole::consume);
+    }
+
+    @Benchmark
+    public long linearScan() {
+        String email = randomEmail();
+        for (int i = 0; i < emails.length; i++) {
+            if (emails[i].equals(email)) {
+                return i + 1;
+            }
+        }
+
+        return -1;
+    }
+
+    private String randomEmail() {
+        return new String(emails[ThreadLocalRandom.current().nextInt(size)]);
+    }
+
+    private static String[] emailsOf(int size) {
+        String[] emails = new String[size];
+        for (int i = 0; i < size; i++) {
+            emails[i] = "user" + i + "@benchmark.com";
+        }
+
+        return emails;
+    }
+
+    private static HashIndex<String> indexOf(String[] emails) {
+        HashIndex<String> index = new HashIndex<>(true);
+        for (int i = 0; i < emails.length; i++) {
+            index.add(emails[i], i + 1);
+        }
+
+        return index;
+    }
+
+    /**
+     * Prints the heap retained by the index itself; the key strings are shared with the stored users, so they are
+     * allocated before the baseline is taken.
+     */
+    public static void main(String[] args) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int size : new int[]{100_000, 1_000_000}) {
+            String[] emails = emailsOf(size);
+            long before = usedHeapAfterGc(memory);
+            HashIndex<String> index = indexOf(emails);
+            long after = usedHeapAfterGc(memory);
+
+            System.out.printf(
+                    "%,d entries: %,d bytes, %.1f bytes per entry%n",
+                    index.size(), after - before, (double) (after - before) / size
+            );
+        }
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,47 @@
+package dev.vudovenko.springbootmvcpractice.storage;
+
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one page of {@link EntityStore#findPage} with the cursor at the start, middle or end of the id space.
+ * The numbers should not depend on {@code depth}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class KeysetPaginationBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    public int storeSize;
+
+    @Param({"0", "0.5", "0.99"})
+    public double depth;
+
+    @Param({"100"})
+    public int limit;
+
+    private EntityStore<Pet> store;
+
+    private long cursor;
+
+    @Setup
+    public void setUp() {
+        store = new EntityStore<>();
+        for (long id = 1; id <= storeSize; id++) {
+            store.save(id, new Pet(id, "pet", 1L));
+        }
+        cursor = (long) (storeSize * depth);
+    }
+
+    @Benchmark
+    public List<Pet> findPage() {
+        return store.findPage(cursor, limit);
+    }
+}
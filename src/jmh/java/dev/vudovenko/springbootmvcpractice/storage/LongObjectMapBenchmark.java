@@ -0,0 +1,116 @@
+package dev.vudovenko.springbootmvcpractice.storage;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup cost of {@link LongObjectMap} against the {@code ConcurrentHashMap<Long, ...>} the stores used before, for ids
+ * that are stored and ids that are not. Ids are sequential from 1, as the default id strategy hands them out.
+ * <p>
+ * Run {@link #main} to print the heap each map retains per entry, values excluded:
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.main=dev.vudovenko.springbootmvcpractice.storage.LongObjectMapBenchmark
+ * -Djmh.args= -Djmh.jvmArgs=-Xmx4g}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class LongObjectMapBenchmark {
+
+    private static final Object VALUE = new Object();
+
+    @Param({"10000", "1000000", "10000000"})
+    public int size;
+
+    private ConcurrentHashMap<Long, Object> boxedMap;
+
+    private LongObjectMap<Object> primitiveMap;
+
+    @Setup
+    public void setUp() {
+        boxedMap = boxedMapOf(size);
+        primitiveMap = primitiveMapOf(size);
+    }
+
+    @Benchmark
+    public Object boxedHit() {
+        return boxedMap.get(storedId());
+    }
+
+    @Benchmark
+    public Object primitiveHit() {
+        return primitiveMap.get(storedId());
+    }
+
+    @Benchmark
+    public Object boxedMiss() {
+        return boxedMap.get(storedId() + size);
+    }
+
+    @Benchmark
+    public Object primitiveMiss() {
+        return primitiveMap.get(storedId() + size);
+    }
+
+    private long storedId() {
+        return ThreadLocalRandom.current().nextLong(size) + 1;
+    }
+
+    private static ConcurrentHashMap<Long, Object> boxedMapOf(int size) {
+        ConcurrentHashMap<Long, Object> map = new ConcurrentHashMap<>();
+        for (long id = 1; id <= size; id++) {
+            map.put(id, VALUE);
+        }
+
+        return map;
+    }
+
+    private static LongObjectMap<Object> primitiveMapOf(int size) {
+        LongObjectMap<Object> map = new LongObjectMap<>();
+        for (long id = 1; id <= size; id++) {
+            map.put(id, VALUE);
+        }
+
+        return map;
+    }
+
+    /**
+     * Prints the heap retained by each map. Every entry maps to the same value, so only keys, nodes and tables count.
+     */
+    public static void main(String[] args) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int size : new int[]{1_000_000, 10_000_000}) {
+            long before = usedHeapAfterGc(memory);
+            ConcurrentHashMap<Long, Object> boxedMap = boxedMapOf(size);
+            long boxed = usedHeapAfterGc(memory) - before;
+            System.out.printf(
+                    "ConcurrentHashMap %,d entries: %,d bytes, %.1f bytes per entry%n",
+                    boxedMap.size(), boxed, (double) boxed / size
+            );
+            boxedMap = null;
+
+            before = usedHeapAfterGc(memory);
+            LongObjectMap<Object> primitiveMap = primitiveMapOf(size);
+            long primitive = usedHeapAfterGc(memory) - before;
+            System.out.printf(
+                    "LongObjectMap     %,d entries: %,d bytes, %.1f bytes per entry%n",
+                    primitiveMap.size(), primitive, (double) primitive / size
+            );
+        }
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,116 @@
+package dev.vudovenko.springbootmvcpractice.storage;
+
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link EntityStore} with the {@code HashMap} the services used before.
+ * <p>
+ * A plain {@code HashMap} is only safe for the read-only benchmark, so the mixed workload
+ * uses {@code Collections.synchronizedMap} as the cheapest thread-safe form of it.
+ * Run {@link #main} to sweep 1, 8 and 32 threads:
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.main=dev.vudovenko.springbootmvcpractice.storage.StoreThroughputBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StoreThroughputBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 8, 32};
+
+    @Param({"100000"})
+    public int size;
+
+    @Param({"10"})
+    public int writePercent;
+
+    private Map<Long, Pet> hashMap;
+
+    private Map<Long, Pet> synchronizedHashMap;
+
+    private EntityStore<Pet> entityStore;
+
+    @Setup
+    public void setUp() {
+        hashMap = new HashMap<>();
+        entityStore = new EntityStore<>();
+        for (long id = 1; id <= size; id++) {
+            Pet pet = new Pet(id, "pet" + id, id);
+            hashMap.put(id, pet);
+            entityStore.save(id, pet);
+        }
+        synchronizedHashMap = Collections.synchronizedMap(new HashMap<>(hashMap));
+    }
+
+    @Benchmark
+    public Pet readHashMap() {
+        return hashMap.get(randomId());
+    }
+
+    @Benchmark
+    public Pet readSynchronizedHashMap() {
+        return synchronizedHashMap.get(randomId());
+    }
+
+    @Benchmark
+    public Pet readEntityStore() {
+        return entityStore.findById(randomId()).orElse(null);
+    }
+
+    @Benchmark
+    public Pet mixedSynchronizedHashMap() {
+        Long id = randomId();
+        if (isWrite()) {
+            return synchronizedHashMap.put(id, new Pet(id, "renamed", id));
+        }
+
+        return synchronizedHashMap.get(id);
+    }
+
+    @Benchmark
+    public Pet mixedEntityStore() {
+        Long id = randomId();
+        if (isWrite()) {
+            Pet pet = new Pet(id, "renamed", id);
+            entityStore.save(id, pet);
+
+            return pet;
+        }
+
+        return entityStore.findById(id).orElse(null);
+    }
+
+    private Long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, size + 1);
+    }
+
+    private boolean isWrite() {
+        return ThreadLocalRandom.current().nextInt(100) < writePercent;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            new Runner(
+                    new OptionsBuilder()
+                            .include(StoreThroughputBenchmark.class.getSimpleName())
+                            .threads(threads)
+                            .resultFormat(ResultFormatType.JSON)
+                            .result("target/store-throughput-%dt.json".formatted(threads))
+                            .build()
+            ).run();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package dev.vudovenko.springbootmvcpractice.users.service;
+
+import dev.vudovenko.springbootmvcpractice.ServiceFixture;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class UserServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int storeSize;
+
+    /**
+     * Crossed with {@link #storeSize}; the combinations where it is not smaller than the store fail in setup, see
+     * {@link ServiceFixture}.
+     */
+    @Param({"0", "10", "1000"})
+    public int petsPerUser;
+
+    private ServiceFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = ServiceFixture.populate(storeSize, petsPerUser);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public User createUser() {
+        return fixture.userService().createUser(ServiceFixture.newUser());
+    }
+
+    @Benchmark
+    public User getById() {
+        return fixture.userService().getById(fixture.randomUserId());
+    }
+
+    @Benchmark
+    public User updateUser() {
+        return fixture.userService().updateUser(fixture.randomUserId(), ServiceFixture.newUser());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Measurement(iterations = 200, batchSize = 1)
+    @Warmup(iterations = 50, batchSize = 1)
+    public void deleteUser(DeletionTarget target) {
+        fixture.userService().deleteUser(target.userId);
+    }
+
+    /**
+     * A fresh owner with {@code petsPerUser} pets for every invocation, so each delete runs the full cascade.
+     */
+    @State(Scope.Thread)
+    public static class DeletionTarget {
+
+        private Long userId;
+
+        @Setup(Level.Invocation)
+        public void createTarget(UserServiceBenchmark benchmark) {
+            UserService userService = benchmark.fixture.userService();
+            userId = userService.createUser(ServiceFixture.newUser()).getId();
+            for (int i = 0; i < benchmark.petsPerUser; i++) {
+                benchmark.fixture.petService().createPet(ServiceFixture.newPet(userId));
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package dev.vudovenko.springbootmvcpractice.validation;
+
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.validation.beanvalidation.MethodValidationInterceptor;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation cost of one create request. {@code beanValidationTwice} is how a request body used to be validated: by
+ * Bean Validation in the controller's binder and again by the method-validation proxy of a {@code @Validated} service.
+ * {@code compiledOnce} is the binder alone with {@link PayloadValidator}. Both build the binder's errors object, and
+ * both call the service.
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.args="PayloadValidationBenchmark -prof gc"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadValidationBenchmark {
+
+    @Param({"user", "pet", "invalid-user"})
+    public String payload;
+
+    private LocalValidatorFactoryBean beanValidator;
+
+    private PayloadValidator payloadValidator;
+
+    private CreateService validatedService;
+
+    private CreateService service;
+
+    private Object body;
+
+    @Setup
+    public void setUp() {
+        beanValidator = new LocalValidatorFactoryBean();
+        beanValidator.afterPropertiesSet();
+        payloadValidator = new PayloadValidator(beanValidator);
+
+        service = new CreateService();
+        ProxyFactory proxyFactory = new ProxyFactory(new CreateService());
+        proxyFactory.addAdvice(new MethodValidationInterceptor((Validator) beanValidator));
+        proxyFactory.setProxyTargetClass(true);
+        validatedService = (CreateService) proxyFactory.getProxy();
+
+        body = switch (payload) {
+            case "user" -> new User(null, "Alice", "alice@example.com", 30, List.of());
+            case "pet" -> new Pet(null, "Barsik", 1L);
+            case "invalid-user" -> new User(null, " ", "not an email", 130, null);
+            default -> throw new IllegalArgumentException("Unknown payload " + payload);
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        beanValidator.close();
+    }
+
+    @Benchmark
+    public Object beanValidationTwice() {
+        Errors errors = new BeanPropertyBindingResult(body, "body");
+        beanValidator.validate(body, errors);
+        if (errors.hasErrors()) {
+            return errors;
+        }
+
+        return validatedService.create(body);
+    }
+
+    @Benchmark
+    public Object compiledOnce() {
+        Errors errors = new BeanPropertyBindingResult(body, "body");
+        payloadValidator.validate(body, errors);
+        if (errors.hasErrors()) {
+            return errors;
+        }
+
+        return service.create(body);
+    }
+
+    /**
+     * Stands in for the services, which were {@code @Validated} and took {@code @Valid} payloads.
+     */
+    @Validated
+    public static class CreateService {
+
+        public Object create(@Valid Object payload) {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package dev.vudovenko.springbootmvcpractice.accesslog;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured access log written by a background thread to the {@code access} logger.
+ * <p>
+ * The request thread only copies ids, timings and references into a preallocated ring slot; formatting and
+ * appending happen on the writer thread. Successful requests are sampled or switched off per endpoint, errors are
+ * always kept, and events that find the ring full are counted and reported instead of waiting. While the ring stays
+ * empty the writer parks for twice as long each time, from {@link #MIN_IDLE_PARK_NANOS} up to
+ * {@link #MAX_IDLE_PARK_NANOS}, so an idle node does not wake it a thousand times a second.
+ */
+public class AccessLog implements DisposableBean {
+
+    static final String ENTITY_ID_ATTRIBUTE = AccessLog.class.getName() + ".entityId";
+
+    private static final Logger ACCESS_LOG = LogManager.getLogger("access");
+
+    private static final long MIN_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long MAX_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AccessLogProperties properties;
+
+    private final AccessLogRing ring;
+
+    private final Map<Method, AccessLogEndpoint> endpoints;
+
+    private final LongAdder dropped;
+
+    private final StringBuilder line;
+
+    private final Thread writer;
+
+    private volatile boolean running;
+
+    public AccessLog(AccessLogProperties properties) {
+        this.properties = properties;
+        this.ring = new AccessLogRing(properties.bufferSize());
+        this.endpoints = new ConcurrentHashMap<>();
+        this.dropped = new LongAdder();
+        this.line = new StringBuilder(256);
+        this.running = true;
+        this.writer = Thread.ofPlatform()
+                .name("access-log-writer")
+                .daemon()
+                .start(this::writeLoop);
+    }
+
+    public void record(HandlerMethod handler, HttpServletRequest request, int status, long durationNanos) {
+        AccessLogEndpoint endpoint = endpoints.get(handler.getMethod());
+        if (endpoint == null) {
+            endpoint = endpoints.computeIfAbsent(handler.getMethod(), method -> resolve(method, request));
+        }
+        if (status < 400 && (endpoint.verbosity() == Verbosity.OFF || !sampled(endpoint))) {
+            return;
+        }
+
+        AccessLogEvent event = ring.tryClaim();
+        if (event == null) {
+            dropped.increment();
+
+            return;
+        }
+        event.endpoint = endpoint;
+        event.epochMillis = System.currentTimeMillis();
+        event.durationNanos = durationNanos;
+        event.status = status;
+        event.entityId = entityIdOf(request);
+        if (endpoint.verbosity() == Verbosity.DETAILED) {
+            event.query = request.getQueryString();
+            event.remoteAddress = request.getRemoteAddr();
+        }
+        ring.publish(event);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join();
+    }
+
+    private AccessLogEndpoint resolve(Method method, HttpServletRequest request) {
+        String name = method.getName();
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+        return new AccessLogEndpoint(
+                name,
+                request.getMethod(),
+                route == null ? request.getRequestURI() : route.toString(),
+                properties.verbosityOf(name),
+                properties.sampleRateOf(name)
+        );
+    }
+
+    private static boolean sampled(AccessLogEndpoint endpoint) {
+        return endpoint.sampleRate() >= 1.0 || ThreadLocalRandom.current().nextDouble() < endpoint.sampleRate();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object entityIdOf(HttpServletRequest request) {
+        Object entityId = request.getAttribute(ENTITY_ID_ATTRIBUTE);
+        if (entityId != null) {
+            return entityId;
+        }
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+
+        return variables == null ? null : ((Map<String, String>) variables).get("id");
+    }
+
+    private void writeLoop() {
+        long reportedDrops = 0;
+        long idleParkNanos = MIN_IDLE_PARK_NANOS;
+        while (true) {
+            AccessLogEvent event = ring.poll();
+            if (event != null) {
+                write(event);
+                ring.release(event);
+                idleParkNanos = MIN_IDLE_PARK_NANOS;
+                continue;
+            }
+
+            long drops = dropped.sum();
+            if (drops != reportedDrops) {
+                ACCESS_LOG.warn("access_log_dropped={}", drops - reportedDrops);
+                reportedDrops = drops;
+            }
+            if (!running) {
+                return;
+            }
+            LockSupport.parkNanos(idleParkNanos);
+            idleParkNanos = Math.min(idleParkNanos * 2, MAX_IDLE_PARK_NANOS);
+        }
+    }
+
+    private void write(AccessLogEvent event) {
+        AccessLogEndpoint endpoint = event.endpoint;
+        line.setLength(0);
+        line.append("ts=");
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(event.epochMillis), line);
+        line.append(" endpoint=").append(endpoint.name())
+                .append(" method=").append(endpoint.httpMethod())
+                .append(" route=").append(endpoint.route());
+        if (event.entityId != null) {
+            line.append(" id=").append(event.entityId);
+        }
+        line.append(" status=").append(event.status)
+                .append(" took_us=").append(TimeUnit.NANOSECONDS.toMicros(event.durationNanos));
+        if (endpoint.verbosity() == Verbosity.DETAILED) {
+            if (event.query != null) {
+                line.append(" query=\"").append(event.query).append('"');
+            }
+            line.append(" remote=").append(event.remoteAddress);
+        }
+
+        ACCESS_LOG.info(line);
+    }
+}
@@ -0,0 +1,31 @@
+package dev.vudovenko.springbootmvcpractice.accesslog;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(AccessLogProperties.class)
+@ConditionalOnProperty(name = "access-log.enabled", havingValue = "true", matchIfMissing = true)
+public class AccessLogConfiguration {
+
+    @Bean
+    public AccessLog accessLog(AccessLogProperties properties) {
+        return new AccessLog(properties);
+    }
+
+    @Bean
+    public WebMvcConfigurer accessLogInterceptorConfigurer(AccessLog accessLog) {
+        return new WebMvcConfigurer() {
+
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new AccessLogInterceptor(accessLog))
+                        .addPathPatterns("/users/**", "/pets/**");
+            }
+        };
+    }
+}
@@ -0,0 +1,7 @@
+package dev.vudovenko.springbootmvcpractice.accesslog;
+
+/**
+ * A handler method with its route and settings, resolved once and reused for every request.
+ */
+record AccessLogEndpoint(String name, String httpMethod, String route, Verbosity verbosity, double sampleRate) {
+}
@@ -0,0 +1,32 @@
+package dev.vudovenko.springbootmvcpractice.accesslog;
+
+/**
+ * Mutable ring slot, reused for every request that lands on it, so recording allocates nothing.
+ */
+final class AccessLogEvent {
+
+    volatile long published = -1;
+
+    long seq;
+
+    AccessLogEndpoint endpoint;
+
+    long epochMillis;
+
+    long durationNanos;
+
+    int status;
+
+    Object entityId;
+
+    String query;
+
+    String remoteAddress;
+
+    void clear() {
+        endpoint = null;
+        entityId = null;
+        query = null;
+        remoteAddress = null;
+    }
+}
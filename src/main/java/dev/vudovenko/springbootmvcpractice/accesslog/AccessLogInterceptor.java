@@ -0,0 +1,41 @@
+package dev.vudovenko.springbootmvcpractice.accesslog;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Times controller calls for the {@link AccessLog}. Asynchronous requests are timed until their final dispatch
+ * completes, since the start time survives the redispatch.
+ */
+@RequiredArgsConstructor
+public class AccessLogInterceptor implements HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = AccessLogInterceptor.class.getName() + ".start";
+
+    private final AccessLog accessLog;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod && request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            Object handler,
+            Exception ex
+    ) {
+        if (handler instanceof HandlerMethod handlerMethod
+                && request.getAttribute(START_ATTRIBUTE) instanceof Long start) {
+            accessLog.record(handlerMethod, request, response.getStatus(), System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package dev.vudovenko.springbootmvcpractice.accesslog;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+/**
+ * Access log settings; {@code endpoints} overrides the verbosity or sample rate per handler method name,
+ * e.g. {@code access-log.endpoints.streamUsers.verbosity=off}.
+ */
+@ConfigurationProperties(prefix = "access-log")
+public record AccessLogProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("basic") Verbosity verbosity,
+        @DefaultValue("1.0") double sampleRate,
+        @DefaultValue("8192") int bufferSize,
+        Map<String, Endpoint> endpoints
+) {
+
+    public record Endpoint(Verbosity verbosity, Double sampleRate) {
+    }
+
+    Verbosity verbosityOf(String endpoint) {
+        Endpoint settings = endpoints == null ? null : endpoints.get(endpoint);
+
+        return settings == null || settings.verbosity() == null ? verbosity : settings.verbosity();
+    }
+
+    double sampleRateOf(String endpoint) {
+        Endpoint settings = endpoints == null ? null : endpoints.get(endpoint);
+
+        return settings == null || settings.sampleRate() == null ? sampleRate : settings.sampleRate();
+    }
+}
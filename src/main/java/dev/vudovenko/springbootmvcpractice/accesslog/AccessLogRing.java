@@ -0,0 +1,67 @@
+package dev.vudovenko.springbootmvcpractice.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded multi-producer, single-consumer ring of preallocated events.
+ * <p>
+ * Producers claim a sequence with a CAS and publish the slot by writing its sequence; when the consumer is a full
+ * ring behind, claims fail instead of blocking, so a slow log never slows down requests.
+ */
+final class AccessLogRing {
+
+    private final AccessLogEvent[] slots;
+
+    private final int mask;
+
+    private final AtomicLong claimed;
+
+    private volatile long consumed;
+
+    AccessLogRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AccessLogEvent[size];
+        this.mask = size - 1;
+        this.claimed = new AtomicLong();
+        for (int i = 0; i < size; i++) {
+            slots[i] = new AccessLogEvent();
+        }
+    }
+
+    /**
+     * Returns a slot to fill and {@link #publish}, or {@code null} if the ring is full.
+     */
+    AccessLogEvent tryClaim() {
+        while (true) {
+            long seq = claimed.get();
+            if (seq - consumed >= slots.length) {
+                return null;
+            }
+            if (claimed.compareAndSet(seq, seq + 1)) {
+                AccessLogEvent event = slots[(int) seq & mask];
+                event.seq = seq;
+
+                return event;
+            }
+        }
+    }
+
+    void publish(AccessLogEvent event) {
+        event.published = event.seq;
+    }
+
+    /**
+     * Returns the next published event, or {@code null} if there is none yet; call {@link #release} when done.
+     */
+    AccessLogEvent poll() {
+        long next = consumed;
+        AccessLogEvent event = slots[(int) next & mask];
+
+        return event.published == next ? event : null;
+    }
+
+    void release(AccessLogEvent event) {
+        event.clear();
+        consumed = event.seq + 1;
+    }
+}
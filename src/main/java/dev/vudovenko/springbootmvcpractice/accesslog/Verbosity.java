@@ -0,0 +1,19 @@
+package dev.vudovenko.springbootmvcpractice.accesslog;
+
+public enum Verbosity {
+
+    /**
+     * Only failed requests are logged for the endpoint, as with {@link #BASIC}.
+     */
+    OFF,
+
+    /**
+     * Route, entity id, status and duration.
+     */
+    BASIC,
+
+    /**
+     * Also the query string and the client address.
+     */
+    DETAILED
+}
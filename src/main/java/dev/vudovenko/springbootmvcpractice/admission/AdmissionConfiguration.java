@@ -0,0 +1,58 @@
+package dev.vudovenko.springbootmvcpractice.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.GlobalExceptionHandler;
+import dev.vudovenko.springbootmvcpractice.partitioning.Partitions;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Admission control for the {@code /users} and {@code /pets} API; see {@link AdmissionControl}.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(AdmissionProperties.class)
+@ConditionalOnProperty(name = "admission.enabled", havingValue = "true")
+public class AdmissionConfiguration {
+
+    @Bean
+    public AdmissionControl admissionControl(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        return new AdmissionControl(properties, meterRegistry);
+    }
+
+    /**
+     * Runs ahead of partition routing, so a request turned away is not forwarded, and after the request observation,
+     * so rejections show up in {@code http.server.requests}.
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<AdmissionFilter> admissionFilter(
+            AdmissionControl admissionControl,
+            Partitions partitions,
+            GlobalExceptionHandler exceptionHandler,
+            ObjectMapper objectMapper
+    ) {
+        FilterRegistrationBean<AdmissionFilter> registration = new FilterRegistrationBean<>(
+                new AdmissionFilter(admissionControl, partitions, exceptionHandler, objectMapper)
+        );
+        registration.addUrlPatterns("/users/*", "/pets/*");
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public ReactiveAdmissionFilter reactiveAdmissionFilter(
+            AdmissionControl admissionControl,
+            GlobalExceptionHandler exceptionHandler,
+            ObjectMapper objectMapper
+    ) {
+        return new ReactiveAdmissionFilter(admissionControl, exceptionHandler, objectMapper);
+    }
+}
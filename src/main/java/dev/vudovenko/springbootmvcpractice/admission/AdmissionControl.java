@@ -0,0 +1,153 @@
+package dev.vudovenko.springbootmvcpractice.admission;
+
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Decides whether a {@code /users} or {@code /pets} request is served, before any work is done for it. A request is
+ * turned away if its client has used up its {@link ClientRateLimiter rate}, or if the node already serves as many
+ * requests of its {@link RequestClass} as {@code admission.max-concurrent-*} allows.
+ * <p>
+ * The client's rate is checked first, so a client that floods the node is turned away without touching the counters
+ * other clients share. A client admitted by its rate but turned away by a concurrency limit has still spent a token.
+ * Admitting a request takes one compare-and-set on the client's bucket and one on the counter of its class, and
+ * allocates nothing. Every admitted request must be {@link #release released} when it completes.
+ */
+public class AdmissionControl {
+
+    private static final Duration OVERLOADED_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private static final RequestClass[] REQUEST_CLASSES = RequestClass.values();
+
+    /**
+     * Spacing of the in-flight counters, a cache line apart so the classes do not contend for one line.
+     */
+    private static final int COUNTER_STRIDE = 16;
+
+    private final ClientRateLimiter rateLimiter;
+
+    private final int[] maxConcurrent;
+
+    private final AtomicIntegerArray inFlight;
+
+    private final String[] overloadedMessages;
+
+    private final Counter[] rateLimited;
+
+    private final Counter[] overloaded;
+
+    private final String clientHeader;
+
+    private final Set<String> trustedProxies;
+
+    public AdmissionControl(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.rateLimiter = new ClientRateLimiter(
+                properties.clientRate(),
+                properties.clientBurst(),
+                properties.clientSlots()
+        );
+        this.clientHeader = properties.clientHeader();
+        this.trustedProxies = properties.trustedProxies().stream()
+                .map(AdmissionControl::hostAddressOf)
+                .collect(Collectors.toUnmodifiableSet());
+        this.maxConcurrent = new int[REQUEST_CLASSES.length];
+        this.inFlight = new AtomicIntegerArray(REQUEST_CLASSES.length * COUNTER_STRIDE);
+        this.overloadedMessages = new String[REQUEST_CLASSES.length];
+        this.rateLimited = new Counter[REQUEST_CLASSES.length];
+        this.overloaded = new Counter[REQUEST_CLASSES.length];
+
+        for (RequestClass requestClass : REQUEST_CLASSES) {
+            int i = requestClass.ordinal();
+            String name = requestClass.name().toLowerCase(Locale.ROOT).replace('_', '-');
+            maxConcurrent[i] = properties.maxConcurrent(requestClass);
+            overloadedMessages[i] = "More than " + maxConcurrent[i] + " concurrent " + name + " requests";
+            rateLimited[i] = rejectedCounter(meterRegistry, name, "rate-limit");
+            overloaded[i] = rejectedCounter(meterRegistry, name, "concurrency");
+            int counter = i * COUNTER_STRIDE;
+            Gauge.builder("admission.in-flight", inFlight, counters -> counters.get(counter))
+                    .description("Admitted requests not completed yet")
+                    .tag("class", name)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Admits a request of {@code requestClass} from {@code client}.
+     *
+     * @throws TooManyRequestsException if the request is turned away
+     */
+    public void admit(RequestClass requestClass, CharSequence client) {
+        int i = requestClass.ordinal();
+        long waitNanos = rateLimiter.acquire(client, System.nanoTime());
+        if (waitNanos > 0) {
+            rateLimited[i].increment();
+            throw new TooManyRequestsException(
+                    "Request rate limit of the client exceeded",
+                    Duration.ofNanos(waitNanos)
+            );
+        }
+
+        int counter = i * COUNTER_STRIDE;
+        int limit = maxConcurrent[i];
+        while (true) {
+            int current = inFlight.get(counter);
+            if (current >= limit) {
+                overloaded[i].increment();
+                throw new TooManyRequestsException(overloadedMessages[i], OVERLOADED_RETRY_AFTER);
+            }
+            if (inFlight.compareAndSet(counter, current, current + 1)) {
+                return;
+            }
+        }
+    }
+
+    public void release(RequestClass requestClass) {
+        inFlight.decrementAndGet(requestClass.ordinal() * COUNTER_STRIDE);
+    }
+
+    /**
+     * The client a request from {@code remoteAddress} is counted against: the address itself, or the value of
+     * {@code admission.client-header}, read by {@code header} only when the address is one of
+     * {@code admission.trusted-proxies}. Anyone else could spread a flood over many buckets by naming itself anew.
+     */
+    public String clientOf(String remoteAddress, UnaryOperator<String> header) {
+        if (trustedProxies.contains(remoteAddress)) {
+            String client = header.apply(clientHeader);
+            if (client != null && !client.isEmpty()) {
+                return client;
+            }
+        }
+
+        return remoteAddress;
+    }
+
+    /**
+     * {@code address} the way the servers report the address of a request, {@code 0:0:0:0:0:0:0:1} for {@code ::1}.
+     */
+    private static String hostAddressOf(String address) {
+        try {
+            return InetAddress.getByName(address).getHostAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("admission.trusted-proxies has an unknown address " + address, e);
+        }
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String requestClass, String reason) {
+        return Counter.builder("admission.rejected")
+                .description("Requests turned away by admission control")
+                .tag("class", requestClass)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
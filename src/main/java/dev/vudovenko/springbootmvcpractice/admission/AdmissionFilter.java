@@ -0,0 +1,119 @@
+package dev.vudovenko.springbootmvcpractice.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.GlobalExceptionHandler;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.dto.ErrorMessageResponse;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.TooManyRequestsException;
+import dev.vudovenko.springbootmvcpractice.partitioning.PartitionRoutingFilter;
+import dev.vudovenko.springbootmvcpractice.partitioning.Partitions;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Puts {@link AdmissionControl} in front of the servlet controllers. A request turned away is answered with
+ * {@code 429} right here, in the usual error body. An admitted request holds its place until it completes, which for
+ * an asynchronous one is when its response is finished.
+ * <p>
+ * In a partitioned cluster a request is admitted by the node that receives it, and not again by the node it is
+ * forwarded to, which knows it from the {@code partitions.secret} it carries. Without that secret, or with a wrong
+ * one, a request is admitted like any other, whatever partition headers it has.
+ */
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private final AdmissionControl admissionControl;
+
+    private final Partitions partitions;
+
+    private final GlobalExceptionHandler exceptionHandler;
+
+    private final ObjectMapper objectMapper;
+
+    AdmissionFilter(
+            AdmissionControl admissionControl,
+            Partitions partitions,
+            GlobalExceptionHandler exceptionHandler,
+            ObjectMapper objectMapper
+    ) {
+        this.admissionControl = admissionControl;
+        this.partitions = partitions;
+        this.exceptionHandler = exceptionHandler;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain chain
+    ) throws ServletException, IOException {
+        if (partitions.isForwardedByNode(request.getHeader(PartitionRoutingFilter.SECRET_HEADER))) {
+            chain.doFilter(request, response);
+
+            return;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        RequestClass requestClass = RequestClass.of(request.getMethod(), path);
+        String client = admissionControl.clientOf(request.getRemoteAddr(), request::getHeader);
+        try {
+            admissionControl.admit(requestClass, client);
+        } catch (TooManyRequestsException e) {
+            ResponseEntity<ErrorMessageResponse> error = exceptionHandler.toErrorResponse(e);
+            response.setStatus(error.getStatusCode().value());
+            error.getHeaders().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), error.getBody());
+
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(requestClass));
+            } else {
+                admissionControl.release(requestClass);
+            }
+        }
+    }
+
+    /**
+     * Releases an asynchronous request's place. The container always completes a request, also after an error or a
+     * timeout.
+     */
+    private final class ReleaseOnComplete implements AsyncListener {
+
+        private final RequestClass requestClass;
+
+        private ReleaseOnComplete(RequestClass requestClass) {
+            this.requestClass = requestClass;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            admissionControl.release(requestClass);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
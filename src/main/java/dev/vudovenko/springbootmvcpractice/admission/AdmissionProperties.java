@@ -0,0 +1,34 @@
+package dev.vudovenko.springbootmvcpractice.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * Admission control settings. A client is named by the address its request comes from, or by {@code client-header}
+ * on requests that come from one of the {@code trusted-proxies} addresses, and may send {@code client-rate} requests
+ * a second on average, in bursts of up to {@code client-burst}. Clients share {@code client-slots} buckets. The
+ * {@code max-concurrent-*} limits apply to the node as a whole.
+ */
+@ConfigurationProperties(prefix = "admission")
+public record AdmissionProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("X-Client-Id") String clientHeader,
+        @DefaultValue List<String> trustedProxies,
+        @DefaultValue("1000") double clientRate,
+        @DefaultValue("2000") int clientBurst,
+        @DefaultValue("65536") int clientSlots,
+        @DefaultValue("256") int maxConcurrentReads,
+        @DefaultValue("64") int maxConcurrentWrites,
+        @DefaultValue("4") int maxConcurrentCascadeDeletes
+) {
+
+    int maxConcurrent(RequestClass requestClass) {
+        return switch (requestClass) {
+            case READ -> maxConcurrentReads;
+            case WRITE -> maxConcurrentWrites;
+            case CASCADE_DELETE -> maxConcurrentCascadeDeletes;
+        };
+    }
+}
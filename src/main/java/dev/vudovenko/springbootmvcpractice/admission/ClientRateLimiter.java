@@ -0,0 +1,83 @@
+package dev.vudovenko.springbootmvcpractice.admission;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket per client, each kept in a single {@code long} and updated with one compare-and-set, so deciding
+ * takes no lock and allocates nothing.
+ * <p>
+ * A bucket holds the time at which it will be full again, a token being worth {@code 1 / rate} seconds. A request is
+ * admitted, and takes a token, if that time is less than a full bucket ahead of now. A rejected request changes
+ * nothing, so a client flooding the node only reads its bucket.
+ * <p>
+ * Clients are hashed to a fixed number of buckets with a seed chosen at startup, so memory does not grow with the
+ * number of clients and names picked in advance do not land in a known bucket. Clients that share a bucket share
+ * its tokens.
+ */
+final class ClientRateLimiter {
+
+    private static final VarHandle BUCKETS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] buckets;
+
+    private final int mask;
+
+    /**
+     * Nanoseconds a token is worth.
+     */
+    private final long tokenNanos;
+
+    /**
+     * How far ahead of now a bucket may be full again and still have a token left.
+     */
+    private final long burstNanos;
+
+    private final long seed;
+
+    ClientRateLimiter(double rate, int burst, int slots) {
+        if (rate <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Client rate and burst must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(2, slots) - 1) << 1;
+        this.buckets = new long[size];
+        this.mask = size - 1;
+        this.tokenNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+        this.burstNanos = tokenNanos * (burst - 1);
+        this.seed = ThreadLocalRandom.current().nextLong();
+        Arrays.fill(buckets, System.nanoTime());
+    }
+
+    /**
+     * Takes a token from {@code client}'s bucket.
+     *
+     * @param now {@link System#nanoTime()}
+     * @return {@code 0} if the request is admitted, otherwise the nanoseconds until the bucket has a token again
+     */
+    long acquire(CharSequence client, long now) {
+        int bucket = (int) hash(client) & mask;
+        while (true) {
+            long fullAt = (long) BUCKETS.getVolatile(buckets, bucket);
+            long start = fullAt - now > 0 ? fullAt : now;
+            long ahead = start - now;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            if (BUCKETS.compareAndSet(buckets, bucket, fullAt, start + tokenNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    private long hash(CharSequence client) {
+        long hash = seed;
+        for (int i = 0; i < client.length(); i++) {
+            hash = (hash ^ client.charAt(i)) * 0x9E3779B97F4A7C15L;
+        }
+
+        return hash ^ (hash >>> 32);
+    }
+}
@@ -0,0 +1,93 @@
+package dev.vudovenko.springbootmvcpractice.admission;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.GlobalExceptionHandler;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.dto.ErrorMessageResponse;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.TooManyRequestsException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * {@link AdmissionFilter} for the reactive controllers. An admitted request holds its place until its response is
+ * written or the exchange is cancelled.
+ */
+public class ReactiveAdmissionFilter implements WebFilter {
+
+    private final AdmissionControl admissionControl;
+
+    private final GlobalExceptionHandler exceptionHandler;
+
+    private final ObjectMapper objectMapper;
+
+    ReactiveAdmissionFilter(
+            AdmissionControl admissionControl,
+            GlobalExceptionHandler exceptionHandler,
+            ObjectMapper objectMapper
+    ) {
+        this.admissionControl = admissionControl;
+        this.exceptionHandler = exceptionHandler;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().pathWithinApplication().value();
+        if (!isAdmitted(path)) {
+            return chain.filter(exchange);
+        }
+
+        RequestClass requestClass = RequestClass.of(request.getMethod().name(), path);
+        try {
+            admissionControl.admit(requestClass, clientOf(request));
+        } catch (TooManyRequestsException e) {
+            return reject(exchange.getResponse(), e);
+        }
+
+        return chain.filter(exchange).doFinally(signal -> admissionControl.release(requestClass));
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response, TooManyRequestsException e) {
+        ResponseEntity<ErrorMessageResponse> error = exceptionHandler.toErrorResponse(e);
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(error.getBody());
+        } catch (JsonProcessingException jsonException) {
+            return Mono.error(jsonException);
+        }
+        response.setStatusCode(error.getStatusCode());
+        response.getHeaders().addAll(error.getHeaders());
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private String clientOf(ServerHttpRequest request) {
+        InetSocketAddress address = request.getRemoteAddress();
+        String remoteAddress = address == null ? ""
+                : address.getAddress() == null ? address.getHostString()
+                : address.getAddress().getHostAddress();
+
+        return admissionControl.clientOf(remoteAddress, request.getHeaders()::getFirst);
+    }
+
+    /**
+     * The paths the servlet filter is mapped to.
+     */
+    private static boolean isAdmitted(String path) {
+        return isUnder(path, "/users") || isUnder(path, "/pets");
+    }
+
+    private static boolean isUnder(String path, String prefix) {
+        return path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/');
+    }
+}
@@ -0,0 +1,32 @@
+package dev.vudovenko.springbootmvcpractice.admission;
+
+/**
+ * The kinds of {@code /users} and {@code /pets} requests admission control limits separately, so a flood of one kind
+ * cannot take the capacity the others need.
+ */
+public enum RequestClass {
+
+    READ,
+    WRITE,
+
+    /**
+     * Deleting a user, which deletes all of its pets too.
+     */
+    CASCADE_DELETE;
+
+    private static final String USER_PATH_PREFIX = "/users/";
+
+    public static RequestClass of(String method, String path) {
+        return switch (method) {
+            case "GET", "HEAD", "OPTIONS" -> READ;
+            case "DELETE" -> isSingleUser(path) ? CASCADE_DELETE : WRITE;
+            default -> WRITE;
+        };
+    }
+
+    private static boolean isSingleUser(String path) {
+        return path.startsWith(USER_PATH_PREFIX)
+                && path.length() > USER_PATH_PREFIX.length()
+                && path.indexOf('/', USER_PATH_PREFIX.length()) < 0;
+    }
+}
@@ -0,0 +1,21 @@
+package dev.vudovenko.springbootmvcpractice.batch;
+
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.GlobalExceptionHandler;
+import dev.vudovenko.springbootmvcpractice.validation.PayloadValidator;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(BatchProperties.class)
+public class BatchConfiguration {
+
+    @Bean
+    public BatchProcessor batchProcessor(
+            PayloadValidator validator,
+            GlobalExceptionHandler exceptionHandler,
+            BatchProperties properties
+    ) {
+        return new BatchProcessor(validator, exceptionHandler, properties);
+    }
+}
@@ -0,0 +1,24 @@
+package dev.vudovenko.springbootmvcpractice.batch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.dto.ErrorMessageResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemResult<T>(
+
+        int index,
+        int status,
+        T entity,
+        ErrorMessageResponse error
+) {
+
+    public static <T> BatchItemResult<T> created(int index, T entity) {
+        return new BatchItemResult<>(index, HttpStatus.CREATED.value(), entity, null);
+    }
+
+    public static <T> BatchItemResult<T> failed(int index, ResponseEntity<ErrorMessageResponse> error) {
+        return new BatchItemResult<>(index, error.getStatusCode().value(), null, error.getBody());
+    }
+}
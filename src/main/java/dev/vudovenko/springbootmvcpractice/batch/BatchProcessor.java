@@ -0,0 +1,110 @@
+package dev.vudovenko.springbootmvcpractice.batch;
+
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.GlobalExceptionHandler;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.BatchTooLargeException;
+import dev.vudovenko.springbootmvcpractice.validation.PayloadValidator;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindException;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.MapBindingResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Validates a batch in one pass, hands the valid items to a bulk service call and renders a result per input index.
+ * Errors are rendered by {@link GlobalExceptionHandler}, so every item fails exactly as the single-item endpoint would.
+ * A batch of more than {@link BatchProperties#maxSize()} items fails as a whole.
+ */
+public class BatchProcessor {
+
+    private final PayloadValidator validator;
+
+    private final GlobalExceptionHandler exceptionHandler;
+
+    private final int maxSize;
+
+    public BatchProcessor(
+            PayloadValidator validator,
+            GlobalExceptionHandler exceptionHandler,
+            BatchProperties properties
+    ) {
+        this.validator = validator;
+        this.exceptionHandler = exceptionHandler;
+        this.maxSize = properties.maxSize();
+    }
+
+    /**
+     * Throws {@link BatchTooLargeException} if {@code items} is over the limit. For callers that split a batch before
+     * processing its parts, such as by partition.
+     */
+    public void requireWithinLimit(List<?> items) {
+        if (items.size() > maxSize) {
+            throw new BatchTooLargeException(
+                    "Batch of %d items exceeds the limit of %d".formatted(items.size(), maxSize)
+            );
+        }
+    }
+
+    public <T> ResponseEntity<List<BatchItemResult<T>>> process(
+            List<T> items,
+            String objectName,
+            Function<List<T>, BatchResult<T>> bulkCreate
+    ) {
+        requireWithinLimit(items);
+
+        @SuppressWarnings("unchecked")
+        BatchItemResult<T>[] results = new BatchItemResult[items.size()];
+        List<T> validItems = new ArrayList<>(items.size());
+        int[] validIndices = new int[items.size()];
+
+        for (int i = 0; i < items.size(); i++) {
+            BindingResult errors = validate(items.get(i), objectName);
+            if (errors.hasErrors()) {
+                results[i] = BatchItemResult.failed(i, exceptionHandler.toErrorResponse(new BindException(errors)));
+            } else {
+                validIndices[validItems.size()] = i;
+                validItems.add(items.get(i));
+            }
+        }
+
+        boolean allCreated = validItems.size() == items.size();
+        if (!validItems.isEmpty()) {
+            BatchResult<T> created = bulkCreate.apply(validItems);
+            for (int position = 0; position < created.size(); position++) {
+                int index = validIndices[position];
+                RuntimeException failure = created.failureAt(position);
+                if (failure == null) {
+                    results[index] = BatchItemResult.created(index, created.itemAt(position));
+                } else {
+                    results[index] = BatchItemResult.failed(index, exceptionHandler.toErrorResponse(failure));
+                    allCreated = false;
+                }
+            }
+        }
+
+        return ResponseEntity
+                .status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+                .body(Arrays.asList(results));
+    }
+
+    private BindingResult validate(Object item, String objectName) {
+        if (item == null) {
+            BindingResult errors = new MapBindingResult(new HashMap<>(), objectName);
+            errors.addError(new FieldError(objectName, objectName, "must not be null"));
+
+            return errors;
+        }
+
+        BindingResult errors = new BeanPropertyBindingResult(item, objectName);
+        validator.validate(item, errors);
+
+        return errors;
+    }
+}
@@ -0,0 +1,14 @@
+package dev.vudovenko.springbootmvcpractice.batch;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Batch create settings. A batch of more than {@code maxSize} items is rejected as a whole with {@code 413}, before
+ * any of it is validated or stored.
+ */
+@ConfigurationProperties(prefix = "batch")
+public record BatchProperties(
+        @DefaultValue("1000") int maxSize
+) {
+}
@@ -0,0 +1,40 @@
+package dev.vudovenko.springbootmvcpractice.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk service call: the item stored for each input item that was created, and the failure of each item
+ * that was rejected.
+ */
+public class BatchResult<T> {
+
+    private final List<T> items;
+
+    private final RuntimeException[] failures;
+
+    public BatchResult(List<T> items) {
+        this.items = new ArrayList<>(items);
+        this.failures = new RuntimeException[items.size()];
+    }
+
+    public void created(int position, T item) {
+        items.set(position, item);
+    }
+
+    public void fail(int position, RuntimeException failure) {
+        failures[position] = failure;
+    }
+
+    public T itemAt(int position) {
+        return items.get(position);
+    }
+
+    public RuntimeException failureAt(int position) {
+        return failures[position];
+    }
+
+    public int size() {
+        return items.size();
+    }
+}
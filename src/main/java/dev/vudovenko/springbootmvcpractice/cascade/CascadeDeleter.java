@@ -0,0 +1,103 @@
+package dev.vudovenko.springbootmvcpractice.cascade;
+
+import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes the pets of a user being deleted, in one pass over the user's pet ids. A user with many pets can instead
+ * be tombstoned: its pets are hidden at once and deleted on a background thread a chunk at a time, each chunk under
+ * the owner lock, so neither the request thread nor other writers wait for the whole cascade.
+ * <p>
+ * The user's deletion is journaled before the pets of a tombstoned user. If the node stops before they are all
+ * reclaimed, the restore drops them as pets without an owner.
+ */
+@Log4j2
+@Component
+public class CascadeDeleter implements DisposableBean {
+
+    private final PetService petService;
+
+    private final Tombstones tombstones;
+
+    private final int asyncThreshold;
+
+    private final int chunkSize;
+
+    private final ExecutorService reclaimer;
+
+    public CascadeDeleter(
+            PetService petService,
+            Tombstones tombstones,
+            @Value("${users.cascade-delete.async-threshold:10000}") int asyncThreshold,
+            @Value("${users.cascade-delete.chunk-size:4096}") int chunkSize
+    ) {
+        this.petService = petService;
+        this.tombstones = tombstones;
+        this.asyncThreshold = asyncThreshold;
+        this.chunkSize = chunkSize;
+        this.reclaimer = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("pet-reclaimer").daemon().factory()
+        );
+    }
+
+    /**
+     * Whether an owner with {@code pets} pets is tombstoned even when the caller did not ask for it.
+     */
+    public boolean defers(int pets) {
+        return pets > asyncThreshold;
+    }
+
+    /**
+     * Deletes the pets with {@code petIds} now. The caller holds the owner lock.
+     */
+    public void deleteNow(Long ownerId, long[] petIds) {
+        petService.deletePetsOf(ownerId, petIds);
+    }
+
+    /**
+     * Hides the pets with {@code petIds} now and deletes them in the background. The caller holds the owner lock and deletes the
+     * owner before releasing it, so the reclaimer only starts once the owner is gone.
+     */
+    public void deleteLater(Long ownerId, long[] petIds) {
+        tombstones.add(ownerId, petIds.length);
+        reclaimer.execute(() -> reclaim(ownerId, petIds));
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        reclaimer.shutdown();
+        if (!reclaimer.awaitTermination(1, TimeUnit.MINUTES)) {
+            log.warn("Stopped with {} pets of deleted users left to reclaim", tombstones.pendingPets());
+        }
+    }
+
+    private void reclaim(Long ownerId, long[] petIds) {
+        long start = System.nanoTime();
+        try {
+            for (int from = 0; from < petIds.length; from += chunkSize) {
+                long[] chunk = Arrays.copyOfRange(petIds, from, Math.min(petIds.length, from + chunkSize));
+                petService.deletePetsOf(ownerId, chunk);
+                tombstones.reclaimed(chunk.length);
+            }
+        } catch (RuntimeException e) {
+            // the pets stay hidden: showing them again would bring back pets of a deleted user
+            log.error("Failed to reclaim the pets of deleted user {}", ownerId, e);
+
+            return;
+        }
+        tombstones.remove(ownerId);
+
+        log.debug(
+                "Reclaimed {} pets of deleted user {} in {} ms",
+                petIds.length, ownerId, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        );
+    }
+}
@@ -0,0 +1,45 @@
+package dev.vudovenko.springbootmvcpractice.cascade;
+
+import dev.vudovenko.springbootmvcpractice.storage.LongSet;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deleted owners whose pets are still being reclaimed in the background. Their pets are hidden as if already gone.
+ */
+@Component
+public class Tombstones {
+
+    private final LongSet owners = new LongSet();
+
+    private final AtomicLong pendingPets = new AtomicLong();
+
+    public boolean hides(Long ownerId) {
+        return ownerId != null && owners.contains(ownerId);
+    }
+
+    public boolean isEmpty() {
+        return owners.isEmpty();
+    }
+
+    /**
+     * Pets of tombstoned owners not reclaimed yet.
+     */
+    public long pendingPets() {
+        return pendingPets.get();
+    }
+
+    void add(Long ownerId, int pets) {
+        pendingPets.addAndGet(pets);
+        owners.add(ownerId);
+    }
+
+    void reclaimed(int pets) {
+        pendingPets.addAndGet(-pets);
+    }
+
+    void remove(Long ownerId) {
+        owners.remove(ownerId);
+    }
+}
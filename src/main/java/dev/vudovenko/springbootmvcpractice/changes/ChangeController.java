@@ -0,0 +1,120 @@
+package dev.vudovenko.springbootmvcpractice.changes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streams the {@link ChangeFeed} as server-sent events, or as newline-delimited JSON for any other {@code Accept}.
+ * Every item carries the sequence number to resume after: as the event id, or in the JSON. A stream follows the feed
+ * for {@code changes.max-stream-duration}, or ends once it has caught up with {@code follow=false}.
+ * <p>
+ * Each stream is written by its own virtual thread, one batch per write, so a client that reads slowly holds back
+ * only its own stream.
+ */
+@Log4j2
+@RequestMapping("/changes")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RestController
+@RequiredArgsConstructor
+public class ChangeController {
+
+    private static final Duration TIMEOUT_MARGIN = Duration.ofSeconds(10);
+
+    private final ChangeFeed changeFeed;
+
+    private final ChangeFeedProperties properties;
+
+    private final ObjectMapper objectMapper;
+
+    @GetMapping
+    public ResponseEntity<ResponseBodyEmitter> streamChanges(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "true") boolean follow,
+            @RequestHeader(name = ChangeStreams.LAST_EVENT_ID, required = false) Long lastEventId,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
+        boolean eventStream = ChangeStreams.wantsEventStream(accept);
+        ChangeCursor cursor = changeFeed.cursorAfter(ChangeStreams.startAfter(after, lastEventId, changeFeed));
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(
+                properties.maxStreamDuration().plus(TIMEOUT_MARGIN).toMillis()
+        );
+        AtomicBoolean done = new AtomicBoolean();
+        emitter.onCompletion(() -> done.set(true));
+        emitter.onTimeout(() -> done.set(true));
+        emitter.onError(e -> done.set(true));
+
+        Thread.ofVirtual()
+                .name("changes-stream")
+                .start(() -> stream(cursor, emitter, eventStream, follow, done));
+
+        return ResponseEntity
+                .ok()
+                .contentType(eventStream ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON)
+                .body(emitter);
+    }
+
+    private void stream(
+            ChangeCursor cursor,
+            ResponseBodyEmitter emitter,
+            boolean eventStream,
+            boolean follow,
+            AtomicBoolean done
+    ) {
+        long deadline = System.nanoTime() + properties.maxStreamDuration().toNanos();
+        try (cursor) {
+            while (!done.get() && System.nanoTime() - deadline < 0) {
+                List<ChangeFeedItem> batch = cursor.next(properties.batchSize());
+                if (!batch.isEmpty()) {
+                    emitter.send(encode(batch, eventStream));
+                } else if (follow) {
+                    Thread.sleep(properties.pollInterval());
+                } else {
+                    break;
+                }
+            }
+            emitter.complete();
+        } catch (IOException e) {
+            log.debug("Change stream closed by the client: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        } catch (RuntimeException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private byte[] encode(List<ChangeFeedItem> batch, boolean eventStream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(batch.size() * 128);
+        for (ChangeFeedItem item : batch) {
+            if (eventStream) {
+                String header = "id: " + item.resumeAfter() + "\nevent: " + item.eventName() + "\ndata: ";
+                bytes.write(header.getBytes(StandardCharsets.US_ASCII));
+                objectMapper.writeValue(bytes, item);
+                bytes.write('\n');
+            } else {
+                objectMapper.writeValue(bytes, item);
+            }
+            bytes.write('\n');
+        }
+
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,72 @@
+package dev.vudovenko.springbootmvcpractice.changes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One consumer's position in the {@link ChangeFeed}. The consumer reads at its own pace, in batches it asks for when
+ * it is ready for them. When it falls so far behind that events are overwritten before it reads them, it gets one
+ * {@link DroppedChanges} for them and carries on from the oldest event kept. Not thread-safe.
+ */
+public class ChangeCursor implements AutoCloseable {
+
+    private final ChangeFeed feed;
+
+    private final ChangeRing ring;
+
+    private long lastSeq;
+
+    private boolean closed;
+
+    ChangeCursor(ChangeFeed feed, ChangeRing ring, long lastSeq) {
+        this.feed = feed;
+        this.ring = ring;
+        this.lastSeq = lastSeq;
+    }
+
+    /**
+     * Up to {@code max} items after the ones read so far, empty if there are none yet.
+     */
+    public List<ChangeFeedItem> next(int max) {
+        List<ChangeFeedItem> items = new ArrayList<>(Math.min(max, 64));
+        while (items.size() < max) {
+            long seq = lastSeq + 1;
+            long oldestSeq = ring.oldestSeq();
+            if (seq < oldestSeq) {
+                DroppedChanges dropped = new DroppedChanges(seq, oldestSeq - 1);
+                feed.dropped(dropped.count());
+                items.add(dropped);
+                lastSeq = dropped.lastSeq();
+                continue;
+            }
+
+            ChangeEvent event = ring.read(seq);
+            if (event == null) {
+                if (seq < ring.oldestSeq()) {
+                    // overwritten while we were reading it
+                    continue;
+                }
+                break;
+            }
+            items.add(event);
+            lastSeq = seq;
+        }
+
+        return items;
+    }
+
+    /**
+     * The sequence number of the last event read or reported dropped.
+     */
+    public long lastSeq() {
+        return lastSeq;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            feed.closed();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package dev.vudovenko.springbootmvcpractice.changes;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Locale;
+
+/**
+ * A user or pet was saved with {@code version}, or deleted. Pet events carry the pet's owner, if any.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ChangeEvent(long seq, ChangeType type, long id, Long version, Long userId) implements ChangeFeedItem {
+
+    @Override
+    public long resumeAfter() {
+        return seq;
+    }
+
+    @Override
+    public String eventName() {
+        return type.name().toLowerCase(Locale.ROOT);
+    }
+}
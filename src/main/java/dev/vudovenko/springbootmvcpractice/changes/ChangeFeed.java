@@ -0,0 +1,88 @@
+package dev.vudovenko.springbootmvcpractice.changes;
+
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Every change of a user or a pet, as events for downstream caches and indexes to follow instead of polling.
+ * <p>
+ * The services publish an event for each snapshot they store or delete, while holding the owner lock, so the events
+ * of an owner and of its pets are in the order the changes were applied. Moving a pet publishes the pet and both
+ * owners, whose versions change with it. Events are published before they are durable in the journal, and each node
+ * publishes only the changes it applies.
+ * <p>
+ * Events are kept in a {@link ChangeRing} of {@code changes.buffer-size} slots. Publishing never waits for
+ * consumers. Each consumer reads through its own {@link ChangeCursor}, and events it is too slow to read before they
+ * are overwritten are reported to it and counted in {@code changes.dropped}.
+ */
+public class ChangeFeed {
+
+    private final ChangeRing ring;
+
+    private final Counter dropped;
+
+    private final AtomicInteger consumers;
+
+    public ChangeFeed(ChangeFeedProperties properties, MeterRegistry meterRegistry) {
+        this.ring = new ChangeRing(properties.bufferSize());
+        this.dropped = Counter.builder("changes.dropped")
+                .description("Change events overwritten before a consumer read them, per consumer")
+                .register(meterRegistry);
+        this.consumers = new AtomicInteger();
+
+        FunctionCounter.builder("changes.published", ring, ChangeRing::lastSeq)
+                .description("Change events published")
+                .register(meterRegistry);
+        Gauge.builder("changes.consumers", consumers, AtomicInteger::get)
+                .description("Consumers reading the change feed")
+                .register(meterRegistry);
+    }
+
+    public void userSaved(User user) {
+        ring.publish(ChangeType.USER_SAVED, user.getId(), user.getVersion(), ChangeRing.NONE);
+    }
+
+    public void userDeleted(Long id) {
+        ring.publish(ChangeType.USER_DELETED, id, ChangeRing.NONE, ChangeRing.NONE);
+    }
+
+    public void petSaved(Pet pet) {
+        Long userId = pet.getUserId();
+        ring.publish(ChangeType.PET_SAVED, pet.getId(), pet.getVersion(), userId == null ? ChangeRing.NONE : userId);
+    }
+
+    public void petDeleted(Long id) {
+        ring.publish(ChangeType.PET_DELETED, id, ChangeRing.NONE, ChangeRing.NONE);
+    }
+
+    /**
+     * The sequence number of the last event published.
+     */
+    public long lastSeq() {
+        return ring.lastSeq();
+    }
+
+    /**
+     * A cursor reading the events after {@code seq}, to be closed when the consumer leaves. {@code 0} reads from the
+     * oldest event still kept.
+     */
+    public ChangeCursor cursorAfter(long seq) {
+        consumers.incrementAndGet();
+
+        return new ChangeCursor(this, ring, Math.max(0, seq));
+    }
+
+    void dropped(long count) {
+        dropped.increment(count);
+    }
+
+    void closed() {
+        consumers.decrementAndGet();
+    }
+}
@@ -0,0 +1,16 @@
+package dev.vudovenko.springbootmvcpractice.changes;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ChangeFeedProperties.class)
+public class ChangeFeedConfiguration {
+
+    @Bean
+    public ChangeFeed changeFeed(ChangeFeedProperties properties, MeterRegistry meterRegistry) {
+        return new ChangeFeed(properties, meterRegistry);
+    }
+}
@@ -0,0 +1,17 @@
+package dev.vudovenko.springbootmvcpractice.changes;
+
+/**
+ * What a consumer of the {@link ChangeFeed} reads: an event, or a notice of events it missed.
+ */
+public sealed interface ChangeFeedItem permits ChangeEvent, DroppedChanges {
+
+    /**
+     * The sequence number to resume after once this item has been handled.
+     */
+    long resumeAfter();
+
+    /**
+     * Name of this kind of item, as the {@code event} field of server-sent events.
+     */
+    String eventName();
+}
@@ -0,0 +1,19 @@
+package dev.vudovenko.springbootmvcpractice.changes;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Change feed settings. {@code bufferSize} is rounded up to a power of two; a consumer that falls further behind
+ * loses events. Streams end after {@code maxStreamDuration} and are resumed by the client.
+ */
+@ConfigurationProperties(prefix = "changes")
+public record ChangeFeedProperties(
+        @DefaultValue("65536") int bufferSize,
+        @DefaultValue("256") int batchSize,
+        @DefaultValue("10ms") Duration pollInterval,
+        @DefaultValue("5m") Duration maxStreamDuration
+) {
+}
@@ -0,0 +1,112 @@
+package dev.vudovenko.springbootmvcpractice.changes;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change events in a ring of slots allocated up front, so publishing allocates nothing. Sequence numbers start at 1.
+ * <p>
+ * A writer claims the next sequence number with one atomic increment and overwrites the slot it maps to. Writers
+ * never wait for readers or for each other. Each slot starts with the sequence number of its event. That number is
+ * negated while the slot is being written and is published with release semantics once it is complete, so a reader
+ * that sees it unchanged after reading the slot has read a whole event. Two writers could only write the same slot
+ * at once if the ring were smaller than the number of concurrent writers.
+ */
+final class ChangeRing {
+
+    static final long NONE = Long.MIN_VALUE;
+
+    private static final int MIN_CAPACITY = 1024;
+
+    private static final int STRIDE = 4;
+
+    private static final int ID = 1;
+
+    private static final int VERSION = 2;
+
+    private static final int USER_ID = 3;
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] slots;
+
+    private final byte[] types;
+
+    private final int mask;
+
+    private final AtomicLong nextSeq;
+
+    ChangeRing(int capacity) {
+        int size = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+        this.slots = new long[size * STRIDE];
+        this.types = new byte[size];
+        this.mask = size - 1;
+        this.nextSeq = new AtomicLong(1);
+    }
+
+    /**
+     * @param version {@link #NONE} for a deletion
+     * @param userId  {@link #NONE} for no owner
+     */
+    long publish(ChangeType type, long id, long version, long userId) {
+        long seq = nextSeq.getAndIncrement();
+        int slot = (int) seq & mask;
+        int offset = slot * STRIDE;
+        LONGS.setOpaque(slots, offset, -seq);
+        VarHandle.storeStoreFence();
+        slots[offset + ID] = id;
+        slots[offset + VERSION] = version;
+        slots[offset + USER_ID] = userId;
+        types[slot] = (byte) type.ordinal();
+        LONGS.setRelease(slots, offset, seq);
+
+        return seq;
+    }
+
+    /**
+     * The last sequence number handed out. Its event may still be being written.
+     */
+    long lastSeq() {
+        return nextSeq.get() - 1;
+    }
+
+    /**
+     * The oldest sequence number whose event has not been overwritten yet.
+     */
+    long oldestSeq() {
+        return Math.max(1, nextSeq.get() - capacity());
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * The event with sequence number {@code seq}, or {@code null} if it is not published yet or has been overwritten,
+     * which {@link #oldestSeq} tells apart.
+     */
+    ChangeEvent read(long seq) {
+        int slot = (int) seq & mask;
+        int offset = slot * STRIDE;
+        if ((long) LONGS.getAcquire(slots, offset) != seq) {
+            return null;
+        }
+        long id = slots[offset + ID];
+        long version = slots[offset + VERSION];
+        long userId = slots[offset + USER_ID];
+        int type = types[slot];
+        VarHandle.loadLoadFence();
+        if ((long) LONGS.get(slots, offset) != seq) {
+            return null;
+        }
+
+        return new ChangeEvent(
+                seq,
+                ChangeType.ofOrdinal(type),
+                id,
+                version == NONE ? null : version,
+                userId == NONE ? null : userId
+        );
+    }
+}
@@ -0,0 +1,33 @@
+package dev.vudovenko.springbootmvcpractice.changes;
+
+import org.springframework.http.MediaType;
+
+/**
+ * What the change stream endpoints of both web stacks agree on.
+ */
+public final class ChangeStreams {
+
+    public static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private ChangeStreams() {
+    }
+
+    /**
+     * Whether the client asked for server-sent events rather than newline-delimited JSON.
+     */
+    public static boolean wantsEventStream(String accept) {
+        return accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    /**
+     * Where a stream starts: after {@code after} if given, else after the id of the last event an event source saw
+     * before it reconnected, else at the end of the feed.
+     */
+    public static long startAfter(Long after, Long lastEventId, ChangeFeed feed) {
+        if (after != null) {
+            return after;
+        }
+
+        return lastEventId != null ? lastEventId : feed.lastSeq();
+    }
+}
@@ -0,0 +1,18 @@
+package dev.vudovenko.springbootmvcpractice.changes;
+
+public enum ChangeType {
+
+    USER_SAVED,
+
+    USER_DELETED,
+
+    PET_SAVED,
+
+    PET_DELETED;
+
+    private static final ChangeType[] VALUES = values();
+
+    static ChangeType ofOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
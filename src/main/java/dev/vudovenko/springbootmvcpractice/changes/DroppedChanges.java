@@ -0,0 +1,30 @@
+package dev.vudovenko.springbootmvcpractice.changes;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The events from {@code firstSeq} to {@code lastSeq} were overwritten before the consumer read them. It has to
+ * re-read what it keeps from the API to catch up.
+ */
+public record DroppedChanges(long firstSeq, long lastSeq) implements ChangeFeedItem {
+
+    @JsonProperty("type")
+    public String type() {
+        return "DROPPED";
+    }
+
+    @JsonProperty("count")
+    public long count() {
+        return lastSeq - firstSeq + 1;
+    }
+
+    @Override
+    public long resumeAfter() {
+        return lastSeq;
+    }
+
+    @Override
+    public String eventName() {
+        return "dropped";
+    }
+}
@@ -0,0 +1,77 @@
+package dev.vudovenko.springbootmvcpractice.exceptionHandling;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logs expected errors, such as lookups of missing entities, as at most one line per exception type
+ * every {@code errors.log-interval}, with the number of occurrences and the last message.
+ * <p>
+ * Recording only bumps a counter and keeps a reference to the exception; messages are built when the summary is logged.
+ */
+@Log4j2
+@Component
+public class AggregatedErrorLog implements DisposableBean {
+
+    private final Map<Class<?>, Occurrences> occurrencesByType;
+
+    private final Duration interval;
+
+    private final ScheduledExecutorService scheduler;
+
+    public AggregatedErrorLog(@Value("${errors.log-interval:10s}") Duration interval) {
+        this.occurrencesByType = new ConcurrentHashMap<>();
+        this.interval = interval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("error-log").daemon().factory()
+        );
+        scheduler.scheduleWithFixedDelay(this::flush, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void record(Exception e) {
+        Occurrences occurrences = occurrencesByType.get(e.getClass());
+        if (occurrences == null) {
+            occurrences = occurrencesByType.computeIfAbsent(e.getClass(), type -> new Occurrences());
+        }
+        occurrences.count.increment();
+        occurrences.last = e;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        flush();
+    }
+
+    void flush() {
+        occurrencesByType.forEach((type, occurrences) -> {
+            long count = occurrences.count.sumThenReset();
+            if (count > 0) {
+                log.info(
+                        "Got {} x{} in the last {} ms, last: {}",
+                        type.getSimpleName(),
+                        count,
+                        interval.toMillis(),
+                        occurrences.last.getMessage()
+                );
+            }
+        });
+    }
+
+    private static final class Occurrences {
+
+        private final LongAdder count = new LongAdder();
+
+        private volatile Exception last;
+    }
+}
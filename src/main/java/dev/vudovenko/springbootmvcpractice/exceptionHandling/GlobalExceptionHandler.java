@@ -1,27 +1,185 @@
 package dev.vudovenko.springbootmvcpractice.exceptionHandling;
 
 import dev.vudovenko.springbootmvcpractice.exceptionHandling.dto.ErrorMessageResponse;
-import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.PetNotFoundException;
-import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.UserNotFoundException;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.BatchTooLargeException;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.EmailAlreadyExistsException;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.EntityNotFoundException;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.NodeAccessDeniedException;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.PartitionUnavailableException;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.PetMoveConflictException;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.PreconditionFailedException;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Log4j2
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
+    private final AggregatedErrorLog aggregatedErrorLog;
+
+    private final Map<Class<?>, Counter> handledCounters;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry, AggregatedErrorLog aggregatedErrorLog) {
+        this.meterRegistry = meterRegistry;
+        this.aggregatedErrorLog = aggregatedErrorLog;
+        this.handledCounters = new ConcurrentHashMap<>();
+    }
+
     @ExceptionHandler
     public ResponseEntity<ErrorMessageResponse> handleGenericException(
             Exception e
     ) {
         log.error("Server error", e);
+
+        return counted(e, serverError(e));
+    }
+
+    /**
+     * Misses are expected, so they are only summarized by {@link AggregatedErrorLog}.
+     */
+    @ExceptionHandler(value = {EntityNotFoundException.class})
+    public ResponseEntity<ErrorMessageResponse> handleEntityNotFoundException(
+            EntityNotFoundException e
+    ) {
+        aggregatedErrorLog.record(e);
+
+        return counted(e, entityNotFound(e));
+    }
+
+    @ExceptionHandler(value = {EmailAlreadyExistsException.class})
+    public ResponseEntity<ErrorMessageResponse> handleConflictException(
+            RuntimeException e
+    ) {
+        log.error("Got conflict exception", e);
+
+        return counted(e, conflict(e));
+    }
+
+    /**
+     * A lost optimistic-concurrency race is expected, so it is only summarized by {@link AggregatedErrorLog}.
+     */
+    @ExceptionHandler(value = {PreconditionFailedException.class})
+    public ResponseEntity<ErrorMessageResponse> handlePreconditionFailedException(
+            PreconditionFailedException e
+    ) {
+        aggregatedErrorLog.record(e);
+
+        return counted(e, preconditionFailed(e));
+    }
+
+    @ExceptionHandler(value = {PetMoveConflictException.class})
+    public ResponseEntity<ErrorMessageResponse> handlePetMoveConflictException(
+            PetMoveConflictException e
+    ) {
+        log.warn("Got pet move conflict: {}", e.getMessage());
+
+        return counted(e, petMoveConflict(e));
+    }
+
+    @ExceptionHandler(value = {PartitionUnavailableException.class})
+    public ResponseEntity<ErrorMessageResponse> handlePartitionUnavailableException(
+            PartitionUnavailableException e
+    ) {
+        log.error("Partition unavailable", e);
+
+        return counted(e, partitionUnavailable(e));
+    }
+
+    @ExceptionHandler(value = {NodeAccessDeniedException.class})
+    public ResponseEntity<ErrorMessageResponse> handleNodeAccessDeniedException(
+            NodeAccessDeniedException e
+    ) {
+        log.warn("Denied node-to-node call: {}", e.getMessage());
+
+        return counted(e, nodeAccessDenied(e));
+    }
+
+    /**
+     * Turning requests away is how the node protects itself under load, so they are only summarized by
+     * {@link AggregatedErrorLog}.
+     */
+    @ExceptionHandler(value = {TooManyRequestsException.class})
+    public ResponseEntity<ErrorMessageResponse> handleTooManyRequestsException(
+            TooManyRequestsException e
+    ) {
+        aggregatedErrorLog.record(e);
+
+        return counted(e, tooManyRequests(e));
+    }
+
+    @ExceptionHandler(value = {BatchTooLargeException.class})
+    public ResponseEntity<ErrorMessageResponse> handleBatchTooLargeException(
+            BatchTooLargeException e
+    ) {
+        log.warn("Rejected batch: {}", e.getMessage());
+
+        return counted(e, batchTooLarge(e));
+    }
+
+    @ExceptionHandler(value = {MethodArgumentNotValidException.class})
+    public ResponseEntity<ErrorMessageResponse> handleValidationException(
+            MethodArgumentNotValidException e
+    ) {
+        log.error("Got validation exception", e);
+
+        return counted(e, validationFailed(e.getBindingResult()));
+    }
+
+    /**
+     * Renders an exception the way the handlers above do, without logging it. Used for per-item batch errors and by
+     * the reactive stack, whose validation exceptions are binding results too.
+     */
+    public ResponseEntity<ErrorMessageResponse> toErrorResponse(Exception e) {
+        return counted(e, switch (e) {
+            case BindingResult bindingResult -> validationFailed(bindingResult);
+            case EntityNotFoundException entityNotFoundException -> entityNotFound(entityNotFoundException);
+            case EmailAlreadyExistsException emailAlreadyExistsException -> conflict(emailAlreadyExistsException);
+            case PreconditionFailedException preconditionFailedException -> preconditionFailed(preconditionFailedException);
+            case PetMoveConflictException petMoveConflictException -> petMoveConflict(petMoveConflictException);
+            case PartitionUnavailableException partitionUnavailableException ->
+                    partitionUnavailable(partitionUnavailableException);
+            case NodeAccessDeniedException nodeAccessDeniedException -> nodeAccessDenied(nodeAccessDeniedException);
+            case TooManyRequestsException tooManyRequestsException -> tooManyRequests(tooManyRequestsException);
+            case BatchTooLargeException batchTooLargeException -> batchTooLarge(batchTooLargeException);
+            default -> serverError(e);
+        });
+    }
+
+    /**
+     * Counts {@code e} by type. A type always renders with the same status, so the counter is looked up once per type.
+     */
+    private ResponseEntity<ErrorMessageResponse> counted(
+            Exception e,
+            ResponseEntity<ErrorMessageResponse> response
+    ) {
+        handledCounters
+                .computeIfAbsent(e.getClass(), type -> Counter.builder("errors.handled")
+                        .description("Exceptions rendered as error responses")
+                        .tag("exception", type.getSimpleName())
+                        .tag("status", Integer.toString(response.getStatusCode().value()))
+                        .register(meterRegistry))
+                .increment();
+
+        return response;
+    }
+
+    private ResponseEntity<ErrorMessageResponse> serverError(Exception e) {
         var errorDto = new ErrorMessageResponse(
                 "Server error",
                 e.getMessage(),
@@ -33,11 +191,7 @@ public class GlobalExceptionHandler {
                 .body(errorDto);
     }
 
-    @ExceptionHandler(value = {PetNotFoundException.class, UserNotFoundException.class})
-    public ResponseEntity<ErrorMessageResponse> handleEntityNotFoundException(
-            RuntimeException e
-    ) {
-        log.error("Got exception", e);
+    private ResponseEntity<ErrorMessageResponse> entityNotFound(RuntimeException e) {
         var errorDto = new ErrorMessageResponse(
                 "Entity not found",
                 e.getMessage(),
@@ -49,13 +203,97 @@ public class GlobalExceptionHandler {
                 .body(errorDto);
     }
 
-    @ExceptionHandler(value = {MethodArgumentNotValidException.class})
-    public ResponseEntity<ErrorMessageResponse> handleValidationException(
-            MethodArgumentNotValidException e
-    ) {
-        log.error("Got validation exception", e);
+    private ResponseEntity<ErrorMessageResponse> conflict(RuntimeException e) {
+        var errorDto = new ErrorMessageResponse(
+                "Entity already exists",
+                e.getMessage(),
+                LocalDateTime.now()
+        );
+
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(errorDto);
+    }
+
+    private ResponseEntity<ErrorMessageResponse> preconditionFailed(RuntimeException e) {
+        var errorDto = new ErrorMessageResponse(
+                "Precondition failed",
+                e.getMessage(),
+                LocalDateTime.now()
+        );
+
+        return ResponseEntity
+                .status(HttpStatus.PRECONDITION_FAILED)
+                .body(errorDto);
+    }
+
+    private ResponseEntity<ErrorMessageResponse> petMoveConflict(RuntimeException e) {
+        var errorDto = new ErrorMessageResponse(
+                "Pet move conflict",
+                e.getMessage(),
+                LocalDateTime.now()
+        );
+
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(errorDto);
+    }
+
+    private ResponseEntity<ErrorMessageResponse> partitionUnavailable(RuntimeException e) {
+        var errorDto = new ErrorMessageResponse(
+                "Partition unavailable",
+                e.getMessage(),
+                LocalDateTime.now()
+        );
+
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(errorDto);
+    }
+
+    private ResponseEntity<ErrorMessageResponse> nodeAccessDenied(RuntimeException e) {
+        var errorDto = new ErrorMessageResponse(
+                "Access denied",
+                e.getMessage(),
+                LocalDateTime.now()
+        );
+
+        return ResponseEntity
+                .status(HttpStatus.FORBIDDEN)
+                .body(errorDto);
+    }
+
+    /**
+     * Tells the client in {@code Retry-After} how many whole seconds to wait before it is admitted again.
+     */
+    private ResponseEntity<ErrorMessageResponse> tooManyRequests(TooManyRequestsException e) {
+        var errorDto = new ErrorMessageResponse(
+                "Too many requests",
+                e.getMessage(),
+                LocalDateTime.now()
+        );
+        long retryAfterSeconds = Math.max(1, e.getRetryAfter().plusNanos(999_999_999).toSeconds());
+
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(errorDto);
+    }
+
+    private ResponseEntity<ErrorMessageResponse> batchTooLarge(RuntimeException e) {
+        var errorDto = new ErrorMessageResponse(
+                "Batch too large",
+                e.getMessage(),
+                LocalDateTime.now()
+        );
+
+        return ResponseEntity
+                .status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(errorDto);
+    }
 
-        String detailedMessage = e.getBindingResult()
+    private ResponseEntity<ErrorMessageResponse> validationFailed(BindingResult bindingResult) {
+        String detailedMessage = bindingResult
                 .getFieldErrors()
                 .stream()
                 .map(fieldError -> fieldError.getField() + ": " + fieldError.getDefaultMessage())
@@ -0,0 +1,11 @@
+package dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions;
+
+/**
+ * A {@code /batch} request with more items than {@code batch.max-size}.
+ */
+public class BatchTooLargeException extends RuntimeException {
+
+    public BatchTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions;
+
+public class EmailAlreadyExistsException extends RuntimeException {
+
+    public EmailAlreadyExistsException(String message) {
+        super(message);
+    }
+}
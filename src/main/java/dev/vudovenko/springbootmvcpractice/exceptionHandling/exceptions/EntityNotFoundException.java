@@ -0,0 +1,26 @@
+package dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions;
+
+/**
+ * A lookup miss. Misses are expected, so these carry no stack trace, and the message is built only when it is read.
+ */
+public abstract class EntityNotFoundException extends RuntimeException {
+
+    private final String entityName;
+
+    private final Long id;
+
+    protected EntityNotFoundException(String entityName, Long id) {
+        super(null, null, false, false);
+        this.entityName = entityName;
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getMessage() {
+        return entityName + " with " + id + " not found";
+    }
+}
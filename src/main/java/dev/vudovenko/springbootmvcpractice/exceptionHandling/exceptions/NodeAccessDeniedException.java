@@ -0,0 +1,11 @@
+package dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions;
+
+/**
+ * A call to a node-to-node endpoint without the cluster's {@code partitions.secret}.
+ */
+public class NodeAccessDeniedException extends RuntimeException {
+
+    public NodeAccessDeniedException(String message) {
+        super(message);
+    }
+}
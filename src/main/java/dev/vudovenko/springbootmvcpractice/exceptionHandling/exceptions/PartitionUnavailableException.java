@@ -0,0 +1,8 @@
+package dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions;
+
+public class PartitionUnavailableException extends RuntimeException {
+
+    public PartitionUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,8 @@
+package dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions;
+
+public class PetMoveConflictException extends RuntimeException {
+
+    public PetMoveConflictException(String message) {
+        super(message);
+    }
+}
@@ -1,8 +1,8 @@
 package dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions;
 
-public class PetNotFoundException extends RuntimeException {
+public class PetNotFoundException extends EntityNotFoundException {
 
-    public PetNotFoundException(String message) {
-        super(message);
+    public PetNotFoundException(Long id) {
+        super("Pet", id);
     }
 }
@@ -0,0 +1,8 @@
+package dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions;
+
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
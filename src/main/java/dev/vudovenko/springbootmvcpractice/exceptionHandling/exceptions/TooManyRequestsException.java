@@ -0,0 +1,21 @@
+package dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions;
+
+import java.time.Duration;
+
+/**
+ * A request turned away by admission control. Rejections are expected under load and must be cheap, so these carry
+ * no stack trace.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message, null, false, false);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -1,8 +1,19 @@
 package dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions;
 
-public class UserNotFoundException extends RuntimeException {
+public class UserNotFoundException extends EntityNotFoundException {
 
-    public UserNotFoundException(String message) {
-        super(message);
+    public UserNotFoundException(Long id) {
+        super("User", id);
+    }
+
+    private UserNotFoundException(String entityName, Long id) {
+        super(entityName, id);
+    }
+
+    /**
+     * A miss on the user a pet was meant to belong to.
+     */
+    public static UserNotFoundException owner(Long id) {
+        return new UserNotFoundException("Owner", id);
     }
 }
@@ -0,0 +1,66 @@
+package dev.vudovenko.springbootmvcpractice.journal;
+
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+
+import java.util.List;
+
+/**
+ * Records every change of the stores so they can be rebuilt on startup.
+ * <p>
+ * Appends only write the full current state of the entity and return its sequence number; callers append while
+ * holding the entity's owner lock, so the journal order matches the order the changes were applied in, and wait for
+ * durability with {@link #awaitDurable} after releasing it.
+ */
+public interface ChangeJournal {
+
+    ChangeJournal NONE = new ChangeJournal() {
+
+        @Override
+        public long userSaved(User user) {
+            return 0;
+        }
+
+        @Override
+        public long userDeleted(Long id) {
+            return 0;
+        }
+
+        @Override
+        public long petSaved(Pet pet) {
+            return 0;
+        }
+
+        @Override
+        public long petsSaved(List<Pet> pets) {
+            return 0;
+        }
+
+        @Override
+        public long petDeleted(Long id) {
+            return 0;
+        }
+
+        @Override
+        public void awaitDurable(long seq) {
+        }
+    };
+
+    long userSaved(User user);
+
+    long userDeleted(Long id);
+
+    long petSaved(Pet pet);
+
+    /**
+     * Records the pets as one entry, so that after a crash either all of them are replayed or none is.
+     */
+    long petsSaved(List<Pet> pets);
+
+    long petDeleted(Long id);
+
+    /**
+     * Blocks until the entry with sequence number {@code seq} and every entry before it is on disk.
+     */
+    void awaitDurable(long seq);
+}
@@ -0,0 +1,204 @@
+package dev.vudovenko.springbootmvcpractice.journal;
+
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import dev.vudovenko.springbootmvcpractice.users.service.UserService;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Rebuilds the stores from the latest snapshot and the journal after it before the server starts, then writes
+ * a snapshot every {@code journal.snapshot-interval} and on shutdown, dropping the journal segments it covers.
+ * <p>
+ * The journal tail is collapsed to the last entry per entity first, so the snapshot chunks and the tail can both be
+ * restored in parallel: a snapshot entity is only restored if the tail does not mention it.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "journal.enabled", havingValue = "true")
+public class JournalCheckpointer implements SmartInitializingSingleton, DisposableBean {
+
+    private static final int TAIL_BATCH_SIZE = 4096;
+
+    private final MappedJournal journal;
+
+    private final UserService userService;
+
+    private final PetService petService;
+
+    private final Path directory;
+
+    private final Duration snapshotInterval;
+
+    private ScheduledExecutorService scheduler;
+
+    public JournalCheckpointer(
+            MappedJournal journal,
+            UserService userService,
+            PetService petService,
+            @Value("${journal.directory}") Path directory,
+            @Value("${journal.snapshot-interval}") Duration snapshotInterval
+    ) {
+        this.journal = journal;
+        this.userService = userService;
+        this.petService = petService;
+        this.directory = directory;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover from " + directory, e);
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("journal-snapshot").daemon().factory()
+        );
+        scheduler.scheduleWithFixedDelay(
+                this::snapshotQuietly,
+                snapshotInterval.toMillis(),
+                snapshotInterval.toMillis(),
+                TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Writes a final snapshot, unless recovery did not finish: the stores are then incomplete, and a snapshot of them
+     * would hide the journal entries that were not restored.
+     */
+    @Override
+    public void destroy() throws Exception {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        snapshot();
+    }
+
+    void recover() throws IOException {
+        long start = System.nanoTime();
+        Optional<SnapshotFile> snapshot = SnapshotFile.latest(directory);
+        long fromSeq = snapshot.map(SnapshotFile::journalSeq).orElse(0L);
+
+        Map<Long, JournalEntry> userTail = new ConcurrentHashMap<>();
+        Map<Long, JournalEntry> petTail = new ConcurrentHashMap<>();
+        LongAccumulator lastUserId = new LongAccumulator(Math::max, snapshot.map(SnapshotFile::lastUserId).orElse(0L));
+        LongAccumulator lastPetId = new LongAccumulator(Math::max, snapshot.map(SnapshotFile::lastPetId).orElse(0L));
+        MappedJournal.readFrom(directory, fromSeq, entry -> {
+            Map<Long, JournalEntry> tail = entry.kind().isUser() ? userTail : petTail;
+            tail.merge(entry.id(), entry, (current, next) -> next.seq() > current.seq() ? next : current);
+            (entry.kind().isUser() ? lastUserId : lastPetId).accumulate(entry.id());
+        });
+
+        LongAdder users = new LongAdder();
+        LongAdder pets = new LongAdder();
+        if (snapshot.isPresent()) {
+            snapshot.get().readInParallel(
+                    snapshot.get().userChunks(),
+                    entries -> restore(entries, userTail, User.class, userService::restoreUsers, users)
+            );
+        }
+        restoreTail(userTail, User.class, userService::restoreUsers, users);
+        if (snapshot.isPresent()) {
+            snapshot.get().readInParallel(
+                    snapshot.get().petChunks(),
+                    entries -> restore(entries, petTail, Pet.class, petService::restorePets, pets)
+            );
+        }
+        restoreTail(petTail, Pet.class, petService::restorePets, pets);
+
+        userService.advanceIdsPast(lastUserId.get());
+        petService.advanceIdsPast(lastPetId.get());
+
+        log.info(
+                "Restored {} users and {} pets from {} ({} journal entries after the snapshot) in {} ms",
+                users.sum(), pets.sum(), directory, userTail.size() + petTail.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        );
+    }
+
+    void snapshot() throws IOException {
+        long start = System.nanoTime();
+        long journalSeq = journal.nextSeq();
+        Path path = SnapshotFile.write(
+                directory,
+                journalSeq,
+                userService.lastReservedId(),
+                petService.lastReservedId(),
+                sink -> userService.forEachUser(0, user -> sink.accept(JournalCodec.userSaved(user))),
+                sink -> petService.forEachPet(0, pet -> sink.accept(JournalCodec.petSaved(pet)))
+        );
+        journal.deleteSegmentsBefore(journalSeq);
+
+        log.info("Wrote snapshot {} in {} ms", path, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static <T> void restoreTail(
+            Map<Long, JournalEntry> tail,
+            Class<T> type,
+            Consumer<List<T>> restorer,
+            LongAdder restored
+    ) {
+        List<JournalEntry> entries = List.copyOf(tail.values());
+        IntStream.range(0, (entries.size() + TAIL_BATCH_SIZE - 1) / TAIL_BATCH_SIZE)
+                .parallel()
+                .forEach(batch -> restore(
+                        entries.subList(batch * TAIL_BATCH_SIZE, Math.min(entries.size(), (batch + 1) * TAIL_BATCH_SIZE)),
+                        Map.of(),
+                        type,
+                        restorer,
+                        restored
+                ));
+    }
+
+    /**
+     * Restores the saved entities among {@code entries} in one call, skipping those with a newer entry.
+     */
+    private static <T> void restore(
+            List<JournalEntry> entries,
+            Map<Long, JournalEntry> newerEntries,
+            Class<T> type,
+            Consumer<List<T>> restorer,
+            LongAdder restored
+    ) {
+        List<T> entities = entries.stream()
+                .filter(entry -> !entry.kind().isDeletion() && !newerEntries.containsKey(entry.id()))
+                .map(entry -> type.cast(entry.entity()))
+                .toList();
+        restorer.accept(entities);
+        restored.add(entities.size());
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (Exception e) {
+            log.error("Failed to write snapshot to {}", directory, e);
+        }
+    }
+}
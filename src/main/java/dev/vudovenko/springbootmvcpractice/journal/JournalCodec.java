@@ -0,0 +1,217 @@
+package dev.vudovenko.springbootmvcpractice.journal;
+
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary form of entries, shared by journal segments and snapshots.
+ * <p>
+ * A frame is {@code [int bodyLength][int crc32c][long seq][body]}, the checksum covering the sequence number and the
+ * body. A zero length or a checksum mismatch marks the end of the written data, which also drops a frame torn by
+ * a crash. The body is the kind, the id and, for saves, the version and the entity fields; strings are
+ * length-prefixed UTF-8 and nullable fields are written as {@code -1} lengths or a presence byte. A
+ * {@code PETS_SAVED} body is the kind, the number of pets and each pet as in a {@code PET_SAVED} body; it decodes
+ * into one {@code PET_SAVED} entry per pet, all with the frame's sequence number, so its pets are replayed together
+ * or, if the frame is torn, not at all.
+ */
+final class JournalCodec {
+
+    static final int FRAME_HEADER_BYTES = Integer.BYTES + Integer.BYTES + Long.BYTES;
+
+    private static final JournalEntry.Kind[] KINDS = JournalEntry.Kind.values();
+
+    private JournalCodec() {
+    }
+
+    static byte[] userSaved(User user) {
+        byte[] name = bytesOf(user.getName());
+        byte[] email = bytesOf(user.getEmail());
+        ByteBuffer body = ByteBuffer.allocate(1 + 2 * Long.BYTES + sizeOf(name) + sizeOf(email) + 1 + Integer.BYTES);
+        body.put((byte) JournalEntry.Kind.USER_SAVED.ordinal());
+        body.putLong(user.getId());
+        body.putLong(user.getVersion());
+        putBytes(body, name);
+        putBytes(body, email);
+        putNullableInt(body, user.getAge());
+
+        return body.array();
+    }
+
+    static byte[] petSaved(Pet pet) {
+        byte[] name = bytesOf(pet.getName());
+        ByteBuffer body = ByteBuffer.allocate(1 + petSize(name));
+        body.put((byte) JournalEntry.Kind.PET_SAVED.ordinal());
+        putPet(body, pet, name);
+
+        return body.array();
+    }
+
+    static byte[] petsSaved(List<Pet> pets) {
+        byte[][] names = new byte[pets.size()][];
+        int size = 1 + Integer.BYTES;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = bytesOf(pets.get(i).getName());
+            size += petSize(names[i]);
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(size);
+        body.put((byte) JournalEntry.Kind.PETS_SAVED.ordinal());
+        body.putInt(names.length);
+        for (int i = 0; i < names.length; i++) {
+            putPet(body, pets.get(i), names[i]);
+        }
+
+        return body.array();
+    }
+
+    static byte[] deleted(JournalEntry.Kind kind, Long id) {
+        ByteBuffer body = ByteBuffer.allocate(1 + Long.BYTES);
+        body.put((byte) kind.ordinal());
+        body.putLong(id);
+
+        return body.array();
+    }
+
+    static int frameSize(byte[] body) {
+        return FRAME_HEADER_BYTES + body.length;
+    }
+
+    static void writeFrame(ByteBuffer target, long seq, byte[] body) {
+        int start = target.position();
+        target.putInt(body.length);
+        target.putInt(0);
+        target.putLong(seq);
+        target.put(body);
+        target.putInt(start + Integer.BYTES, checksum(target, start, body.length));
+    }
+
+    /**
+     * Decodes the frames from the buffer's position up to the end of the written data, skipping those before
+     * {@code fromSeq}, and returns the position right after the last valid frame.
+     */
+    static int readFrames(ByteBuffer buffer, long fromSeq, Consumer<JournalEntry> action) {
+        while (buffer.remaining() >= FRAME_HEADER_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+            if (length <= 0 || length > buffer.remaining() - FRAME_HEADER_BYTES
+                    || buffer.getInt(start + Integer.BYTES) != checksum(buffer, start, length)) {
+                return start;
+            }
+
+            long seq = buffer.getLong(start + 2 * Integer.BYTES);
+            buffer.position(start + FRAME_HEADER_BYTES);
+            if (seq >= fromSeq) {
+                decode(seq, buffer, length, action);
+            } else {
+                buffer.position(buffer.position() + length);
+            }
+        }
+
+        return buffer.position();
+    }
+
+    private static int checksum(ByteBuffer buffer, int frameStart, int bodyLength) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(frameStart + 2 * Integer.BYTES, Long.BYTES + bodyLength));
+
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Decodes a body of {@code length} bytes starting at the buffer's position into its entries and advances past it.
+     */
+    private static void decode(long seq, ByteBuffer buffer, int length, Consumer<JournalEntry> action) {
+        int end = buffer.position() + length;
+        JournalEntry.Kind kind = KINDS[buffer.get()];
+        switch (kind) {
+            case USER_SAVED -> {
+                long id = buffer.getLong();
+                long version = buffer.getLong();
+                User user = new User(id, getString(buffer), getString(buffer), getNullableInt(buffer), null)
+                        .withVersion(version);
+                action.accept(new JournalEntry(seq, kind, id, user));
+            }
+            case PET_SAVED -> action.accept(getPet(seq, buffer));
+            case PETS_SAVED -> {
+                for (int count = buffer.getInt(); count > 0; count--) {
+                    action.accept(getPet(seq, buffer));
+                }
+            }
+            case USER_DELETED, PET_DELETED -> action.accept(new JournalEntry(seq, kind, buffer.getLong(), null));
+        }
+        buffer.position(end);
+    }
+
+    private static int petSize(byte[] name) {
+        return 2 * Long.BYTES + sizeOf(name) + 1 + Long.BYTES;
+    }
+
+    private static void putPet(ByteBuffer body, Pet pet, byte[] name) {
+        body.putLong(pet.getId());
+        body.putLong(pet.getVersion());
+        putBytes(body, name);
+        body.put((byte) (pet.getUserId() == null ? 0 : 1));
+        body.putLong(pet.getUserId() == null ? 0 : pet.getUserId());
+    }
+
+    private static JournalEntry getPet(long seq, ByteBuffer buffer) {
+        long id = buffer.getLong();
+        long version = buffer.getLong();
+        Pet pet = new Pet(id, getString(buffer), buffer.get() == 0 ? skipLong(buffer) : buffer.getLong())
+                .withVersion(version);
+
+        return new JournalEntry(seq, JournalEntry.Kind.PET_SAVED, id, pet);
+    }
+
+    private static byte[] bytesOf(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int sizeOf(byte[] bytes) {
+        return Integer.BYTES + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private static void putNullableInt(ByteBuffer buffer, Integer value) {
+        buffer.put((byte) (value == null ? 0 : 1));
+        buffer.putInt(value == null ? 0 : value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Integer getNullableInt(ByteBuffer buffer) {
+        boolean present = buffer.get() != 0;
+        int value = buffer.getInt();
+
+        return present ? value : null;
+    }
+
+    private static Long skipLong(ByteBuffer buffer) {
+        buffer.getLong();
+
+        return null;
+    }
+}
@@ -0,0 +1,34 @@
+package dev.vudovenko.springbootmvcpractice.journal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Journals changes to {@code journal.directory} when {@code journal.enabled} is set; otherwise the stores only
+ * live in memory.
+ */
+@Configuration(proxyBeanMethods = false)
+public class JournalConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "journal.enabled", havingValue = "true")
+    public MappedJournal mappedJournal(
+            @Value("${journal.directory}") Path directory,
+            @Value("${journal.segment-size}") DataSize segmentSize,
+            @Value("${journal.sync-writes}") boolean syncWrites
+    ) throws IOException {
+        return new MappedJournal(directory, Math.toIntExact(segmentSize.toBytes()), syncWrites);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "journal.enabled", havingValue = "false", matchIfMissing = true)
+    public ChangeJournal noChangeJournal() {
+        return ChangeJournal.NONE;
+    }
+}
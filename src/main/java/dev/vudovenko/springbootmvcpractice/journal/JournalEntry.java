@@ -0,0 +1,26 @@
+package dev.vudovenko.springbootmvcpractice.journal;
+
+/**
+ * A decoded journal or snapshot entry: the full state of a saved entity, or just the id of a deleted one.
+ */
+public record JournalEntry(long seq, Kind kind, long id, Object entity) {
+
+    public enum Kind {
+        USER_SAVED,
+        USER_DELETED,
+        PET_SAVED,
+        PET_DELETED,
+        /**
+         * Several pets saved as a unit; only ever the kind of a frame, which decodes into {@link #PET_SAVED} entries.
+         */
+        PETS_SAVED;
+
+        public boolean isUser() {
+            return this == USER_SAVED || this == USER_DELETED;
+        }
+
+        public boolean isDeletion() {
+            return this == USER_DELETED || this == PET_DELETED;
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package dev.vudovenko.springbootmvcpractice.journal;
+
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only {@link ChangeJournal} written to memory-mapped segment files named after their first sequence number.
+ * <p>
+ * Appends copy the frame into the mapped segment under a short lock. A single flusher thread forces everything
+ * appended since its previous pass in one call, so concurrent writers waiting in {@link #awaitDurable} share an
+ * fsync (group commit). Without {@code syncWrites} appends do not wait, and a crash of the process still loses
+ * nothing once the frame is in the page cache; only an OS crash can drop the last unflushed entries.
+ * <p>
+ * A full segment is swapped under the lock for a spare the flusher mapped in advance under a temporary name. The
+ * flusher then forces the full segment, renames the spare after its first entry and syncs the directory before it
+ * reports any entry of the new segment as durable, so appends never wait for a roll's disk work. A spare left behind
+ * by a crash is renamed or deleted when the journal is opened again.
+ */
+@Log4j2
+public class MappedJournal implements ChangeJournal, AutoCloseable {
+
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    static final String SPARE_SUFFIX = ".spare";
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final boolean syncWrites;
+
+    private final ReentrantLock lock;
+
+    private final Condition flushRequested;
+
+    private final Condition flushed;
+
+    private final Thread flusher;
+
+    private final ArrayDeque<RolledSegment> rolled;
+
+    private MappedByteBuffer segment;
+
+    private Spare spare;
+
+    private long sparesCreated;
+
+    private int flushedPosition;
+
+    private long nextSeq;
+
+    private volatile long durableSeq;
+
+    private volatile boolean closed;
+
+    private volatile RuntimeException failure;
+
+    public MappedJournal(Path directory, int segmentSize, boolean syncWrites) throws IOException {
+        if (segmentSize < JournalCodec.FRAME_HEADER_BYTES * 2) {
+            throw new IllegalArgumentException("Segment size is too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncWrites = syncWrites;
+        this.lock = new ReentrantLock();
+        this.flushRequested = lock.newCondition();
+        this.flushed = lock.newCondition();
+        this.rolled = new ArrayDeque<>();
+
+        Files.createDirectories(directory);
+        recoverSpares(directory);
+        long lastSeq = lastSeqIn(directory);
+        this.nextSeq = lastSeq + 1;
+        this.durableSeq = lastSeq;
+        openSegment(nextSeq);
+
+        this.flusher = Thread.ofPlatform()
+                .name("journal-flusher")
+                .daemon()
+                .start(this::flushLoop);
+    }
+
+    @Override
+    public long userSaved(User user) {
+        return append(JournalCodec.userSaved(user));
+    }
+
+    @Override
+    public long userDeleted(Long id) {
+        return append(JournalCodec.deleted(JournalEntry.Kind.USER_DELETED, id));
+    }
+
+    @Override
+    public long petSaved(Pet pet) {
+        return append(JournalCodec.petSaved(pet));
+    }
+
+    @Override
+    public long petsSaved(List<Pet> pets) {
+        return append(JournalCodec.petsSaved(pets));
+    }
+
+    @Override
+    public long petDeleted(Long id) {
+        return append(JournalCodec.deleted(JournalEntry.Kind.PET_DELETED, id));
+    }
+
+    @Override
+    public void awaitDurable(long seq) {
+        if (!syncWrites || seq <= durableSeq) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            while (durableSeq < seq) {
+                checkWritable();
+                flushRequested.signal();
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The sequence number the next entry will get; every entry before it has been appended.
+     */
+    public long nextSeq() {
+        lock.lock();
+        try {
+            return nextSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments that only hold entries before {@code seq}.
+     */
+    public void deleteSegmentsBefore(long seq) throws IOException {
+        List<Path> segments = segmentsIn(directory);
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (firstSeqOf(segments.get(i + 1)) <= seq) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        }
+    }
+
+    /**
+     * Decodes the entries from {@code fromSeq} on, reading segments in parallel; {@code action} must be thread-safe
+     * and sees the entries of different segments in no particular order.
+     */
+    public static void readFrom(Path directory, long fromSeq, Consumer<JournalEntry> action) throws IOException {
+        List<Path> segments = segmentsIn(directory);
+        segments.parallelStream().forEach(segment -> {
+            try {
+                JournalCodec.readFrames(mapForRead(segment), fromSeq, action);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        lock.lock();
+        try {
+            closed = true;
+            flushRequested.signal();
+        } finally {
+            lock.unlock();
+        }
+        flusher.join();
+    }
+
+    private long append(byte[] body) {
+        int frameSize = JournalCodec.frameSize(body);
+        if (frameSize > segmentSize) {
+            throw new IllegalArgumentException("Journal entry of %d bytes does not fit a segment".formatted(frameSize));
+        }
+
+        lock.lock();
+        try {
+            checkWritable();
+            if (segment.remaining() < frameSize) {
+                roll();
+            }
+
+            long seq = nextSeq++;
+            JournalCodec.writeFrame(segment, seq, body);
+            flushRequested.signal();
+
+            return seq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Swaps the full segment for the spare and leaves forcing it, and naming the spare, to the flusher. Only when rolls
+     * come faster than the flusher maps spares is one mapped here.
+     */
+    private void roll() {
+        Spare next = spare != null ? spare : createSpare(nextSparePath());
+        spare = null;
+        rolled.add(new RolledSegment(
+                segment,
+                flushedPosition,
+                segment.position(),
+                next.path(),
+                segmentPath(directory, nextSeq)
+        ));
+        segment = next.buffer();
+        flushedPosition = 0;
+    }
+
+    private void openSegment(long firstSeq) {
+        Path path = segmentPath(directory, firstSeq);
+        try {
+            // a segment with this name can only be left over without a single valid entry
+            Files.deleteIfExists(path);
+            try (FileChannel channel = FileChannel.open(
+                    path,
+                    StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE
+            )) {
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            }
+            forceDirectory(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        flushedPosition = 0;
+    }
+
+    private void flushLoop() {
+        while (true) {
+            List<RolledSegment> rolledSegments;
+            MappedByteBuffer buffer;
+            int from;
+            int to;
+            long target;
+            Path sparePath;
+
+            lock.lock();
+            try {
+                while (!closed && rolled.isEmpty() && durableSeq == nextSeq - 1 && spare != null) {
+                    flushRequested.awaitUninterruptibly();
+                }
+                if (closed && rolled.isEmpty() && durableSeq == nextSeq - 1) {
+                    discardSpare();
+
+                    return;
+                }
+                rolledSegments = List.copyOf(rolled);
+                rolled.clear();
+                buffer = segment;
+                from = flushedPosition;
+                to = segment.position();
+                target = nextSeq - 1;
+                sparePath = spare == null && !closed ? nextSparePath() : null;
+            } finally {
+                lock.unlock();
+            }
+
+            Spare created = null;
+            try {
+                for (RolledSegment rolledSegment : rolledSegments) {
+                    rolledSegment.buffer().force(rolledSegment.from(), rolledSegment.to() - rolledSegment.from());
+                    Files.move(rolledSegment.next(), rolledSegment.nextName(), StandardCopyOption.ATOMIC_MOVE);
+                }
+                if (!rolledSegments.isEmpty()) {
+                    forceDirectory(directory);
+                }
+                buffer.force(from, to - from);
+                if (sparePath != null) {
+                    created = createSpare(sparePath);
+                }
+            } catch (IOException e) {
+                fail(new UncheckedIOException(e));
+
+                return;
+            } catch (UncheckedIOException e) {
+                fail(e);
+
+                return;
+            }
+
+            lock.lock();
+            try {
+                if (buffer == segment) {
+                    flushedPosition = Math.max(flushedPosition, to);
+                }
+                if (target > durableSeq) {
+                    durableSeq = target;
+                }
+                if (created != null) {
+                    if (spare == null) {
+                        spare = created;
+                    } else {
+                        deleteSpare(created);
+                    }
+                }
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private Spare createSpare(Path path) {
+        try (FileChannel channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        )) {
+            return new Spare(path, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The caller holds the lock.
+     */
+    private Path nextSparePath() {
+        return directory.resolve("%020d%s".formatted(sparesCreated++, SPARE_SUFFIX));
+    }
+
+    private void discardSpare() {
+        if (spare != null) {
+            deleteSpare(spare);
+            spare = null;
+        }
+    }
+
+    private static void deleteSpare(Spare spare) {
+        try {
+            Files.deleteIfExists(spare.path());
+        } catch (IOException e) {
+            log.warn("Could not delete journal spare {}", spare.path(), e);
+        }
+    }
+
+    private void fail(RuntimeException e) {
+        log.error("Journal flush failed, rejecting further writes", e);
+        lock.lock();
+        try {
+            failure = e;
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkWritable() {
+        if (failure != null) {
+            throw new IllegalStateException("Journal is not writable", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+    }
+
+    /**
+     * Names each spare left behind by a crash after its first entry, so the entries appended to it are replayed, and
+     * deletes the spares that never got one.
+     */
+    private static void recoverSpares(Path directory) throws IOException {
+        List<Path> spares;
+        try (Stream<Path> files = Files.list(directory)) {
+            spares = files
+                    .filter(path -> path.getFileName().toString().endsWith(SPARE_SUFFIX))
+                    .toList();
+        }
+        if (spares.isEmpty()) {
+            return;
+        }
+
+        for (Path spare : spares) {
+            long[] firstSeq = {0};
+            JournalCodec.readFrames(mapForRead(spare), 0, entry -> {
+                if (firstSeq[0] == 0) {
+                    firstSeq[0] = entry.seq();
+                }
+            });
+            if (firstSeq[0] == 0) {
+                Files.delete(spare);
+            } else {
+                Files.move(spare, segmentPath(directory, firstSeq[0]), StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        forceDirectory(directory);
+    }
+
+    private static void forceDirectory(Path directory) throws IOException {
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        }
+    }
+
+    private static Path segmentPath(Path directory, long firstSeq) {
+        return directory.resolve("%020d%s".formatted(firstSeq, SEGMENT_SUFFIX));
+    }
+
+    private static long lastSeqIn(Path directory) throws IOException {
+        List<Path> segments = segmentsIn(directory);
+        if (segments.isEmpty()) {
+            return 0;
+        }
+
+        Path lastSegment = segments.getLast();
+        long[] lastSeq = {firstSeqOf(lastSegment) - 1};
+        JournalCodec.readFrames(mapForRead(lastSegment), 0, entry -> lastSeq[0] = entry.seq());
+
+        return lastSeq[0];
+    }
+
+    private static MappedByteBuffer mapForRead(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static List<Path> segmentsIn(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted(Comparator.comparingLong(MappedJournal::firstSeqOf))
+                    .toList();
+        }
+    }
+
+    private static long firstSeqOf(Path segment) {
+        String name = segment.getFileName().toString();
+
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * A segment file mapped ahead of the roll that will need it, under a name no reader looks at.
+     */
+    private record Spare(Path path, MappedByteBuffer buffer) {
+    }
+
+    /**
+     * A full segment whose bytes from {@code from} to {@code to} the flusher still has to force, and the spare
+     * that took its place, to be renamed to {@code nextName}.
+     */
+    private record RolledSegment(MappedByteBuffer buffer, int from, int to, Path next, Path nextName) {
+    }
+}
@@ -0,0 +1,228 @@
+package dev.vudovenko.springbootmvcpractice.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Full copy of the stores, taken while writes continue, named after the journal sequence number it was started at.
+ * <p>
+ * The file is a header followed by length-prefixed chunks of journal frames, users first: chunks are independent,
+ * so loading decodes them in parallel. Entities changed while the snapshot was written may be captured in any
+ * state, which is fine because every such change is in the journal from {@link #journalSeq()} on and is replayed
+ * over the snapshot.
+ */
+public record SnapshotFile(
+        Path path,
+        long journalSeq,
+        long lastUserId,
+        long lastPetId,
+        List<Chunk> userChunks,
+        List<Chunk> petChunks
+) {
+
+    static final String SUFFIX = ".snapshot";
+
+    private static final int MAGIC = 0x534E4150;
+
+    private static final int HEADER_BYTES = Integer.BYTES + 3 * Long.BYTES + Integer.BYTES;
+
+    private static final int CHUNK_BYTES = 1 << 20;
+
+    public record Chunk(long position, int length) {
+    }
+
+    /**
+     * Writes a snapshot to a temporary file, forces it and moves it into place, then deletes older snapshots.
+     * The sources feed encoded entry bodies to the consumer they are given.
+     */
+    public static Path write(
+            Path directory,
+            long journalSeq,
+            long lastUserId,
+            long lastPetId,
+            Consumer<Consumer<byte[]>> users,
+            Consumer<Consumer<byte[]>> pets
+    ) throws IOException {
+        Path target = directory.resolve("%020d%s".formatted(journalSeq, SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(
+                temporary,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+        )) {
+            ChunkWriter writer = new ChunkWriter(channel, HEADER_BYTES);
+            users.accept(writer::add);
+            int userChunkCount = writer.finishChunk();
+            pets.accept(writer::add);
+            writer.finishChunk();
+            writer.writeEndMarker();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC)
+                    .putLong(journalSeq)
+                    .putLong(lastUserId)
+                    .putLong(lastPetId)
+                    .putInt(userChunkCount)
+                    .flip();
+            writeFully(channel, header, 0);
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        for (Path older : snapshotsIn(directory)) {
+            if (!older.equals(target)) {
+                Files.deleteIfExists(older);
+            }
+        }
+
+        return target;
+    }
+
+    public static Optional<SnapshotFile> latest(Path directory) throws IOException {
+        List<Path> snapshots = snapshotsIn(directory);
+        if (snapshots.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Path path = snapshots.getLast();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a snapshot file: " + path);
+            }
+            long journalSeq = header.getLong();
+            long lastUserId = header.getLong();
+            long lastPetId = header.getLong();
+            int userChunkCount = header.getInt();
+
+            List<Chunk> chunks = new ArrayList<>();
+            long position = HEADER_BYTES;
+            while (true) {
+                int length = readFully(channel, position, Integer.BYTES).getInt();
+                if (length == 0) {
+                    break;
+                }
+                chunks.add(new Chunk(position + Integer.BYTES, length));
+                position += Integer.BYTES + length;
+            }
+
+            return Optional.of(new SnapshotFile(
+                    path,
+                    journalSeq,
+                    lastUserId,
+                    lastPetId,
+                    chunks.subList(0, userChunkCount),
+                    chunks.subList(userChunkCount, chunks.size())
+            ));
+        }
+    }
+
+    /**
+     * Decodes the chunks in parallel, handing each chunk's entries to {@code action} as one list.
+     */
+    public void readInParallel(List<Chunk> chunks, Consumer<List<JournalEntry>> action) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            chunks.parallelStream().forEach(chunk -> {
+                try {
+                    List<JournalEntry> entries = new ArrayList<>();
+                    JournalCodec.readFrames(readFully(channel, chunk.position(), chunk.length()), 0, entries::add);
+                    action.accept(entries);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private static List<Path> snapshotsIn(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                    .toList();
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of snapshot at " + (position + buffer.position()));
+            }
+        }
+
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static final class ChunkWriter {
+
+        private final FileChannel channel;
+
+        private ByteBuffer chunk;
+
+        private long position;
+
+        private int chunkCount;
+
+        private ChunkWriter(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+            this.chunk = ByteBuffer.allocate(CHUNK_BYTES);
+        }
+
+        private void add(byte[] body) {
+            int frameSize = JournalCodec.frameSize(body);
+            if (chunk.remaining() < frameSize) {
+                finishChunk();
+                if (chunk.capacity() < frameSize) {
+                    chunk = ByteBuffer.allocate(frameSize);
+                }
+            }
+            JournalCodec.writeFrame(chunk, 0, body);
+        }
+
+        /**
+         * Writes out the pending chunk, if any, and returns the number of chunks written so far.
+         */
+        private int finishChunk() {
+            if (chunk.position() > 0) {
+                try {
+                    ByteBuffer length = ByteBuffer.allocate(Integer.BYTES).putInt(chunk.position()).flip();
+                    writeFully(channel, length, position);
+                    writeFully(channel, chunk.flip(), position + Integer.BYTES);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                position += Integer.BYTES + chunk.limit();
+                chunk.clear();
+                chunkCount++;
+            }
+
+            return chunkCount;
+        }
+
+        private void writeEndMarker() throws IOException {
+            writeFully(channel, ByteBuffer.allocate(Integer.BYTES), position);
+        }
+    }
+}
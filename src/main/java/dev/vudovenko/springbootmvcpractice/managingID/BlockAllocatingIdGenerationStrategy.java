@@ -0,0 +1,108 @@
+package dev.vudovenko.springbootmvcpractice.managingID;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Hands out ids from blocks reserved per cell, so concurrent threads only touch the shared source on refill.
+ * <p>
+ * Threads are spread over cells by thread id, so virtual threads share cells instead of wasting a block each.
+ * Ids are unique but not globally ordered, and a block lost in a refill race leaves a gap.
+ */
+public abstract class BlockAllocatingIdGenerationStrategy implements IdGenerationStrategy {
+
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+
+    private static final Block EXHAUSTED = new Block(0, 0);
+
+    private final int blockSize;
+
+    private final AtomicReferenceArray<Block> cells;
+
+    private final int cellMask;
+
+    protected BlockAllocatingIdGenerationStrategy(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.blockSize = blockSize;
+
+        int cellCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+        this.cells = new AtomicReferenceArray<>(cellCount);
+        this.cellMask = cellCount - 1;
+        for (int i = 0; i < cellCount; i++) {
+            cells.set(i, EXHAUSTED);
+        }
+    }
+
+    @Override
+    public long nextId() {
+        int cell = cellOfCurrentThread();
+        while (true) {
+            Block block = cells.get(cell);
+            long raw = block.claim();
+            if (raw < block.limit) {
+                return toId(raw);
+            }
+
+            long start = reserveBlock(blockSize);
+            cells.compareAndSet(cell, block, new Block(start, start + blockSize));
+        }
+    }
+
+    @Override
+    public long[] nextIds(int count) {
+        long[] ids = new long[count];
+        if (count == 0) {
+            return ids;
+        }
+
+        long start = reserveBlock(count);
+        for (int i = 0; i < count; i++) {
+            ids[i] = toId(start + i);
+        }
+
+        return ids;
+    }
+
+    /**
+     * Reserves {@code size} consecutive raw values and returns the first one.
+     */
+    protected abstract long reserveBlock(int size);
+
+    protected abstract long toId(long raw);
+
+    private int cellOfCurrentThread() {
+        long h = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+
+        return (int) (h >>> 32) & cellMask;
+    }
+
+    private static final class Block {
+
+        private static final VarHandle NEXT;
+
+        static {
+            try {
+                NEXT = MethodHandles.lookup().findVarHandle(Block.class, "next", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final long limit;
+
+        @SuppressWarnings("unused")
+        private volatile long next;
+
+        private Block(long start, long limit) {
+            this.next = start;
+            this.limit = limit;
+        }
+
+        private long claim() {
+            return (long) NEXT.getAndAdd(this, 1L);
+        }
+    }
+}
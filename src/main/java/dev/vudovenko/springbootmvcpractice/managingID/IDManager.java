@@ -1,14 +1,33 @@
 package dev.vudovenko.springbootmvcpractice.managingID;
 
+import org.springframework.beans.factory.annotation.Autowired;
+
 public abstract class IDManager {
 
-    private Long idCounter;
+    private IdGenerationStrategy idGenerationStrategy;
 
     public IDManager() {
-        this.idCounter = 0L;
+        this.idGenerationStrategy = new SequentialIdGenerationStrategy();
+    }
+
+    @Autowired(required = false)
+    public void setIdGenerationStrategies(IdGenerationStrategies idGenerationStrategies) {
+        this.idGenerationStrategy = idGenerationStrategies.create();
+    }
+
+    public void advanceIdsPast(long id) {
+        idGenerationStrategy.advancePast(id);
+    }
+
+    public long lastReservedId() {
+        return idGenerationStrategy.lastReservedId();
+    }
+
+    protected long getNextId() {
+        return idGenerationStrategy.nextId();
     }
 
-    protected Long getNextId() {
-        return ++idCounter;
+    protected long[] getNextIds(int count) {
+        return idGenerationStrategy.nextIds(count);
     }
 }
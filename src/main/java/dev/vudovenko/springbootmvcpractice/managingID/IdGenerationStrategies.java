@@ -0,0 +1,58 @@
+package dev.vudovenko.springbootmvcpractice.managingID;
+
+import dev.vudovenko.springbootmvcpractice.partitioning.Partitions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+
+@Component
+public class IdGenerationStrategies {
+
+    private final String strategy;
+
+    private final int blockSize;
+
+    private final long nodeId;
+
+    private final Partitions partitions;
+
+    public IdGenerationStrategies(
+            @Value("${ids.strategy:sequential}") String strategy,
+            @Value("${ids.block-size:" + BlockAllocatingIdGenerationStrategy.DEFAULT_BLOCK_SIZE + "}") int blockSize,
+            @Value("${ids.node-id:0}") long nodeId,
+            Partitions partitions
+    ) {
+        this.strategy = strategy;
+        this.blockSize = blockSize;
+        this.nodeId = nodeId;
+        this.partitions = partitions;
+    }
+
+    public IdGenerationStrategy create() {
+        IdGenerationStrategy idGenerationStrategy = createConfigured();
+
+        return partitions.isPartitioned()
+                ? new PartitionLocalIdGenerationStrategy(idGenerationStrategy, partitions::isLocal)
+                : idGenerationStrategy;
+    }
+
+    private IdGenerationStrategy createConfigured() {
+        return switch (strategy) {
+            case "sequential" -> new SequentialIdGenerationStrategy(blockSize);
+            case "snowflake" -> new SnowflakeIdGenerationStrategy(nodeId, blockSize, Clock.systemUTC());
+            default -> instantiate(strategy);
+        };
+    }
+
+    private static IdGenerationStrategy instantiate(String className) {
+        try {
+            return Class.forName(className)
+                    .asSubclass(IdGenerationStrategy.class)
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalStateException("Unknown id generation strategy: " + className, e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package dev.vudovenko.springbootmvcpractice.managingID;
+
+public interface IdGenerationStrategy {
+
+    long nextId();
+
+    /**
+     * Makes ids reserved from now on greater than {@code id}, so ids restored on startup are not handed out again.
+     * Blocks reserved before the call are not affected, so it is meant to be called before the first id. Every
+     * strategy must implement it: with the journal on it is called for the highest restored id of each store.
+     */
+    void advancePast(long id);
+
+    /**
+     * The highest id reserved so far, or {@code 0} if none was.
+     */
+    default long lastReservedId() {
+        return 0;
+    }
+
+    default long[] nextIds(int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = nextId();
+        }
+
+        return ids;
+    }
+}
@@ -0,0 +1,54 @@
+package dev.vudovenko.springbootmvcpractice.managingID;
+
+import java.util.function.LongPredicate;
+
+/**
+ * Hands out only the ids of {@code delegate} accepted by {@code isLocal}, so nodes sharing an id space never hand out
+ * the same id. With {@code n} equal partitions it draws about {@code n} ids per id handed out.
+ */
+public class PartitionLocalIdGenerationStrategy implements IdGenerationStrategy {
+
+    private final IdGenerationStrategy delegate;
+
+    private final LongPredicate isLocal;
+
+    public PartitionLocalIdGenerationStrategy(IdGenerationStrategy delegate, LongPredicate isLocal) {
+        this.delegate = delegate;
+        this.isLocal = isLocal;
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            long id = delegate.nextId();
+            if (isLocal.test(id)) {
+                return id;
+            }
+        }
+    }
+
+    @Override
+    public long[] nextIds(int count) {
+        long[] ids = new long[count];
+        int found = 0;
+        while (found < count) {
+            for (long id : delegate.nextIds(count - found)) {
+                if (isLocal.test(id)) {
+                    ids[found++] = id;
+                }
+            }
+        }
+
+        return ids;
+    }
+
+    @Override
+    public void advancePast(long id) {
+        delegate.advancePast(id);
+    }
+
+    @Override
+    public long lastReservedId() {
+        return delegate.lastReservedId();
+    }
+}
@@ -0,0 +1,37 @@
+package dev.vudovenko.springbootmvcpractice.managingID;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SequentialIdGenerationStrategy extends BlockAllocatingIdGenerationStrategy {
+
+    private final AtomicLong nextBlockStart;
+
+    public SequentialIdGenerationStrategy() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    public SequentialIdGenerationStrategy(int blockSize) {
+        super(blockSize);
+        this.nextBlockStart = new AtomicLong(1);
+    }
+
+    @Override
+    protected long reserveBlock(int size) {
+        return nextBlockStart.getAndAdd(size);
+    }
+
+    @Override
+    public void advancePast(long id) {
+        nextBlockStart.accumulateAndGet(id + 1, Math::max);
+    }
+
+    @Override
+    public long lastReservedId() {
+        return nextBlockStart.get() - 1;
+    }
+
+    @Override
+    protected long toId(long raw) {
+        return raw;
+    }
+}
@@ -0,0 +1,78 @@
+package dev.vudovenko.springbootmvcpractice.managingID;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 64-bit time/node ids: 41 bits of milliseconds since {@link #EPOCH}, 10 bits of node id and a 12-bit sequence.
+ * <p>
+ * Blocks are reserved on a packed (millis, sequence) counter. When a millisecond runs out of sequence numbers
+ * or the clock goes backwards the counter simply keeps counting, borrowing from the following milliseconds,
+ * so ids stay unique per node.
+ */
+public class SnowflakeIdGenerationStrategy extends BlockAllocatingIdGenerationStrategy {
+
+    public static final Instant EPOCH = Instant.parse("2024-01-01T00:00:00Z");
+
+    public static final int NODE_BITS = 10;
+
+    public static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+
+    private final Clock clock;
+
+    private final AtomicLong state;
+
+    public SnowflakeIdGenerationStrategy(long nodeId) {
+        this(nodeId, DEFAULT_BLOCK_SIZE, Clock.systemUTC());
+    }
+
+    public SnowflakeIdGenerationStrategy(long nodeId, int blockSize, Clock clock) {
+        super(blockSize);
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be in [0, %d]: %d".formatted(MAX_NODE_ID, nodeId));
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+        this.state = new AtomicLong();
+    }
+
+    @Override
+    protected long reserveBlock(int size) {
+        while (true) {
+            long current = state.get();
+            long now = (clock.millis() - EPOCH.toEpochMilli()) << SEQUENCE_BITS;
+            long start = Math.max(current, now);
+            if (state.compareAndSet(current, start + size)) {
+                return start;
+            }
+        }
+    }
+
+    @Override
+    public void advancePast(long id) {
+        long raw = ((id >>> (NODE_BITS + SEQUENCE_BITS)) << SEQUENCE_BITS) | (id & SEQUENCE_MASK);
+        state.accumulateAndGet(raw + 1, Math::max);
+    }
+
+    @Override
+    public long lastReservedId() {
+        long current = state.get();
+
+        return current == 0 ? 0 : toId(current - 1);
+    }
+
+    @Override
+    protected long toId(long raw) {
+        long millis = raw >>> SEQUENCE_BITS;
+        long sequence = raw & SEQUENCE_MASK;
+
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+}
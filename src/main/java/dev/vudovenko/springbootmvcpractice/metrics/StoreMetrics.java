@@ -0,0 +1,91 @@
+package dev.vudovenko.springbootmvcpractice.metrics;
+
+import dev.vudovenko.springbootmvcpractice.cascade.Tombstones;
+import dev.vudovenko.springbootmvcpractice.managingID.IDManager;
+import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import dev.vudovenko.springbootmvcpractice.storage.SizeHistogram;
+import dev.vudovenko.springbootmvcpractice.users.service.UserService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gauges over the in-memory stores. Every value is read when the registry is scraped, so request threads pay nothing.
+ * <p>
+ * {@code users.pets} is the pets-per-user distribution as cumulative buckets: the number of users with at most
+ * {@code le} pets. It is kept up to date as users are published instead of being sampled per request.
+ */
+@Component
+public class StoreMetrics implements MeterBinder {
+
+    private final UserService userService;
+
+    private final PetService petService;
+
+    private final Tombstones tombstones;
+
+    public StoreMetrics(UserService userService, PetService petService, Tombstones tombstones) {
+        this.userService = userService;
+        this.petService = petService;
+        this.tombstones = tombstones;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("store.entities", userService, UserService::count)
+                .description("Entities held in the store")
+                .tag("store", "users")
+                .register(registry);
+        Gauge.builder("store.entities", petService, PetService::count)
+                .description("Entities held in the store")
+                .tag("store", "pets")
+                .register(registry);
+
+        Gauge.builder("ids.last.reserved", userService, IDManager::lastReservedId)
+                .description("Highest id reserved by the id generator")
+                .tag("store", "users")
+                .register(registry);
+        Gauge.builder("ids.last.reserved", petService, IDManager::lastReservedId)
+                .description("Highest id reserved by the id generator")
+                .tag("store", "pets")
+                .register(registry);
+
+        Gauge.builder("store.tombstoned.pets", tombstones, Tombstones::pendingPets)
+                .description("Pets of deleted users not deleted yet")
+                .register(registry);
+
+        SizeHistogram petsPerUser = userService.petsPerUser();
+        Gauge.builder("users.pets", this, metrics -> metrics.usersWithoutPets())
+                .description("Users with at most le pets")
+                .tag("le", "0")
+                .register(registry);
+        for (int bucket = 0; bucket < petsPerUser.bucketCount(); bucket++) {
+            int lastBucket = bucket;
+            long upperBound = petsPerUser.upperBound(bucket);
+            Gauge.builder("users.pets", this, metrics -> metrics.usersWithAtMost(petsPerUser, lastBucket))
+                    .description("Users with at most le pets")
+                    .tag("le", upperBound == Long.MAX_VALUE ? "+Inf" : Long.toString(upperBound))
+                    .register(registry);
+        }
+    }
+
+    private double usersWithoutPets() {
+        SizeHistogram petsPerUser = userService.petsPerUser();
+        long owners = 0;
+        for (int bucket = 0; bucket < petsPerUser.bucketCount(); bucket++) {
+            owners += petsPerUser.count(bucket);
+        }
+
+        return Math.max(0, userService.count() - owners);
+    }
+
+    private double usersWithAtMost(SizeHistogram petsPerUser, int lastBucket) {
+        double users = usersWithoutPets();
+        for (int bucket = 0; bucket <= lastBucket; bucket++) {
+            users += petsPerUser.count(bucket);
+        }
+
+        return users;
+    }
+}
@@ -0,0 +1,35 @@
+package dev.vudovenko.springbootmvcpractice.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of entities in ascending id order. {@code nextCursor} is passed back as {@code after} to get the next page
+ * and is {@code null} on the last page.
+ */
+public record KeysetPage<T>(
+
+        List<T> items,
+        Long nextCursor
+) {
+
+    public static final int DEFAULT_LIMIT = 100;
+
+    public static final int MAX_LIMIT = 1000;
+
+    public static <T> KeysetPage<T> of(List<T> items, int limit, Function<T, Long> idOf) {
+        Long nextCursor = items.size() < limit
+                ? null
+                : idOf.apply(items.get(items.size() - 1));
+
+        return new KeysetPage<>(items, nextCursor);
+    }
+
+    public static int clampLimit(int limit) {
+        return Math.clamp(limit, 1, MAX_LIMIT);
+    }
+
+    public static long cursorOf(Long after) {
+        return after == null ? 0 : after;
+    }
+}
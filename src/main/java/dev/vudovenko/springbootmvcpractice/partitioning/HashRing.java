@@ -0,0 +1,73 @@
+package dev.vudovenko.springbootmvcpractice.partitioning;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Consistent hashing of ids onto nodes. Every node is placed on the ring at {@code virtualNodes} points derived from
+ * its name, and an id belongs to the node of the first point at or after the id's hash, so adding or removing a node
+ * only moves the ids between it and its neighbours.
+ */
+public class HashRing {
+
+    private final List<String> nodes;
+
+    private final long[] points;
+
+    private final int[] owners;
+
+    public HashRing(List<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A ring needs nodes and at least one point per node");
+        }
+        this.nodes = List.copyOf(nodes);
+
+        long[][] placed = IntStream.range(0, nodes.size())
+                .boxed()
+                .flatMap(node -> IntStream.range(0, virtualNodes)
+                        .mapToObj(point -> new long[]{hash(nodes.get(node) + "#" + point), node}))
+                .sorted(Comparator.comparingLong(point -> point[0]))
+                .toArray(long[][]::new);
+        this.points = new long[placed.length];
+        this.owners = new int[placed.length];
+        for (int i = 0; i < placed.length; i++) {
+            points[i] = placed[i][0];
+            owners[i] = (int) placed[i][1];
+        }
+    }
+
+    /**
+     * Index in {@link #nodes()} of the node owning {@code id}.
+     */
+    public int partitionOf(long id) {
+        int point = Arrays.binarySearch(points, mix(id));
+        if (point < 0) {
+            point = -point - 1;
+        }
+
+        return owners[point == points.length ? 0 : point];
+    }
+
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    private static long hash(String name) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xff)) * 0x100000001b3L;
+        }
+
+        return mix(h);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,76 @@
+package dev.vudovenko.springbootmvcpractice.partitioning;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Owners on this node promised to prepared pet moves, by move id. A held owner cannot be deleted, so a prepared move
+ * can always commit. A hold ends on commit or abort, or lapses after {@code partitions.move-hold-timeout} if the
+ * coordinating node never finishes the move.
+ * <p>
+ * Holds are only taken and checked under the owner lock. There are as many as moves in flight, so checks just scan
+ * them. The target side of a move waits at most {@link #lockTimeout()} for that lock: the node coordinating the move
+ * holds a lock of its own meanwhile, so two nodes moving pets to each other could otherwise wait on each other forever.
+ */
+public class MoveHolds {
+
+    private final Map<String, Hold> holds;
+
+    private final Duration timeout;
+
+    private final Duration lockTimeout;
+
+    private final Clock clock;
+
+    public MoveHolds(Duration timeout, Duration lockTimeout, Clock clock) {
+        this.holds = new ConcurrentHashMap<>();
+        this.timeout = timeout;
+        this.lockTimeout = lockTimeout;
+        this.clock = clock;
+    }
+
+    public void hold(String moveId, Long ownerId) {
+        holds.put(moveId, new Hold(ownerId, clock.millis() + timeout.toMillis()));
+    }
+
+    /**
+     * Whether {@code moveId} holds {@code ownerId} and has not lapsed.
+     */
+    public boolean isHeld(String moveId, Long ownerId) {
+        Hold hold = holds.get(moveId);
+
+        return hold != null && hold.ownerId().equals(ownerId) && !lapsed(moveId, hold);
+    }
+
+    public boolean isHeld(Long ownerId) {
+        for (Map.Entry<String, Hold> entry : holds.entrySet()) {
+            if (entry.getValue().ownerId().equals(ownerId) && !lapsed(entry.getKey(), entry.getValue())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public void release(String moveId) {
+        holds.remove(moveId);
+    }
+
+    public Duration lockTimeout() {
+        return lockTimeout;
+    }
+
+    private boolean lapsed(String moveId, Hold hold) {
+        if (hold.deadline() > clock.millis()) {
+            return false;
+        }
+        holds.remove(moveId, hold);
+
+        return true;
+    }
+
+    private record Hold(Long ownerId, long deadline) {
+    }
+}
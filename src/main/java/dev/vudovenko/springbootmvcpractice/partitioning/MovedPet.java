@@ -0,0 +1,23 @@
+package dev.vudovenko.springbootmvcpractice.partitioning;
+
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+
+/**
+ * A pet as sent to the node it moves to, with the version it is stored at there.
+ */
+public record MovedPet(
+
+        long id,
+        String name,
+        Long userId,
+        long version
+) {
+
+    public static MovedPet of(Pet pet) {
+        return new MovedPet(pet.getId(), pet.getName(), pet.getUserId(), pet.getVersion());
+    }
+
+    public Pet toPet() {
+        return new Pet(id, name, userId).withVersion(version);
+    }
+}
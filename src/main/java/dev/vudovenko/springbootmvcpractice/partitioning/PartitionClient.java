@@ -0,0 +1,168 @@
+package dev.vudovenko.springbootmvcpractice.partitioning;
+
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.PartitionUnavailableException;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.PetMoveConflictException;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.UserNotFoundException;
+import dev.vudovenko.springbootmvcpractice.pagination.KeysetPage;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Calls to other nodes: forwarded requests and the internal {@code /partitions} endpoints, all carrying
+ * {@code partitions.secret}. A node that cannot be reached or fails is reported as
+ * {@link PartitionUnavailableException}.
+ */
+public class PartitionClient {
+
+    private static final ParameterizedTypeReference<List<User>> USERS = new ParameterizedTypeReference<>() {
+    };
+
+    private final RestClient restClient;
+
+    public PartitionClient(
+            RestClient.Builder restClientBuilder,
+            PartitionProperties properties,
+            Partitions partitions
+    ) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(properties.connectTimeout())
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(properties.readTimeout());
+        restClientBuilder.requestFactory(requestFactory);
+        if (partitions.secret() != null) {
+            restClientBuilder.defaultHeader(PartitionRoutingFilter.SECRET_HEADER, partitions.secret());
+        }
+        this.restClient = restClientBuilder.build();
+    }
+
+    /**
+     * Sends a request as it is and returns the response as it is, whatever its status.
+     */
+    public ResponseEntity<byte[]> forward(
+            String node,
+            HttpMethod method,
+            String pathAndQuery,
+            HttpHeaders headers,
+            byte[] body
+    ) {
+        return call(node, () -> {
+            RestClient.RequestBodySpec request = restClient.method(method)
+                    .uri(URI.create(node + pathAndQuery))
+                    .headers(requestHeaders -> requestHeaders.addAll(headers));
+            if (body.length > 0) {
+                request.body(body);
+            }
+
+            return request.exchange((clientRequest, response) -> ResponseEntity
+                    .status(response.getStatusCode())
+                    .headers(response.getHeaders())
+                    .body(response.getBody().readAllBytes()));
+        });
+    }
+
+    public boolean holdsPet(String node, long petId) {
+        return call(node, () -> restClient.get()
+                .uri(node + "/partitions/pets/{id}", petId)
+                .exchange((request, response) -> response.getStatusCode().is2xxSuccessful()));
+    }
+
+    public <T> KeysetPage<T> page(
+            String node,
+            String path,
+            long after,
+            int limit,
+            ParameterizedTypeReference<KeysetPage<T>> pageType
+    ) {
+        return call(node, () -> restClient.get()
+                .uri(node + path + "?after={after}&limit={limit}", after, limit)
+                .retrieve()
+                .body(pageType));
+    }
+
+    public List<User> findUsersByEmail(String node, String email) {
+        return call(node, () -> restClient.get()
+                .uri(node + "/partitions/users/by-email?email={email}", email)
+                .retrieve()
+                .body(USERS));
+    }
+
+    public <T, R> List<R> createBatch(
+            String node,
+            String path,
+            List<T> items,
+            ParameterizedTypeReference<List<R>> resultType
+    ) {
+        return call(node, () -> restClient.post()
+                .uri(node + path)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(items)
+                .retrieve()
+                .body(resultType));
+    }
+
+    /**
+     * Phase one of a move: has {@code node} hold {@code ownerId} for {@code moveId}.
+     *
+     * @throws UserNotFoundException   if the owner does not exist on {@code node}
+     * @throws PetMoveConflictException if the owner is busy there; the caller may retry later
+     */
+    public void prepareMove(String node, String moveId, Long ownerId) {
+        call(node, () -> restClient.post()
+                .uri(node + "/partitions/moves/{moveId}/prepare?ownerId={ownerId}", moveId, ownerId)
+                .retrieve()
+                .onStatus(status -> status.isSameCodeAs(HttpStatus.NOT_FOUND), (request, response) -> {
+                    throw UserNotFoundException.owner(ownerId);
+                })
+                .onStatus(status -> status.isSameCodeAs(HttpStatus.CONFLICT), (request, response) -> {
+                    throw new PetMoveConflictException("User with id " + ownerId + " on " + node + " is busy");
+                })
+                .toBodilessEntity());
+    }
+
+    /**
+     * Phase two of a move: stores the pet on {@code node}. Repeating a commit that succeeded returns the same pet.
+     *
+     * @throws PetMoveConflictException if the move is not held there, because it lapsed or was aborted
+     */
+    public MovedPet commitMove(String node, String moveId, MovedPet pet) {
+        return call(node, () -> restClient.post()
+                .uri(node + "/partitions/moves/{moveId}/commit", moveId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(pet)
+                .retrieve()
+                .onStatus(status -> status.isSameCodeAs(HttpStatus.CONFLICT), (request, response) -> {
+                    throw new PetMoveConflictException("Move of pet " + pet.id() + " to " + node + " has lapsed");
+                })
+                .body(MovedPet.class));
+    }
+
+    public void abortMove(String node, String moveId) {
+        call(node, () -> restClient.post()
+                .uri(node + "/partitions/moves/{moveId}/abort", moveId)
+                .retrieve()
+                .toBodilessEntity());
+    }
+
+    private static <T> T call(String node, Supplier<T> request) {
+        try {
+            return request.get();
+        } catch (RestClientException e) {
+            throw new PartitionUnavailableException("Partition " + node + " failed: " + e.getMessage(), e);
+        }
+    }
+}
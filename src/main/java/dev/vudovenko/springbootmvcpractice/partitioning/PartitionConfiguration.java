@@ -0,0 +1,92 @@
+package dev.vudovenko.springbootmvcpractice.partitioning;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.GlobalExceptionHandler;
+import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestClient;
+
+import java.time.Clock;
+
+/**
+ * Splits users and their pets across the nodes listed in {@code partitions.nodes}; see {@link Partitions}.
+ * Without them the application is a single node and only the always-local parts below are used.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(PartitionProperties.class)
+public class PartitionConfiguration {
+
+    @Bean
+    public Partitions partitions(PartitionProperties properties) {
+        return Partitions.of(properties);
+    }
+
+    /**
+     * The reactive stack has no auto-configured {@link RestClient.Builder}, so a plain one is used there.
+     */
+    @Bean
+    public PartitionClient partitionClient(
+            ObjectProvider<RestClient.Builder> restClientBuilder,
+            PartitionProperties properties,
+            Partitions partitions
+    ) {
+        return new PartitionClient(restClientBuilder.getIfAvailable(RestClient::builder), properties, partitions);
+    }
+
+    @Bean
+    public PartitionQueries partitionQueries(Partitions partitions, PartitionClient partitionClient) {
+        return new PartitionQueries(partitions, partitionClient);
+    }
+
+    @Bean
+    public PetMoves petMoves(Partitions partitions, PartitionClient partitionClient) {
+        return new PetMoves(partitions, partitionClient);
+    }
+
+    @Bean
+    public MoveHolds moveHolds(PartitionProperties properties) {
+        return new MoveHolds(properties.moveHoldTimeout(), properties.moveLockTimeout(), Clock.systemUTC());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "partitions", name = "self")
+    public FilterRegistrationBean<PartitionRoutingFilter> partitionRoutingFilter(
+            Partitions partitions,
+            PartitionClient partitionClient,
+            PetService petService,
+            GlobalExceptionHandler exceptionHandler,
+            ObjectMapper objectMapper
+    ) {
+        PartitionRoutingFilter filter = new PartitionRoutingFilter(
+                partitions,
+                new PetLocator(partitions, partitionClient, petService),
+                partitionClient,
+                exceptionHandler,
+                objectMapper
+        );
+        FilterRegistrationBean<PartitionRoutingFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/users/*", "/pets/*");
+
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "partitions", name = "self")
+    public FilterRegistrationBean<PartitionSecretFilter> partitionSecretFilter(
+            Partitions partitions,
+            GlobalExceptionHandler exceptionHandler,
+            ObjectMapper objectMapper
+    ) {
+        FilterRegistrationBean<PartitionSecretFilter> registration = new FilterRegistrationBean<>(
+                new PartitionSecretFilter(partitions, exceptionHandler, objectMapper)
+        );
+        registration.addUrlPatterns("/partitions/*");
+
+        return registration;
+    }
+}
@@ -0,0 +1,99 @@
+package dev.vudovenko.springbootmvcpractice.partitioning;
+
+import dev.vudovenko.springbootmvcpractice.batch.BatchItemResult;
+import dev.vudovenko.springbootmvcpractice.batch.BatchProcessor;
+import dev.vudovenko.springbootmvcpractice.pagination.KeysetPage;
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import dev.vudovenko.springbootmvcpractice.users.service.UserService;
+import io.swagger.v3.oas.annotations.Hidden;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Node-to-node endpoints. Everything here answers for this node only: the public endpoints build on them to answer
+ * for the whole cluster.
+ */
+@Hidden
+@RequestMapping("/partitions")
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "partitions", name = "self")
+public class PartitionController {
+
+    private final UserService userService;
+
+    private final PetService petService;
+
+    private final BatchProcessor batchProcessor;
+
+    private final MoveHolds moveHolds;
+
+    @GetMapping("/users")
+    public ResponseEntity<KeysetPage<User>> getUsers(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit
+    ) {
+        int pageLimit = KeysetPage.clampLimit(limit);
+        List<User> users = userService.findPage(KeysetPage.cursorOf(after), pageLimit);
+
+        return ResponseEntity.ok(KeysetPage.of(users, pageLimit, User::getId));
+    }
+
+    @GetMapping("/users/by-email")
+    public ResponseEntity<List<User>> getUsersByEmail(@RequestParam String email) {
+        return ResponseEntity.ok(userService.findByEmail(email));
+    }
+
+    @GetMapping("/pets")
+    public ResponseEntity<KeysetPage<Pet>> getPets(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit
+    ) {
+        int pageLimit = KeysetPage.clampLimit(limit);
+        List<Pet> pets = petService.findPage(KeysetPage.cursorOf(after), pageLimit);
+
+        return ResponseEntity.ok(KeysetPage.of(pets, pageLimit, Pet::getId));
+    }
+
+    /**
+     * 204 if the pet is stored on this node, 404 otherwise.
+     */
+    @GetMapping("/pets/{id}")
+    public ResponseEntity<Void> holdsPet(@PathVariable Long id) {
+        return petService.checkIfPetExists(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/pets/batch")
+    public ResponseEntity<List<BatchItemResult<Pet>>> createPets(@RequestBody List<Pet> pets) {
+        return batchProcessor.process(pets, "pet", petService::createPets);
+    }
+
+    @PostMapping("/moves/{moveId}/prepare")
+    public ResponseEntity<Void> prepareMove(@PathVariable String moveId, @RequestParam Long ownerId) {
+        petService.holdOwnerForMove(moveId, ownerId);
+
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/moves/{moveId}/commit")
+    public ResponseEntity<MovedPet> commitMove(@PathVariable String moveId, @RequestBody MovedPet pet) {
+        return ResponseEntity.ok(MovedPet.of(petService.acceptMovedPet(moveId, pet.toPet())));
+    }
+
+    @PostMapping("/moves/{moveId}/abort")
+    public ResponseEntity<Void> abortMove(@PathVariable String moveId) {
+        moveHolds.release(moveId);
+
+        return ResponseEntity.noContent().build();
+    }
+}
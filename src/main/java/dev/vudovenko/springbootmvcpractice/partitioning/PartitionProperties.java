@@ -0,0 +1,27 @@
+package dev.vudovenko.springbootmvcpractice.partitioning;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cluster membership: the base URL of every node, the same list on each of them, and the URL of this one.
+ * Without {@code nodes} the application runs as a single node holding everything.
+ * <p>
+ * {@code secret}, the same on every node and required with {@code nodes}, marks the requests one node sends to
+ * another: only those may call the {@code /partitions} endpoints, and a forwarded request is not admitted again.
+ */
+@ConfigurationProperties(prefix = "partitions")
+public record PartitionProperties(
+        List<String> nodes,
+        String self,
+        String secret,
+        @DefaultValue("128") int virtualNodes,
+        @DefaultValue("2s") Duration connectTimeout,
+        @DefaultValue("10s") Duration readTimeout,
+        @DefaultValue("30s") Duration moveHoldTimeout,
+        @DefaultValue("100ms") Duration moveLockTimeout
+) {
+}
@@ -0,0 +1,183 @@
+package dev.vudovenko.springbootmvcpractice.partitioning;
+
+import dev.vudovenko.springbootmvcpractice.batch.BatchItemResult;
+import dev.vudovenko.springbootmvcpractice.pagination.KeysetPage;
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Collection requests over every node: each node answers for its own entities through {@code /partitions} and the
+ * answers are merged here. On a single node everything passes straight to the local source.
+ */
+public class PartitionQueries {
+
+    public static final Listing<User> USERS = new Listing<>(
+            "/partitions/users",
+            new ParameterizedTypeReference<>() {
+            },
+            User::getId
+    );
+
+    public static final Listing<Pet> PETS = new Listing<>(
+            "/partitions/pets",
+            new ParameterizedTypeReference<>() {
+            },
+            Pet::getId
+    );
+
+    private static final ParameterizedTypeReference<List<BatchItemResult<Pet>>> PET_BATCH_RESULTS =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final Partitions partitions;
+
+    private final PartitionClient client;
+
+    public PartitionQueries(Partitions partitions, PartitionClient client) {
+        this.partitions = partitions;
+        this.client = client;
+    }
+
+    /**
+     * The first {@code limit} entities after {@code after} across all nodes, given this node's own page.
+     * A pet caught in a move to another node is listed once.
+     */
+    public <T> List<T> page(Listing<T> listing, List<T> localPage, long after, int limit) {
+        if (!partitions.isPartitioned()) {
+            return localPage;
+        }
+
+        List<T> merged = new ArrayList<>(localPage);
+        for (String node : partitions.otherNodes()) {
+            merged.addAll(client.page(node, listing.path(), after, limit, listing.pageType()).items());
+        }
+        ToLongFunction<T> idOf = listing.idOf();
+        merged.sort(Comparator.comparingLong(idOf));
+
+        List<T> page = new ArrayList<>(Math.min(limit, merged.size()));
+        for (T entity : merged) {
+            if (page.size() == limit) {
+                break;
+            }
+            if (page.isEmpty() || idOf.applyAsLong(page.getLast()) != idOf.applyAsLong(entity)) {
+                page.add(entity);
+            }
+        }
+
+        return page;
+    }
+
+    /**
+     * Visits entities after {@code after} across all nodes in ascending id order: locally by walking the store, and
+     * otherwise by merged pages.
+     */
+    public <T> void forEach(
+            Listing<T> listing,
+            long after,
+            BiConsumer<Long, Consumer<T>> localWalk,
+            LocalPages<T> localPages,
+            Consumer<T> action
+    ) {
+        if (!partitions.isPartitioned()) {
+            localWalk.accept(after, action);
+
+            return;
+        }
+
+        long cursor = after;
+        while (true) {
+            List<T> page = page(listing, localPages.find(cursor, KeysetPage.MAX_LIMIT), cursor, KeysetPage.MAX_LIMIT);
+            page.forEach(action);
+            if (page.size() < KeysetPage.MAX_LIMIT) {
+                return;
+            }
+            cursor = listing.idOf().applyAsLong(page.getLast());
+        }
+    }
+
+    public List<User> findUsersByEmail(List<User> localUsers, String email) {
+        if (!partitions.isPartitioned()) {
+            return localUsers;
+        }
+
+        List<User> users = new ArrayList<>(localUsers);
+        for (String node : partitions.otherNodes()) {
+            users.addAll(client.findUsersByEmail(node, email));
+        }
+
+        return users;
+    }
+
+    /**
+     * Creates every pet on its owner's node, one batch per node, and answers as if the whole batch was created here.
+     */
+    public ResponseEntity<List<BatchItemResult<Pet>>> createPets(
+            List<Pet> pets,
+            Function<List<Pet>, ResponseEntity<List<BatchItemResult<Pet>>>> createLocally
+    ) {
+        if (!partitions.isPartitioned()) {
+            return createLocally.apply(pets);
+        }
+
+        Map<String, List<Integer>> indicesByNode = new LinkedHashMap<>();
+        for (int i = 0; i < pets.size(); i++) {
+            Pet pet = pets.get(i);
+            String node = pet == null || partitions.isLocal(pet.getUserId())
+                    ? partitions.self()
+                    : partitions.nodeOf(pet.getUserId());
+            indicesByNode.computeIfAbsent(node, n -> new ArrayList<>()).add(i);
+        }
+
+        @SuppressWarnings("unchecked")
+        BatchItemResult<Pet>[] results = new BatchItemResult[pets.size()];
+        indicesByNode.forEach((node, indices) -> {
+            List<Pet> nodePets = indices.stream()
+                    .map(pets::get)
+                    .toList();
+            List<BatchItemResult<Pet>> nodeResults = node.equals(partitions.self())
+                    ? createLocally.apply(nodePets).getBody()
+                    : client.createBatch(node, "/partitions/pets/batch", nodePets, PET_BATCH_RESULTS);
+            for (BatchItemResult<Pet> result : nodeResults) {
+                int index = indices.get(result.index());
+                results[index] = new BatchItemResult<>(index, result.status(), result.entity(), result.error());
+            }
+        });
+
+        boolean allCreated = Arrays.stream(results)
+                .allMatch(result -> result.status() == HttpStatus.CREATED.value());
+
+        return ResponseEntity
+                .status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+                .body(Arrays.asList(results));
+    }
+
+    /**
+     * Where a node serves its own page of a collection, and how to order it.
+     */
+    public record Listing<T>(
+            String path,
+            ParameterizedTypeReference<KeysetPage<T>> pageType,
+            ToLongFunction<T> idOf
+    ) {
+    }
+
+    @FunctionalInterface
+    public interface LocalPages<T> {
+
+        List<T> find(long afterId, int limit);
+    }
+}
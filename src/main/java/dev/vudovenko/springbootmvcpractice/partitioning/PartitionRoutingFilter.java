@@ -0,0 +1,331 @@
+package dev.vudovenko.springbootmvcpractice.partitioning;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.GlobalExceptionHandler;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.dto.ErrorMessageResponse;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.PartitionUnavailableException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sends a request for a single user or pet to the node holding it and answers with that node's response as it is,
+ * so any node can serve any request. A user, or a transfer of its pets, goes to the node its id hashes to, a new pet
+ * to its owner's node, and an existing pet to wherever {@link PetLocator} finds it. Everything else is handled here.
+ * <p>
+ * A request is forwarded at most {@value #MAX_HOPS} times, enough to go through a pet's home node, and then handled
+ * wherever it is. Only the hop count of a request sent by a node, with {@code partitions.secret}, is believed: a
+ * client's request starts at none, and any count it claims is dropped before the request goes on.
+ */
+@Log4j2
+public class PartitionRoutingFilter extends OncePerRequestFilter {
+
+    public static final String HOPS_HEADER = "X-Partition-Hops";
+
+    /**
+     * Carries {@code partitions.secret} on every request {@link PartitionClient} sends; see
+     * {@link Partitions#isForwardedByNode}.
+     */
+    public static final String SECRET_HEADER = "X-Partition-Secret";
+
+    private static final int MAX_HOPS = 2;
+
+    private static final Pattern USER_PATH = Pattern.compile("/users/(\\d+)(?:/pets/transfer)?");
+
+    private static final Pattern PET_PATH = Pattern.compile("/pets/(\\d+)");
+
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            "connection", "keep-alive", "proxy-connection", "transfer-encoding", "te", "trailer", "upgrade",
+            "host", "content-length", "expect", HOPS_HEADER.toLowerCase(Locale.ROOT),
+            SECRET_HEADER.toLowerCase(Locale.ROOT)
+    );
+
+    private final Partitions partitions;
+
+    private final PetLocator petLocator;
+
+    private final PartitionClient client;
+
+    private final GlobalExceptionHandler exceptionHandler;
+
+    private final ObjectMapper objectMapper;
+
+    PartitionRoutingFilter(
+            Partitions partitions,
+            PetLocator petLocator,
+            PartitionClient client,
+            GlobalExceptionHandler exceptionHandler,
+            ObjectMapper objectMapper
+    ) {
+        this.partitions = partitions;
+        this.petLocator = petLocator;
+        this.client = client;
+        this.exceptionHandler = exceptionHandler;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain chain
+    ) throws ServletException, IOException {
+        int hops;
+        if (partitions.isForwardedByNode(request.getHeader(SECRET_HEADER))) {
+            hops = hopsOf(request);
+        } else {
+            hops = 0;
+            if (request.getHeader(HOPS_HEADER) != null) {
+                request = new WithoutHopsRequest(request);
+            }
+        }
+        if (hops >= MAX_HOPS) {
+            chain.doFilter(request, response);
+
+            return;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        try {
+            Long userId = idIn(USER_PATH, path);
+            Long petId = idIn(PET_PATH, path);
+            if (userId != null) {
+                if (partitions.isLocal(userId)) {
+                    chain.doFilter(request, response);
+                } else {
+                    byte[] body = request.getInputStream().readAllBytes();
+                    write(forward(partitions.nodeOf(userId), request, hops, body), response);
+                }
+            } else if (petId != null) {
+                routePet(petId, request, response, chain, hops);
+            } else if (path.equals("/pets") && HttpMethod.POST.matches(request.getMethod())) {
+                byte[] body = request.getInputStream().readAllBytes();
+                Long ownerId = ownerIdOf(body);
+                if (partitions.isLocal(ownerId)) {
+                    chain.doFilter(new CachedBodyRequest(request, body), response);
+                } else {
+                    write(forward(partitions.nodeOf(ownerId), request, hops, body), response);
+                }
+            } else {
+                chain.doFilter(request, response);
+            }
+        } catch (PartitionUnavailableException e) {
+            log.error("Partition unavailable", e);
+            ResponseEntity<ErrorMessageResponse> error = exceptionHandler.toErrorResponse(e);
+            response.setStatus(error.getStatusCode().value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), error.getBody());
+        }
+    }
+
+    private void routePet(
+            long petId,
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain chain,
+            int hops
+    ) throws ServletException, IOException {
+        String node = petLocator.nodeOf(petId);
+        if (node == null) {
+            chain.doFilter(request, response);
+
+            return;
+        }
+
+        byte[] body = request.getInputStream().readAllBytes();
+        ResponseEntity<byte[]> forwarded = forward(node, request, hops, body);
+        if (forwarded.getStatusCode().isSameCodeAs(HttpStatus.NOT_FOUND) && petLocator.missed(petId, node)) {
+            node = petLocator.nodeOf(petId);
+            if (node == null) {
+                chain.doFilter(new CachedBodyRequest(request, body), response);
+
+                return;
+            }
+            forwarded = forward(node, request, hops, body);
+        }
+        write(forwarded, response);
+    }
+
+    private ResponseEntity<byte[]> forward(String node, HttpServletRequest request, int hops, byte[] body) {
+        HttpHeaders headers = new HttpHeaders();
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.addAll(name, Collections.list(request.getHeaders(name)));
+            }
+        }
+        headers.set(HOPS_HEADER, Integer.toString(hops + 1));
+
+        String query = request.getQueryString();
+        String pathAndQuery = request.getRequestURI() + (query == null ? "" : "?" + query);
+
+        return client.forward(node, HttpMethod.valueOf(request.getMethod()), pathAndQuery, headers, body);
+    }
+
+    private static void write(ResponseEntity<byte[]> forwarded, HttpServletResponse response) throws IOException {
+        response.setStatus(forwarded.getStatusCode().value());
+        forwarded.getHeaders().forEach((name, values) -> {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                values.forEach(value -> response.addHeader(name, value));
+            }
+        });
+        if (forwarded.getBody() != null) {
+            response.getOutputStream().write(forwarded.getBody());
+        }
+    }
+
+    private static int hopsOf(HttpServletRequest request) {
+        try {
+            return Math.max(0, request.getIntHeader(HOPS_HEADER));
+        } catch (NumberFormatException e) {
+            return MAX_HOPS;
+        }
+    }
+
+    private static Long idIn(Pattern pathPattern, String path) {
+        Matcher matcher = pathPattern.matcher(path);
+        if (!matcher.matches()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(matcher.group(1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The {@code userId} of a pet in a request body, or {@code null} to leave a malformed body to validation.
+     */
+    private Long ownerIdOf(byte[] body) {
+        try {
+            JsonNode userId = objectMapper.readTree(body).path("userId");
+
+            return userId.canConvertToLong() && userId.isIntegralNumber() ? userId.asLong() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A client's request without the {@link #HOPS_HEADER} it came with.
+     */
+    private static final class WithoutHopsRequest extends HttpServletRequestWrapper {
+
+        private WithoutHopsRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return HOPS_HEADER.equalsIgnoreCase(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return HOPS_HEADER.equalsIgnoreCase(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public int getIntHeader(String name) {
+            return HOPS_HEADER.equalsIgnoreCase(name) ? -1 : super.getIntHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                    .filter(name -> !HOPS_HEADER.equalsIgnoreCase(name))
+                    .toList());
+        }
+    }
+
+    /**
+     * A request whose body was read by the filter, readable again by the handler, also without blocking: the whole
+     * body is available at once, so a read listener is told so, and then that it is all read, right away.
+     */
+    static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+
+            return new ServletInputStream() {
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            readListener.onAllDataRead();
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+
+            return new BufferedReader(new InputStreamReader(
+                    getInputStream(),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)
+            ));
+        }
+    }
+}
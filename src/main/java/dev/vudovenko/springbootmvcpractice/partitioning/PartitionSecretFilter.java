@@ -0,0 +1,58 @@
+package dev.vudovenko.springbootmvcpractice.partitioning;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.GlobalExceptionHandler;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.dto.ErrorMessageResponse;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.NodeAccessDeniedException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Lets only the nodes of the cluster call the {@code /partitions} endpoints of {@link PartitionController}: a request
+ * without {@code partitions.secret} in {@link PartitionRoutingFilter#SECRET_HEADER} is answered with {@code 403}.
+ */
+@Log4j2
+public class PartitionSecretFilter extends OncePerRequestFilter {
+
+    private final Partitions partitions;
+
+    private final GlobalExceptionHandler exceptionHandler;
+
+    private final ObjectMapper objectMapper;
+
+    PartitionSecretFilter(Partitions partitions, GlobalExceptionHandler exceptionHandler, ObjectMapper objectMapper) {
+        this.partitions = partitions;
+        this.exceptionHandler = exceptionHandler;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain chain
+    ) throws ServletException, IOException {
+        if (partitions.isForwardedByNode(request.getHeader(PartitionRoutingFilter.SECRET_HEADER))) {
+            chain.doFilter(request, response);
+
+            return;
+        }
+
+        log.warn("Denied {} {} from {} without the cluster secret",
+                request.getMethod(), request.getRequestURI(), request.getRemoteAddr());
+        ResponseEntity<ErrorMessageResponse> error = exceptionHandler.toErrorResponse(
+                new NodeAccessDeniedException("Only the nodes of the cluster may call " + request.getRequestURI())
+        );
+        response.setStatus(error.getStatusCode().value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error.getBody());
+    }
+}
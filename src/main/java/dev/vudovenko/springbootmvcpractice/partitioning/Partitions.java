@@ -0,0 +1,96 @@
+package dev.vudovenko.springbootmvcpractice.partitioning;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Which node holds what. Users are consistent-hashed by id, and pets live on their owner's node. A pet's id hashes
+ * to its home node, the node it was created on, which finds the pet after it moves to another owner's node.
+ * <p>
+ * Ids are only handed out where they hash to, so a new user is created wherever the request arrives.
+ */
+public class Partitions {
+
+    public static final Partitions SINGLE = new Partitions(null, -1, null);
+
+    private final HashRing ring;
+
+    private final int self;
+
+    private final String secret;
+
+    private Partitions(HashRing ring, int self, String secret) {
+        this.ring = ring;
+        this.self = self;
+        this.secret = secret == null || secret.isEmpty() ? null : secret;
+    }
+
+    public static Partitions of(PartitionProperties properties) {
+        if (properties.nodes() == null || properties.nodes().isEmpty()) {
+            if (properties.self() != null) {
+                throw new IllegalStateException("partitions.self is set but partitions.nodes is empty");
+            }
+
+            return SINGLE;
+        }
+        if (properties.secret() == null || properties.secret().isEmpty()) {
+            throw new IllegalStateException("partitions.secret must be set when partitions.nodes is");
+        }
+        int self = properties.nodes().indexOf(properties.self());
+        if (self < 0) {
+            throw new IllegalStateException(
+                    "partitions.self=%s is not one of partitions.nodes=%s".formatted(properties.self(), properties.nodes())
+            );
+        }
+
+        return new Partitions(new HashRing(properties.nodes(), properties.virtualNodes()), self, properties.secret());
+    }
+
+    public boolean isPartitioned() {
+        return ring != null;
+    }
+
+    /**
+     * Whether {@code id} hashes to this node. Always {@code true} on a single node.
+     */
+    public boolean isLocal(Long id) {
+        return ring == null || id == null || ring.partitionOf(id) == self;
+    }
+
+    /**
+     * The {@code partitions.secret} this node sends with its calls to other nodes, or {@code null} on a single node.
+     */
+    public String secret() {
+        return secret;
+    }
+
+    /**
+     * Whether a request that came with {@code secret} was sent by a node of this cluster. Always {@code false} on
+     * a single node.
+     */
+    public boolean isForwardedByNode(String secret) {
+        return this.secret != null && secret != null && MessageDigest.isEqual(
+                this.secret.getBytes(StandardCharsets.UTF_8),
+                secret.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    public String nodeOf(long id) {
+        return ring.nodes().get(ring.partitionOf(id));
+    }
+
+    public String self() {
+        return ring.nodes().get(self);
+    }
+
+    public List<String> otherNodes() {
+        if (ring == null) {
+            return List.of();
+        }
+
+        return ring.nodes().stream()
+                .filter(node -> !node.equals(self()))
+                .toList();
+    }
+}
@@ -0,0 +1,62 @@
+package dev.vudovenko.springbootmvcpractice.partitioning;
+
+import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import dev.vudovenko.springbootmvcpractice.storage.LongObjectMap;
+
+/**
+ * Finds the node holding a pet. Pets mostly stay on their home node; the home finds one that moved away by asking the
+ * other nodes and remembers the answer until a request sent there misses, so restarts and further moves correct
+ * themselves. A miss on the home asks every other node.
+ */
+class PetLocator {
+
+    private final Partitions partitions;
+
+    private final PartitionClient client;
+
+    private final PetService petService;
+
+    private final LongObjectMap<String> movedAway;
+
+    PetLocator(Partitions partitions, PartitionClient client, PetService petService) {
+        this.partitions = partitions;
+        this.client = client;
+        this.petService = petService;
+        this.movedAway = new LongObjectMap<>();
+    }
+
+    /**
+     * The node to send a request for {@code petId} to, or {@code null} to handle it here.
+     */
+    String nodeOf(long petId) {
+        if (petService.checkIfPetExists(petId)) {
+            return null;
+        }
+        if (!partitions.isLocal(petId)) {
+            return partitions.nodeOf(petId);
+        }
+
+        String known = movedAway.get(petId);
+        if (known != null) {
+            return known;
+        }
+        for (String node : partitions.otherNodes()) {
+            if (client.holdsPet(node, petId)) {
+                movedAway.put(petId, node);
+
+                return node;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Forgets that {@code node} holds {@code petId} after a request sent there missed.
+     *
+     * @return whether it was remembered, so looking again may find the pet elsewhere
+     */
+    boolean missed(long petId, String node) {
+        return movedAway.remove(petId, node);
+    }
+}
@@ -0,0 +1,66 @@
+package dev.vudovenko.springbootmvcpractice.partitioning;
+
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.PartitionUnavailableException;
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.UUID;
+
+/**
+ * Coordinates moving a pet to an owner on another node, from the node that holds the pet. The caller marks the pet as
+ * moving under its owner lock and calls this without holding the lock.
+ * <ol>
+ *     <li>prepare: the target node checks that the new owner exists and holds it, so it cannot be deleted;</li>
+ *     <li>commit: the target stores the pet under its new owner and releases the hold;</li>
+ *     <li>the caller then deletes its own copy.</li>
+ * </ol>
+ * A commit that cannot be delivered is retried, since repeating it is harmless, and the move is aborted if it still
+ * fails. The pet therefore shows on both nodes for a moment, and never on neither. If the target crashed after
+ * committing but before answering, the pet stays on both nodes; nothing logs the move durably to resolve that.
+ */
+@Log4j2
+public class PetMoves {
+
+    private static final int COMMIT_ATTEMPTS = 3;
+
+    private final Partitions partitions;
+
+    private final PartitionClient client;
+
+    public PetMoves(Partitions partitions, PartitionClient client) {
+        this.partitions = partitions;
+        this.client = client;
+    }
+
+    /**
+     * Stores {@code movedPet}, the next version of a pet held here, on the node of its new owner and returns it as
+     * stored there.
+     */
+    public Pet moveTo(Pet movedPet) {
+        String node = partitions.nodeOf(movedPet.getUserId());
+        String moveId = UUID.randomUUID().toString();
+        client.prepareMove(node, moveId, movedPet.getUserId());
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return client.commitMove(node, moveId, MovedPet.of(movedPet)).toPet();
+            } catch (PartitionUnavailableException e) {
+                if (attempt == COMMIT_ATTEMPTS) {
+                    abort(node, moveId);
+                    throw e;
+                }
+            } catch (RuntimeException e) {
+                abort(node, moveId);
+                throw e;
+            }
+        }
+    }
+
+    private void abort(String node, String moveId) {
+        try {
+            client.abortMove(node, moveId);
+        } catch (PartitionUnavailableException e) {
+            log.warn("Could not abort move {} on {}, its hold will lapse", moveId, node, e);
+        }
+    }
+}
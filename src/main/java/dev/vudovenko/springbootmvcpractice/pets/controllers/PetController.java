@@ -1,53 +1,136 @@
 package dev.vudovenko.springbootmvcpractice.pets.controllers;
 
+import dev.vudovenko.springbootmvcpractice.batch.BatchItemResult;
+import dev.vudovenko.springbootmvcpractice.batch.BatchProcessor;
+import dev.vudovenko.springbootmvcpractice.pagination.KeysetPage;
+import dev.vudovenko.springbootmvcpractice.pagination.NdjsonStreamer;
+import dev.vudovenko.springbootmvcpractice.partitioning.PartitionQueries;
+import dev.vudovenko.springbootmvcpractice.partitioning.Partitions;
 import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
 import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import dev.vudovenko.springbootmvcpractice.responsecache.EntityJsonCache;
+import dev.vudovenko.springbootmvcpractice.versioning.EntityTags;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
 
-@Log4j2
 @RequiredArgsConstructor
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/pets")
 public class PetController {
 
     private final PetService petService;
 
+    private final BatchProcessor batchProcessor;
+
+    private final NdjsonStreamer ndjsonStreamer;
+
+    private final EntityTags entityTags;
+
+    private final EntityJsonCache jsonCache;
+
+    private final PartitionQueries partitionQueries;
+
+    private final Partitions partitions;
+
     @PostMapping
     public ResponseEntity<Pet> createPet(@Valid @RequestBody Pet pet) {
-        log.info("Create pet: {}", pet);
         Pet createdPet = petService.createPet(pet);
 
         return ResponseEntity
                 .status(201)
+                .eTag(entityTags.of(createdPet.getVersion()))
                 .body(createdPet);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult<Pet>>> createPets(@RequestBody List<Pet> pets) {
+        batchProcessor.requireWithinLimit(pets);
+
+        return partitionQueries.createPets(
+                pets,
+                nodePets -> batchProcessor.process(nodePets, "pet", petService::createPets)
+        );
+    }
+
+    @GetMapping
+    public ResponseEntity<KeysetPage<Pet>> getPets(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit
+    ) {
+        int pageLimit = KeysetPage.clampLimit(limit);
+        long cursor = KeysetPage.cursorOf(after);
+        List<Pet> pets = partitionQueries.page(
+                PartitionQueries.PETS,
+                petService.findPage(cursor, pageLimit),
+                cursor,
+                pageLimit
+        );
+
+        return ResponseEntity.ok(KeysetPage.of(pets, pageLimit, Pet::getId));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPets(@RequestParam(required = false) Long after) {
+        return ndjsonStreamer.<Pet>stream(sink -> partitionQueries.forEach(
+                PartitionQueries.PETS,
+                KeysetPage.cursorOf(after),
+                petService::forEachPet,
+                petService::findPage,
+                sink
+        ));
+    }
+
+    /**
+     * Conditional and cached like {@code UserController#getUser}.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Pet> getPet(@PathVariable Long id) {
-        log.info("Get pet with id: {}", id);
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Pet.class)))
+    public ResponseEntity<byte[]> getPet(@PathVariable Long id, WebRequest request) {
         Pet pet = petService.getPetById(id);
+        long version = pet.getVersion();
+        String eTag = entityTags.of(version);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
 
-        return ResponseEntity.ok(pet);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonCache.jsonOf(Pet.class, id, version, pet));
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<Pet> updatePet(
             @PathVariable Long id,
-            @Valid @RequestBody Pet pet
+            @Valid @RequestBody Pet pet,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
-        log.info("Update pet with id: {}, pet: {}", id, pet);
-        Pet updatedPet = petService.updatePet(id, pet);
+        Pet updatedPet = petService.updatePet(id, pet, version -> entityTags.matches(ifMatch, version));
+        if (!partitions.isLocal(updatedPet.getUserId())) {
+            // Moved to its new owner's node, whose tags differ from ours: a GET from any node returns it
+            return ResponseEntity.ok(updatedPet);
+        }
 
-        return ResponseEntity.ok(updatedPet);
+        return ResponseEntity.ok()
+                .eTag(entityTags.of(updatedPet.getVersion()))
+                .body(updatedPet);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletePet(@PathVariable Long id) {
-        log.info("Delete pet with id: {}", id);
         petService.deletePet(id);
 
         return ResponseEntity
@@ -1,5 +1,6 @@
 package dev.vudovenko.springbootmvcpractice.pets.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Null;
@@ -7,11 +8,11 @@ import jakarta.validation.constraints.Size;
 import lombok.*;
 
 @Getter
-@Setter
 @ToString
 @EqualsAndHashCode(of = "id")
 @NoArgsConstructor
-@AllArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@With
 public class Pet {
 
     @Null
@@ -23,4 +24,18 @@ public class Pet {
 
     @NotNull
     private Long userId;
+
+    /**
+     * Version of this snapshot. Pets have no setters: every change, including a move between owners, publishes a copy
+     * with the next version, under the owner lock.
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    private long version;
+
+    public Pet(Long id, String name, Long userId) {
+        this.id = id;
+        this.name = name;
+        this.userId = userId;
+    }
 }
\ No newline at end of file
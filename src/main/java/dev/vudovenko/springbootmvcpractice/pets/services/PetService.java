@@ -1,78 +1,587 @@
 package dev.vudovenko.springbootmvcpractice.pets.services;
 
+import dev.vudovenko.springbootmvcpractice.batch.BatchResult;
+import dev.vudovenko.springbootmvcpractice.cascade.Tombstones;
+import dev.vudovenko.springbootmvcpractice.changes.ChangeFeed;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.PetMoveConflictException;
 import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.PetNotFoundException;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.PreconditionFailedException;
 import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.UserNotFoundException;
+import dev.vudovenko.springbootmvcpractice.journal.ChangeJournal;
 import dev.vudovenko.springbootmvcpractice.managingID.IDManager;
+import dev.vudovenko.springbootmvcpractice.partitioning.MoveHolds;
+import dev.vudovenko.springbootmvcpractice.partitioning.Partitions;
+import dev.vudovenko.springbootmvcpractice.partitioning.PetMoves;
 import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
-import dev.vudovenko.springbootmvcpractice.users.model.User;
+import dev.vudovenko.springbootmvcpractice.pets.storage.PetStore;
+import dev.vudovenko.springbootmvcpractice.responsecache.EntityJsonCache;
+import dev.vudovenko.springbootmvcpractice.storage.LongObjectMap;
+import dev.vudovenko.springbootmvcpractice.storage.LongSet;
+import dev.vudovenko.springbootmvcpractice.storage.OwnerLocks;
 import dev.vudovenko.springbootmvcpractice.users.service.UserService;
-import jakarta.validation.Valid;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
-import org.springframework.validation.annotation.Validated;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
 
-@Validated
 @Service
 public class PetService extends IDManager {
 
-    private final Map<Long, Pet> pets;
+    private static final int MOVE_ATTEMPTS = 5;
+
+    private final PetStore pets;
 
     private final UserService userService;
 
-    public PetService(@Lazy UserService userService) {
-        this.pets = new HashMap<>();
+    private final OwnerLocks ownerLocks;
+
+    private final ChangeJournal journal;
+
+    private final ChangeFeed changeFeed;
+
+    private final EntityJsonCache jsonCache;
+
+    private final Partitions partitions;
+
+    private final PetMoves petMoves;
+
+    private final MoveHolds moveHolds;
+
+    private final Tombstones tombstones;
+
+    /**
+     * Ids of the pets being moved to another node. A pet is marked under its owner lock, which is not held while the
+     * other node is called; changes to a marked pet are turned down as conflicts meanwhile.
+     */
+    private final Set<Long> movingPets;
+
+    public PetService(
+            PetStore pets,
+            @Lazy UserService userService,
+            OwnerLocks ownerLocks,
+            ChangeJournal journal,
+            ChangeFeed changeFeed,
+            EntityJsonCache jsonCache,
+            Partitions partitions,
+            PetMoves petMoves,
+            MoveHolds moveHolds,
+            Tombstones tombstones
+    ) {
+        this.pets = pets;
         this.userService = userService;
+        this.ownerLocks = ownerLocks;
+        this.journal = journal;
+        this.changeFeed = changeFeed;
+        this.jsonCache = jsonCache;
+        this.partitions = partitions;
+        this.petMoves = petMoves;
+        this.moveHolds = moveHolds;
+        this.tombstones = tombstones;
+        this.movingPets = ConcurrentHashMap.newKeySet();
     }
 
-    public Pet createPet(@Valid Pet pet) {
-        if (!userService.checkIfUserExists(pet.getUserId())) {
-            throw new UserNotFoundException("Owner with %d not found".formatted(pet.getUserId()));
+    public Pet createPet(Pet pet) {
+        Long ownerId = pet.getUserId();
+        long seq;
+        try (var ignored = ownerLocks.lock(ownerId)) {
+            checkOwnerExists(ownerId);
+
+            Pet createdPet = created(getNextId(), pet);
+            pets.save(createdPet);
+            changeFeed.petSaved(createdPet);
+
+            userService.addPetToUser(ownerId, createdPet);
+
+            seq = journal.petSaved(createdPet);
         }
+        journal.awaitDurable(seq);
 
-        pet.setId(getNextId());
-        pets.put(pet.getId(), pet);
+        return createdPet;
+    }
 
-        userService.addPetToUser(pet.getUserId(), pet);
+    public BatchResult<Pet> createPets(List<Pet> petsToCreate) {
+        BatchResult<Pet> result = new BatchResult<>(petsToCreate);
+        long[] ids = getNextIds(petsToCreate.size());
+        List<Long> ownerIds = petsToCreate.stream()
+                .map(Pet::getUserId)
+                .toList();
 
-        return pet;
+        long seq = 0;
+        try (var ignored = ownerLocks.lockAll(ownerIds)) {
+            List<Pet> createdPets = new ArrayList<>(petsToCreate.size());
+            for (int i = 0; i < ids.length; i++) {
+                Pet pet = petsToCreate.get(i);
+                if (!userService.checkIfUserExists(pet.getUserId())) {
+                    result.fail(i, UserNotFoundException.owner(pet.getUserId()));
+                    continue;
+                }
+                Pet createdPet = created(ids[i], pet);
+                result.created(i, createdPet);
+                createdPets.add(createdPet);
+            }
+            pets.saveAll(createdPets);
+
+            LongObjectMap<List<Pet>> createdPetsByOwner = new LongObjectMap<>();
+            for (int i = 0; i < ids.length; i++) {
+                if (result.failureAt(i) == null) {
+                    Pet pet = result.itemAt(i);
+                    createdPetsByOwner.computeIfAbsent(pet.getUserId(), ownerId -> new ArrayList<>()).add(pet);
+                    changeFeed.petSaved(pet);
+                    seq = journal.petSaved(pet);
+                }
+            }
+            createdPetsByOwner.forEach(userService::addPetsToUser);
+        }
+        journal.awaitDurable(seq);
+
+        return result;
     }
 
     public Pet getPetById(Long id) {
-        return Optional.ofNullable(pets.get(id))
-                .orElseThrow(() -> new PetNotFoundException("Pet with %d not found".formatted(id)));
+        return pets.findById(id)
+                .filter(pet -> !tombstones.hides(pet.getUserId()))
+                .orElseThrow(() -> new PetNotFoundException(id));
+    }
+
+    public List<Pet> findPage(long afterId, int limit) {
+        if (tombstones.isEmpty()) {
+            return pets.findPage(afterId, limit);
+        }
+
+        // pets of tombstoned owners are skipped, so keep reading until the page is full or the store runs out
+        List<Pet> page = new ArrayList<>(limit);
+        long cursor = afterId;
+        while (page.size() < limit) {
+            int wanted = limit - page.size();
+            List<Pet> found = pets.findPage(cursor, wanted);
+            for (Pet pet : found) {
+                if (!tombstones.hides(pet.getUserId())) {
+                    page.add(pet);
+                }
+            }
+            if (found.size() < wanted) {
+                break;
+            }
+            cursor = found.getLast().getId();
+        }
+
+        return page;
+    }
+
+    public void forEachPet(long afterId, Consumer<? super Pet> action) {
+        pets.forEachAfter(afterId, pet -> {
+            if (!tombstones.hides(pet.getUserId())) {
+                action.accept(pet);
+            }
+        });
     }
 
-    public Pet updatePet(Long petId, @Valid Pet petToUpdate) {
+    /**
+     * The stored pets with {@code petIds}, in that order, skipping the ones that are gone. Under the lock of the pets'
+     * owner none of them is missing or moved away.
+     */
+    public List<Pet> petsOf(long[] petIds) {
+        List<Pet> found = new ArrayList<>(petIds.length);
+        for (long petId : petIds) {
+            pets.findById(petId).ifPresent(found::add);
+        }
+
+        return found;
+    }
+
+    public int count() {
+        return pets.size();
+    }
+
+    public Pet updatePet(Long petId, Pet petToUpdate) {
+        return updatePet(petId, petToUpdate, version -> true);
+    }
+
+    /**
+     * Updates the pet only if {@code acceptsVersion} accepts its current version, checked under the owner locks.
+     *
+     * @throws PreconditionFailedException if the version is not accepted
+     */
+    public Pet updatePet(Long petId, Pet petToUpdate, LongPredicate acceptsVersion) {
         Long newOwnerId = petToUpdate.getUserId();
-        if (!userService.checkIfUserExists(newOwnerId)) {
-            throw new UserNotFoundException("Owner with %d not found".formatted(newOwnerId));
+        if (!partitions.isLocal(newOwnerId)) {
+            return moveToPartition(petId, petToUpdate, acceptsVersion);
+        }
+        checkOwnerExists(newOwnerId);
+
+        while (true) {
+            Long oldOwnerId = getPetById(petId).getUserId();
+            Pet updatedPet;
+            long seq;
+            try (var ignored = ownerLocks.lock(oldOwnerId, newOwnerId)) {
+                Pet oldPet = getPetById(petId);
+                if (!Objects.equals(oldPet.getUserId(), oldOwnerId)) {
+                    // the pet was moved while we were waiting for the locks, retry with its new owner
+                    continue;
+                }
+                if (!acceptsVersion.test(oldPet.getVersion())) {
+                    throw new PreconditionFailedException("Pet with " + petId + " has been modified");
+                }
+                checkNotMoving(petId);
+                checkOwnerExists(newOwnerId);
+
+                updatedPet = publish(oldPet, new Pet(petId, petToUpdate.getName(), newOwnerId));
+                if (!Objects.equals(oldOwnerId, newOwnerId)) {
+                    detachFromOwner(oldPet);
+                    userService.addPetToUser(newOwnerId, updatedPet);
+                } else {
+                    userService.petChanged(oldPet, updatedPet);
+                }
+
+                seq = journal.petSaved(updatedPet);
+            }
+            journal.awaitDurable(seq);
+
+            return updatedPet;
+        }
+    }
+
+    /**
+     * Moves the pets of {@code fromId} with {@code petIds}, or all of its pets if that is {@code null}, to
+     * {@code toId} in one step under both owner locks. Each pet is stored once with its new owner, and each owner is
+     * published once. Both owners must be on this node.
+     *
+     * @return the pets as moved
+     * @throws PetNotFoundException if one of {@code petIds} is not a pet of {@code fromId}; then nothing is moved
+     */
+    public List<Pet> transferPets(Long fromId, Long toId, List<Long> petIds) {
+        if (!partitions.isLocal(toId)) {
+            throw new PetMoveConflictException(
+                    "User with " + toId + " is on another node, pets can only be transferred within a node"
+            );
+        }
+
+        List<Pet> movedPets;
+        long seq = 0;
+        try (var ignored = ownerLocks.lock(fromId, toId)) {
+            long[] ownedIds = userService.petIdsOf(fromId);
+            checkOwnerExists(toId);
+            List<Pet> petsToMove = petIds == null ? petsOf(ownedIds) : ownedPets(fromId, petIds);
+            for (Pet pet : petsToMove) {
+                checkNotMoving(pet.getId());
+            }
+            if (Objects.equals(fromId, toId)) {
+                return petsToMove;
+            }
+
+            movedPets = new ArrayList<>(petsToMove.size());
+            for (Pet pet : petsToMove) {
+                movedPets.add(pet.withUserId(toId).withVersion(pet.getVersion() + 1));
+            }
+            pets.saveAll(movedPets);
+            for (Pet pet : movedPets) {
+                jsonCache.evict(Pet.class, pet.getId());
+                changeFeed.petSaved(pet);
+            }
+            seq = journal.petsSaved(movedPets);
+            userService.petsTransferred(fromId, toId, petsToMove, movedPets);
+        }
+        journal.awaitDurable(seq);
+
+        return movedPets;
+    }
+
+    /**
+     * The stored pets with {@code petIds}, each once, all owned by {@code ownerId}. The caller holds the owner lock.
+     *
+     * @throws PetNotFoundException if one of them is not a pet of {@code ownerId}
+     */
+    private List<Pet> ownedPets(Long ownerId, List<Long> petIds) {
+        LongSet seen = new LongSet();
+        List<Pet> owned = new ArrayList<>(petIds.size());
+        for (Long petId : petIds) {
+            Pet pet = pets.findById(petId)
+                    .filter(found -> Objects.equals(found.getUserId(), ownerId))
+                    .orElseThrow(() -> new PetNotFoundException(petId));
+            if (seen.add(petId)) {
+                owned.add(pet);
+            }
+        }
+
+        return owned;
+    }
+
+    /**
+     * Updates a pet whose new owner lives on another node: the pet is stored there by {@link PetMoves} and then
+     * deleted here. A move the other node turns down as busy is retried after a random pause, without the owner lock.
+     */
+    private Pet moveToPartition(Long petId, Pet petToUpdate, LongPredicate acceptsVersion) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return tryMoveToPartition(petId, petToUpdate, acceptsVersion);
+            } catch (PetMoveConflictException e) {
+                if (attempt == MOVE_ATTEMPTS) {
+                    throw e;
+                }
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(1, 10L << attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the pet as moving under its owner lock, stores it on the other node without the lock, and then deletes
+     * it here under the lock again, if it is still the version that was moved. The owner may have been deleted with
+     * its pets meanwhile, which leaves the pet with its new owner all the same.
+     */
+    private Pet tryMoveToPartition(Long petId, Pet petToUpdate, LongPredicate acceptsVersion) {
+        Pet oldPet = markMoving(petId, acceptsVersion);
+        try {
+            Pet movedPet = petMoves.moveTo(
+                    new Pet(petId, petToUpdate.getName(), petToUpdate.getUserId())
+                            .withVersion(oldPet.getVersion() + 1)
+            );
+
+            long seq;
+            try (var ignored = ownerLocks.lock(oldPet.getUserId())) {
+                boolean unchanged = pets.findById(petId)
+                        .filter(pet -> pet.getVersion() == oldPet.getVersion())
+                        .isPresent();
+                if (!unchanged) {
+                    return movedPet;
+                }
+
+                pets.remove(petId);
+                detachFromOwner(oldPet);
+                jsonCache.evict(Pet.class, petId);
+                changeFeed.petDeleted(petId);
+
+                seq = journal.petDeleted(petId);
+            }
+            journal.awaitDurable(seq);
+
+            return movedPet;
+        } finally {
+            movingPets.remove(petId);
+        }
+    }
+
+    /**
+     * The stored pet, marked as moving under its owner lock.
+     *
+     * @throws PreconditionFailedException if {@code acceptsVersion} does not accept its version
+     * @throws PetMoveConflictException    if it is moving already
+     */
+    private Pet markMoving(Long petId, LongPredicate acceptsVersion) {
+        while (true) {
+            Long ownerId = getPetById(petId).getUserId();
+            try (var ignored = ownerLocks.lock(ownerId)) {
+                Pet pet = getPetById(petId);
+                if (!Objects.equals(pet.getUserId(), ownerId)) {
+                    continue;
+                }
+                if (!acceptsVersion.test(pet.getVersion())) {
+                    throw new PreconditionFailedException("Pet with " + petId + " has been modified");
+                }
+                checkNotMoving(petId);
+                movingPets.add(petId);
+
+                return pet;
+            }
+        }
+    }
+
+    /**
+     * Prepares a move of a pet from another node to {@code ownerId}: holds the owner for {@code moveId}.
+     */
+    public void holdOwnerForMove(String moveId, Long ownerId) {
+        try (var ignored = lockForMove(ownerId)) {
+            checkOwnerExists(ownerId);
+            moveHolds.hold(moveId, ownerId);
         }
+    }
+
+    /**
+     * Commits a move prepared by {@link #holdOwnerForMove}: stores {@code pet} as it comes, with its id and version.
+     * A copy already stored here with the same owner, left by an earlier move whose answer was lost, is replaced.
+     *
+     * @throws PetMoveConflictException if the move is no longer held, or a pet with that id is stored here with
+     *                                  another owner
+     */
+    public Pet acceptMovedPet(String moveId, Pet pet) {
+        Long ownerId = pet.getUserId();
+        long seq;
+        try (var ignored = lockForMove(ownerId)) {
+            if (!moveHolds.isHeld(moveId, ownerId)) {
+                return pets.findById(pet.getId())
+                        .filter(stored -> stored.getVersion() == pet.getVersion()
+                                && Objects.equals(stored.getUserId(), ownerId))
+                        .orElseThrow(() -> new PetMoveConflictException(
+                                "Move of pet " + pet.getId() + " is not prepared or has lapsed"
+                        ));
+            }
+            Pet stored = pets.findById(pet.getId()).orElse(null);
+            if (stored != null && !Objects.equals(stored.getUserId(), ownerId)) {
+                throw new PetMoveConflictException("Pet with " + pet.getId() + " is stored here with another owner");
+            }
 
-        Pet oldPet = getPetById(petId);
-        oldPet.setName(petToUpdate.getName());
-        removePetFromOwner(petId);
-        userService.addPetToUser(newOwnerId, oldPet);
+            pets.save(pet);
+            jsonCache.evict(Pet.class, pet.getId());
+            changeFeed.petSaved(pet);
+            if (stored == null) {
+                userService.addPetToUser(ownerId, pet);
+            } else {
+                userService.petChanged(stored, pet);
+            }
+            moveHolds.release(moveId);
 
-        return oldPet;
+            seq = journal.petSaved(pet);
+        }
+        journal.awaitDurable(seq);
+
+        return pet;
     }
 
     public void deletePet(Long id) {
-        removePetFromOwner(id);
-        pets.remove(id);
+        while (true) {
+            Long ownerId = getPetById(id).getUserId();
+            long seq;
+            try (var ignored = ownerLocks.lock(ownerId)) {
+                Pet pet = getPetById(id);
+                if (!Objects.equals(pet.getUserId(), ownerId)) {
+                    continue;
+                }
+                checkNotMoving(id);
+
+                pets.remove(id);
+                detachFromOwner(pet);
+                jsonCache.evict(Pet.class, id);
+                changeFeed.petDeleted(id);
+
+                seq = journal.petDeleted(id);
+            }
+            journal.awaitDurable(seq);
+
+            return;
+        }
+    }
+
+    /**
+     * Deletes pets of an owner that is being deleted, leaving the owner's snapshot as it is. The pets are journaled
+     * but not awaited: the owner's deletion is awaited by the caller, and a restore drops pets without an owner.
+     */
+    public void deletePetsOf(Long ownerId, long[] petIds) {
+        try (var ignored = ownerLocks.lock(ownerId)) {
+            for (long petId : petIds) {
+                pets.remove(petId);
+                jsonCache.evict(Pet.class, petId);
+                changeFeed.petDeleted(petId);
+                journal.petDeleted(petId);
+            }
+        }
+    }
+
+    /**
+     * Puts back pets read from the journal, with their versions, without validating or journaling them again; their
+     * owners must have been restored before. Pets whose owner was deleted before they were reclaimed are dropped.
+     */
+    public void restorePets(List<Pet> restoredPets) {
+        List<Pet> ownedPets = new ArrayList<>(restoredPets.size());
+        for (Pet pet : restoredPets) {
+            if (pet.getUserId() == null || userService.checkIfUserExists(pet.getUserId())) {
+                pets.save(pet);
+                ownedPets.add(pet);
+            }
+        }
+        userService.linkRestoredPets(ownedPets);
     }
 
     public Boolean checkIfPetExists(Long id) {
-        return pets.containsKey(id);
+        return pets.findById(id)
+                .filter(pet -> !tombstones.hides(pet.getUserId()))
+                .isPresent();
     }
 
     public void removePetFromOwner(Long petId) {
-        Pet pet = getPetById(petId);
-        User oldOwner = userService.getById(pet.getUserId());
-        oldOwner.getPets().remove(pet);
-        pet.setUserId(null);
+        while (true) {
+            Long ownerId = getPetById(petId).getUserId();
+            long seq;
+            try (var ignored = ownerLocks.lock(ownerId)) {
+                Pet pet = getPetById(petId);
+                if (!Objects.equals(pet.getUserId(), ownerId)) {
+                    continue;
+                }
+                checkNotMoving(petId);
+
+                Pet detachedPet = publish(pet, pet.withUserId(null));
+                detachFromOwner(pet);
+
+                seq = journal.petSaved(detachedPet);
+            }
+            journal.awaitDurable(seq);
+
+            return;
+        }
+    }
+
+    /**
+     * The first version of a pet stored as {@code id}, copied from the request payload {@code pet}.
+     */
+    private static Pet created(long id, Pet pet) {
+        return new Pet(id, pet.getName(), pet.getUserId()).withVersion(1);
+    }
+
+    /**
+     * Stores {@code next} as the version after {@code current}, the stored snapshot it was derived from, and drops
+     * the cached JSON of {@code current}. The caller holds the owner locks.
+     */
+    private Pet publish(Pet current, Pet next) {
+        Pet published = next.withVersion(current.getVersion() + 1);
+        pets.save(published);
+        jsonCache.evict(Pet.class, published.getId());
+        changeFeed.petSaved(published);
+
+        return published;
+    }
+
+    /**
+     * Publishes the previous owner of {@code pet}, if any, without it.
+     */
+    private void detachFromOwner(Pet pet) {
+        if (pet.getUserId() != null) {
+            userService.removePetFromUser(pet.getUserId(), pet);
+        }
+    }
+
+    private OwnerLocks.Guard lockForMove(Long ownerId) {
+        OwnerLocks.Guard guard = ownerLocks.tryLock(ownerId, moveHolds.lockTimeout());
+        if (guard == null) {
+            throw new PetMoveConflictException("User with " + ownerId + " is busy, the move can be retried");
+        }
+
+        return guard;
+    }
+
+    /**
+     * Turns down a change to a pet that is being moved to another node. The caller holds the pet's owner lock.
+     */
+    private void checkNotMoving(Long petId) {
+        if (movingPets.contains(petId)) {
+            throw new PetMoveConflictException(
+                    "Pet with " + petId + " is moving to another node, the change can be retried"
+            );
+        }
+    }
+
+    private void checkOwnerExists(Long ownerId) {
+        if (!userService.checkIfUserExists(ownerId)) {
+            throw UserNotFoundException.owner(ownerId);
+        }
     }
 }
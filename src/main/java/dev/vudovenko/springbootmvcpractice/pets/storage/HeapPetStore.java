@@ -0,0 +1,57 @@
+package dev.vudovenko.springbootmvcpractice.pets.storage;
+
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.storage.EntityStore;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Pets as the immutable {@link Pet} snapshots themselves, in an {@link EntityStore}.
+ */
+public class HeapPetStore implements PetStore {
+
+    private final EntityStore<Pet> pets = new EntityStore<>();
+
+    @Override
+    public Optional<Pet> findById(Long id) {
+        return pets.findById(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return pets.existsById(id);
+    }
+
+    @Override
+    public void save(Pet pet) {
+        pets.save(pet.getId(), pet);
+    }
+
+    @Override
+    public void saveAll(Collection<Pet> petsToSave) {
+        petsToSave.forEach(this::save);
+    }
+
+    @Override
+    public void remove(Long id) {
+        pets.remove(id);
+    }
+
+    @Override
+    public List<Pet> findPage(long afterId, int limit) {
+        return pets.findPage(afterId, limit);
+    }
+
+    @Override
+    public void forEachAfter(long afterId, Consumer<? super Pet> action) {
+        pets.forEachAfter(afterId, action);
+    }
+
+    @Override
+    public int size() {
+        return pets.size();
+    }
+}
@@ -0,0 +1,135 @@
+package dev.vudovenko.springbootmvcpractice.pets.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pet names too long to keep in their row, in direct memory, as UTF-8 behind a two-byte length. They are stored in
+ * blocks of power-of-two sizes from {@value #MIN_BLOCK} bytes carved out of {@value #PAGE_SIZE}-byte pages. Freed
+ * blocks go on a free list per size and are handed out again before the page grows. A name is referred to by
+ * {@code page << 32 | offset}.
+ * <p>
+ * Writers take a lock only to take a block from, or give it back to, the free lists and the last page; a block is
+ * filled in after that, without the lock. Readers may read a block while it is freed and reused, so {@link #read}
+ * never fails on what it finds there; the caller tells from its row stamp whether the bytes can be trusted.
+ */
+final class NameArena {
+
+    /**
+     * Reference to no name, and the end of a free list.
+     */
+    static final long NO_NAME = -1;
+
+    private static final int PAGE_SHIFT = 20;
+
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    private static final int MIN_BLOCK_SHIFT = 4;
+
+    private static final int MIN_BLOCK = 1 << MIN_BLOCK_SHIFT;
+
+    private static final int LENGTH_BYTES = Short.BYTES;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile ByteBuffer[] pages = new ByteBuffer[0];
+
+    /**
+     * Head of the free list of each block size, linked through the first eight bytes of each free block.
+     */
+    private final long[] freeBlocks;
+
+    private int pageEnd = PAGE_SIZE;
+
+    NameArena() {
+        this.freeBlocks = new long[PAGE_SHIFT - MIN_BLOCK_SHIFT + 1];
+        Arrays.fill(freeBlocks, NO_NAME);
+    }
+
+    long write(byte[] bytes) {
+        if (bytes.length > PAGE_SIZE - LENGTH_BYTES) {
+            throw new IllegalArgumentException("Pet name of " + bytes.length + " bytes does not fit in a page");
+        }
+        int sizeClass = sizeClassOf(bytes.length);
+        long ref;
+        lock.lock();
+        try {
+            ref = allocate(sizeClass);
+        } finally {
+            lock.unlock();
+        }
+        ByteBuffer page = pages[(int) (ref >>> 32)];
+        int offset = (int) ref;
+        page.putShort(offset, (short) bytes.length);
+        page.put(offset + LENGTH_BYTES, bytes);
+
+        return ref;
+    }
+
+    /**
+     * The bytes of the name at {@code ref}, or {@code null} if {@code ref} does not point into the arena.
+     */
+    byte[] read(long ref) {
+        ByteBuffer[] pages = this.pages;
+        int pageIndex = (int) (ref >>> 32);
+        int offset = (int) ref;
+        if (pageIndex < 0 || pageIndex >= pages.length || offset < 0 || offset > PAGE_SIZE - LENGTH_BYTES) {
+            return null;
+        }
+        ByteBuffer page = pages[pageIndex];
+        int length = Math.min(Short.toUnsignedInt(page.getShort(offset)), PAGE_SIZE - LENGTH_BYTES - offset);
+        byte[] bytes = new byte[length];
+        page.get(offset + LENGTH_BYTES, bytes);
+
+        return bytes;
+    }
+
+    void free(long ref) {
+        ByteBuffer page = pages[(int) (ref >>> 32)];
+        int offset = (int) ref;
+        int sizeClass = sizeClassOf(Short.toUnsignedInt(page.getShort(offset)));
+        lock.lock();
+        try {
+            page.putLong(offset, freeBlocks[sizeClass]);
+            freeBlocks[sizeClass] = ref;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long offHeapBytes() {
+        return (long) pages.length * PAGE_SIZE;
+    }
+
+    private long allocate(int sizeClass) {
+        long ref = freeBlocks[sizeClass];
+        if (ref != NO_NAME) {
+            freeBlocks[sizeClass] = pages[(int) (ref >>> 32)].getLong((int) ref);
+
+            return ref;
+        }
+
+        int blockSize = MIN_BLOCK << sizeClass;
+        if (pageEnd + blockSize > PAGE_SIZE) {
+            ByteBuffer[] grown = Arrays.copyOf(pages, pages.length + 1);
+            grown[pages.length] = ByteBuffer.allocateDirect(PAGE_SIZE).order(ByteOrder.nativeOrder());
+            pages = grown;
+            pageEnd = 0;
+        }
+        ref = (long) (pages.length - 1) << 32 | pageEnd;
+        pageEnd += blockSize;
+
+        return ref;
+    }
+
+    /**
+     * Blocks are at least {@value Long#BYTES} bytes, so a free one can hold the link to the next.
+     */
+    private static int sizeClassOf(int length) {
+        int blockSize = Math.max(MIN_BLOCK, Integer.highestOneBit(length + LENGTH_BYTES - 1) << 1);
+
+        return Integer.numberOfTrailingZeros(blockSize) - MIN_BLOCK_SHIFT;
+    }
+}
@@ -0,0 +1,338 @@
+package dev.vudovenko.springbootmvcpractice.pets.storage;
+
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.storage.OrderedIdIndex;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Pets in direct memory, so the heap holds neither the pets nor their names and the collector has nothing to trace
+ * for them. Each pet is a fixed-width row of {@value #ROW_BYTES} bytes, one cache line, in chunks of
+ * {@value #CHUNK_ROWS} rows: its stamp, id, owner, version and name. Names of up to {@value #INLINE_NAME_BYTES} bytes
+ * of UTF-8 are kept in the row, longer ones in a {@link NameArena}. Ids are mapped to rows by a {@link RowIndex}, and a
+ * {@link Pet} is only built when one is read.
+ * <p>
+ * A change rewrites the pet's row in place, and a removed pet's row is put on a free list and reused by the next pet
+ * stored. Writes to one pet are already serialised by its owner lock, so writers only lock what pets share: the free
+ * rows and the chunks behind {@link #rowLock}, and the {@link RowIndex} segment and {@link NameArena} they touch, each
+ * behind a lock of its own. Pets of different owners are written in parallel. Readers take no lock: the stamp is odd
+ * while the row is being written, and a read that sees the stamp change retries.
+ */
+public class OffHeapPetStore implements PetStore {
+
+    private static final int CHUNK_SHIFT = 16;
+
+    private static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+
+    private static final int ROW_BYTES = 64;
+
+    private static final int STAMP = 0;
+
+    /**
+     * Byte length of the name, which is in the row if it fits and in the arena otherwise.
+     */
+    private static final int NAME_LENGTH = 4;
+
+    private static final int ID = 8;
+
+    private static final int OWNER = 16;
+
+    private static final int VERSION = 24;
+
+    /**
+     * The name itself, or its arena reference.
+     */
+    private static final int NAME = 32;
+
+    private static final int INLINE_NAME_BYTES = ROW_BYTES - NAME;
+
+    /**
+     * Id of a free row. Ids start at 1.
+     */
+    private static final long FREE_ID = 0;
+
+    private static final long NO_OWNER = Long.MIN_VALUE;
+
+    private static final int NO_ROW = -1;
+
+    private static final VarHandle STAMPS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final RowIndex rows;
+
+    private final OrderedIdIndex ids;
+
+    private final NameArena names;
+
+    /**
+     * Guards {@link #rowCount}, {@link #freeRow} and the growth of {@link #chunks}.
+     */
+    private final ReentrantLock rowLock;
+
+    private volatile ByteBuffer[] chunks;
+
+    /**
+     * Rows handed out so far, free or not.
+     */
+    private int rowCount;
+
+    /**
+     * Head of the free rows, linked through their owner field.
+     */
+    private int freeRow;
+
+    private final AtomicInteger size;
+
+    public OffHeapPetStore() {
+        this.rows = new RowIndex();
+        this.ids = new OrderedIdIndex();
+        this.names = new NameArena();
+        this.rowLock = new ReentrantLock();
+        this.chunks = new ByteBuffer[0];
+        this.freeRow = NO_ROW;
+        this.size = new AtomicInteger();
+    }
+
+    @Override
+    public Optional<Pet> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(read(id));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return id != null && rows.get(id) != RowIndex.MISSING;
+    }
+
+    /**
+     * The caller holds the pet's owner lock, so nothing else writes its row meanwhile.
+     */
+    @Override
+    public void save(Pet pet) {
+        long id = pet.getId();
+        int row = rows.get(id);
+        if (row == RowIndex.MISSING) {
+            row = allocateRow();
+            write(row, pet);
+            rows.put(id, row);
+            ids.add(id);
+            size.incrementAndGet();
+
+            return;
+        }
+
+        long oldNameRef = nameRefOf(row);
+        write(row, pet);
+        if (oldNameRef != NameArena.NO_NAME) {
+            names.free(oldNameRef);
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<Pet> pets) {
+        pets.forEach(this::save);
+    }
+
+    /**
+     * The caller holds the pet's owner lock.
+     */
+    @Override
+    public void remove(Long id) {
+        int row = rows.get(id);
+        if (row == RowIndex.MISSING) {
+            return;
+        }
+        rows.remove(id);
+        ids.remove(id);
+
+        long nameRef = nameRefOf(row);
+        ByteBuffer chunk = chunkOf(row);
+        int offset = offsetOf(row);
+        rowLock.lock();
+        try {
+            int stamp = beginWrite(chunk, offset);
+            chunk.putLong(offset + ID, FREE_ID);
+            chunk.putLong(offset + OWNER, freeRow);
+            endWrite(chunk, offset, stamp);
+            freeRow = row;
+        } finally {
+            rowLock.unlock();
+        }
+        if (nameRef != NameArena.NO_NAME) {
+            names.free(nameRef);
+        }
+        size.decrementAndGet();
+    }
+
+    @Override
+    public List<Pet> findPage(long afterId, int limit) {
+        List<Pet> page = new ArrayList<>(limit);
+        ids.forEachAfter(afterId, id -> {
+            Pet pet = read(id);
+            if (pet != null) {
+                page.add(pet);
+            }
+
+            return page.size() < limit;
+        });
+
+        return page;
+    }
+
+    @Override
+    public void forEachAfter(long afterId, Consumer<? super Pet> action) {
+        ids.forEachAfter(afterId, id -> {
+            Pet pet = read(id);
+            if (pet != null) {
+                action.accept(pet);
+            }
+
+            return true;
+        });
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Direct memory taken by rows, names and the id-to-row index, including space reserved but not used yet.
+     */
+    public long offHeapBytes() {
+        return (long) chunks.length * CHUNK_ROWS * ROW_BYTES + names.offHeapBytes() + rows.offHeapBytes();
+    }
+
+    private Pet read(long id) {
+        while (true) {
+            int row = rows.get(id);
+            if (row == RowIndex.MISSING) {
+                return null;
+            }
+            ByteBuffer chunk = chunkOf(row);
+            int offset = offsetOf(row);
+
+            int stamp = (int) STAMPS.getAcquire(chunk, offset + STAMP);
+            if ((stamp & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long storedId = chunk.getLong(offset + ID);
+            long owner = chunk.getLong(offset + OWNER);
+            long version = chunk.getLong(offset + VERSION);
+            int nameLength = chunk.getInt(offset + NAME_LENGTH);
+            byte[] name;
+            if (nameLength >= 0 && nameLength <= INLINE_NAME_BYTES) {
+                name = new byte[nameLength];
+                chunk.get(offset + NAME, name);
+            } else {
+                name = names.read(chunk.getLong(offset + NAME));
+            }
+            VarHandle.loadLoadFence();
+            if ((int) STAMPS.get(chunk, offset + STAMP) != stamp || name == null) {
+                continue;
+            }
+            if (storedId != id) {
+                // the row was freed, and maybe reused, after the lookup: look the id up again
+                continue;
+            }
+
+            return new Pet(id, new String(name, StandardCharsets.UTF_8), owner == NO_OWNER ? null : owner)
+                    .withVersion(version);
+        }
+    }
+
+    /**
+     * Writes {@code pet} into {@code row}, with its name in the arena if it does not fit in the row.
+     */
+    private void write(int row, Pet pet) {
+        byte[] name = pet.getName().getBytes(StandardCharsets.UTF_8);
+        long nameRef = name.length > INLINE_NAME_BYTES ? names.write(name) : NameArena.NO_NAME;
+
+        ByteBuffer chunk = chunkOf(row);
+        int offset = offsetOf(row);
+        int stamp = beginWrite(chunk, offset);
+        chunk.putLong(offset + ID, pet.getId());
+        chunk.putLong(offset + OWNER, pet.getUserId() == null ? NO_OWNER : pet.getUserId());
+        chunk.putLong(offset + VERSION, pet.getVersion());
+        chunk.putInt(offset + NAME_LENGTH, name.length);
+        if (nameRef == NameArena.NO_NAME) {
+            chunk.put(offset + NAME, name);
+        } else {
+            chunk.putLong(offset + NAME, nameRef);
+        }
+        endWrite(chunk, offset, stamp);
+    }
+
+    /**
+     * The arena reference of the name in {@code row}, or {@link NameArena#NO_NAME} if the name is in the row.
+     */
+    private long nameRefOf(int row) {
+        ByteBuffer chunk = chunkOf(row);
+        int offset = offsetOf(row);
+
+        return chunk.getInt(offset + NAME_LENGTH) > INLINE_NAME_BYTES
+                ? chunk.getLong(offset + NAME)
+                : NameArena.NO_NAME;
+    }
+
+    private static int beginWrite(ByteBuffer chunk, int offset) {
+        int stamp = chunk.getInt(offset + STAMP) + 1;
+        STAMPS.setOpaque(chunk, offset + STAMP, stamp);
+        VarHandle.storeStoreFence();
+
+        return stamp;
+    }
+
+    private static void endWrite(ByteBuffer chunk, int offset, int stamp) {
+        STAMPS.setRelease(chunk, offset + STAMP, stamp + 1);
+    }
+
+    /**
+     * A free row, which is the caller's alone to write until it is indexed.
+     */
+    private int allocateRow() {
+        rowLock.lock();
+        try {
+            if (freeRow != NO_ROW) {
+                int row = freeRow;
+                freeRow = (int) chunkOf(row).getLong(offsetOf(row) + OWNER);
+
+                return row;
+            }
+            if (rowCount == chunks.length * CHUNK_ROWS) {
+                ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+                grown[chunks.length] = ByteBuffer.allocateDirect(CHUNK_ROWS * ROW_BYTES + ROW_BYTES - 1)
+                        .alignedSlice(ROW_BYTES)
+                        .order(ByteOrder.nativeOrder());
+                chunks = grown;
+            }
+
+            return rowCount++;
+        } finally {
+            rowLock.unlock();
+        }
+    }
+
+    private ByteBuffer chunkOf(int row) {
+        return chunks[row >>> CHUNK_SHIFT];
+    }
+
+    private static int offsetOf(int row) {
+        return (row & (CHUNK_ROWS - 1)) * ROW_BYTES;
+    }
+}
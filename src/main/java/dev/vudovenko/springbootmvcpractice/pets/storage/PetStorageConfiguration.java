@@ -0,0 +1,24 @@
+package dev.vudovenko.springbootmvcpractice.pets.storage;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Keeps pets on the heap, or in direct memory when {@code pets.storage} is {@code off-heap}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class PetStorageConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "pets.storage", havingValue = "heap", matchIfMissing = true)
+    public PetStore heapPetStore() {
+        return new HeapPetStore();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "pets.storage", havingValue = "off-heap")
+    public PetStore offHeapPetStore() {
+        return new OffHeapPetStore();
+    }
+}
@@ -0,0 +1,41 @@
+package dev.vudovenko.springbootmvcpractice.pets.storage;
+
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Where {@code PetService} keeps its pets, chosen with {@code pets.storage}: {@code heap} (the default) or
+ * {@code off-heap}. Lookups are lock-free; writers hold the owner locks as everywhere else. A pet handed out may be a
+ * copy, so changes are only made through {@link #save}.
+ */
+public interface PetStore {
+
+    Optional<Pet> findById(Long id);
+
+    boolean existsById(Long id);
+
+    /**
+     * Stores {@code pet} under its id, replacing the pet stored there.
+     */
+    void save(Pet pet);
+
+    void saveAll(Collection<Pet> pets);
+
+    void remove(Long id);
+
+    /**
+     * Up to {@code limit} pets with ids greater than {@code afterId}, in ascending id order.
+     */
+    List<Pet> findPage(long afterId, int limit);
+
+    /**
+     * Visits pets with ids greater than {@code afterId} in ascending id order, without copying the store.
+     */
+    void forEachAfter(long afterId, Consumer<? super Pet> action);
+
+    int size();
+}
@@ -0,0 +1,203 @@
+package dev.vudovenko.springbootmvcpractice.pets.storage;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Off-heap map from pet id to row, laid out like {@code LongObjectMap}: {@value #SEGMENTS} open-addressing segments
+ * with linear probing, lock-free lookups, and removal markers that only the same id reuses. Each slot is a
+ * {@code long} id followed by an {@code int} holding the row plus one, {@code 0} for a free slot and {@code -1} for a
+ * removed entry, so a lookup usually reads a single cache line. The int is published with release semantics after the
+ * id. Writers lock only their segment.
+ */
+final class RowIndex {
+
+    static final int MISSING = -1;
+
+    private static final int SEGMENT_SHIFT = 6;
+
+    private static final int SEGMENTS = 1 << SEGMENT_SHIFT;
+
+    private static final int MIN_CAPACITY = 64;
+
+    private static final int FREE = 0;
+
+    private static final int REMOVED = -1;
+
+    private static final int SLOT_BYTES = Long.BYTES + Integer.BYTES;
+
+    private static final int ROW = Long.BYTES;
+
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final Segment[] segments;
+
+    RowIndex() {
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * The row of {@code id}, or {@link #MISSING}.
+     */
+    int get(long id) {
+        long hash = hash(id);
+        Table table = segmentOf(hash).table;
+        int mask = table.capacity - 1;
+        for (int i = table.indexOf(hash); ; i = (i + 1) & mask) {
+            int slot = (int) INTS.getAcquire(table.slots, i * SLOT_BYTES + ROW);
+            if (slot == FREE) {
+                return MISSING;
+            }
+            if (table.slots.getLong(i * SLOT_BYTES) == id) {
+                return slot == REMOVED ? MISSING : slot - 1;
+            }
+        }
+    }
+
+    void put(long id, int row) {
+        long hash = hash(id);
+        Segment segment = segmentOf(hash);
+        segment.lock.lock();
+        try {
+            segment.put(id, hash, row);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    void remove(long id) {
+        long hash = hash(id);
+        Segment segment = segmentOf(hash);
+        segment.lock.lock();
+        try {
+            segment.remove(id, hash);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    long offHeapBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.table.capacity * (long) SLOT_BYTES;
+        }
+
+        return bytes;
+    }
+
+    private Segment segmentOf(long hash) {
+        return segments[(int) (hash >>> (Long.SIZE - SEGMENT_SHIFT))];
+    }
+
+    private static long hash(long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+
+        return hash ^ (hash >>> 32);
+    }
+
+    private record Table(ByteBuffer slots, int capacity) {
+
+        private Table(int capacity) {
+            this(ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder()), capacity);
+        }
+
+        private int indexOf(long hash) {
+            return (int) hash & (capacity - 1);
+        }
+    }
+
+    private static final class Segment {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private volatile Table table = new Table(MIN_CAPACITY);
+
+        /**
+         * Live entries; {@link #used} also counts removal markers.
+         */
+        private int size;
+
+        private int used;
+
+        private void put(long id, long hash, int row) {
+            Table table = this.table;
+            int mask = table.capacity - 1;
+            int i = table.indexOf(hash);
+            for (; ; i = (i + 1) & mask) {
+                int slot = table.slots.getInt(i * SLOT_BYTES + ROW);
+                if (slot == FREE) {
+                    break;
+                }
+                if (table.slots.getLong(i * SLOT_BYTES) == id) {
+                    INTS.setRelease(table.slots, i * SLOT_BYTES + ROW, row + 1);
+                    if (slot == REMOVED) {
+                        size++;
+                    }
+
+                    return;
+                }
+            }
+
+            table.slots.putLong(i * SLOT_BYTES, id);
+            INTS.setRelease(table.slots, i * SLOT_BYTES + ROW, row + 1);
+            size++;
+            if (++used > table.capacity / 4 * 3) {
+                rehash(table);
+            }
+        }
+
+        private void remove(long id, long hash) {
+            Table table = this.table;
+            int mask = table.capacity - 1;
+            for (int i = table.indexOf(hash); ; i = (i + 1) & mask) {
+                int slot = table.slots.getInt(i * SLOT_BYTES + ROW);
+                if (slot == FREE) {
+                    return;
+                }
+                if (table.slots.getLong(i * SLOT_BYTES) == id) {
+                    if (slot != REMOVED) {
+                        INTS.setRelease(table.slots, i * SLOT_BYTES + ROW, REMOVED);
+                        size--;
+                    }
+
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Copies the live entries into a table sized for them. Readers keep probing the old table until the new one is
+         * published, and its buffers are released once they stop.
+         */
+        private void rehash(Table table) {
+            int capacity = MIN_CAPACITY;
+            while (capacity / 2 < size) {
+                capacity <<= 1;
+            }
+
+            Table rehashed = new Table(capacity);
+            int mask = capacity - 1;
+            for (int i = 0; i < table.capacity; i++) {
+                int slot = table.slots.getInt(i * SLOT_BYTES + ROW);
+                if (slot != FREE && slot != REMOVED) {
+                    long id = table.slots.getLong(i * SLOT_BYTES);
+                    int j = rehashed.indexOf(hash(id));
+                    while (rehashed.slots.getInt(j * SLOT_BYTES + ROW) != FREE) {
+                        j = (j + 1) & mask;
+                    }
+                    rehashed.slots.putLong(j * SLOT_BYTES, id);
+                    rehashed.slots.putInt(j * SLOT_BYTES + ROW, slot);
+                }
+            }
+
+            used = size;
+            this.table = rehashed;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package dev.vudovenko.springbootmvcpractice.reactive;
+
+import dev.vudovenko.springbootmvcpractice.changes.ChangeCursor;
+import dev.vudovenko.springbootmvcpractice.changes.ChangeFeed;
+import dev.vudovenko.springbootmvcpractice.changes.ChangeFeedItem;
+import dev.vudovenko.springbootmvcpractice.changes.ChangeFeedProperties;
+import dev.vudovenko.springbootmvcpractice.changes.ChangeStreams;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * {@code ChangeController} on WebFlux, with the same contract. Batches are read from the cursor as the client's demand
+ * asks for them, and an idle stream polls the feed on a timer instead of holding a thread.
+ */
+@RequestMapping("/changes")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RestController
+@RequiredArgsConstructor
+public class ReactiveChangeController {
+
+    private final ChangeFeed changeFeed;
+
+    private final ChangeFeedProperties properties;
+
+    @GetMapping
+    public ResponseEntity<Flux<?>> streamChanges(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "true") boolean follow,
+            @RequestHeader(name = ChangeStreams.LAST_EVENT_ID, required = false) Long lastEventId,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
+        Flux<ChangeFeedItem> items = Flux.using(
+                () -> changeFeed.cursorAfter(ChangeStreams.startAfter(after, lastEventId, changeFeed)),
+                cursor -> itemsOf(cursor, follow).take(properties.maxStreamDuration()),
+                ChangeCursor::close
+        );
+
+        if (ChangeStreams.wantsEventStream(accept)) {
+            return ResponseEntity
+                    .ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .body(items.map(item -> ServerSentEvent.builder(item)
+                            .id(Long.toString(item.resumeAfter()))
+                            .event(item.eventName())
+                            .build()));
+        }
+
+        return ResponseEntity
+                .ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(items);
+    }
+
+    private Flux<ChangeFeedItem> itemsOf(ChangeCursor cursor, boolean follow) {
+        Flux<List<ChangeFeedItem>> batches = Mono.fromSupplier(() -> cursor.next(properties.batchSize()))
+                .repeat();
+        if (!follow) {
+            return batches
+                    .takeWhile(batch -> !batch.isEmpty())
+                    .concatMapIterable(batch -> batch);
+        }
+
+        return batches.concatMap(
+                batch -> batch.isEmpty()
+                        ? Mono.delay(properties.pollInterval()).then(Mono.empty())
+                        : Flux.fromIterable(batch),
+                1
+        );
+    }
+}
@@ -0,0 +1,41 @@
+package dev.vudovenko.springbootmvcpractice.reactive;
+
+import dev.vudovenko.springbootmvcpractice.batch.BatchProcessor;
+import dev.vudovenko.springbootmvcpractice.partitioning.Partitions;
+import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import dev.vudovenko.springbootmvcpractice.responsecache.EntityJsonCache;
+import dev.vudovenko.springbootmvcpractice.users.service.UserService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The same {@code /users} and {@code /pets} API on WebFlux and Netty, selected with the {@code reactive} profile.
+ * The servlet controllers step aside in this mode.
+ * <p>
+ * Only a single node is served: requests are not routed between partitions, which is done by a servlet filter.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfiguration {
+
+    public ReactiveConfiguration(Partitions partitions) {
+        if (partitions.isPartitioned()) {
+            throw new IllegalStateException("The reactive stack serves a single node, unset partitions.nodes");
+        }
+    }
+
+    @Bean
+    public ReactiveUserService reactiveUserService(
+            UserService userService,
+            BatchProcessor batchProcessor,
+            EntityJsonCache jsonCache
+    ) {
+        return new ReactiveUserService(userService, batchProcessor, jsonCache);
+    }
+
+    @Bean
+    public ReactivePetService reactivePetService(PetService petService, BatchProcessor batchProcessor) {
+        return new ReactivePetService(petService, batchProcessor);
+    }
+}
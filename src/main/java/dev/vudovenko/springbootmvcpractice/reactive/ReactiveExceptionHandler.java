@@ -0,0 +1,38 @@
+package dev.vudovenko.springbootmvcpractice.reactive;
+
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.GlobalExceptionHandler;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.dto.ErrorMessageResponse;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+/**
+ * WebFlux reports an invalid request body with its own exception, which {@link GlobalExceptionHandler} would render
+ * as a server error. Every other exception is rendered by {@link GlobalExceptionHandler} as on the servlet stack.
+ */
+@Log4j2
+@ControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+    private final GlobalExceptionHandler exceptionHandler;
+
+    public ReactiveExceptionHandler(GlobalExceptionHandler exceptionHandler) {
+        this.exceptionHandler = exceptionHandler;
+    }
+
+    @ExceptionHandler(value = {WebExchangeBindException.class})
+    public ResponseEntity<ErrorMessageResponse> handleValidationException(
+            WebExchangeBindException e
+    ) {
+        log.error("Got validation exception", e);
+
+        return exceptionHandler.toErrorResponse(e);
+    }
+}
@@ -0,0 +1,103 @@
+package dev.vudovenko.springbootmvcpractice.reactive;
+
+import dev.vudovenko.springbootmvcpractice.batch.BatchItemResult;
+import dev.vudovenko.springbootmvcpractice.pagination.KeysetPage;
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.responsecache.EntityJsonCache;
+import dev.vudovenko.springbootmvcpractice.versioning.EntityTags;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * {@code PetController} on WebFlux, with the same contract.
+ */
+@RequiredArgsConstructor
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/pets")
+public class ReactivePetController {
+
+    private final ReactivePetService petService;
+
+    private final EntityTags entityTags;
+
+    private final EntityJsonCache jsonCache;
+
+    @PostMapping
+    public Mono<ResponseEntity<Pet>> createPet(@Valid @RequestBody Pet pet) {
+        return petService.createPet(pet)
+                .map(createdPet -> ResponseEntity
+                        .status(201)
+                        .eTag(entityTags.of(createdPet.getVersion()))
+                        .body(createdPet));
+    }
+
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<List<BatchItemResult<Pet>>>> createPets(@RequestBody List<Pet> pets) {
+        return petService.createPets(pets);
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<KeysetPage<Pet>>> getPets(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit
+    ) {
+        int pageLimit = KeysetPage.clampLimit(limit);
+
+        return petService.findPage(KeysetPage.cursorOf(after), pageLimit)
+                .map(pets -> ResponseEntity.ok(KeysetPage.of(pets, pageLimit, Pet::getId)));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Pet> streamPets(@RequestParam(required = false) Long after) {
+        return petService.findAllAfter(KeysetPage.cursorOf(after));
+    }
+
+    /**
+     * Conditional and cached like {@code ReactiveUserController#getUser}.
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<byte[]>> getPet(@PathVariable Long id, ServerWebExchange exchange) {
+        return petService.getPetById(id)
+                .mapNotNull(pet -> {
+                    long version = pet.getVersion();
+                    String eTag = entityTags.of(version);
+                    if (exchange.checkNotModified(eTag)) {
+                        return null;
+                    }
+
+                    return ResponseEntity.ok()
+                            .eTag(eTag)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .body(jsonCache.jsonOf(Pet.class, id, version, pet));
+                });
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Pet>> updatePet(
+            @PathVariable Long id,
+            @Valid @RequestBody Pet pet,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        return petService.updatePet(id, pet, version -> entityTags.matches(ifMatch, version))
+                .map(updatedPet -> ResponseEntity.ok()
+                        .eTag(entityTags.of(updatedPet.getVersion()))
+                        .body(updatedPet));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deletePet(@PathVariable Long id) {
+        return petService.deletePet(id)
+                .thenReturn(ResponseEntity.noContent().build());
+    }
+}
@@ -0,0 +1,63 @@
+package dev.vudovenko.springbootmvcpractice.reactive;
+
+import dev.vudovenko.springbootmvcpractice.batch.BatchItemResult;
+import dev.vudovenko.springbootmvcpractice.batch.BatchProcessor;
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.LongPredicate;
+
+/**
+ * {@link PetService} for the reactive stack, called as {@link ServiceCalls} describes.
+ */
+public class ReactivePetService {
+
+    private final PetService petService;
+
+    private final BatchProcessor batchProcessor;
+
+    public ReactivePetService(PetService petService, BatchProcessor batchProcessor) {
+        this.petService = petService;
+        this.batchProcessor = batchProcessor;
+    }
+
+    public Mono<Pet> createPet(Pet pet) {
+        return ServiceCalls.write(() -> petService.createPet(pet));
+    }
+
+    public Mono<ResponseEntity<List<BatchItemResult<Pet>>>> createPets(List<Pet> pets) {
+        return ServiceCalls.write(() -> batchProcessor.process(pets, "pet", petService::createPets));
+    }
+
+    public Mono<Pet> getPetById(Long id) {
+        return ServiceCalls.read(() -> petService.getPetById(id));
+    }
+
+    public Mono<List<Pet>> findPage(long afterId, int limit) {
+        return ServiceCalls.read(() -> petService.findPage(afterId, limit));
+    }
+
+    public Flux<Pet> findAllAfter(long afterId) {
+        return ServiceCalls.pages(afterId, petService::findPage, Pet::getId);
+    }
+
+    public Mono<Pet> updatePet(Long id, Pet pet, LongPredicate acceptsVersion) {
+        return ServiceCalls.write(() -> petService.updatePet(id, pet, acceptsVersion));
+    }
+
+    public Mono<List<Pet>> transferPets(Long fromId, Long toId, List<Long> petIds) {
+        return ServiceCalls.write(() -> petService.transferPets(fromId, toId, petIds));
+    }
+
+    public Mono<Void> deletePet(Long id) {
+        return ServiceCalls.write(() -> {
+            petService.deletePet(id);
+
+            return null;
+        }).then();
+    }
+}
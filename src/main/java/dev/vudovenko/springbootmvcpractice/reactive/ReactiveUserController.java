@@ -0,0 +1,137 @@
+package dev.vudovenko.springbootmvcpractice.reactive;
+
+import dev.vudovenko.springbootmvcpractice.batch.BatchItemResult;
+import dev.vudovenko.springbootmvcpractice.pagination.KeysetPage;
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.responsecache.EntityJsonCache;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import dev.vudovenko.springbootmvcpractice.versioning.EntityTags;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * {@code UserController} on WebFlux, with the same contract.
+ */
+@RequestMapping("/users")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RestController
+@RequiredArgsConstructor
+public class ReactiveUserController {
+
+    private final ReactiveUserService userService;
+
+    private final ReactivePetService petService;
+
+    private final EntityTags entityTags;
+
+    private final EntityJsonCache jsonCache;
+
+    @PostMapping
+    public Mono<ResponseEntity<User>> createUser(@Valid @RequestBody User user) {
+        return userService.createUser(user)
+                .map(createdUser -> ResponseEntity
+                        .status(201)
+                        .eTag(entityTags.of(createdUser.getVersion()))
+                        .body(createdUser));
+    }
+
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<List<BatchItemResult<User>>>> createUsers(@RequestBody List<User> users) {
+        return userService.createUsers(users);
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<KeysetPage<User>>> getUsers(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit
+    ) {
+        int pageLimit = KeysetPage.clampLimit(limit);
+
+        return userService.findPage(KeysetPage.cursorOf(after), pageLimit)
+                .map(users -> ResponseEntity.ok(KeysetPage.of(users, pageLimit, User::getId)));
+    }
+
+    @GetMapping(params = "email")
+    public Mono<ResponseEntity<List<User>>> getUsersByEmail(@RequestParam String email) {
+        return userService.findByEmail(email)
+                .map(ResponseEntity::ok);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<User> streamUsers(@RequestParam(required = false) Long after) {
+        return userService.findAllAfter(KeysetPage.cursorOf(after));
+    }
+
+    /**
+     * Conditional and cached like {@code UserController#getUser}. A matching {@code If-None-Match} completes empty,
+     * leaving the 304 set by the exchange.
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<byte[]>> getUser(@PathVariable Long id, ServerWebExchange exchange) {
+        return userService.getStored(id)
+                .flatMap(stored -> {
+                    String eTag = entityTags.of(stored.getVersion());
+                    if (exchange.checkNotModified(eTag)) {
+                        return Mono.empty();
+                    }
+
+                    return userService.jsonOf(stored)
+                            .map(json -> jsonResponse(eTag, json))
+                            .switchIfEmpty(Mono.defer(() -> userService.getById(id)
+                                    .map(user -> jsonResponse(
+                                            entityTags.of(user.getVersion()),
+                                            jsonCache.jsonOf(User.class, id, user.getVersion(), user)
+                                    ))));
+                });
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<User>> updateUser(
+            @PathVariable Long id,
+            @Valid @RequestBody User user,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        return userService.updateUser(id, user, version -> entityTags.matches(ifMatch, version))
+                .map(updatedUser -> ResponseEntity.ok()
+                        .eTag(entityTags.of(updatedUser.getVersion()))
+                        .body(updatedUser));
+    }
+
+    @PostMapping("/{id}/pets/transfer")
+    public Mono<ResponseEntity<List<Pet>>> transferPets(
+            @PathVariable Long id,
+            @RequestParam Long to,
+            @RequestBody(required = false) List<Long> petIds
+    ) {
+        return petService.transferPets(id, to, petIds)
+                .map(ResponseEntity::ok);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteUser(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "false") boolean async
+    ) {
+        return userService.deleteUser(id, async)
+                .map(deferred -> deferred
+                        ? ResponseEntity.accepted().build()
+                        : ResponseEntity.noContent().build());
+    }
+
+    private static ResponseEntity<byte[]> jsonResponse(String eTag, byte[] json) {
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json);
+    }
+}
@@ -0,0 +1,86 @@
+package dev.vudovenko.springbootmvcpractice.reactive;
+
+import dev.vudovenko.springbootmvcpractice.batch.BatchItemResult;
+import dev.vudovenko.springbootmvcpractice.batch.BatchProcessor;
+import dev.vudovenko.springbootmvcpractice.responsecache.EntityJsonCache;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import dev.vudovenko.springbootmvcpractice.users.service.UserService;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.LongPredicate;
+
+/**
+ * {@link UserService} for the reactive stack, called as {@link ServiceCalls} describes.
+ */
+public class ReactiveUserService {
+
+    private final UserService userService;
+
+    private final BatchProcessor batchProcessor;
+
+    private final EntityJsonCache jsonCache;
+
+    public ReactiveUserService(UserService userService, BatchProcessor batchProcessor, EntityJsonCache jsonCache) {
+        this.userService = userService;
+        this.batchProcessor = batchProcessor;
+        this.jsonCache = jsonCache;
+    }
+
+    public Mono<User> createUser(User user) {
+        return ServiceCalls.write(() -> userService.createUser(user));
+    }
+
+    public Mono<ResponseEntity<List<BatchItemResult<User>>>> createUsers(List<User> users) {
+        return ServiceCalls.write(() -> batchProcessor.process(users, "user", userService::createUsers));
+    }
+
+    public Mono<User> getById(Long id) {
+        return ServiceCalls.read(() -> userService.getById(id));
+    }
+
+    /**
+     * The stored user without its pets, see {@link UserService#getStored}.
+     */
+    public Mono<User> getStored(Long id) {
+        return ServiceCalls.read(() -> userService.getStored(id));
+    }
+
+    /**
+     * The cached JSON of {@code stored}, with its pets read only on a cache miss, or empty if they changed since it
+     * was read.
+     */
+    public Mono<byte[]> jsonOf(User stored) {
+        return ServiceCalls.read(() -> jsonCache.jsonOf(
+                User.class,
+                stored.getId(),
+                stored.getVersion(),
+                () -> userService.withPets(stored)
+        ));
+    }
+
+    public Mono<List<User>> findPage(long afterId, int limit) {
+        return ServiceCalls.read(() -> userService.findPage(afterId, limit));
+    }
+
+    public Mono<List<User>> findByEmail(String email) {
+        return ServiceCalls.read(() -> userService.findByEmail(email));
+    }
+
+    public Flux<User> findAllAfter(long afterId) {
+        return ServiceCalls.pages(afterId, userService::findPage, User::getId);
+    }
+
+    public Mono<User> updateUser(Long id, User user, LongPredicate acceptsVersion) {
+        return ServiceCalls.write(() -> userService.updateUser(id, user, acceptsVersion));
+    }
+
+    /**
+     * @return whether the user's pets are deleted in the background, see {@link UserService#deleteUser(Long, boolean)}
+     */
+    public Mono<Boolean> deleteUser(Long id, boolean async) {
+        return ServiceCalls.write(() -> userService.deleteUser(id, async));
+    }
+}
@@ -0,0 +1,50 @@
+package dev.vudovenko.springbootmvcpractice.reactive;
+
+import dev.vudovenko.springbootmvcpractice.pagination.KeysetPage;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * How the reactive stack calls the blocking services: every call runs on {@link Schedulers#boundedElastic()}, off the
+ * event loop. Writes may wait for an owner lock or for the journal to reach the disk. Reads are lock-free for the most
+ * part, but a user whose pets keep changing is read under its owner's read lock, and a page reads every pet of every
+ * user on it, so they do not run on the event loop either.
+ */
+final class ServiceCalls {
+
+    private ServiceCalls() {
+    }
+
+    static <T> Mono<T> read(Callable<T> call) {
+        return Mono.fromCallable(call)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    static <T> Mono<T> write(Callable<T> call) {
+        return Mono.fromCallable(call)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Entities after {@code afterId} in ascending id order, read a page at a time as the subscriber asks for more.
+     */
+    static <T> Flux<T> pages(long afterId, PageSource<T> source, ToLongFunction<T> idOf) {
+        return read(() -> source.find(afterId, KeysetPage.MAX_LIMIT))
+                .expand(page -> page.size() < KeysetPage.MAX_LIMIT
+                        ? Mono.empty()
+                        : read(() -> source.find(idOf.applyAsLong(page.getLast()), KeysetPage.MAX_LIMIT)))
+                .flatMapIterable(Function.identity());
+    }
+
+    @FunctionalInterface
+    interface PageSource<T> {
+
+        List<T> find(long afterId, int limit);
+    }
+}
@@ -0,0 +1,147 @@
+package dev.vudovenko.springbootmvcpractice.responsecache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Serialized JSON of single entities, bounded by {@code response-cache.max-size} bytes.
+ * <p>
+ * An entry remembers the entity version it was serialized at and only answers lookups for that version, so a version
+ * bump alone makes it stale; services also {@link #evict} on every bump and delete to give the memory back at once.
+ * Stored entities are immutable snapshots, so bytes stored under a version are exactly that version's JSON even when
+ * a reader races a newer one.
+ * <p>
+ * Exposes {@code response.cache.requests{type,result}}, {@code response.cache.evictions} and the
+ * {@code response.cache.size} in bytes.
+ */
+@Component
+public class EntityJsonCache {
+
+    /**
+     * Rough heap cost of a cache node, key and entry on top of the JSON itself.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final ObjectMapper objectMapper;
+
+    private final Cache<Key, Entry> cache;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Class<?>, Requests> requestsByType;
+
+    private final Counter evictions;
+
+    public EntityJsonCache(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${response-cache.max-size:64MB}") DataSize maxSize
+    ) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.requestsByType = new ConcurrentHashMap<>();
+        this.evictions = Counter.builder("response.cache.evictions")
+                .description("Entries evicted to stay within the size bound")
+                .register(meterRegistry);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Key key, Entry entry) -> ENTRY_OVERHEAD_BYTES + entry.json().length)
+                .removalListener((Key key, Entry entry, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        evictions.increment();
+                    }
+                })
+                .build();
+
+        Gauge.builder("response.cache.size", cache, c -> c.policy().eviction().orElseThrow().weightedSize().orElse(0))
+                .description("Bytes held by the cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The JSON of {@code entity}, a stored snapshot whose version is {@code version}.
+     */
+    public byte[] jsonOf(Class<?> type, long id, long version, Object entity) {
+        return jsonOf(type, id, version, () -> entity);
+    }
+
+    /**
+     * The JSON of the stored snapshot at {@code version}, which {@code entity} builds only on a miss. If it builds
+     * {@code null}, as it may when the snapshot can no longer be built, nothing is cached and this returns
+     * {@code null}.
+     */
+    public byte[] jsonOf(Class<?> type, long id, long version, Supplier<?> entity) {
+        Key key = new Key(type, id);
+        Entry entry = cache.asMap().get(key);
+        Requests requests = requestsByType.computeIfAbsent(type, this::registerRequests);
+        if (entry != null && entry.version() == version) {
+            requests.hits().increment();
+
+            return entry.json();
+        }
+
+        requests.misses().increment();
+        Object built = entity.get();
+        if (built == null) {
+            return null;
+        }
+        byte[] json = serialize(built);
+        cache.asMap().merge(key, new Entry(version, json), EntityJsonCache::newer);
+
+        return json;
+    }
+
+    public void evict(Class<?> type, Long id) {
+        if (id != null) {
+            cache.invalidate(new Key(type, id));
+        }
+    }
+
+    private byte[] serialize(Object entity) {
+        try {
+            return objectMapper.writeValueAsBytes(entity);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Entry newer(Entry cached, Entry serialized) {
+        return cached.version() > serialized.version() ? cached : serialized;
+    }
+
+    private Requests registerRequests(Class<?> type) {
+        return new Requests(requestCounter(type, "hit"), requestCounter(type, "miss"));
+    }
+
+    private Counter requestCounter(Class<?> type, String result) {
+        return Counter.builder("response.cache.requests")
+                .description("Lookups by result")
+                .tag("type", type.getSimpleName())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Key(Class<?> type, long id) {
+    }
+
+    private record Entry(long version, byte[] json) {
+    }
+
+    private record Requests(Counter hits, Counter misses) {
+    }
+}
@@ -0,0 +1,92 @@
+package dev.vudovenko.springbootmvcpractice.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Entities by id in a {@link LongObjectMap}, so neither the stored ids nor the lookups box, with an
+ * {@link OrderedIdIndex} for walking them in id order.
+ */
+public class EntityStore<T> {
+
+    private final LongObjectMap<T> entities;
+
+    private final OrderedIdIndex ids;
+
+    public EntityStore() {
+        this.entities = new LongObjectMap<>();
+        this.ids = new OrderedIdIndex();
+    }
+
+    public Optional<T> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(entities.get(id));
+    }
+
+    public boolean existsById(Long id) {
+        return id != null && entities.containsKey(id);
+    }
+
+    public void save(Long id, T entity) {
+        entities.put(id, entity);
+        ids.add(id);
+    }
+
+    public void saveAll(Map<Long, T> entitiesById) {
+        entitiesById.forEach(this::save);
+    }
+
+    public T remove(Long id) {
+        T removed = entities.remove(id);
+        if (removed != null) {
+            ids.remove(id);
+        }
+
+        return removed;
+    }
+
+    /**
+     * Up to {@code limit} entities with ids greater than {@code afterId}, in ascending id order.
+     */
+    public List<T> findPage(long afterId, int limit) {
+        List<T> page = new ArrayList<>(limit);
+        walkAfter(afterId, entity -> {
+            page.add(entity);
+
+            return page.size() < limit;
+        });
+
+        return page;
+    }
+
+    /**
+     * Visits entities with ids greater than {@code afterId} in ascending id order, without copying the store.
+     * Entities added or removed during the walk may or may not be visited.
+     */
+    public void forEachAfter(long afterId, Consumer<? super T> action) {
+        walkAfter(afterId, entity -> {
+            action.accept(entity);
+
+            return true;
+        });
+    }
+
+    private void walkAfter(long afterId, Predicate<? super T> action) {
+        ids.forEachAfter(afterId, id -> {
+            T entity = entities.get(id);
+
+            return entity == null || action.test(entity);
+        });
+    }
+
+    public int size() {
+        return entities.size();
+    }
+}
@@ -0,0 +1,92 @@
+package dev.vudovenko.springbootmvcpractice.storage;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongConsumer;
+
+/**
+ * Concurrent secondary index from a key to the ids of the entities that have it.
+ * <p>
+ * Each key maps to a small immutable {@code long[]} that is replaced atomically, so lookups are a single hash probe
+ * without locking. A unique index refuses a second id for the same key.
+ */
+public class HashIndex<K> {
+
+    private final ConcurrentMap<K, long[]> idsByKey;
+
+    private final boolean unique;
+
+    public HashIndex(boolean unique) {
+        this.idsByKey = new ConcurrentHashMap<>();
+        this.unique = unique;
+    }
+
+    /**
+     * Returns {@code false} if the index is unique and the key already belongs to another id.
+     */
+    public boolean add(K key, long id) {
+        boolean[] added = {true};
+        idsByKey.compute(key, (k, ids) -> {
+            if (ids == null) {
+                return new long[]{id};
+            }
+            if (indexOf(ids, id) >= 0) {
+                return ids;
+            }
+            if (unique) {
+                added[0] = false;
+
+                return ids;
+            }
+
+            long[] grown = Arrays.copyOf(ids, ids.length + 1);
+            grown[ids.length] = id;
+
+            return grown;
+        });
+
+        return added[0];
+    }
+
+    public void remove(K key, long id) {
+        idsByKey.computeIfPresent(key, (k, ids) -> {
+            int index = indexOf(ids, id);
+            if (index < 0) {
+                return ids;
+            }
+            if (ids.length == 1) {
+                return null;
+            }
+
+            long[] shrunk = new long[ids.length - 1];
+            System.arraycopy(ids, 0, shrunk, 0, index);
+            System.arraycopy(ids, index + 1, shrunk, index, ids.length - index - 1);
+
+            return shrunk;
+        });
+    }
+
+    public void forEach(K key, LongConsumer action) {
+        long[] ids = idsByKey.get(key);
+        if (ids != null) {
+            for (long id : ids) {
+                action.accept(id);
+            }
+        }
+    }
+
+    public int size() {
+        return idsByKey.size();
+    }
+
+    private static int indexOf(long[] ids, long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,196 @@
+package dev.vudovenko.springbootmvcpractice.storage;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Insertion-ordered set of primitive longs with constant-time add, remove and contains. Not thread-safe.
+ * <p>
+ * Elements are appended to a dense array and located through an open-addressing index of array positions.
+ * Removal leaves a hole that is skipped on iteration; the array is compacted once half of it is holes, or, if
+ * the removal happens inside {@link #forEach}, once the iteration is over.
+ */
+public class LongLinkedHashSet {
+
+    private static final int MIN_CAPACITY = 4;
+
+    private static final int EMPTY = 0;
+
+    private static final int DELETED = -1;
+
+    private long[] elements;
+
+    private long[] holes;
+
+    private int[] index;
+
+    private int end;
+
+    private int size;
+
+    private int iterations;
+
+    public LongLinkedHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongLinkedHashSet(int expectedSize) {
+        int capacity = Math.max(MIN_CAPACITY, expectedSize);
+        this.elements = new long[capacity];
+        this.holes = new long[wordsFor(capacity)];
+        this.index = new int[indexLengthFor(capacity)];
+    }
+
+    public boolean add(long element) {
+        if (findSlot(element) >= 0) {
+            return false;
+        }
+        if (end == elements.length) {
+            if (end - size >= end / 2) {
+                rebuild(elements.length);
+            } else {
+                rebuild(elements.length * 2);
+            }
+        }
+
+        int position = end++;
+        elements[position] = element;
+        index[freeSlot(element)] = position + 1;
+        size++;
+
+        return true;
+    }
+
+    public boolean remove(long element) {
+        int slot = findSlot(element);
+        if (slot < 0) {
+            return false;
+        }
+
+        int position = index[slot] - 1;
+        index[slot] = DELETED;
+        holes[position >>> 6] |= 1L << position;
+        size--;
+        if (iterations == 0) {
+            compact();
+        }
+
+        return true;
+    }
+
+    public boolean contains(long element) {
+        return findSlot(element) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(holes, 0L);
+        Arrays.fill(index, EMPTY);
+        end = 0;
+        size = 0;
+    }
+
+    /**
+     * Passes the elements to {@code action} in insertion order. The action may remove elements, which it then no
+     * longer sees, but must not add any.
+     */
+    public void forEach(LongConsumer action) {
+        iterations++;
+        try {
+            for (int position = 0; position < end; position++) {
+                if (!isHole(position)) {
+                    action.accept(elements[position]);
+                }
+            }
+        } finally {
+            iterations--;
+        }
+        if (iterations == 0) {
+            compact();
+        }
+    }
+
+    public long[] toArray() {
+        long[] result = new long[size];
+        int i = 0;
+        for (int position = 0; position < end; position++) {
+            if (!isHole(position)) {
+                result[i++] = elements[position];
+            }
+        }
+
+        return result;
+    }
+
+    private void compact() {
+        if (size == end) {
+            return;
+        }
+        if (size == 0) {
+            clear();
+        } else if (end > MIN_CAPACITY && end - size > end / 2) {
+            rebuild(Math.max(MIN_CAPACITY, size * 2));
+        }
+    }
+
+    private boolean isHole(int position) {
+        return (holes[position >>> 6] & (1L << position)) != 0;
+    }
+
+    private int findSlot(long element) {
+        int mask = index.length - 1;
+        for (int slot = hash(element) & mask; ; slot = (slot + 1) & mask) {
+            int entry = index[slot];
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (entry != DELETED && elements[entry - 1] == element) {
+                return slot;
+            }
+        }
+    }
+
+    private int freeSlot(long element) {
+        int mask = index.length - 1;
+        int slot = hash(element) & mask;
+        while (index[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private void rebuild(int capacity) {
+        long[] live = toArray();
+        elements = new long[capacity];
+        holes = new long[wordsFor(capacity)];
+        index = new int[indexLengthFor(capacity)];
+        System.arraycopy(live, 0, elements, 0, live.length);
+        end = live.length;
+        size = live.length;
+        for (int position = 0; position < end; position++) {
+            index[freeSlot(elements[position])] = position + 1;
+        }
+    }
+
+    private static int hash(long element) {
+        long h = element * 0x9E3779B97F4A7C15L;
+
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int wordsFor(int capacity) {
+        return (capacity + 63) >>> 6;
+    }
+
+    private static int indexLengthFor(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+}
@@ -0,0 +1,302 @@
+package dev.vudovenko.springbootmvcpractice.storage;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+/**
+ * Concurrent map from primitive {@code long} keys to values, without boxing the keys.
+ * <p>
+ * Keys are split over {@value #SEGMENTS} segments, each an open-addressing table with linear probing over a
+ * {@code long[]} of keys and an array of values. Lookups are lock-free; writers take only their segment's
+ * {@link ReentrantLock}, which a virtual thread waits on without pinning its carrier, and publish each value with
+ * release semantics after its key. A slot's key never changes once it has been used: a removed
+ * entry leaves a marker that only the same key reuses, and markers are dropped when the segment is rehashed into a new
+ * table. A table is rehashed once three quarters of its slots are used, so it always keeps an empty slot: a lookup of
+ * a missing key ends there, even on a table a writer has since replaced. An entry costs 12 bytes per slot with
+ * compressed references, against a node and a boxed key for {@code ConcurrentHashMap}.
+ * <p>
+ * Null values are not supported.
+ */
+public class LongObjectMap<V> {
+
+    private static final int SEGMENT_SHIFT = 6;
+
+    private static final int SEGMENTS = 1 << SEGMENT_SHIFT;
+
+    private static final int MIN_CAPACITY = 4;
+
+    private static final Object REMOVED = new Object();
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private final Segment<V>[] segments;
+
+    @SuppressWarnings("unchecked")
+    public LongObjectMap() {
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    public V get(long key) {
+        long hash = hash(key);
+
+        return segmentOf(hash).get(key, hash);
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return the previous value, or {@code null} if there was none
+     */
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported");
+        }
+        long hash = hash(key);
+
+        return segmentOf(hash).put(key, hash, value);
+    }
+
+    public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        long hash = hash(key);
+
+        return segmentOf(hash).computeIfAbsent(key, hash, mappingFunction);
+    }
+
+    /**
+     * @return the removed value, or {@code null} if there was none
+     */
+    public V remove(long key) {
+        long hash = hash(key);
+
+        return segmentOf(hash).remove(key, hash, null);
+    }
+
+    /**
+     * Removes the entry only if it maps to a value equal to {@code value}.
+     */
+    public boolean remove(long key, V value) {
+        long hash = hash(key);
+
+        return value != null && segmentOf(hash).remove(key, hash, value) != null;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size;
+        }
+
+        return size;
+    }
+
+    public boolean isEmpty() {
+        for (Segment<V> segment : segments) {
+            if (segment.size > 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Visits every entry, segment by segment. Entries put or removed during the walk may or may not be visited.
+     */
+    public void forEach(LongObjectConsumer<? super V> action) {
+        for (Segment<V> segment : segments) {
+            Table table = segment.table;
+            for (int i = 0; i < table.keys.length; i++) {
+                Object value = SLOTS.getAcquire(table.values, i);
+                if (value != null && value != REMOVED) {
+                    action.accept(table.keys[i], cast(value));
+                }
+            }
+        }
+    }
+
+    private Segment<V> segmentOf(long hash) {
+        return segments[(int) (hash >>> (Long.SIZE - SEGMENT_SHIFT))];
+    }
+
+    /**
+     * Fibonacci hashing with the high half folded into the low half: the top bits pick the segment and the low bits
+     * the slot, so sequential ids and ids with a constant low part both spread.
+     */
+    private static long hash(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+
+        return hash ^ (hash >>> 32);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V cast(Object value) {
+        return (V) value;
+    }
+
+    @FunctionalInterface
+    public interface LongObjectConsumer<V> {
+
+        void accept(long key, V value);
+    }
+
+    private record Table(long[] keys, Object[] values) {
+
+        private Table(int capacity) {
+            this(new long[capacity], new Object[capacity]);
+        }
+
+        private int indexOf(long hash) {
+            return (int) hash & (keys.length - 1);
+        }
+    }
+
+    private static final class Segment<V> {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private volatile Table table = new Table(MIN_CAPACITY);
+
+        private volatile int size;
+
+        /**
+         * Slots holding an entry or a removal marker.
+         */
+        private int used;
+
+        private V get(long key, long hash) {
+            Table table = this.table;
+            int mask = table.keys.length - 1;
+            for (int i = table.indexOf(hash); ; i = (i + 1) & mask) {
+                Object value = SLOTS.getAcquire(table.values, i);
+                if (value == null) {
+                    return null;
+                }
+                if (table.keys[i] == key) {
+                    return value == REMOVED ? null : cast(value);
+                }
+            }
+        }
+
+        private V put(long key, long hash, V value) {
+            lock.lock();
+            try {
+                return putLocked(key, hash, value);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private V computeIfAbsent(long key, long hash, LongFunction<? extends V> mappingFunction) {
+            lock.lock();
+            try {
+                V value = get(key, hash);
+                if (value == null) {
+                    value = mappingFunction.apply(key);
+                    if (value != null) {
+                        putLocked(key, hash, value);
+                    }
+                }
+
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private V putLocked(long key, long hash, V value) {
+            Table table = this.table;
+            int mask = table.keys.length - 1;
+            int i = table.indexOf(hash);
+            for (; ; i = (i + 1) & mask) {
+                Object current = table.values[i];
+                if (current == null) {
+                    break;
+                }
+                if (table.keys[i] == key) {
+                    SLOTS.setRelease(table.values, i, value);
+                    if (current == REMOVED) {
+                        size++;
+
+                        return null;
+                    }
+
+                    return cast(current);
+                }
+            }
+
+            table.keys[i] = key;
+            SLOTS.setRelease(table.values, i, value);
+            size++;
+            if (++used >= table.keys.length - table.keys.length / 4) {
+                rehash(table);
+            }
+            assert used < this.table.keys.length : "no empty slot left to end a lookup";
+
+            return null;
+        }
+
+        private V remove(long key, long hash, V expected) {
+            lock.lock();
+            try {
+                Table table = this.table;
+                int mask = table.keys.length - 1;
+                for (int i = table.indexOf(hash); ; i = (i + 1) & mask) {
+                    Object current = table.values[i];
+                    if (current == null) {
+                        return null;
+                    }
+                    if (table.keys[i] == key) {
+                        if (current == REMOVED || expected != null && !expected.equals(current)) {
+                            return null;
+                        }
+                        SLOTS.setRelease(table.values, i, REMOVED);
+                        size--;
+
+                        return cast(current);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Copies the live entries into a table sized for them, which also drops the removal markers. Readers keep
+         * probing the old table until the new one is published.
+         */
+        private void rehash(Table table) {
+            int capacity = MIN_CAPACITY;
+            while (capacity / 2 < size) {
+                capacity <<= 1;
+            }
+
+            Table rehashed = new Table(capacity);
+            int mask = capacity - 1;
+            for (int i = 0; i < table.keys.length; i++) {
+                Object value = table.values[i];
+                if (value != null && value != REMOVED) {
+                    int j = rehashed.indexOf(hash(table.keys[i]));
+                    while (rehashed.values[j] != null) {
+                        j = (j + 1) & mask;
+                    }
+                    rehashed.keys[j] = table.keys[i];
+                    rehashed.values[j] = value;
+                }
+            }
+
+            used = size;
+            this.table = rehashed;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package dev.vudovenko.springbootmvcpractice.storage;
+
+/**
+ * Concurrent set of primitive {@code long}s, backed by a {@link LongObjectMap} whose values all point at one marker.
+ */
+public class LongSet {
+
+    private static final Object PRESENT = new Object();
+
+    private final LongObjectMap<Object> elements;
+
+    public LongSet() {
+        this.elements = new LongObjectMap<>();
+    }
+
+    /**
+     * @return whether the set did not contain {@code element} yet
+     */
+    public boolean add(long element) {
+        return elements.put(element, PRESENT) == null;
+    }
+
+    /**
+     * @return whether the set contained {@code element}
+     */
+    public boolean remove(long element) {
+        return elements.remove(element) != null;
+    }
+
+    public boolean contains(long element) {
+        return elements.containsKey(element);
+    }
+
+    public int size() {
+        return elements.size();
+    }
+
+    public boolean isEmpty() {
+        return elements.isEmpty();
+    }
+}
@@ -0,0 +1,220 @@
+package dev.vudovenko.springbootmvcpractice.storage;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongPredicate;
+
+/**
+ * Concurrent ordered set of positive ids, split into pages of {@value #PAGE_BITS} ids.
+ * <p>
+ * Walking ids after a cursor starts with a skip-list seek to the cursor's page and then scans the pages in order,
+ * so a page of results costs the same however far into the id space the cursor is. A page holds a sorted array of
+ * the offsets of its ids while there are at most {@value #SPARSE_MAX} of them, which is what snowflake ids, one
+ * page per millisecond, mostly fill, and turns into a bitmap of {@value #PAGE_WORDS} words once it fills up past that.
+ * Pages never change: add and remove swap in a changed copy with the skip list's compare-and-set, and a page whose
+ * last id is removed leaves the skip list.
+ */
+public class OrderedIdIndex {
+
+    private static final int PAGE_SHIFT = 10;
+
+    private static final int PAGE_BITS = 1 << PAGE_SHIFT;
+
+    private static final int PAGE_WORDS = PAGE_BITS / Long.SIZE;
+
+    /**
+     * Most ids a sparse page holds; its {@code short[]} then takes as much as a bitmap.
+     */
+    private static final int SPARSE_MAX = PAGE_WORDS * Long.SIZE / Short.SIZE;
+
+    /**
+     * A bitmap page goes back to sparse only well below {@link #SPARSE_MAX}, so an id added and removed at the
+     * threshold does not convert the page every time.
+     */
+    private static final int DENSE_MIN = SPARSE_MAX / 2;
+
+    private final ConcurrentNavigableMap<Long, Page> pages;
+
+    public OrderedIdIndex() {
+        this.pages = new ConcurrentSkipListMap<>();
+    }
+
+    public void add(long id) {
+        int offset = offsetOf(id);
+        pages.compute(id >>> PAGE_SHIFT, (key, page) -> page == null ? SparsePage.of(offset) : page.with(offset));
+    }
+
+    public void remove(long id) {
+        int offset = offsetOf(id);
+        pages.computeIfPresent(id >>> PAGE_SHIFT, (key, page) -> page.without(offset));
+    }
+
+    /**
+     * Feeds ids greater than {@code afterId} to {@code action} in ascending order until it returns {@code false}.
+     */
+    public void forEachAfter(long afterId, LongPredicate action) {
+        if (afterId == Long.MAX_VALUE) {
+            return;
+        }
+        long from = afterId < 0 ? 0 : afterId + 1;
+
+        for (Map.Entry<Long, Page> entry : pages.tailMap(from >>> PAGE_SHIFT, true).entrySet()) {
+            long base = entry.getKey() << PAGE_SHIFT;
+            int fromOffset = base < from ? (int) (from - base) : 0;
+            if (!entry.getValue().forEachFrom(base, fromOffset, action)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Pages currently held, for tests.
+     */
+    int pageCount() {
+        return pages.size();
+    }
+
+    private static int offsetOf(long id) {
+        return (int) (id & (PAGE_BITS - 1));
+    }
+
+    private sealed interface Page permits SparsePage, DensePage {
+
+        /**
+         * This page with {@code offset} added, or this page if it holds it already.
+         */
+        Page with(int offset);
+
+        /**
+         * This page without {@code offset}, this page if it does not hold it, or {@code null} once it is empty.
+         */
+        Page without(int offset);
+
+        /**
+         * Feeds {@code base} plus each offset from {@code fromOffset} on to {@code action} in ascending order,
+         * returning {@code false} as soon as it does.
+         */
+        boolean forEachFrom(long base, int fromOffset, LongPredicate action);
+    }
+
+    private record SparsePage(short[] offsets) implements Page {
+
+        static SparsePage of(int offset) {
+            return new SparsePage(new short[]{(short) offset});
+        }
+
+        @Override
+        public Page with(int offset) {
+            int index = Arrays.binarySearch(offsets, (short) offset);
+            if (index >= 0) {
+                return this;
+            }
+            if (offsets.length == SPARSE_MAX) {
+                return DensePage.of(offsets).with(offset);
+            }
+            int insertAt = -index - 1;
+            short[] added = new short[offsets.length + 1];
+            System.arraycopy(offsets, 0, added, 0, insertAt);
+            added[insertAt] = (short) offset;
+            System.arraycopy(offsets, insertAt, added, insertAt + 1, offsets.length - insertAt);
+
+            return new SparsePage(added);
+        }
+
+        @Override
+        public Page without(int offset) {
+            int index = Arrays.binarySearch(offsets, (short) offset);
+            if (index < 0) {
+                return this;
+            }
+            if (offsets.length == 1) {
+                return null;
+            }
+            short[] removed = new short[offsets.length - 1];
+            System.arraycopy(offsets, 0, removed, 0, index);
+            System.arraycopy(offsets, index + 1, removed, index, removed.length - index);
+
+            return new SparsePage(removed);
+        }
+
+        @Override
+        public boolean forEachFrom(long base, int fromOffset, LongPredicate action) {
+            int index = Arrays.binarySearch(offsets, (short) fromOffset);
+            for (int i = index >= 0 ? index : -index - 1; i < offsets.length; i++) {
+                if (!action.test(base + offsets[i])) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    private record DensePage(long[] words, int count) implements Page {
+
+        static DensePage of(short[] offsets) {
+            long[] words = new long[PAGE_WORDS];
+            for (short offset : offsets) {
+                words[offset >>> 6] |= 1L << offset;
+            }
+
+            return new DensePage(words, offsets.length);
+        }
+
+        @Override
+        public Page with(int offset) {
+            if (contains(offset)) {
+                return this;
+            }
+            long[] added = words.clone();
+            added[offset >>> 6] |= 1L << offset;
+
+            return new DensePage(added, count + 1);
+        }
+
+        @Override
+        public Page without(int offset) {
+            if (!contains(offset)) {
+                return this;
+            }
+            long[] removed = words.clone();
+            removed[offset >>> 6] &= ~(1L << offset);
+            if (count - 1 > DENSE_MIN) {
+                return new DensePage(removed, count - 1);
+            }
+            short[] offsets = new short[count - 1];
+            int next = 0;
+            for (int wordIndex = 0; wordIndex < PAGE_WORDS; wordIndex++) {
+                for (long word = removed[wordIndex]; word != 0; word &= word - 1) {
+                    offsets[next++] = (short) ((wordIndex << 6) + Long.numberOfTrailingZeros(word));
+                }
+            }
+
+            return new SparsePage(offsets);
+        }
+
+        @Override
+        public boolean forEachFrom(long base, int fromOffset, LongPredicate action) {
+            for (int wordIndex = fromOffset >>> 6; wordIndex < PAGE_WORDS; wordIndex++) {
+                long word = words[wordIndex];
+                if (wordIndex == fromOffset >>> 6) {
+                    word &= -1L << fromOffset;
+                }
+                while (word != 0) {
+                    if (!action.test(base + ((long) wordIndex << 6) + Long.numberOfTrailingZeros(word))) {
+                        return false;
+                    }
+                    word &= word - 1;
+                }
+            }
+
+            return true;
+        }
+
+        private boolean contains(int offset) {
+            return (words[offset >>> 6] & 1L << offset) != 0;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package dev.vudovenko.springbootmvcpractice.storage;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Striped write locks keyed by owner (user) id.
+ * <p>
+ * Every mutation of a user or of the user→pets / pet→userId links runs under the write lock of each owner it touches,
+ * so cross-entity operations are atomic while reads stay lock-free. A user read together with its pets only takes the
+ * read lock for the first read of each of its versions, which copies its pet ids, or if its pets keep changing under
+ * the reader. Multiple stripes are always taken in index order.
+ */
+@Component
+public class OwnerLocks {
+
+    private static final int STRIPES = 1024;
+
+    private final ReentrantReadWriteLock[] stripes;
+
+    public OwnerLocks() {
+        this.stripes = new ReentrantReadWriteLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    public Guard lock(Long ownerId) {
+        Lock lock = stripes[stripeOf(ownerId)].writeLock();
+        lock.lock();
+
+        return lock::unlock;
+    }
+
+    /**
+     * Like {@link #lock(Long)}, but gives up after {@code timeout} and returns {@code null}. For callers that may be
+     * part of a wait cycle across nodes.
+     */
+    public Guard tryLock(Long ownerId, Duration timeout) {
+        Lock lock = stripes[stripeOf(ownerId)].writeLock();
+        try {
+            if (!lock.tryLock(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            return null;
+        }
+
+        return lock::unlock;
+    }
+
+    public Guard lockForRead(Long ownerId) {
+        Lock lock = stripes[stripeOf(ownerId)].readLock();
+        lock.lock();
+
+        return lock::unlock;
+    }
+
+    public Guard lock(Long firstOwnerId, Long secondOwnerId) {
+        int first = stripeOf(firstOwnerId);
+        int second = stripeOf(secondOwnerId);
+        if (first == second) {
+            return lock(firstOwnerId);
+        }
+
+        Lock lower = stripes[Math.min(first, second)].writeLock();
+        Lock upper = stripes[Math.max(first, second)].writeLock();
+        lower.lock();
+        upper.lock();
+
+        return () -> {
+            upper.unlock();
+            lower.unlock();
+        };
+    }
+
+    public Guard lockAll(Collection<Long> ownerIds) {
+        BitSet stripesToLock = new BitSet(STRIPES);
+        ownerIds.forEach(ownerId -> stripesToLock.set(stripeOf(ownerId)));
+
+        int[] locked = stripesToLock.stream().toArray();
+        for (int stripe : locked) {
+            stripes[stripe].writeLock().lock();
+        }
+
+        return () -> {
+            for (int i = locked.length - 1; i >= 0; i--) {
+                stripes[locked[i]].writeLock().unlock();
+            }
+        };
+    }
+
+    private static int stripeOf(Long ownerId) {
+        if (ownerId == null) {
+            return 0;
+        }
+        long h = ownerId * 0x9E3779B97F4A7C15L;
+
+        return (int) (h >>> 32) & (STRIPES - 1);
+    }
+
+    @FunctionalInterface
+    public interface Guard extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
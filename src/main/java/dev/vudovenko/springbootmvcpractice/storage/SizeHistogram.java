@@ -0,0 +1,50 @@
+package dev.vudovenko.springbootmvcpractice.storage;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Number of collections per size, in power-of-two buckets: bucket {@code i} counts sizes in
+ * {@code (2^(i-1), 2^i]}, bucket 0 counts size 1 and the last bucket counts everything larger.
+ * Empty collections are not counted.
+ * <p>
+ * Callers report each size change, so the histogram always describes the current state
+ * rather than a history of samples.
+ */
+public class SizeHistogram {
+
+    private static final int BUCKETS = 18;
+
+    private final AtomicLongArray counts;
+
+    public SizeHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+    }
+
+    public void resized(int from, int to) {
+        if (from > 0) {
+            counts.decrementAndGet(bucketOf(from));
+        }
+        if (to > 0) {
+            counts.incrementAndGet(bucketOf(to));
+        }
+    }
+
+    public int bucketCount() {
+        return BUCKETS;
+    }
+
+    /**
+     * Inclusive upper size of {@code bucket}, or {@link Long#MAX_VALUE} for the last one.
+     */
+    public long upperBound(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    public long count(int bucket) {
+        return counts.get(bucket);
+    }
+
+    private static int bucketOf(int size) {
+        return Math.min(BUCKETS - 1, Integer.SIZE - Integer.numberOfLeadingZeros(size - 1));
+    }
+}
@@ -0,0 +1,107 @@
+package dev.vudovenko.springbootmvcpractice.storage;
+
+/**
+ * A {@link LongLinkedHashSet} changed in place under its owner's write lock, tagged with the version of the owner it
+ * belongs to, together with an array of its elements as of one version.
+ * <p>
+ * Changes cost O(1). The array is built on the first read of a version, under the owner's read lock, and is then
+ * shared by every read of that version without a lock. A version that leaves the elements as they were, such as
+ * a change to the owner's own fields, takes over the array of the version before it.
+ */
+public final class VersionedLongSet {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final LongLinkedHashSet elements;
+
+    private long version;
+
+    private boolean changed;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * An empty set as of {@code version}.
+     */
+    public VersionedLongSet(long version) {
+        this.elements = new LongLinkedHashSet();
+        this.version = version;
+        this.snapshot = new Snapshot(version, EMPTY);
+    }
+
+    /**
+     * The caller holds the owner's write lock and publishes the owner's next version after its changes.
+     */
+    public boolean add(long element) {
+        boolean added = elements.add(element);
+        changed |= added;
+
+        return added;
+    }
+
+    /**
+     * The caller holds the owner's write lock and publishes the owner's next version after its changes.
+     */
+    public boolean remove(long element) {
+        boolean removed = elements.remove(element);
+        changed |= removed;
+
+        return removed;
+    }
+
+    /**
+     * The caller holds the owner's lock.
+     */
+    public int size() {
+        return elements.size();
+    }
+
+    /**
+     * A copy of the elements. The caller holds the owner's lock.
+     */
+    public long[] toArray() {
+        return elements.toArray();
+    }
+
+    /**
+     * Tags the elements with the owner's new {@code version}, handing it the array of the previous version if the
+     * elements did not change. The caller holds the owner's write lock.
+     */
+    public void publish(long version) {
+        Snapshot current = snapshot;
+        if (!changed && current.version() == this.version) {
+            snapshot = new Snapshot(version, current.elements());
+        }
+        this.version = version;
+        changed = false;
+    }
+
+    /**
+     * The elements as of {@code version} if their array has been built already, or {@code null}. Needs no lock.
+     */
+    public long[] snapshotOf(long version) {
+        Snapshot current = snapshot;
+
+        return current.version() == version ? current.elements() : null;
+    }
+
+    /**
+     * The elements as of {@code version}, building their array if it has not been built yet, or {@code null} if the
+     * set has moved past that version. The caller holds the owner's read or write lock.
+     */
+    public long[] buildSnapshotOf(long version) {
+        if (this.version != version) {
+            return null;
+        }
+        Snapshot current = snapshot;
+        if (current.version() != version) {
+            current = new Snapshot(version, elements.toArray());
+            snapshot = current;
+        }
+
+        return current.elements();
+    }
+
+    private record Snapshot(long version, long[] elements) {
+    }
+}
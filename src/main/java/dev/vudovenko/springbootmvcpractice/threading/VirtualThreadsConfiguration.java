@@ -0,0 +1,27 @@
+package dev.vudovenko.springbootmvcpractice.threading;
+
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Adjustments for running requests on virtual threads ({@code spring.threads.virtual.enabled=true}, see the
+ * {@code virtual} profile).
+ * <p>
+ * Jackson recycles its buffers through a thread-local pool by default, which never hits when every request gets a
+ * fresh virtual thread, so the mapper is switched to a shared bounded pool.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadsConfiguration {
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer sharedJsonRecyclerPool() {
+        return builder -> builder.postConfigurer(
+                objectMapper -> objectMapper.getFactory().setRecyclerPool(JsonRecyclerPools.sharedBoundedPool())
+        );
+    }
+}
@@ -1,54 +1,171 @@
 package dev.vudovenko.springbootmvcpractice.users.controllers;
 
+import dev.vudovenko.springbootmvcpractice.batch.BatchItemResult;
+import dev.vudovenko.springbootmvcpractice.batch.BatchProcessor;
+import dev.vudovenko.springbootmvcpractice.pagination.KeysetPage;
+import dev.vudovenko.springbootmvcpractice.pagination.NdjsonStreamer;
+import dev.vudovenko.springbootmvcpractice.partitioning.PartitionQueries;
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import dev.vudovenko.springbootmvcpractice.responsecache.EntityJsonCache;
 import dev.vudovenko.springbootmvcpractice.users.model.User;
 import dev.vudovenko.springbootmvcpractice.users.service.UserService;
+import dev.vudovenko.springbootmvcpractice.versioning.EntityTags;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
 
-@Log4j2
 @RequestMapping("/users")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RestController
 @RequiredArgsConstructor
 public class UserController {
 
     private final UserService userService;
 
+    private final PetService petService;
+
+    private final BatchProcessor batchProcessor;
+
+    private final NdjsonStreamer ndjsonStreamer;
+
+    private final EntityTags entityTags;
+
+    private final EntityJsonCache jsonCache;
+
+    private final PartitionQueries partitionQueries;
+
     @PostMapping
     public ResponseEntity<User> createUser(@Valid @RequestBody User user) {
-        log.info("Create user: {}", user);
         User createdUser = userService.createUser(user);
 
         return ResponseEntity
                 .status(201)
+                .eTag(entityTags.of(createdUser.getVersion()))
                 .body(createdUser);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult<User>>> createUsers(@RequestBody List<User> users) {
+        return batchProcessor.process(users, "user", userService::createUsers);
+    }
+
+    @GetMapping
+    public ResponseEntity<KeysetPage<User>> getUsers(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit
+    ) {
+        int pageLimit = KeysetPage.clampLimit(limit);
+        long cursor = KeysetPage.cursorOf(after);
+        List<User> users = partitionQueries.page(
+                PartitionQueries.USERS,
+                userService.findPage(cursor, pageLimit),
+                cursor,
+                pageLimit
+        );
+
+        return ResponseEntity.ok(KeysetPage.of(users, pageLimit, User::getId));
+    }
+
+    @GetMapping(params = "email")
+    public ResponseEntity<List<User>> getUsersByEmail(@RequestParam String email) {
+        return ResponseEntity.ok(partitionQueries.findUsersByEmail(userService.findByEmail(email), email));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers(@RequestParam(required = false) Long after) {
+        return ndjsonStreamer.<User>stream(sink -> partitionQueries.forEach(
+                PartitionQueries.USERS,
+                KeysetPage.cursorOf(after),
+                userService::forEachUser,
+                userService::findPage,
+                sink
+        ));
+    }
+
+    /**
+     * Answers a matching {@code If-None-Match} with 304 from the stored snapshot, before any pet is read, and
+     * otherwise writes the cached JSON of that version, reading the pets only on a cache miss. The tag and the body
+     * describe the same immutable snapshot; if its pets change before they are read, the user is read again as it is
+     * now.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<User> getUser(@PathVariable Long id) {
-        log.info("Get user with id: {}", id);
-        User user = userService.getById(id);
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = User.class)))
+    public ResponseEntity<byte[]> getUser(@PathVariable Long id, WebRequest request, HttpServletResponse response) {
+        User stored = userService.getStored(id);
+        long version = stored.getVersion();
+        String eTag = entityTags.of(version);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+
+        byte[] json = jsonCache.jsonOf(User.class, id, version, () -> userService.withPets(stored));
+        if (json == null) {
+            User user = userService.getById(id);
+            version = user.getVersion();
+            eTag = entityTags.of(version);
+            // the check above already tagged the response with the snapshot's version
+            response.setHeader(HttpHeaders.ETAG, eTag);
+            json = jsonCache.jsonOf(User.class, id, version, user);
+        }
 
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<User> updateUser(
             @PathVariable Long id,
-            @Valid @RequestBody User user
+            @Valid @RequestBody User user,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
-        log.info("Update user with id: {}, user: {}", id, user);
-        User updatedUser = userService.updateUser(id, user);
+        User updatedUser = userService.updateUser(id, user, version -> entityTags.matches(ifMatch, version));
 
-        return ResponseEntity.ok(updatedUser);
+        return ResponseEntity.ok()
+                .eTag(entityTags.of(updatedUser.getVersion()))
+                .body(updatedUser);
     }
 
+    /**
+     * Moves the user's pets listed in the body, or all of its pets without a body, to the user {@code to} at once.
+     */
+    @PostMapping("/{id}/pets/transfer")
+    public ResponseEntity<List<Pet>> transferPets(
+            @PathVariable Long id,
+            @RequestParam Long to,
+            @RequestBody(required = false) List<Long> petIds
+    ) {
+        return ResponseEntity.ok(petService.transferPets(id, to, petIds));
+    }
+
+    /**
+     * 204 once the user and its pets are gone, or 202 once the user is gone and its pets are being deleted in the
+     * background, as asked with {@code async=true} or done anyway for users with many pets.
+     */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
-        log.info("Delete user with id: {}", id);
-        userService.deleteUser(id);
+    public ResponseEntity<Void> deleteUser(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "false") boolean async
+    ) {
+        if (userService.deleteUser(id, async)) {
+            return ResponseEntity
+                    .accepted()
+                    .build();
+        }
 
         return ResponseEntity
                 .noContent()
@@ -1,18 +1,20 @@
 package dev.vudovenko.springbootmvcpractice.users.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import dev.vudovenko.springbootmvcpractice.exceptionHandling.validator.EmptyList;
 import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.storage.VersionedLongSet;
 import jakarta.validation.constraints.*;
 import lombok.*;
 
 import java.util.List;
 
 @Getter
-@Setter
 @ToString
 @EqualsAndHashCode(of = "id")
 @NoArgsConstructor
-@AllArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@With
 public class User {
 
     @Null
@@ -33,4 +35,37 @@ public class User {
 
     @EmptyList
     private List<Pet> pets;
+
+    /**
+     * Ids of the user's pets, kept by stored users in place of {@link #pets}, which is filled in when a user is read.
+     * This is the one mutable part of a snapshot: all snapshots of a user share the same set, which is changed in
+     * place under the owner's write lock and tagged with the version it belongs to.
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    private VersionedLongSet petIds;
+
+    /**
+     * Sum of the versions of the user's pets, as they were when this snapshot was published. Pet versions
+     * only grow, so pets read later match this snapshot exactly when their versions add up to it.
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    private long petVersionSum;
+
+    /**
+     * Version of this snapshot. Users have no setters: every change to the user or to its pets publishes a copy with
+     * the next version, under the owner lock. The copies share {@link #petIds}.
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    private long version;
+
+    public User(Long id, String name, String email, Integer age, List<Pet> pets) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.age = age;
+        this.pets = pets;
+    }
 }
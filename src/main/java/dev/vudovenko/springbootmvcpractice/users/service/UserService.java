@@ -1,69 +1,510 @@
 package dev.vudovenko.springbootmvcpractice.users.service;
 
+import dev.vudovenko.springbootmvcpractice.batch.BatchResult;
+import dev.vudovenko.springbootmvcpractice.cascade.CascadeDeleter;
+import dev.vudovenko.springbootmvcpractice.changes.ChangeFeed;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.EmailAlreadyExistsException;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.PetMoveConflictException;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.PreconditionFailedException;
 import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.UserNotFoundException;
+import dev.vudovenko.springbootmvcpractice.journal.ChangeJournal;
 import dev.vudovenko.springbootmvcpractice.managingID.IDManager;
+import dev.vudovenko.springbootmvcpractice.partitioning.MoveHolds;
 import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
 import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import dev.vudovenko.springbootmvcpractice.responsecache.EntityJsonCache;
+import dev.vudovenko.springbootmvcpractice.storage.EntityStore;
+import dev.vudovenko.springbootmvcpractice.storage.HashIndex;
+import dev.vudovenko.springbootmvcpractice.storage.LongObjectMap;
+import dev.vudovenko.springbootmvcpractice.storage.OwnerLocks;
+import dev.vudovenko.springbootmvcpractice.storage.SizeHistogram;
+import dev.vudovenko.springbootmvcpractice.storage.VersionedLongSet;
 import dev.vudovenko.springbootmvcpractice.users.model.User;
-import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.validation.annotation.Validated;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
 
-@Validated
 @Service
 public class UserService extends IDManager {
 
-    private final Map<Long, User> users;
+    /**
+     * Lock-free reads of a user and its pets before {@link #findWithPets} gives up and takes the owner's read lock.
+     */
+    private static final int OPTIMISTIC_READS = 3;
+
+    private final EntityStore<User> users;
+
+    private final SizeHistogram petsPerUser;
+
+    private final HashIndex<String> emailIndex;
+
+    private final CascadeDeleter cascadeDeleter;
+
+    private final OwnerLocks ownerLocks;
+
+    private final ChangeJournal journal;
+
+    private final ChangeFeed changeFeed;
+
+    private final EntityJsonCache jsonCache;
+
+    private final MoveHolds moveHolds;
 
     private final PetService petService;
 
-    public UserService(PetService petService) {
-        this.users = new HashMap<>();
+    public UserService(
+            CascadeDeleter cascadeDeleter,
+            OwnerLocks ownerLocks,
+            ChangeJournal journal,
+            ChangeFeed changeFeed,
+            EntityJsonCache jsonCache,
+            MoveHolds moveHolds,
+            PetService petService,
+            @Value("${users.unique-email:false}") boolean uniqueEmail
+    ) {
+        this.users = new EntityStore<>();
+        this.petsPerUser = new SizeHistogram();
+        this.emailIndex = new HashIndex<>(uniqueEmail);
+        this.cascadeDeleter = cascadeDeleter;
+        this.ownerLocks = ownerLocks;
+        this.journal = journal;
+        this.changeFeed = changeFeed;
+        this.jsonCache = jsonCache;
+        this.moveHolds = moveHolds;
         this.petService = petService;
     }
 
-    public User createUser(@Valid User user) {
-        user.setId(getNextId());
-        user.setPets(new ArrayList<>());
-        users.put(user.getId(), user);
+    public User createUser(User user) {
+        long id = getNextId();
+        indexEmail(user.getEmail(), id);
+        User createdUser = created(id, user);
 
-        return user;
+        long seq;
+        try (var ignored = ownerLocks.lock(id)) {
+            try {
+                users.save(id, createdUser);
+                changeFeed.userSaved(createdUser);
+                seq = journal.userSaved(createdUser);
+            } catch (RuntimeException e) {
+                indexStoredEmail(id, user.getEmail(), null);
+                throw e;
+            }
+        }
+        journal.awaitDurable(seq);
+
+        return createdUser;
+    }
+
+    public BatchResult<User> createUsers(List<User> usersToCreate) {
+        BatchResult<User> result = new BatchResult<>(usersToCreate);
+        long[] ids = getNextIds(usersToCreate.size());
+        Map<Long, User> createdUsers = HashMap.newHashMap(usersToCreate.size());
+        for (int i = 0; i < ids.length; i++) {
+            User user = usersToCreate.get(i);
+            try {
+                indexEmail(user.getEmail(), ids[i]);
+            } catch (EmailAlreadyExistsException e) {
+                result.fail(i, e);
+                continue;
+            }
+            User createdUser = created(ids[i], user);
+            result.created(i, createdUser);
+            createdUsers.put(ids[i], createdUser);
+        }
+        long seq = 0;
+        try (var ignored = ownerLocks.lockAll(createdUsers.keySet())) {
+            try {
+                users.saveAll(createdUsers);
+                for (User user : createdUsers.values()) {
+                    changeFeed.userSaved(user);
+                    seq = journal.userSaved(user);
+                }
+            } catch (RuntimeException e) {
+                createdUsers.forEach((id, user) -> indexStoredEmail(id, user.getEmail(), null));
+                throw e;
+            }
+        }
+        journal.awaitDurable(seq);
+
+        return result;
     }
 
     public User getById(Long id) {
-        return Optional.ofNullable(users.get(id))
-                .orElseThrow(() -> new UserNotFoundException("User with %d not found".formatted(id)));
+        return findWithPets(id)
+                .orElseThrow(() -> new UserNotFoundException(id));
+    }
+
+    /**
+     * The stored snapshot of the user, without its pets, read without a lock. Its version is the version the user is
+     * read at; {@link #withPets} fills in its pets.
+     */
+    public User getStored(Long id) {
+        return stored(id);
+    }
+
+    public List<User> findByEmail(String email) {
+        String key = emailKey(email);
+        List<User> found = new ArrayList<>(1);
+        emailIndex.forEach(key, id -> findWithPets(id)
+                .filter(user -> key.equals(emailKey(user.getEmail())))
+                .ifPresent(found::add));
+
+        return found;
     }
 
-    public User updateUser(Long id, @Valid User user) {
-        User oldUser = getById(id);
-        oldUser.setName(user.getName());
-        oldUser.setEmail(user.getEmail());
-        oldUser.setAge(user.getAge());
+    public List<User> findPage(long afterId, int limit) {
+        // users deleted after the walk are skipped, so keep reading until the page is full or the store runs out
+        List<User> page = new ArrayList<>(limit);
+        long cursor = afterId;
+        while (page.size() < limit) {
+            int wanted = limit - page.size();
+            List<User> found = users.findPage(cursor, wanted);
+            for (User user : found) {
+                findWithPets(user.getId()).ifPresent(page::add);
+            }
+            if (found.size() < wanted) {
+                break;
+            }
+            cursor = found.getLast().getId();
+        }
 
-        return oldUser;
+        return page;
+    }
+
+    public void forEachUser(long afterId, Consumer<? super User> action) {
+        users.forEachAfter(afterId, user -> findWithPets(user.getId()).ifPresent(action));
+    }
+
+    public int count() {
+        return users.size();
+    }
+
+    /**
+     * Users by number of pets. Users without pets are not counted.
+     */
+    public SizeHistogram petsPerUser() {
+        return petsPerUser;
+    }
+
+    public User updateUser(Long id, User user) {
+        return updateUser(id, user, version -> true);
+    }
+
+    /**
+     * Updates the user only if {@code acceptsVersion} accepts its current version, checked under the owner lock.
+     *
+     * @throws PreconditionFailedException if the version is not accepted
+     */
+    public User updateUser(Long id, User user, LongPredicate acceptsVersion) {
+        User updatedUser;
+        long seq;
+        try (var ignored = ownerLocks.lock(id)) {
+            User oldUser = stored(id);
+            if (!acceptsVersion.test(oldUser.getVersion())) {
+                throw new PreconditionFailedException("User with " + id + " has been modified");
+            }
+            String oldEmail = oldUser.getEmail();
+            boolean emailChanged = !emailKey(oldEmail).equals(emailKey(user.getEmail()));
+            if (emailChanged) {
+                indexEmail(user.getEmail(), id);
+            }
+
+            try {
+                updatedUser = publish(
+                        oldUser,
+                        new User(id, user.getName(), user.getEmail(), user.getAge(), null)
+                                .withPetIds(oldUser.getPetIds())
+                                .withPetVersionSum(oldUser.getPetVersionSum()),
+                        oldUser.getPetIds().size()
+                );
+
+                if (emailChanged) {
+                    emailIndex.remove(emailKey(oldEmail), id);
+                }
+
+                seq = journal.userSaved(updatedUser);
+            } catch (RuntimeException e) {
+                if (emailChanged) {
+                    indexStoredEmail(id, user.getEmail(), oldEmail);
+                }
+                throw e;
+            }
+            updatedUser = withPets(updatedUser);
+        }
+        journal.awaitDurable(seq);
+
+        return updatedUser;
     }
 
     public void deleteUser(Long id) {
-        User user = getById(id);
-        user.getPets()
-                .forEach(pet -> petService.deletePet(pet.getId()));
-        users.remove(id);
+        deleteUser(id, false);
+    }
+
+    /**
+     * Deletes the user and its pets. With {@code async}, or with more pets than
+     * {@code users.cascade-delete.async-threshold}, the user is tombstoned instead: it is gone once this returns, and
+     * its pets are hidden at once and deleted in the background.
+     *
+     * @return whether the pets are deleted in the background
+     */
+    public boolean deleteUser(Long id, boolean async) {
+        long seq;
+        boolean deferred;
+        try (var ignored = ownerLocks.lock(id)) {
+            User user = stored(id);
+            if (moveHolds.isHeld(id)) {
+                throw new PetMoveConflictException("User with " + id + " has a pet moving in from another node");
+            }
+            long[] petIds = user.getPetIds().toArray();
+            deferred = petIds.length > 0 && (async || cascadeDeleter.defers(petIds.length));
+            if (deferred) {
+                cascadeDeleter.deleteLater(id, petIds);
+            } else {
+                cascadeDeleter.deleteNow(id, petIds);
+            }
+            users.remove(id);
+            petsPerUser.resized(petIds.length, 0);
+            emailIndex.remove(emailKey(user.getEmail()), id);
+            jsonCache.evict(User.class, id);
+            changeFeed.userDeleted(id);
+
+            seq = journal.userDeleted(id);
+        }
+        journal.awaitDurable(seq);
+
+        return deferred;
+    }
+
+    /**
+     * Puts back users read from the journal at the version they were journaled with, without validating or journaling
+     * them again. Linking their pets publishes them with the next versions.
+     */
+    public void restoreUsers(List<User> restoredUsers) {
+        for (User user : restoredUsers) {
+            indexEmail(user.getEmail(), user.getId());
+            users.save(
+                    user.getId(),
+                    user.withPets(null)
+                            .withPetIds(new VersionedLongSet(user.getVersion()))
+                            .withPetVersionSum(0)
+            );
+        }
+    }
+
+    /**
+     * Links restored pets to their owners, which must have been restored before.
+     */
+    public void linkRestoredPets(List<Pet> restoredPets) {
+        LongObjectMap<List<Pet>> petsByOwner = new LongObjectMap<>();
+        for (Pet pet : restoredPets) {
+            if (pet.getUserId() != null) {
+                petsByOwner.computeIfAbsent(pet.getUserId(), ownerId -> new ArrayList<>()).add(pet);
+            }
+        }
+        petsByOwner.forEach(this::addPetsToUser);
     }
 
     public Boolean checkIfUserExists(Long id) {
-        return users.containsKey(id);
+        return users.existsById(id);
     }
 
     public void addPetToUser(Long userId, Pet pet) {
-        User user = getById(userId);
-        user.getPets().add(pet);
+        addPetsToUser(userId, List.of(pet));
+    }
+
+    /**
+     * Publishes the user once with {@code addedPets}, already stored and owned by it, appended.
+     */
+    public void addPetsToUser(Long userId, Collection<Pet> addedPets) {
+        try (var ignored = ownerLocks.lock(userId)) {
+            User user = stored(userId);
+            int petCount = user.getPetIds().size();
+            long addedVersions = 0;
+            for (Pet pet : addedPets) {
+                user.getPetIds().add(pet.getId());
+                addedVersions += pet.getVersion();
+            }
+            publish(user, user.withPetVersionSum(user.getPetVersionSum() + addedVersions), petCount);
+        }
+    }
+
+    /**
+     * The ids of the stored user's pets. The caller holds the owner lock.
+     */
+    public long[] petIdsOf(Long id) {
+        return stored(id).getPetIds().toArray();
+    }
+
+    /**
+     * Publishes {@code fromId} without the pets in {@code movedFrom} and {@code toId} with {@code movedTo}, the same
+     * pets as stored with their new owner, appended, once each. The caller holds both owner locks.
+     */
+    public void petsTransferred(Long fromId, Long toId, List<Pet> movedFrom, List<Pet> movedTo) {
+        User from = stored(fromId);
+        User to = stored(toId);
+        int fromPetCount = from.getPetIds().size();
+        int toPetCount = to.getPetIds().size();
+        long versionsFrom = 0;
+        long versionsTo = 0;
+        for (int i = 0; i < movedTo.size(); i++) {
+            from.getPetIds().remove(movedFrom.get(i).getId());
+            to.getPetIds().add(movedTo.get(i).getId());
+            versionsFrom += movedFrom.get(i).getVersion();
+            versionsTo += movedTo.get(i).getVersion();
+        }
+        publish(from, from.withPetVersionSum(from.getPetVersionSum() - versionsFrom), fromPetCount);
+        publish(to, to.withPetVersionSum(to.getPetVersionSum() + versionsTo), toPetCount);
+    }
+
+    /**
+     * Publishes the owner of {@code pet}, stored as the version after {@code previous}, with the next version, as its
+     * pets are part of what it is read as. The caller holds the owner lock.
+     */
+    public void petChanged(Pet previous, Pet pet) {
+        users.findById(pet.getUserId())
+                .ifPresent(user -> publish(
+                        user,
+                        user.withPetVersionSum(user.getPetVersionSum() - previous.getVersion() + pet.getVersion()),
+                        user.getPetIds().size()
+                ));
+    }
+
+    /**
+     * Stores {@code next} as the version after {@code current}, the stored snapshot it was derived from, tags the
+     * user's pet ids, changed in place since {@code current} had {@code petCount} of them, with that version, and
+     * drops the cached JSON of {@code current}. The caller holds the owner lock.
+     */
+    private User publish(User current, User next, int petCount) {
+        User published = next.withPets(null).withVersion(current.getVersion() + 1);
+        published.getPetIds().publish(published.getVersion());
+        users.save(published.getId(), published);
+        petsPerUser.resized(petCount, published.getPetIds().size());
+        jsonCache.evict(User.class, published.getId());
+        changeFeed.userSaved(published);
+
+        return published;
+    }
+
+    /**
+     * The first version of a user stored as {@code id}, copied from the request payload {@code user}.
+     */
+    private static User created(long id, User user) {
+        return new User(id, user.getName(), user.getEmail(), user.getAge(), List.of())
+                .withPetIds(new VersionedLongSet(1))
+                .withVersion(1);
+    }
+
+    private void indexEmail(String email, Long userId) {
+        if (!emailIndex.add(emailKey(email), userId)) {
+            throw new EmailAlreadyExistsException("User with email %s already exists".formatted(email));
+        }
+    }
+
+    /**
+     * After a write of user {@code id} that threw, keeps only the entry for the email the store holds for it: the
+     * entry added for {@code newEmail} goes if the write never reached the store, and the one for {@code oldEmail},
+     * if any, goes if it did. The caller holds the owner lock.
+     */
+    private void indexStoredEmail(Long id, String newEmail, String oldEmail) {
+        String storedKey = users.findById(id)
+                .map(stored -> emailKey(stored.getEmail()))
+                .orElse(null);
+        if (!emailKey(newEmail).equals(storedKey)) {
+            emailIndex.remove(emailKey(newEmail), id);
+        }
+        if (oldEmail != null && !emailKey(oldEmail).equals(storedKey)) {
+            emailIndex.remove(emailKey(oldEmail), id);
+        }
+    }
+
+    private static String emailKey(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Publishes the user without {@code pet}. The caller holds the owner lock.
+     */
+    public void removePetFromUser(Long userId, Pet pet) {
+        users.findById(userId)
+                .ifPresent(user -> {
+                    int petCount = user.getPetIds().size();
+                    user.getPetIds().remove(pet.getId());
+                    publish(user, user.withPetVersionSum(user.getPetVersionSum() - pet.getVersion()), petCount);
+                });
+    }
+
+    /**
+     * The stored user with its pets, read without a lock and read again if its pets changed meanwhile. Only the copy of
+     * a version's pet ids, made once, and a user whose pets keep changing under the reader are read under the owner's
+     * read lock.
+     */
+    private Optional<User> findWithPets(Long id) {
+        for (int attempt = 0; attempt < OPTIMISTIC_READS; attempt++) {
+            Optional<User> stored = users.findById(id);
+            if (stored.isEmpty()) {
+                return stored;
+            }
+            User user = withPets(stored.get());
+            if (user != null) {
+                return Optional.of(user);
+            }
+        }
+        try (var ignored = ownerLocks.lockForRead(id)) {
+            return users.findById(id).map(this::withPets);
+        }
+    }
+
+    /**
+     * A copy of the stored snapshot {@code stored} with its pets in place of their ids, or {@code null} if the user or
+     * one of its pets has changed since the snapshot was published. Needs no lock once the snapshot's pet ids have
+     * been read: the pets are the snapshot's exactly when they are all still owned by the user and their versions add
+     * up to {@link User#getPetVersionSum()}.
+     */
+    public User withPets(User stored) {
+        long[] petIds = petIdsAt(stored);
+        if (petIds == null) {
+            return null;
+        }
+        List<Pet> pets = petService.petsOf(petIds);
+        if (pets.size() != petIds.length) {
+            return null;
+        }
+        long versionSum = 0;
+        for (Pet pet : pets) {
+            if (!stored.getId().equals(pet.getUserId())) {
+                return null;
+            }
+            versionSum += pet.getVersion();
+        }
+
+        return versionSum == stored.getPetVersionSum() ? stored.withPets(pets).withPetIds(null) : null;
+    }
+
+    /**
+     * The ids of the pets of the stored snapshot {@code stored}, or {@code null} if the user has changed since. The
+     * first read of a snapshot copies them from the user's pet id set under the owner's read lock.
+     */
+    private long[] petIdsAt(User stored) {
+        long[] petIds = stored.getPetIds().snapshotOf(stored.getVersion());
+        if (petIds != null) {
+            return petIds;
+        }
+        try (var ignored = ownerLocks.lockForRead(stored.getId())) {
+            return stored.getPetIds().buildSnapshotOf(stored.getVersion());
+        }
+    }
 
-        pet.setUserId(userId);
+    private User stored(Long id) {
+        return users.findById(id)
+                .orElseThrow(() -> new UserNotFoundException(id));
     }
 }
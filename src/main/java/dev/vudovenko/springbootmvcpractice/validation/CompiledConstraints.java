@@ -0,0 +1,127 @@
+package dev.vudovenko.springbootmvcpractice.validation;
+
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.validator.EmptyList;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Null;
+import jakarta.validation.constraints.Size;
+import jakarta.validation.groups.Default;
+import jakarta.validation.metadata.BeanDescriptor;
+import jakarta.validation.metadata.ConstraintDescriptor;
+import jakarta.validation.metadata.PropertyDescriptor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The Bean Validation constraints of one class, turned into plain checks on its getters when the application starts.
+ * A check passes exactly when Bean Validation finds no violation of its constraint; a class with a constraint that
+ * cannot be turned into a check is not compiled at all. {@code @Email} is left to Bean Validation, asked about that
+ * one property, as Hibernate Validator's email check is not public API and a copy of it could drift on an upgrade.
+ */
+final class CompiledConstraints<T> {
+
+    private final List<Predicate<T>> checks;
+
+    private CompiledConstraints(List<Predicate<T>> checks) {
+        this.checks = checks;
+    }
+
+    boolean passes(T target) {
+        for (Predicate<T> check : checks) {
+            if (!check.test(target)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Compiles the constraints Bean Validation has for {@code type}, reading each constrained property through
+     * {@code getters}.
+     *
+     * @return the compiled constraints, or {@code null} if any of them is not supported
+     */
+    static <T> CompiledConstraints<T> compile(Validator validator, Class<T> type, Map<String, Function<T, ?>> getters) {
+        BeanDescriptor bean = validator.getConstraintsForClass(type);
+        if (bean.hasConstraints()) {
+            return null;
+        }
+
+        List<Predicate<T>> checks = new ArrayList<>();
+        List<Predicate<T>> propertyChecks = new ArrayList<>();
+        for (PropertyDescriptor property : bean.getConstrainedProperties()) {
+            Function<T, ?> getter = getters.get(property.getPropertyName());
+            if (getter == null || property.isCascaded() || !property.getConstrainedContainerElementTypes().isEmpty()) {
+                return null;
+            }
+            boolean validatesProperty = false;
+            for (ConstraintDescriptor<?> constraint : property.getConstraintDescriptors()) {
+                if (constraint.getAnnotation() instanceof Email) {
+                    if (!validatesProperty) {
+                        String name = property.getPropertyName();
+                        propertyChecks.add(target -> validator.validateProperty(target, name).isEmpty());
+                        validatesProperty = true;
+                    }
+                    continue;
+                }
+                Predicate<Object> check = checkOf(constraint, property.getElementClass());
+                if (check == null) {
+                    return null;
+                }
+                checks.add(target -> check.test(getter.apply(target)));
+            }
+        }
+
+        // the compiled checks are cheaper, so a payload they reject is never passed to Bean Validation twice
+        checks.addAll(propertyChecks);
+
+        return new CompiledConstraints<>(List.copyOf(checks));
+    }
+
+    /**
+     * The check for one constraint on a property of type {@code type}, as its Hibernate Validator implementation
+     * does it, or {@code null} if it is not supported.
+     */
+    private static Predicate<Object> checkOf(ConstraintDescriptor<?> constraint, Class<?> type) {
+        if (!constraint.getGroups().equals(Set.of(Default.class)) || !constraint.getComposingConstraints().isEmpty()) {
+            return null;
+        }
+
+        return switch (constraint.getAnnotation()) {
+            case Null ignored -> Objects::isNull;
+            case NotNull ignored -> Objects::nonNull;
+            case NotBlank ignored when CharSequence.class.isAssignableFrom(type) ->
+                    value -> value != null && !value.toString().trim().isEmpty();
+            case Size size when CharSequence.class.isAssignableFrom(type) ->
+                    value -> value == null || isBetween(((CharSequence) value).length(), size.min(), size.max());
+            case Size size when Collection.class.isAssignableFrom(type) ->
+                    value -> value == null || isBetween(((Collection<?>) value).size(), size.min(), size.max());
+            case Min min when isIntegral(type) -> value -> value == null || ((Number) value).longValue() >= min.value();
+            case Max max when isIntegral(type) -> value -> value == null || ((Number) value).longValue() <= max.value();
+            case EmptyList ignored when Collection.class.isAssignableFrom(type) ->
+                    value -> value == null || ((Collection<?>) value).isEmpty();
+            default -> null;
+        };
+    }
+
+    private static boolean isBetween(int size, int min, int max) {
+        return size >= min && size <= max;
+    }
+
+    private static boolean isIntegral(Class<?> type) {
+        return type == Long.class || type == Integer.class || type == Short.class || type == Byte.class
+                || type == long.class || type == int.class || type == short.class || type == byte.class;
+    }
+}
@@ -0,0 +1,94 @@
+package dev.vudovenko.springbootmvcpractice.validation;
+
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import jakarta.validation.Validator;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Validates request payloads with their constraints compiled into plain checks, so a valid user or pet is checked
+ * without Bean Validation. A payload that fails a check, or of a class that could not be compiled, is validated again
+ * by Bean Validation, which reports the errors exactly as it always has.
+ */
+public class PayloadValidator implements SmartValidator {
+
+    private final SpringValidatorAdapter beanValidator;
+
+    private final Map<Class<?>, CompiledConstraints<?>> compiled;
+
+    public PayloadValidator(Validator validator) {
+        this.beanValidator = new SpringValidatorAdapter(validator);
+        this.compiled = new HashMap<>();
+        compile(validator, User.class, Map.of(
+                "id", User::getId,
+                "name", User::getName,
+                "email", User::getEmail,
+                "age", User::getAge,
+                "pets", User::getPets
+        ));
+        compile(validator, Pet.class, Map.of(
+                "id", Pet::getId,
+                "name", Pet::getName,
+                "userId", Pet::getUserId
+        ));
+    }
+
+    /**
+     * Whether {@code type} is validated by compiled checks rather than by Bean Validation.
+     */
+    public boolean isCompiled(Class<?> type) {
+        return compiled.containsKey(type);
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return beanValidator.supports(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        if (!passes(target)) {
+            beanValidator.validate(target, errors);
+        }
+    }
+
+    @Override
+    public void validate(Object target, Errors errors, Object... validationHints) {
+        if (validationHints.length == 0) {
+            validate(target, errors);
+        } else {
+            beanValidator.validate(target, errors, validationHints);
+        }
+    }
+
+    @Override
+    public void validateValue(
+            Class<?> targetType,
+            String fieldName,
+            Object value,
+            Errors errors,
+            Object... validationHints
+    ) {
+        beanValidator.validateValue(targetType, fieldName, value, errors, validationHints);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean passes(Object target) {
+        CompiledConstraints<Object> constraints = (CompiledConstraints<Object>) compiled.get(target.getClass());
+
+        return constraints != null && constraints.passes(target);
+    }
+
+    private <T> void compile(Validator validator, Class<T> type, Map<String, Function<T, ?>> getters) {
+        CompiledConstraints<T> constraints = CompiledConstraints.compile(validator, type, getters);
+        if (constraints != null) {
+            compiled.put(type, constraints);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package dev.vudovenko.springbootmvcpractice.validation;
+
+import jakarta.validation.Validator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Makes {@link PayloadValidator} the validator of {@code @Valid} request bodies on both web stacks. Request bodies are
+ * validated there only, once per request; the services trust their callers.
+ */
+@Configuration(proxyBeanMethods = false)
+public class ValidationConfiguration {
+
+    @Bean
+    public PayloadValidator payloadValidator(Validator validator) {
+        return new PayloadValidator(validator);
+    }
+
+    @Bean
+    public WebMvcConfigurer payloadValidatorMvcConfigurer(PayloadValidator payloadValidator) {
+        return new WebMvcConfigurer() {
+
+            @Override
+            public org.springframework.validation.Validator getValidator() {
+                return payloadValidator;
+            }
+        };
+    }
+
+    @Bean
+    public WebFluxConfigurer payloadValidatorFluxConfigurer(PayloadValidator payloadValidator) {
+        return new WebFluxConfigurer() {
+
+            @Override
+            public org.springframework.validation.Validator getValidator() {
+                return payloadValidator;
+            }
+        };
+    }
+}
@@ -0,0 +1,155 @@
+package dev.vudovenko.springbootmvcpractice.accesslog;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class AccessLogTest {
+
+    private final Logger accessLogger = (Logger) LoggerFactory.getLogger("access");
+
+    private final CapturingAppender appender = new CapturingAppender();
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        accessLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        appender.gate.countDown();
+        accessLogger.detachAppender(appender);
+        appender.stop();
+    }
+
+    @Test
+    void shouldWriteLogfmtLineWithIdAndStatus() throws Exception {
+        AccessLog accessLog = new AccessLog(properties(Verbosity.BASIC, 1.0, 16));
+
+        accessLog.record(handler(), petRequest("42"), 200, TimeUnit.MILLISECONDS.toNanos(3));
+        accessLog.destroy();
+
+        List<String> lines = appender.linesOf("getPetForAccessLog");
+        Assertions.assertEquals(1, lines.size());
+        Assertions.assertTrue(
+                lines.getFirst().matches(
+                        "ts=\\S+Z endpoint=getPetForAccessLog method=GET route=/pets/\\{id} id=42 status=200 took_us=3000"
+                ),
+                lines.getFirst()
+        );
+    }
+
+    @Test
+    void shouldLogOnlyFailuresWhenVerbosityIsOff() throws Exception {
+        AccessLog accessLog = new AccessLog(properties(Verbosity.OFF, 1.0, 16));
+
+        recordStatuses(accessLog);
+        accessLog.destroy();
+
+        Assertions.assertEquals(List.of("404", "500"), statusesOf(appender.linesOf("getPetForAccessLog")));
+    }
+
+    @Test
+    void shouldLogOnlyFailuresWhenSampleRateIsZero() throws Exception {
+        AccessLog accessLog = new AccessLog(properties(Verbosity.BASIC, 0.0, 16));
+
+        recordStatuses(accessLog);
+        accessLog.destroy();
+
+        Assertions.assertEquals(List.of("404", "500"), statusesOf(appender.linesOf("getPetForAccessLog")));
+    }
+
+    @Test
+    void shouldCountDropsInsteadOfBlockingWhenRingIsFull() throws Exception {
+        AccessLog accessLog = new AccessLog(properties(Verbosity.BASIC, 1.0, 2));
+        appender.gate = new CountDownLatch(1);
+
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (int i = 0; i < 10; i++) {
+                accessLog.record(handler(), petRequest(Integer.toString(i)), 200, 1_000);
+            }
+        });
+        appender.gate.countDown();
+        accessLog.destroy();
+
+        Assertions.assertEquals(2, appender.linesOf("getPetForAccessLog").size());
+        Assertions.assertTrue(appender.lines.contains("access_log_dropped=8"), appender.lines.toString());
+    }
+
+    private static void recordStatuses(AccessLog accessLog) {
+        for (int status : new int[]{200, 201, 204, 304, 404, 500}) {
+            accessLog.record(handler(), petRequest("7"), status, 1_000);
+        }
+    }
+
+    private static List<String> statusesOf(List<String> lines) {
+        return lines.stream()
+                .map(line -> line.replaceAll(".* status=(\\d+) .*", "$1"))
+                .toList();
+    }
+
+    private static AccessLogProperties properties(Verbosity verbosity, double sampleRate, int bufferSize) {
+        return new AccessLogProperties(true, verbosity, sampleRate, bufferSize, Map.of());
+    }
+
+    private static HandlerMethod handler() {
+        return new HandlerMethod(new Endpoints(), ReflectionUtils.findMethod(Endpoints.class, "getPetForAccessLog"));
+    }
+
+    private static MockHttpServletRequest petRequest(String id) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/pets/" + id);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/pets/{id}");
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("id", id));
+
+        return request;
+    }
+
+    public static class Endpoints {
+
+        public void getPetForAccessLog() {
+        }
+    }
+
+    /**
+     * Keeps the formatted lines; while {@link #gate} is closed it holds the writer thread inside its first append.
+     */
+    private static final class CapturingAppender extends AppenderBase<ILoggingEvent> {
+
+        private final List<String> lines = new CopyOnWriteArrayList<>();
+
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            lines.add(event.getFormattedMessage());
+        }
+
+        private List<String> linesOf(String endpoint) {
+            return lines.stream()
+                    .filter(line -> line.contains(" endpoint=" + endpoint + " "))
+                    .toList();
+        }
+    }
+}
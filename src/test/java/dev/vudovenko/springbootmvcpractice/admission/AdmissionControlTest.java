@@ -0,0 +1,129 @@
+package dev.vudovenko.springbootmvcpractice.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.dto.ErrorMessageResponse;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "admission.enabled=true",
+        "admission.trusted-proxies=127.0.0.1",
+        "admission.client-rate=0.01",
+        "admission.client-burst=3",
+        "admission.max-concurrent-cascade-deletes=1"
+})
+@AutoConfigureMockMvc
+class AdmissionControlTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void shouldTurnAwayClientOverItsRateWithoutSlowingOthers() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/pets/{id}", Long.MAX_VALUE).header("X-Client-Id", "flooding"))
+                    .andExpect(status().isNotFound());
+        }
+
+        String errorMessageResponseJson = mockMvc.perform(post("/pets")
+                        .header("X-Client-Id", "flooding")
+                        .contentType("application/json")
+                        .content("{\"name\": \"Barsik\"}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        ErrorMessageResponse errorMessageResponse = objectMapper
+                .readValue(errorMessageResponseJson, ErrorMessageResponse.class);
+        Assertions.assertEquals("Too many requests", errorMessageResponse.message());
+        Assertions.assertNotNull(errorMessageResponse.dateTime());
+        Assertions.assertTrue(
+                Long.parseLong(mockMvc.perform(get("/pets").header("X-Client-Id", "flooding"))
+                        .andExpect(status().isTooManyRequests())
+                        .andReturn()
+                        .getResponse()
+                        .getHeader(HttpHeaders.RETRY_AFTER)) > 1
+        );
+        Assertions.assertEquals(1, meterRegistry.get("admission.rejected")
+                .tag("class", "write")
+                .tag("reason", "rate-limit")
+                .counter()
+                .count());
+
+        mockMvc.perform(get("/pets/{id}", Long.MAX_VALUE).header("X-Client-Id", "polite"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldNameUntrustedClientByAddressWhateverItsHeaderSays() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/pets/{id}", Long.MAX_VALUE)
+                            .header("X-Client-Id", "client" + i)
+                            .with(from("10.0.0.7")))
+                    .andExpect(status().isNotFound());
+        }
+
+        mockMvc.perform(get("/pets/{id}", Long.MAX_VALUE)
+                        .header("X-Client-Id", "client3")
+                        .with(from("10.0.0.7")))
+                .andExpect(status().isTooManyRequests());
+        Assertions.assertEquals("10.0.0.7", admissionControl.clientOf("10.0.0.7", header -> "client4"));
+        Assertions.assertEquals("client4", admissionControl.clientOf("127.0.0.1", header -> "client4"));
+    }
+
+    @Test
+    void shouldLimitConcurrentRequestsPerClass() {
+        admissionControl.admit(RequestClass.CASCADE_DELETE, "first");
+
+        TooManyRequestsException e = Assertions.assertThrows(
+                TooManyRequestsException.class,
+                () -> admissionControl.admit(RequestClass.CASCADE_DELETE, "second")
+        );
+        Assertions.assertEquals("More than 1 concurrent cascade-delete requests", e.getMessage());
+        admissionControl.admit(RequestClass.READ, "second");
+        admissionControl.release(RequestClass.READ);
+
+        admissionControl.release(RequestClass.CASCADE_DELETE);
+        admissionControl.admit(RequestClass.CASCADE_DELETE, "second");
+        admissionControl.release(RequestClass.CASCADE_DELETE);
+    }
+
+    @Test
+    void shouldClassifyRequests() {
+        Assertions.assertEquals(RequestClass.READ, RequestClass.of("GET", "/users/1"));
+        Assertions.assertEquals(RequestClass.WRITE, RequestClass.of("POST", "/users/1/pets/transfer"));
+        Assertions.assertEquals(RequestClass.WRITE, RequestClass.of("DELETE", "/pets/1"));
+        Assertions.assertEquals(RequestClass.CASCADE_DELETE, RequestClass.of("DELETE", "/users/1"));
+    }
+
+    private static RequestPostProcessor from(String remoteAddress) {
+        return request -> {
+            request.setRemoteAddr(remoteAddress);
+
+            return request;
+        };
+    }
+}
@@ -0,0 +1,151 @@
+package dev.vudovenko.springbootmvcpractice.changes;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import dev.vudovenko.springbootmvcpractice.users.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "changes.buffer-size=1024")
+@AutoConfigureMockMvc
+class ChangeFeedTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PetService petService;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void shouldStreamEveryChangeInOrderAndResume() throws Exception {
+        long start = changeFeed.lastSeq();
+        User first = userService.createUser(new User(null, "firstOwner", "first@changes.com", 30, null));
+        User second = userService.createUser(new User(null, "secondOwner", "second@changes.com", 40, null));
+        Pet pet = petService.createPet(new Pet(null, "Barsik", first.getId()));
+        petService.updatePet(pet.getId(), new Pet(null, "Barsik", second.getId()));
+        userService.deleteUser(second.getId());
+
+        List<JsonNode> changes = readLines(stream("after=" + start, MediaType.APPLICATION_NDJSON_VALUE));
+
+        Assertions.assertEquals(
+                List.of(
+                        "USER_SAVED " + first.getId() + " v1",
+                        "USER_SAVED " + second.getId() + " v1",
+                        "PET_SAVED " + pet.getId() + " v1 of " + first.getId(),
+                        "USER_SAVED " + first.getId() + " v2",
+                        "PET_SAVED " + pet.getId() + " v2 of " + second.getId(),
+                        "USER_SAVED " + first.getId() + " v3",
+                        "USER_SAVED " + second.getId() + " v2",
+                        "PET_DELETED " + pet.getId(),
+                        "USER_DELETED " + second.getId()
+                ),
+                changes.stream().map(ChangeFeedTest::describe).toList()
+        );
+        for (int i = 0; i < changes.size(); i++) {
+            Assertions.assertEquals(start + 1 + i, changes.get(i).get("seq").asLong());
+        }
+
+        long resumeAfter = changes.get(4).get("seq").asLong();
+        List<JsonNode> resumed = readLines(stream("after=" + resumeAfter, MediaType.APPLICATION_NDJSON_VALUE));
+        Assertions.assertEquals(changes.subList(5, changes.size()), resumed);
+
+        String events = stream("after=" + start, MediaType.TEXT_EVENT_STREAM_VALUE);
+        Assertions.assertTrue(
+                events.startsWith("id: " + (start + 1) + "\nevent: user_saved\ndata: {"),
+                events
+        );
+        Assertions.assertTrue(events.endsWith("\nevent: user_deleted\ndata: " + changes.getLast() + "\n\n"), events);
+    }
+
+    @Test
+    void shouldReportChangesOverwrittenBeforeSlowConsumerReadThem() throws Exception {
+        double droppedBefore = meterRegistry.counter("changes.dropped").count();
+        long start = changeFeed.lastSeq();
+        User owner = userService.createUser(new User(null, "busyOwner", "busy@changes.com", 30, null));
+        List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            pets.add(new Pet(null, "pet" + i, owner.getId()));
+        }
+        petService.createPets(pets);
+        long last = changeFeed.lastSeq();
+
+        List<JsonNode> changes = readLines(stream("after=" + start, MediaType.APPLICATION_NDJSON_VALUE));
+
+        JsonNode dropped = changes.getFirst();
+        Assertions.assertEquals("DROPPED", dropped.get("type").asText());
+        Assertions.assertEquals(start + 1, dropped.get("firstSeq").asLong());
+        long oldestKept = last - 1024 + 1;
+        Assertions.assertEquals(oldestKept - 1, dropped.get("lastSeq").asLong());
+        Assertions.assertEquals(oldestKept - start - 1, dropped.get("count").asLong());
+        Assertions.assertEquals(1024, changes.size() - 1);
+        Assertions.assertEquals(oldestKept, changes.get(1).get("seq").asLong());
+        Assertions.assertEquals(last, changes.getLast().get("seq").asLong());
+        Assertions.assertEquals(
+                droppedBefore + dropped.get("count").asLong(),
+                meterRegistry.counter("changes.dropped").count()
+        );
+    }
+
+    private String stream(String query, String accept) throws Exception {
+        MvcResult result = mockMvc
+                .perform(get("/changes?" + query + "&follow=false").accept(accept))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        return result.getResponse().getContentAsString();
+    }
+
+    private List<JsonNode> readLines(String ndjson) throws Exception {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : ndjson.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+
+        return lines;
+    }
+
+    private static String describe(JsonNode change) {
+        String description = change.get("type").asText() + " " + change.get("id").asLong();
+        if (change.has("version")) {
+            description += " v" + change.get("version").asLong();
+        }
+        if (change.has("userId")) {
+            description += " of " + change.get("userId").asLong();
+        }
+
+        return description;
+    }
+}
@@ -0,0 +1,72 @@
+package dev.vudovenko.springbootmvcpractice.exceptionHandling;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.PetNotFoundException;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.UserNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+
+class AggregatedErrorLogTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(AggregatedErrorLog.class);
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    private final AggregatedErrorLog aggregatedErrorLog = new AggregatedErrorLog(Duration.ofHours(1));
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        aggregatedErrorLog.destroy();
+        logger.detachAppender(appender);
+        appender.stop();
+    }
+
+    @Test
+    void shouldReportCountAndLastMessagePerTypeThenReset() {
+        for (long id = 1; id <= 3; id++) {
+            aggregatedErrorLog.record(new UserNotFoundException(id));
+        }
+        aggregatedErrorLog.record(new PetNotFoundException(9L));
+
+        aggregatedErrorLog.flush();
+
+        Assertions.assertEquals(
+                List.of(
+                        "Got PetNotFoundException x1 in the last 3600000 ms, last: Pet with 9 not found",
+                        "Got UserNotFoundException x3 in the last 3600000 ms, last: User with 3 not found"
+                ),
+                lines().stream().sorted().toList()
+        );
+
+        appender.list.clear();
+        aggregatedErrorLog.flush();
+        Assertions.assertEquals(List.of(), lines());
+
+        aggregatedErrorLog.record(UserNotFoundException.owner(4L));
+        aggregatedErrorLog.flush();
+        Assertions.assertEquals(
+                List.of("Got UserNotFoundException x1 in the last 3600000 ms, last: Owner with 4 not found"),
+                lines()
+        );
+    }
+
+    private List<String> lines() {
+        return appender.list.stream()
+                .map(ILoggingEvent::getFormattedMessage)
+                .toList();
+    }
+}
@@ -0,0 +1,61 @@
+package dev.vudovenko.springbootmvcpractice.exceptionHandling;
+
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.dto.ErrorMessageResponse;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.EntityNotFoundException;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.PetNotFoundException;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.exceptions.UserNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.List;
+
+class EntityNotFoundExceptionTest {
+
+    private final AggregatedErrorLog aggregatedErrorLog = new AggregatedErrorLog(Duration.ofHours(1));
+
+    private final GlobalExceptionHandler exceptionHandler = new GlobalExceptionHandler(
+            new SimpleMeterRegistry(),
+            aggregatedErrorLog
+    );
+
+    @AfterEach
+    void tearDown() {
+        aggregatedErrorLog.destroy();
+    }
+
+    @Test
+    void shouldKeepNotFoundResponseBodies() {
+        assertNotFound(new UserNotFoundException(5L), "User with 5 not found");
+        assertNotFound(UserNotFoundException.owner(6L), "Owner with 6 not found");
+        assertNotFound(new PetNotFoundException(7L), "Pet with 7 not found");
+    }
+
+    @Test
+    void shouldCaptureNoStackTrace() {
+        for (EntityNotFoundException e : List.of(
+                new UserNotFoundException(5L),
+                UserNotFoundException.owner(6L),
+                new PetNotFoundException(7L)
+        )) {
+            Assertions.assertEquals(0, e.getStackTrace().length);
+            e.setStackTrace(new Throwable().getStackTrace());
+            Assertions.assertEquals(0, e.getStackTrace().length);
+            Assertions.assertNull(e.getCause());
+        }
+    }
+
+    private void assertNotFound(EntityNotFoundException e, String detailedMessage) {
+        ResponseEntity<ErrorMessageResponse> response = exceptionHandler.handleEntityNotFoundException(e);
+
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        Assertions.assertNotNull(response.getBody());
+        Assertions.assertEquals("Entity not found", response.getBody().message());
+        Assertions.assertEquals(detailedMessage, response.getBody().detailedMessage());
+        Assertions.assertNotNull(response.getBody().dateTime());
+    }
+}
@@ -0,0 +1,130 @@
+package dev.vudovenko.springbootmvcpractice.journal;
+
+import dev.vudovenko.springbootmvcpractice.SpringBootMvcPracticeApplication;
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import dev.vudovenko.springbootmvcpractice.users.service.UserService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Restarts the application on the journal of an earlier run, as left by a crash: a snapshot and the entries after it.
+ */
+class JournalRecoveryTest {
+
+    @TempDir
+    private Path directory;
+
+    @TempDir
+    private Path crashedDirectory;
+
+    @Test
+    void shouldRestoreSnapshotWithJournalTailReplayedOverIt() throws Exception {
+        long barsikId;
+        long murzikId;
+        long tomId;
+        long snowballId;
+        long[] userIds = new long[4];
+        try (ConfigurableApplicationContext context = start(directory)) {
+            UserService userService = context.getBean(UserService.class);
+            PetService petService = context.getBean(PetService.class);
+
+            userIds[0] = userService.createUser(new User(null, "Ivan", "ivan@mail.com", 30, null)).getId();
+            userIds[1] = userService.createUser(new User(null, "Petr", "petr@mail.com", 40, null)).getId();
+            userIds[2] = userService.createUser(new User(null, "Anna", "anna@mail.com", 25, null)).getId();
+            barsikId = petService.createPet(new Pet(null, "Barsik", userIds[0])).getId();
+            murzikId = petService.createPet(new Pet(null, "Murzik", userIds[0])).getId();
+            tomId = petService.createPet(new Pet(null, "Tom", userIds[1])).getId();
+
+            context.getBean(JournalCheckpointer.class).snapshot();
+
+            userIds[3] = userService.createUser(new User(null, "Olga", "olga@mail.com", 35, null)).getId();
+            snowballId = petService.createPet(new Pet(null, "Snowball", userIds[3])).getId();
+            userService.updateUser(userIds[0], new User(null, "Ivan Ivanov", "ivanov@mail.com", 31, null));
+            petService.deletePet(murzikId);
+            userService.deleteUser(userIds[2]);
+            petService.updatePet(tomId, new Pet(null, "Tommy", userIds[0]));
+
+            copyJournal(directory, crashedDirectory);
+        }
+
+        try (ConfigurableApplicationContext context = start(crashedDirectory)) {
+            UserService userService = context.getBean(UserService.class);
+            PetService petService = context.getBean(PetService.class);
+
+            Assertions.assertEquals(
+                    List.of(
+                            "%d Ivan Ivanov ivanov@mail.com 31 [%d, %d]".formatted(userIds[0], barsikId, tomId),
+                            "%d Petr petr@mail.com 40 []".formatted(userIds[1]),
+                            "%d Olga olga@mail.com 35 [%d]".formatted(userIds[3], snowballId)
+                    ),
+                    userService.findPage(0, 10).stream().map(JournalRecoveryTest::describe).toList()
+            );
+            Assertions.assertEquals(
+                    List.of(
+                            "%d Barsik %d v1".formatted(barsikId, userIds[0]),
+                            "%d Tommy %d v2".formatted(tomId, userIds[0]),
+                            "%d Snowball %d v1".formatted(snowballId, userIds[3])
+                    ),
+                    petService.findPage(0, 10).stream().map(JournalRecoveryTest::describe).toList()
+            );
+            // journaled at version 4 by the update, once its two pets had been added, and published again with them
+            Assertions.assertTrue(userService.getStored(userIds[0]).getVersion() > 4);
+            Assertions.assertEquals(List.of(), userService.findByEmail("anna@mail.com"));
+            Assertions.assertEquals(List.of(), userService.findByEmail("ivan@mail.com"));
+            Assertions.assertEquals(1, userService.findByEmail("ivanov@mail.com").size());
+
+            Assertions.assertTrue(
+                    userService.createUser(new User(null, "Oleg", "oleg@mail.com", 20, null)).getId() > userIds[3]
+            );
+            Assertions.assertTrue(petService.createPet(new Pet(null, "Sharik", userIds[1])).getId() > snowballId);
+        }
+    }
+
+    private static ConfigurableApplicationContext start(Path directory) {
+        return new SpringApplicationBuilder(SpringBootMvcPracticeApplication.class).run(
+                "--spring.main.web-application-type=none",
+                "--journal.enabled=true",
+                "--journal.directory=" + directory,
+                "--journal.segment-size=1MB",
+                "--journal.snapshot-interval=1h",
+                "--access-log.enabled=false"
+        );
+    }
+
+    /**
+     * Copies the journal of a running node, which is what a crash would leave: closing the node would write a final
+     * snapshot over the entries under test.
+     */
+    private static void copyJournal(Path from, Path to) throws IOException {
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, to.resolve(file.getFileName()));
+            }
+        }
+    }
+
+    private static String describe(User user) {
+        return "%d %s %s %d %s".formatted(
+                user.getId(),
+                user.getName(),
+                user.getEmail(),
+                user.getAge(),
+                user.getPets().stream().map(Pet::getId).sorted().toList()
+        );
+    }
+
+    private static String describe(Pet pet) {
+        return "%d %s %d v%d".formatted(pet.getId(), pet.getName(), pet.getUserId(), pet.getVersion());
+    }
+}
@@ -0,0 +1,118 @@
+package dev.vudovenko.springbootmvcpractice.journal;
+
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+class MappedJournalTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void shouldReplayPetsSavedTogetherAsOneEntry() throws Exception {
+        long seq;
+        try (MappedJournal journal = new MappedJournal(directory, 4096, true)) {
+            journal.petSaved(new Pet(1L, "Barsik", 10L));
+            seq = journal.petsSaved(List.of(new Pet(1L, "Barsik", 20L), new Pet(2L, null, 20L)));
+            journal.awaitDurable(seq);
+        }
+
+        List<JournalEntry> entries = entriesFrom(directory);
+
+        Assertions.assertEquals(3, entries.size());
+        Assertions.assertEquals(List.of(seq, seq), entries.subList(1, 3).stream().map(JournalEntry::seq).toList());
+        Assertions.assertTrue(entries.stream().allMatch(entry -> entry.kind() == JournalEntry.Kind.PET_SAVED));
+        Pet moved = (Pet) entries.get(2).entity();
+        Assertions.assertEquals(2L, moved.getId());
+        Assertions.assertNull(moved.getName());
+        Assertions.assertEquals(20L, moved.getUserId());
+    }
+
+    @Test
+    void shouldDropEveryPetOfTornEntry() throws Exception {
+        Pet saved = new Pet(1L, "Barsik", 10L);
+        List<Pet> moved = List.of(new Pet(1L, "Barsik", 20L), new Pet(2L, "Murzik", 20L));
+        try (MappedJournal journal = new MappedJournal(directory, 4096, true)) {
+            journal.petSaved(saved);
+            journal.awaitDurable(journal.petsSaved(moved));
+        }
+
+        int lastBatchByte = JournalCodec.frameSize(JournalCodec.petSaved(saved))
+                + JournalCodec.frameSize(JournalCodec.petsSaved(moved)) - 1;
+        try (FileChannel channel = FileChannel.open(segmentIn(directory), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7F}), lastBatchByte);
+        }
+
+        List<JournalEntry> entries = entriesFrom(directory);
+
+        Assertions.assertEquals(1, entries.size());
+        Assertions.assertEquals(10L, ((Pet) entries.getFirst().entity()).getUserId());
+    }
+
+    @Test
+    void shouldKeepEveryEntryAcrossSegmentRolls() throws Exception {
+        int count = 500;
+        try (MappedJournal journal = new MappedJournal(directory, 512, true)) {
+            for (long id = 1; id <= count; id++) {
+                long seq = journal.petSaved(new Pet(id, "Barsik", 10L));
+                journal.awaitDurable(seq);
+                Assertions.assertEquals(id, seq);
+            }
+        }
+
+        List<Long> seqs = entriesFrom(directory).stream().map(JournalEntry::seq).sorted().toList();
+
+        Assertions.assertEquals(LongStream.rangeClosed(1, count).boxed().toList(), seqs);
+        Assertions.assertTrue(filesIn(directory, MappedJournal.SEGMENT_SUFFIX).size() > 1);
+        Assertions.assertEquals(List.of(), filesIn(directory, MappedJournal.SPARE_SUFFIX));
+    }
+
+    @Test
+    void shouldReplayEntriesOfSpareLeftByCrash() throws Exception {
+        try (MappedJournal journal = new MappedJournal(directory, 4096, true)) {
+            journal.awaitDurable(journal.petSaved(new Pet(1L, "Barsik", 10L)));
+        }
+        Path segment = segmentIn(directory);
+        Files.move(segment, directory.resolve("00000000000000000007" + MappedJournal.SPARE_SUFFIX));
+        Files.createFile(directory.resolve("00000000000000000008" + MappedJournal.SPARE_SUFFIX));
+
+        try (MappedJournal journal = new MappedJournal(directory, 4096, true)) {
+            Assertions.assertEquals(2, journal.nextSeq());
+        }
+
+        Assertions.assertTrue(Files.exists(segment));
+        Assertions.assertEquals(List.of(), filesIn(directory, MappedJournal.SPARE_SUFFIX));
+        Assertions.assertEquals(1, entriesFrom(directory).size());
+    }
+
+    private static List<JournalEntry> entriesFrom(Path directory) throws Exception {
+        List<JournalEntry> entries = new ArrayList<>();
+        MappedJournal.readFrom(directory, 0, entries::add);
+
+        return entries;
+    }
+
+    private static List<Path> filesIn(Path directory, String suffix) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(suffix)).toList();
+        }
+    }
+
+    private static Path segmentIn(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(MappedJournal.SEGMENT_SUFFIX)).findFirst().orElseThrow();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package dev.vudovenko.springbootmvcpractice.load;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts latencies in log-linear buckets, as HdrHistogram does: each power of two is split into
+ * {@value #SUB_BUCKETS} equal buckets, so a percentile is off by less than 1/{@value #SUB_BUCKETS} of its value and
+ * the recorder stays the same size however long the run. Latencies up to {@code 2^}{@value #MAX_MAGNITUDE} ns (about
+ * 68 s, well past the request timeouts) keep that precision; longer ones land in the top bucket, and the maximum is
+ * kept exactly. Not thread-safe: each thread records into its own instance and the instances are merged once the run
+ * is over.
+ */
+public final class LatencyRecorder {
+
+    private static final int SUB_BUCKET_BITS = 6;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_MAGNITUDE = 36;
+
+    private static final long MAX_TRACKABLE = (1L << MAX_MAGNITUDE) - 1;
+
+    private final long[] counts = new long[indexOf(MAX_TRACKABLE) + 1];
+
+    private long count;
+
+    private long max;
+
+    public void record(long latencyNanos) {
+        long latency = Math.max(0, latencyNanos);
+        counts[indexOf(Math.min(latency, MAX_TRACKABLE))]++;
+        count++;
+        max = Math.max(max, latency);
+    }
+
+    public void merge(LatencyRecorder other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public Percentiles percentiles() {
+        return new Percentiles(
+                percentileMillis(0.50),
+                percentileMillis(0.95),
+                percentileMillis(0.99),
+                percentileMillis(0.999),
+                toMillis(max)
+        );
+    }
+
+    /**
+     * The highest latency in the bucket holding the {@code percentile} rank, capped at the maximum recorded.
+     */
+    private double percentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return toMillis(Math.min(highestValueAt(i), max));
+            }
+        }
+
+        return toMillis(max);
+    }
+
+    /**
+     * Values below {@code 2 * SUB_BUCKETS} get a bucket each; above that, a value with its highest bit at
+     * {@code SUB_BUCKET_BITS + shift} shares its bucket with the others that agree on all but the lowest {@code shift}
+     * bits.
+     */
+    private static int indexOf(long value) {
+        int shift = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1);
+
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    private static long highestValueAt(int index) {
+        int shift = Math.max(0, index / SUB_BUCKETS - 1);
+        long lowest = (long) (index - shift * SUB_BUCKETS) << shift;
+
+        return lowest + (1L << shift) - 1;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public record Percentiles(
+            double p50Millis,
+            double p95Millis,
+            double p99Millis,
+            double p999Millis,
+            double maxMillis
+    ) {
+    }
+}
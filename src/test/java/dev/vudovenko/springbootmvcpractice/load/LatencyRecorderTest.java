@@ -0,0 +1,109 @@
+package dev.vudovenko.springbootmvcpractice.load;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+class LatencyRecorderTest {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void shouldReportZerosWhenNothingWasRecorded() {
+        LatencyRecorder recorder = new LatencyRecorder();
+
+        Assertions.assertEquals(0, recorder.count());
+        Assertions.assertEquals(new LatencyRecorder.Percentiles(0, 0, 0, 0, 0), recorder.percentiles());
+    }
+
+    @Test
+    void shouldKeepSmallLatenciesExact() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (long latency = 1; latency <= 100; latency++) {
+            recorder.record(latency);
+        }
+
+        LatencyRecorder.Percentiles percentiles = recorder.percentiles();
+        Assertions.assertEquals(100, recorder.count());
+        Assertions.assertEquals(50 / NANOS_PER_MILLI, percentiles.p50Millis());
+        Assertions.assertEquals(95 / NANOS_PER_MILLI, percentiles.p95Millis());
+        Assertions.assertEquals(99 / NANOS_PER_MILLI, percentiles.p99Millis());
+        Assertions.assertEquals(100 / NANOS_PER_MILLI, percentiles.p999Millis());
+        Assertions.assertEquals(100 / NANOS_PER_MILLI, percentiles.maxMillis());
+    }
+
+    @Test
+    void shouldKeepPercentilesWithinOneSixtyFourthOfTheirValue() {
+        Random random = new Random(42);
+        long[] latencies = new long[100_000];
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = (long) Math.exp(random.nextDouble() * Math.log(1L << 36));
+            recorder.record(latencies[i]);
+        }
+        Arrays.sort(latencies);
+
+        LatencyRecorder.Percentiles percentiles = recorder.percentiles();
+        assertWithinBucket(exactPercentile(latencies, 0.50), percentiles.p50Millis());
+        assertWithinBucket(exactPercentile(latencies, 0.95), percentiles.p95Millis());
+        assertWithinBucket(exactPercentile(latencies, 0.99), percentiles.p99Millis());
+        assertWithinBucket(exactPercentile(latencies, 0.999), percentiles.p999Millis());
+        Assertions.assertEquals(latencies[latencies.length - 1] / NANOS_PER_MILLI, percentiles.maxMillis());
+    }
+
+    @Test
+    void shouldCapLatenciesPastTheTopBucketButKeepMaximumExact() {
+        long topBucket = (1L << 36) - 1;
+        long twoMinutes = TimeUnit.MINUTES.toNanos(2);
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record(twoMinutes);
+        recorder.record(Long.MAX_VALUE);
+        recorder.record(-5);
+
+        LatencyRecorder.Percentiles percentiles = recorder.percentiles();
+        Assertions.assertEquals(3, recorder.count());
+        Assertions.assertEquals(topBucket / NANOS_PER_MILLI, percentiles.p50Millis());
+        Assertions.assertEquals(topBucket / NANOS_PER_MILLI, percentiles.p999Millis());
+        Assertions.assertEquals(Long.MAX_VALUE / NANOS_PER_MILLI, percentiles.maxMillis());
+
+        LatencyRecorder negativeOnly = new LatencyRecorder();
+        negativeOnly.record(-5);
+        Assertions.assertEquals(new LatencyRecorder.Percentiles(0, 0, 0, 0, 0), negativeOnly.percentiles());
+    }
+
+    @Test
+    void shouldMergeAsIfRecordedIntoOne() {
+        Random random = new Random(7);
+        LatencyRecorder all = new LatencyRecorder();
+        LatencyRecorder first = new LatencyRecorder();
+        LatencyRecorder second = new LatencyRecorder();
+        for (int i = 0; i < 10_000; i++) {
+            long latency = random.nextLong(TimeUnit.SECONDS.toNanos(5));
+            all.record(latency);
+            (i % 3 == 0 ? first : second).record(latency);
+        }
+
+        first.merge(second);
+
+        Assertions.assertEquals(all.count(), first.count());
+        Assertions.assertEquals(all.percentiles(), first.percentiles());
+    }
+
+    private static long exactPercentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+    }
+
+    /**
+     * The reported value is the top of the bucket holding the exact one, so it is never lower and at most 1/64 higher.
+     */
+    private static void assertWithinBucket(long exactNanos, double reportedMillis) {
+        double reportedNanos = reportedMillis * NANOS_PER_MILLI;
+        Assertions.assertTrue(
+                reportedNanos >= exactNanos - 1e-3 && reportedNanos <= exactNanos * (1 + 1 / 64.0) + 1e-3,
+                () -> "exact %d ns, reported %.3f ns".formatted(exactNanos, reportedNanos)
+        );
+    }
+}
@@ -0,0 +1,46 @@
+package dev.vudovenko.springbootmvcpractice.load;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * When the requests of an open-loop run are due: {@code rate} per second from {@code origin}, shared by all
+ * workers.
+ */
+final class Pacer {
+
+    private final long origin;
+
+    private final double intervalNanos;
+
+    private final AtomicLong issued = new AtomicLong();
+
+    Pacer(long origin, double rate) {
+        this.origin = origin;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+    }
+
+    /**
+     * The {@link System#nanoTime()} at which the next request is due; each call takes the slot after the previous one.
+     */
+    long nextDue() {
+        return origin + (long) (issued.getAndIncrement() * intervalNanos);
+    }
+
+    /**
+     * @return {@code false} if interrupted while waiting
+     */
+    static boolean awaitDue(long due) {
+        for (long delay = due - System.nanoTime(); delay > 0; delay = due - System.nanoTime()) {
+            LockSupport.parkNanos(delay);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
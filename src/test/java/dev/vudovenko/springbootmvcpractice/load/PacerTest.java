@@ -0,0 +1,74 @@
+package dev.vudovenko.springbootmvcpractice.load;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class PacerTest {
+
+    @Test
+    void shouldSpaceDueTimesEvenlyFromOrigin() {
+        Pacer pacer = new Pacer(1_000, 4);
+
+        Assertions.assertEquals(1_000, pacer.nextDue());
+        Assertions.assertEquals(1_000 + 250_000_000, pacer.nextDue());
+        Assertions.assertEquals(1_000 + 500_000_000, pacer.nextDue());
+        Assertions.assertEquals(1_000 + 750_000_000, pacer.nextDue());
+    }
+
+    @Test
+    void shouldHandEachDueTimeToOneWorkerAndWaitForIt() throws Exception {
+        int workers = 4;
+        int requestsPerWorker = 25;
+        long origin = System.nanoTime();
+        Pacer pacer = new Pacer(origin, 1_000);
+
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> {
+                    List<Long> dues = new ArrayList<>();
+                    for (int request = 0; request < requestsPerWorker; request++) {
+                        long due = pacer.nextDue();
+                        Assertions.assertTrue(Pacer.awaitDue(due));
+                        Assertions.assertTrue(System.nanoTime() >= due);
+                        dues.add(due);
+                    }
+
+                    return dues;
+                }));
+            }
+        }
+
+        List<Long> dues = new ArrayList<>();
+        for (Future<List<Long>> future : futures) {
+            dues.addAll(future.get());
+        }
+        dues.sort(null);
+        for (int i = 0; i < workers * requestsPerWorker; i++) {
+            Assertions.assertEquals(origin + i * TimeUnit.MILLISECONDS.toNanos(1), dues.get(i));
+        }
+    }
+
+    @Test
+    void shouldStopWaitingWhenInterrupted() {
+        Thread.currentThread().interrupt();
+        try {
+            Assertions.assertFalse(Pacer.awaitDue(System.nanoTime() + TimeUnit.SECONDS.toNanos(10)));
+            Assertions.assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void shouldNotWaitForDueTimeInThePast() {
+        Assertions.assertTrue(Pacer.awaitDue(System.nanoTime() - 1));
+    }
+}
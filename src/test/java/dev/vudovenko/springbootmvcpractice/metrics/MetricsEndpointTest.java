@@ -0,0 +1,60 @@
+package dev.vudovenko.springbootmvcpractice.metrics;
+
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import dev.vudovenko.springbootmvcpractice.users.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PetService petService;
+
+    @Test
+    void shouldExposeEndpointStoreAndErrorMetrics() throws Exception {
+        User owner = userService.createUser(new User(null, "owner", "owner@metrics.com", 30, new ArrayList<>()));
+        for (int i = 0; i < 3; i++) {
+            petService.createPet(new Pet(null, "pet" + i, owner.getId()));
+        }
+
+        mockMvc.perform(get("/users/{id}", owner.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/{id}", Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertThat(scrape)
+                .containsPattern("http_server_requests_seconds_bucket\\{.*uri=\"/users/\\{id}\".*}")
+                .contains("store_entities{store=\"users\"}")
+                .contains("store_entities{store=\"pets\"}")
+                .contains("ids_last_reserved{store=\"users\"}")
+                .contains("errors_handled_total{exception=\"UserNotFoundException\",status=\"404\"} 1.0")
+                .containsPattern("users_pets\\{le=\"4\"} [1-9]");
+    }
+}
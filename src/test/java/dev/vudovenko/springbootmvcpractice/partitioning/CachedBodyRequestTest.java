@@ -0,0 +1,80 @@
+package dev.vudovenko.springbootmvcpractice.partitioning;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+class CachedBodyRequestTest {
+
+    @Test
+    void shouldHandWholeBodyToReadListenerAtOnce() throws IOException {
+        byte[] body = "{\"name\":\"Barsik\",\"userId\":1}".getBytes(StandardCharsets.UTF_8);
+        ServletInputStream input = new PartitionRoutingFilter.CachedBodyRequest(new MockHttpServletRequest(), body)
+                .getInputStream();
+        List<String> events = new ArrayList<>();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+
+        input.setReadListener(new ReadListener() {
+
+            @Override
+            public void onDataAvailable() throws IOException {
+                events.add("data");
+                byte[] buffer = new byte[8];
+                while (input.isReady() && !input.isFinished()) {
+                    int count = input.read(buffer);
+                    read.write(buffer, 0, count);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("all read");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add("error");
+            }
+        });
+
+        Assertions.assertEquals(List.of("data", "all read"), events);
+        Assertions.assertArrayEquals(body, read.toByteArray());
+    }
+
+    @Test
+    void shouldReportEmptyBodyAsReadRightAway() throws IOException {
+        ServletInputStream input = new PartitionRoutingFilter.CachedBodyRequest(
+                new MockHttpServletRequest(),
+                new byte[0]
+        ).getInputStream();
+        List<String> events = new ArrayList<>();
+
+        input.setReadListener(new ReadListener() {
+
+            @Override
+            public void onDataAvailable() {
+                events.add("data");
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("all read");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add("error");
+            }
+        });
+
+        Assertions.assertEquals(List.of("all read"), events);
+    }
+}
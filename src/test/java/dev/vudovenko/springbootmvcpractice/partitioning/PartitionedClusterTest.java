@@ -0,0 +1,303 @@
+package dev.vudovenko.springbootmvcpractice.partitioning;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.vudovenko.springbootmvcpractice.SpringBootMvcPracticeApplication;
+import dev.vudovenko.springbootmvcpractice.admission.AdmissionControl;
+import dev.vudovenko.springbootmvcpractice.admission.AdmissionProperties;
+import dev.vudovenko.springbootmvcpractice.admission.RequestClass;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Three nodes in one JVM, talking over HTTP.
+ */
+class PartitionedClusterTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final RestClient CLIENT = RestClient.builder()
+            .defaultStatusHandler(status -> true, (request, response) -> {
+            })
+            .build();
+
+    private static final String SECRET = "cluster-test-secret";
+
+    private static final List<String> NODES = new ArrayList<>();
+
+    private static final List<ConfigurableApplicationContext> CONTEXTS = new ArrayList<>();
+
+    @BeforeAll
+    static void startNodes() throws IOException {
+        List<Integer> ports = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                ports.add(socket.getLocalPort());
+                NODES.add("http://localhost:" + socket.getLocalPort());
+            }
+        }
+        for (int i = 0; i < 3; i++) {
+            CONTEXTS.add(new SpringApplicationBuilder(SpringBootMvcPracticeApplication.class).run(
+                    "--server.port=" + ports.get(i),
+                    "--partitions.nodes=" + String.join(",", NODES),
+                    "--partitions.self=" + NODES.get(i),
+                    "--partitions.secret=" + SECRET,
+                    "--access-log.enabled=false",
+                    "--admission.enabled=true"
+            ));
+        }
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        CONTEXTS.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void shouldServeEveryEntityFromEveryNode() throws IOException {
+        long ownerId = createUser(0, "owner@first.com");
+        long petId = createPet(2, "Barsik", ownerId);
+
+        ResponseEntity<String> user = send(0, HttpMethod.GET, "/users/" + ownerId, null);
+        for (int node = 1; node < 3; node++) {
+            ResponseEntity<String> routedUser = send(node, HttpMethod.GET, "/users/" + ownerId, null);
+            assertThat(routedUser.getStatusCode().value()).isEqualTo(200);
+            assertThat(routedUser.getHeaders().getETag()).isEqualTo(user.getHeaders().getETag());
+            assertThat(routedUser.getBody()).isEqualTo(user.getBody());
+
+            ResponseEntity<String> pet = send(node, HttpMethod.GET, "/pets/" + petId, null);
+            assertThat(pet.getStatusCode().value()).isEqualTo(200);
+            assertThat(json(pet).get("userId").asLong()).isEqualTo(ownerId);
+        }
+
+        assertThat(sendAsNode(0, HttpMethod.GET, "/partitions/pets/" + petId, null).getStatusCode().value())
+                .as("pet lives with its owner")
+                .isEqualTo(204);
+        assertThat(json(send(1, HttpMethod.GET, "/users/" + ownerId, null)).get("pets").get(0).get("id").asLong())
+                .isEqualTo(petId);
+    }
+
+    @Test
+    void shouldMovePetBetweenNodesAndDeleteItWithItsNewOwner() throws IOException {
+        long firstOwnerId = createUser(0, "first@move.com");
+        long secondOwnerId = createUser(1, "second@move.com");
+        long petId = createPet(0, "Murzik", firstOwnerId);
+
+        ResponseEntity<String> moved = send(2, HttpMethod.PUT, "/pets/" + petId,
+                Map.of("name", "Murzik", "userId", secondOwnerId));
+        assertThat(moved.getStatusCode().value()).isEqualTo(200);
+        assertThat(json(moved).get("userId").asLong()).isEqualTo(secondOwnerId);
+        assertThat(moved.getHeaders().getETag()).isNull();
+        String eTag = send(1, HttpMethod.GET, "/pets/" + petId, null).getHeaders().getETag();
+
+        assertThat(sendAsNode(0, HttpMethod.GET, "/partitions/pets/" + petId, null).getStatusCode().value())
+                .isEqualTo(404);
+        assertThat(sendAsNode(1, HttpMethod.GET, "/partitions/pets/" + petId, null).getStatusCode().value())
+                .isEqualTo(204);
+        for (int node = 0; node < 3; node++) {
+            ResponseEntity<String> pet = send(node, HttpMethod.GET, "/pets/" + petId, null);
+            assertThat(pet.getStatusCode().value()).isEqualTo(200);
+            assertThat(pet.getHeaders().getETag()).isEqualTo(eTag);
+            assertThat(json(pet).get("userId").asLong()).isEqualTo(secondOwnerId);
+        }
+        assertThat(json(send(2, HttpMethod.GET, "/users/" + firstOwnerId, null)).get("pets")).isEmpty();
+        assertThat(json(send(2, HttpMethod.GET, "/users/" + secondOwnerId, null)).get("pets")).hasSize(1);
+
+        assertThat(send(2, HttpMethod.DELETE, "/users/" + secondOwnerId, null).getStatusCode().value())
+                .isEqualTo(204);
+        for (int node = 0; node < 3; node++) {
+            assertThat(send(node, HttpMethod.GET, "/pets/" + petId, null).getStatusCode().value()).isEqualTo(404);
+        }
+    }
+
+    @Test
+    void shouldRefuseToDeleteOwnerHeldForMove() throws IOException {
+        long ownerId = createUser(1, "held@move.com");
+
+        assertThat(sendAsNode(1, HttpMethod.POST, "/partitions/moves/held/prepare?ownerId=" + ownerId, null)
+                .getStatusCode().value()).isEqualTo(204);
+        assertThat(send(0, HttpMethod.DELETE, "/users/" + ownerId, null).getStatusCode().value()).isEqualTo(409);
+
+        assertThat(sendAsNode(1, HttpMethod.POST, "/partitions/moves/held/abort", null).getStatusCode().value())
+                .isEqualTo(204);
+        assertThat(send(0, HttpMethod.DELETE, "/users/" + ownerId, null).getStatusCode().value()).isEqualTo(204);
+    }
+
+    @Test
+    void shouldRefuseNodeEndpointsWithoutTheSecret() throws IOException {
+        long ownerId = createUser(1, "guarded@node.com");
+        long petId = createPet(1, "Guarded", ownerId);
+
+        assertThat(send(1, HttpMethod.GET, "/partitions/pets/" + petId, null).getStatusCode().value()).isEqualTo(403);
+        assertThat(send(1, HttpMethod.POST, "/partitions/moves/guarded/prepare?ownerId=" + ownerId, null)
+                .getStatusCode().value()).isEqualTo(403);
+        assertThat(send(1, HttpMethod.POST, "/partitions/pets/batch",
+                List.of(Map.of("name", "Sneaky", "userId", ownerId))).getStatusCode().value()).isEqualTo(403);
+        assertThat(CLIENT.get()
+                .uri(NODES.get(1) + "/partitions/pets/" + petId)
+                .header(PartitionRoutingFilter.SECRET_HEADER, "guessed")
+                .retrieve()
+                .toEntity(String.class)
+                .getStatusCode()
+                .value())
+                .isEqualTo(403);
+        assertThat(json(send(1, HttpMethod.GET, "/users/" + ownerId, null)).get("pets")).hasSize(1);
+    }
+
+    @Test
+    void shouldRouteClientRequestWhateverHopCountItClaims() throws IOException {
+        long ownerId = createUser(1, "hopping@client.com");
+
+        ResponseEntity<String> user = CLIENT.get()
+                .uri(NODES.get(0) + "/users/" + ownerId)
+                .header(PartitionRoutingFilter.HOPS_HEADER, "2")
+                .retrieve()
+                .toEntity(String.class);
+
+        assertThat(user.getStatusCode().value()).isEqualTo(200);
+        assertThat(json(user).get("id").asLong()).isEqualTo(ownerId);
+    }
+
+    @Test
+    void shouldNotLetMoveTakeOverPetOfAnotherOwner() throws IOException {
+        long ownerId = createUser(1, "keeper@move.com");
+        long thiefId = createUser(1, "thief@move.com");
+        long petId = createPet(1, "Kept", ownerId);
+
+        assertThat(sendAsNode(1, HttpMethod.POST, "/partitions/moves/steal/prepare?ownerId=" + thiefId, null)
+                .getStatusCode().value()).isEqualTo(204);
+        assertThat(sendAsNode(1, HttpMethod.POST, "/partitions/moves/steal/commit",
+                Map.of("id", petId, "name", "Stolen", "userId", thiefId, "version", 100))
+                .getStatusCode().value()).isEqualTo(409);
+        assertThat(sendAsNode(1, HttpMethod.POST, "/partitions/moves/steal/abort", null)
+                .getStatusCode().value()).isEqualTo(204);
+
+        ResponseEntity<String> pet = send(0, HttpMethod.GET, "/pets/" + petId, null);
+        assertThat(json(pet).get("name").asText()).isEqualTo("Kept");
+        assertThat(json(pet).get("userId").asLong()).isEqualTo(ownerId);
+        assertThat(json(send(0, HttpMethod.GET, "/users/" + thiefId, null)).get("pets")).isEmpty();
+    }
+
+    @Test
+    void shouldMergePagesAndBatchesFromAllNodes() throws IOException {
+        List<Long> ownerIds = new ArrayList<>();
+        for (int node = 0; node < 3; node++) {
+            ownerIds.add(createUser(node, "merged" + node + "@page.com"));
+        }
+
+        ResponseEntity<String> batch = send(0, HttpMethod.POST, "/pets/batch", ownerIds.stream()
+                .map(ownerId -> Map.of("name", "batched", "userId", ownerId))
+                .toList());
+        assertThat(batch.getStatusCode().value()).isEqualTo(201);
+        for (int i = 0; i < ownerIds.size(); i++) {
+            JsonNode result = json(batch).get(i);
+            assertThat(result.get("index").asInt()).isEqualTo(i);
+            assertThat(result.get("entity").get("userId").asLong()).isEqualTo(ownerIds.get(i));
+        }
+
+        List<Long> listedIds = new ArrayList<>();
+        json(send(2, HttpMethod.GET, "/users?limit=1000", null)).get("items")
+                .forEach(user -> listedIds.add(user.get("id").asLong()));
+        assertThat(listedIds)
+                .containsAll(ownerIds)
+                .isSorted()
+                .doesNotHaveDuplicates();
+
+        JsonNode byEmail = json(send(1, HttpMethod.GET, "/users?email=merged0@page.com", null));
+        assertThat(byEmail).hasSize(1);
+        assertThat(byEmail.get(0).get("id").asLong()).isEqualTo(ownerIds.getFirst());
+    }
+
+    @Test
+    void shouldAdmitForwardedRequestOnceAndSpoofedOneAsUsual() throws IOException {
+        long ownerId = createUser(1, "admitted@once.com");
+        AdmissionControl admissionControl = CONTEXTS.get(1).getBean(AdmissionControl.class);
+        int maxConcurrentReads = CONTEXTS.get(1).getBean(AdmissionProperties.class).maxConcurrentReads();
+        for (int i = 0; i < maxConcurrentReads; i++) {
+            admissionControl.admit(RequestClass.READ, "busy");
+        }
+        try {
+            assertThat(send(0, HttpMethod.GET, "/users/" + ownerId, null).getStatusCode().value())
+                    .as("forwarded by node 0, which admitted it")
+                    .isEqualTo(200);
+            assertThat(CLIENT.get()
+                    .uri(NODES.get(1) + "/users/" + ownerId)
+                    .header(PartitionRoutingFilter.HOPS_HEADER, "1")
+                    .header(PartitionRoutingFilter.SECRET_HEADER, "guessed")
+                    .retrieve()
+                    .toEntity(String.class)
+                    .getStatusCode()
+                    .value())
+                    .as("claims to be forwarded without the secret")
+                    .isEqualTo(429);
+        } finally {
+            for (int i = 0; i < maxConcurrentReads; i++) {
+                admissionControl.release(RequestClass.READ);
+            }
+        }
+    }
+
+    private static long createUser(int node, String email) throws IOException {
+        ResponseEntity<String> user = send(node, HttpMethod.POST, "/users",
+                Map.of("name", "owner", "email", email, "age", 30, "pets", List.of()));
+        assertThat(user.getStatusCode().value()).isEqualTo(201);
+
+        return json(user).get("id").asLong();
+    }
+
+    private static long createPet(int node, String name, long ownerId) throws IOException {
+        ResponseEntity<String> pet = send(node, HttpMethod.POST, "/pets", Map.of("name", name, "userId", ownerId));
+        assertThat(pet.getStatusCode().value()).isEqualTo(201);
+
+        return json(pet).get("id").asLong();
+    }
+
+    private static ResponseEntity<String> send(int node, HttpMethod method, String path, Object body) {
+        return send(node, method, path, body, new HttpHeaders());
+    }
+
+    private static ResponseEntity<String> sendAsNode(int node, HttpMethod method, String path, Object body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(PartitionRoutingFilter.SECRET_HEADER, SECRET);
+
+        return send(node, method, path, body, headers);
+    }
+
+    private static ResponseEntity<String> send(
+            int node,
+            HttpMethod method,
+            String path,
+            Object body,
+            HttpHeaders headers
+    ) {
+        RestClient.RequestBodySpec request = CLIENT.method(method)
+                .uri(NODES.get(node) + path)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .headers(requestHeaders -> requestHeaders.addAll(headers));
+        if (body != null) {
+            request.contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+
+        return request.retrieve().toEntity(String.class);
+    }
+
+    private static JsonNode json(ResponseEntity<String> response) throws IOException {
+        return OBJECT_MAPPER.readTree(response.getBody());
+    }
+}
@@ -1,6 +1,8 @@
 package dev.vudovenko.springbootmvcpractice.pets.controllers;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.vudovenko.springbootmvcpractice.batch.BatchItemResult;
 import dev.vudovenko.springbootmvcpractice.exceptionHandling.dto.ErrorMessageResponse;
 import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
 import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
@@ -12,12 +14,20 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -355,6 +365,7 @@ class PetControllerTest {
         org.assertj.core.api.Assertions
                 .assertThat(notUpdatedPet)
                 .usingRecursiveComparison()
+                .ignoringFields("version")
                 .isEqualTo(originalPetCopy);
     }
 
@@ -380,6 +391,7 @@ class PetControllerTest {
         org.assertj.core.api.Assertions
                 .assertThat(foundPet)
                 .usingRecursiveComparison()
+                .ignoringFields("version")
                 .isEqualTo(createdPet);
     }
 
@@ -439,4 +451,235 @@ class PetControllerTest {
                 "Pet with %d not found".formatted(nonExistentPetId));
         Assertions.assertNotNull(errorMessageResponse.dateTime());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldKeepOwnerLinksConsistentUnderConcurrentMoves() throws Exception {
+        User secondOwner = userService.createUser(
+                new User(
+                        null,
+                        "secondOwner",
+                        "secondOwner@secondOwner.com",
+                        30,
+                        null
+                )
+        );
+
+        List<Pet> createdPets = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            createdPets.add(petService.createPet(new Pet(null, "pet" + i, owner.getId())));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int round = 0; round < 20; round++) {
+                for (Pet pet : createdPets) {
+                    Long newOwnerId = round % 2 == 0 ? secondOwner.getId() : owner.getId();
+                    futures.add(executor.submit(() ->
+                            petService.updatePet(pet.getId(), new Pet(null, pet.getName(), newOwnerId))
+                    ));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        User firstOwnerState = userService.getById(owner.getId());
+        User secondOwnerState = userService.getById(secondOwner.getId());
+
+        Assertions.assertEquals(
+                createdPets.size(),
+                firstOwnerState.getPets().size() + secondOwnerState.getPets().size()
+        );
+        firstOwnerState.getPets()
+                .forEach(pet -> Assertions.assertEquals(owner.getId(), pet.getUserId()));
+        secondOwnerState.getPets()
+                .forEach(pet -> Assertions.assertEquals(secondOwner.getId(), pet.getUserId()));
+    }
+
+    @Test
+    void shouldCreatePetsBatchWithPerItemErrors() throws Exception {
+        List<Pet> petsToCreate = List.of(
+                new Pet(null, "batchPet1", owner.getId()),
+                new Pet(null, "batchPet2", Long.MAX_VALUE),
+                new Pet(null, "no", owner.getId())
+        );
+
+        String petsJson = objectMapper.writeValueAsString(petsToCreate);
+
+        String resultsJson = mockMvc
+                .perform(
+                        post("/pets/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(petsJson)
+                )
+                .andExpect(status().isMultiStatus())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        List<BatchItemResult<Pet>> results = objectMapper.readValue(resultsJson, new TypeReference<>() {
+        });
+
+        Assertions.assertEquals(201, results.get(0).status());
+        Assertions.assertEquals(404, results.get(1).status());
+        Assertions.assertEquals(400, results.get(2).status());
+
+        Assertions.assertEquals("Entity not found", results.get(1).error().message());
+        Assertions.assertEquals("Owner with %d not found".formatted(Long.MAX_VALUE),
+                results.get(1).error().detailedMessage());
+        Assertions.assertTrue(results.get(2).error().detailedMessage().contains("name:"));
+
+        Pet createdPet = results.get(0).entity();
+        Assertions.assertTrue(petService.checkIfPetExists(createdPet.getId()));
+        Assertions.assertTrue(userService.getById(owner.getId()).getPets().contains(createdPet));
+    }
+
+    @Test
+    void shouldRejectPetsBatchOverTheLimitAsAWhole() throws Exception {
+        int petCount = userService.getById(owner.getId()).getPets().size();
+        List<Pet> petsToCreate = new ArrayList<>();
+        for (int i = 0; i <= 1000; i++) {
+            petsToCreate.add(new Pet(null, "oversizedBatchPet" + i, owner.getId()));
+        }
+
+        String errorMessageResponseJson = mockMvc
+                .perform(
+                        post("/pets/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(petsToCreate))
+                )
+                .andExpect(status().isPayloadTooLarge())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        ErrorMessageResponse errorMessageResponse = objectMapper
+                .readValue(errorMessageResponseJson, ErrorMessageResponse.class);
+
+        Assertions.assertEquals("Batch too large", errorMessageResponse.message());
+        Assertions.assertEquals(
+                "Batch of 1001 items exceeds the limit of 1000",
+                errorMessageResponse.detailedMessage()
+        );
+        Assertions.assertEquals(petCount, userService.getById(owner.getId()).getPets().size());
+    }
+
+    @Test
+    void shouldStreamPetsAsNdjson() throws Exception {
+        Pet streamedPet = petService.createPet(
+                new Pet(
+                        null,
+                        "Streamed pet",
+                        owner.getId()
+                )
+        );
+
+        MvcResult asyncResult = mockMvc
+                .perform(
+                        get("/pets")
+                                .param("after", String.valueOf(streamedPet.getId() - 1))
+                                .accept(MediaType.APPLICATION_NDJSON)
+                )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String ndjson = mockMvc
+                .perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        List<Pet> streamedPets = new ArrayList<>();
+        for (String line : ndjson.split("\n")) {
+            streamedPets.add(objectMapper.readValue(line, Pet.class));
+        }
+
+        org.assertj.core.api.Assertions
+                .assertThat(streamedPets.get(0))
+                .usingRecursiveComparison()
+                .ignoringFields("version")
+                .isEqualTo(streamedPet);
+        streamedPets.forEach(pet -> Assertions.assertTrue(pet.getId() >= streamedPet.getId()));
+    }
+
+    @Test
+    void shouldChangePetETagWhenPetMovesAndRejectStaleIfMatch() throws Exception {
+        Pet pet = petService.createPet(new Pet(null, "mover", owner.getId()));
+        User newOwner = userService.createUser(new User(null, "newOwner", "newOwner@owner.com", 30, null));
+
+        String eTag = mockMvc
+                .perform(get("/pets/{id}", pet.getId()))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        mockMvc
+                .perform(get("/pets/{id}", pet.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        String moveJson = objectMapper.writeValueAsString(new Pet(null, "mover", newOwner.getId()));
+        mockMvc
+                .perform(
+                        put("/pets/{id}", pet.getId())
+                                .header(HttpHeaders.IF_MATCH, eTag)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(moveJson)
+                )
+                .andExpect(status().isOk());
+
+        mockMvc
+                .perform(get("/pets/{id}", pet.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+        mockMvc
+                .perform(
+                        put("/pets/{id}", pet.getId())
+                                .header(HttpHeaders.IF_MATCH, eTag)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(moveJson)
+                )
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void shouldServeFreshOwnersAfterPetMoveWhenCached() throws Exception {
+        Pet pet = petService.createPet(new Pet(null, "cached", owner.getId()));
+        User newOwner = userService.createUser(new User(null, "newOwner", "cachedOwner@owner.com", 30, null));
+
+        Assertions.assertEquals(List.of(pet.getId()), petIdsOf(getUserJson(owner.getId())));
+        Assertions.assertTrue(petIdsOf(getUserJson(newOwner.getId())).isEmpty());
+
+        mockMvc
+                .perform(
+                        put("/pets/{id}", pet.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(new Pet(null, "cached", newOwner.getId())))
+                )
+                .andExpect(status().isOk());
+
+        Assertions.assertTrue(petIdsOf(getUserJson(owner.getId())).isEmpty());
+        Assertions.assertEquals(List.of(pet.getId()), petIdsOf(getUserJson(newOwner.getId())));
+    }
+
+    private String getUserJson(Long userId) throws Exception {
+        return mockMvc
+                .perform(get("/users/{id}", userId))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+    }
+
+    private List<Long> petIdsOf(String userJson) throws Exception {
+        return objectMapper.readValue(userJson, User.class)
+                .getPets()
+                .stream()
+                .map(Pet::getId)
+                .toList();
+    }
+}
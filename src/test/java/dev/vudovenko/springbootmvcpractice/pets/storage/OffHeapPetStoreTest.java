@@ -0,0 +1,114 @@
+package dev.vudovenko.springbootmvcpractice.pets.storage;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.vudovenko.springbootmvcpractice.pagination.KeysetPage;
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import dev.vudovenko.springbootmvcpractice.users.service.UserService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "pets.storage=off-heap")
+@AutoConfigureMockMvc
+class OffHeapPetStoreTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PetService petService;
+
+    @Autowired
+    private PetStore petStore;
+
+    @Test
+    void shouldKeepPetsOffHeapThroughTheirLifecycle() throws Exception {
+        Assertions.assertInstanceOf(OffHeapPetStore.class, petStore);
+
+        User firstOwner = userService.createUser(new User(null, "first", "first@offheap.com", 30, new ArrayList<>()));
+        User secondOwner = userService.createUser(new User(null, "second", "second@offheap.com", 40, new ArrayList<>()));
+
+        Pet createdPet = readPet(mockMvc.perform(
+                        post("/pets")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(new Pet(null, "Барсик", firstOwner.getId())))
+                )
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8));
+        Pet fetchedPet = readPet(mockMvc.perform(get("/pets/{id}", createdPet.getId()))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8));
+        Assertions.assertEquals("Барсик", fetchedPet.getName());
+        Assertions.assertEquals(firstOwner.getId(), fetchedPet.getUserId());
+
+        String longerName = "a name long enough to need a bigger block";
+        Pet movedPet = readPet(mockMvc.perform(
+                        put("/pets/{id}", createdPet.getId())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(new Pet(null, longerName, secondOwner.getId())))
+                )
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8));
+        Assertions.assertEquals(longerName, movedPet.getName());
+        Assertions.assertTrue(userService.getById(firstOwner.getId()).getPets().isEmpty());
+        List<Pet> secondOwnerPets = userService.getById(secondOwner.getId()).getPets();
+        Assertions.assertEquals(1, secondOwnerPets.size());
+        Assertions.assertEquals(longerName, secondOwnerPets.getFirst().getName());
+        Assertions.assertEquals(secondOwner.getId(), secondOwnerPets.getFirst().getUserId());
+
+        mockMvc.perform(delete("/pets/{id}", createdPet.getId()))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/pets/{id}", createdPet.getId()))
+                .andExpect(status().isNotFound());
+
+        Pet petInFreedRow = petService.createPet(new Pet(null, "reused", secondOwner.getId()));
+        Assertions.assertEquals("reused", petService.getPetById(petInFreedRow.getId()).getName());
+        Assertions.assertFalse(petService.checkIfPetExists(createdPet.getId()));
+        Assertions.assertEquals(List.of(petInFreedRow), userService.getById(secondOwner.getId()).getPets());
+
+        KeysetPage<Pet> page = objectMapper.readValue(
+                mockMvc.perform(get("/pets").param("after", String.valueOf(createdPet.getId())))
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString(),
+                new TypeReference<>() {
+                }
+        );
+        Assertions.assertTrue(page.items().contains(petInFreedRow));
+
+        mockMvc.perform(delete("/users/{id}", secondOwner.getId()))
+                .andExpect(status().isNoContent());
+        Assertions.assertFalse(petService.checkIfPetExists(petInFreedRow.getId()));
+    }
+
+    private Pet readPet(String json) throws Exception {
+        return objectMapper.readValue(json, Pet.class);
+    }
+}
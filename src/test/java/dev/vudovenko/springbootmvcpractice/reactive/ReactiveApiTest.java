@@ -0,0 +1,195 @@
+package dev.vudovenko.springbootmvcpractice.reactive;
+
+import dev.vudovenko.springbootmvcpractice.changes.ChangeEvent;
+import dev.vudovenko.springbootmvcpractice.changes.ChangeFeed;
+import dev.vudovenko.springbootmvcpractice.changes.ChangeType;
+import dev.vudovenko.springbootmvcpractice.exceptionHandling.dto.ErrorMessageResponse;
+import dev.vudovenko.springbootmvcpractice.pagination.KeysetPage;
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.users.controllers.UserController;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.Map;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+class ReactiveApiTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Test
+    void shouldServeUsersWithETagsOnWebFlux() {
+        Assertions.assertTrue(context.getBeansOfType(UserController.class).isEmpty());
+
+        User createdUser = webTestClient.post()
+                .uri("/users")
+                .bodyValue(Map.of("name", "reactive", "email", "reactive@reactive.com", "age", 30))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBody(User.class)
+                .returnResult()
+                .getResponseBody();
+        Assertions.assertNotNull(createdUser);
+
+        String eTag = webTestClient.get()
+                .uri("/users/{id}", createdUser.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(User.class)
+                .value(user -> Assertions.assertEquals("reactive@reactive.com", user.getEmail()))
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+
+        webTestClient.get()
+                .uri("/users/{id}", createdUser.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+
+        webTestClient.put()
+                .uri("/users/{id}", createdUser.getId())
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .bodyValue(Map.of("name", "renamed", "email", "reactive@reactive.com", "age", 31))
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.put()
+                .uri("/users/{id}", createdUser.getId())
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .bodyValue(Map.of("name", "stale", "email", "reactive@reactive.com", "age", 32))
+                .exchange()
+                .expectStatus().isEqualTo(412)
+                .expectBody(ErrorMessageResponse.class)
+                .value(error -> Assertions.assertEquals("Precondition failed", error.message()));
+    }
+
+    @Test
+    void shouldRenderErrorsLikeServletStack() {
+        webTestClient.post()
+                .uri("/users")
+                .bodyValue(Map.of("name", "", "email", "not-an-email", "age", 30))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(ErrorMessageResponse.class)
+                .value(error -> {
+                    Assertions.assertEquals("Request validation failed", error.message());
+                    Assertions.assertTrue(error.detailedMessage().contains("email"));
+                    Assertions.assertNotNull(error.dateTime());
+                });
+
+        webTestClient.get()
+                .uri("/pets/{id}", Long.MAX_VALUE)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody(ErrorMessageResponse.class)
+                .value(error -> Assertions.assertEquals("Entity not found", error.message()));
+    }
+
+    @Test
+    void shouldPageStreamAndDeletePets() {
+        User owner = webTestClient.post()
+                .uri("/users")
+                .bodyValue(Map.of("name", "owner", "email", "owner@reactive.com", "age", 40))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(User.class)
+                .returnResult()
+                .getResponseBody();
+        Assertions.assertNotNull(owner);
+
+        webTestClient.post()
+                .uri("/pets/batch")
+                .bodyValue(List.of(
+                        Map.of("name", "first", "userId", owner.getId()),
+                        Map.of("name", "second", "userId", owner.getId())
+                ))
+                .exchange()
+                .expectStatus().isCreated();
+
+        KeysetPage<Pet> page = webTestClient.get()
+                .uri(uri -> uri.path("/pets").queryParam("limit", 1).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<KeysetPage<Pet>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+        Assertions.assertNotNull(page);
+        Assertions.assertEquals(1, page.items().size());
+        Assertions.assertNotNull(page.nextCursor());
+
+        List<Pet> streamed = webTestClient.get()
+                .uri("/pets")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Pet.class)
+                .getResponseBody()
+                .filter(pet -> owner.getId().equals(pet.getUserId()))
+                .collectList()
+                .block();
+        Assertions.assertNotNull(streamed);
+        Assertions.assertEquals(List.of("first", "second"), streamed.stream().map(Pet::getName).toList());
+
+        webTestClient.delete()
+                .uri(uri -> uri.path("/users/{id}").queryParam("async", true).build(owner.getId()))
+                .exchange()
+                .expectStatus().isAccepted();
+        webTestClient.get()
+                .uri("/pets/{id}", streamed.getFirst().getId())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldStreamChangesAsNdjson() {
+        long after = changeFeed.lastSeq();
+        User created = webTestClient.post()
+                .uri("/users")
+                .bodyValue(Map.of("name", "watched", "email", "watched@reactive.com", "age", 30))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(User.class)
+                .returnResult()
+                .getResponseBody();
+        Assertions.assertNotNull(created);
+
+        List<ChangeEvent> events = webTestClient.get()
+                .uri(uri -> uri.path("/changes").queryParam("after", after).queryParam("follow", false).build())
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(ChangeEvent.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        Assertions.assertNotNull(events);
+        Assertions.assertEquals(
+                List.of(new ChangeEvent(after + 1, ChangeType.USER_SAVED, created.getId(), 1L, null)),
+                events
+        );
+    }
+}
@@ -0,0 +1,107 @@
+package dev.vudovenko.springbootmvcpractice.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+class LongLinkedHashSetTest {
+
+    @Test
+    void shouldKeepInsertionOrder() {
+        LongLinkedHashSet set = new LongLinkedHashSet();
+        for (long element : new long[]{42, -7, 0, 1L << 40, 13}) {
+            Assertions.assertTrue(set.add(element));
+        }
+
+        Assertions.assertFalse(set.add(-7));
+        Assertions.assertTrue(set.remove(0));
+        Assertions.assertFalse(set.remove(0));
+        Assertions.assertTrue(set.add(0));
+
+        Assertions.assertArrayEquals(new long[]{42, -7, 1L << 40, 13, 0}, set.toArray());
+        Assertions.assertEquals(List.of(42L, -7L, 1L << 40, 13L, 0L), elementsOf(set));
+        Assertions.assertTrue(set.contains(1L << 40));
+        Assertions.assertFalse(set.contains(1));
+        Assertions.assertEquals(5, set.size());
+    }
+
+    @Test
+    void shouldKeepOrderAcrossCompactions() {
+        LongLinkedHashSet set = new LongLinkedHashSet();
+        LinkedHashSet<Long> expected = new LinkedHashSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            long element = random.nextInt(1_000);
+            if (random.nextInt(3) == 0) {
+                Assertions.assertEquals(expected.remove(element), set.remove(element));
+            } else {
+                Assertions.assertEquals(expected.add(element), set.add(element));
+            }
+        }
+
+        Assertions.assertEquals(List.copyOf(expected), elementsOf(set));
+        Assertions.assertEquals(expected.size(), set.size());
+    }
+
+    @Test
+    void shouldAllowRemovalWhileIterating() {
+        LongLinkedHashSet set = new LongLinkedHashSet();
+        for (long element = 0; element < 100; element++) {
+            set.add(element);
+        }
+
+        List<Long> seen = new ArrayList<>();
+        set.forEach(element -> {
+            seen.add(element);
+            // drops the element itself and the next one, which the iteration must then skip
+            set.remove(element);
+            set.remove(element + 1);
+        });
+
+        Assertions.assertEquals(50, seen.size());
+        Assertions.assertTrue(seen.stream().allMatch(element -> element % 2 == 0), seen.toString());
+        Assertions.assertTrue(set.isEmpty());
+        Assertions.assertArrayEquals(new long[0], set.toArray());
+
+        set.add(5);
+        set.add(3);
+        Assertions.assertArrayEquals(new long[]{5, 3}, set.toArray());
+    }
+
+    @Test
+    void shouldCompactOnceIterationIsOver() {
+        LongLinkedHashSet set = new LongLinkedHashSet();
+        for (long element = 0; element < 1_000; element++) {
+            set.add(element);
+        }
+
+        set.forEach(element -> {
+            if (element % 10 != 0) {
+                set.remove(element);
+            }
+        });
+        for (long element = 1_000; element < 1_010; element++) {
+            set.add(element);
+        }
+
+        List<Long> expected = new ArrayList<>();
+        for (long element = 0; element < 1_010; element += 10) {
+            expected.add(element);
+        }
+        for (long element = 1_001; element < 1_010; element++) {
+            expected.add(element);
+        }
+        Assertions.assertEquals(expected, elementsOf(set));
+    }
+
+    private static List<Long> elementsOf(LongLinkedHashSet set) {
+        List<Long> elements = new ArrayList<>();
+        set.forEach(elements::add);
+
+        return elements;
+    }
+}
@@ -0,0 +1,220 @@
+package dev.vudovenko.springbootmvcpractice.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+class LongObjectMapTest {
+
+    @Test
+    void shouldPutGetAndReplace() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+
+        Assertions.assertNull(map.put(1, "one"));
+        Assertions.assertNull(map.put(-1, "minus one"));
+        Assertions.assertEquals("one", map.put(1, "uno"));
+
+        Assertions.assertEquals("uno", map.get(1));
+        Assertions.assertEquals("minus one", map.get(-1));
+        Assertions.assertNull(map.get(2));
+        Assertions.assertTrue(map.containsKey(-1));
+        Assertions.assertEquals(2, map.size());
+        Assertions.assertThrows(NullPointerException.class, () -> map.put(3, null));
+    }
+
+    @Test
+    void shouldRemoveOnlyWhatIsThere() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1, "one");
+        map.put(2, "two");
+
+        Assertions.assertEquals("one", map.remove(1));
+        Assertions.assertNull(map.remove(1));
+        Assertions.assertNull(map.get(1));
+        Assertions.assertFalse(map.remove(2, "zwei"));
+        Assertions.assertTrue(map.remove(2, "two"));
+        Assertions.assertTrue(map.isEmpty());
+        Assertions.assertEquals(0, map.size());
+    }
+
+    @Test
+    void shouldReuseRemovedSlotsForTheSameKey() {
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        for (long key = 0; key < 64; key++) {
+            map.put(key, key);
+        }
+
+        for (int round = 0; round < 10_000; round++) {
+            long key = round % 64;
+            Assertions.assertEquals(round < 64 ? key : key + round - 64, map.remove(key));
+            Assertions.assertNull(map.get(key));
+            Assertions.assertNull(map.put(key, key + round));
+            Assertions.assertEquals(key + round, map.get(key));
+        }
+        Assertions.assertEquals(64, map.size());
+    }
+
+    @Test
+    void shouldKeepEveryEntryThroughRehashes() {
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        int count = 100_000;
+        for (long key = 0; key < count; key++) {
+            map.put(key * 31, key);
+        }
+        for (long key = 0; key < count; key += 2) {
+            map.remove(key * 31);
+        }
+        for (long key = count; key < 2L * count; key++) {
+            map.put(key * 31, key);
+        }
+
+        Assertions.assertEquals(count / 2 + count, map.size());
+        for (long key = 0; key < 2L * count; key++) {
+            Long expected = key < count && key % 2 == 0 ? null : key;
+            Assertions.assertEquals(expected, map.get(key * 31));
+        }
+    }
+
+    @Test
+    void shouldVisitEveryLiveEntryOnce() {
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        for (long key = 1; key <= 1_000; key++) {
+            map.put(key << 20, -key);
+            expected.put(key << 20, -key);
+        }
+        for (long key = 1; key <= 1_000; key += 3) {
+            map.remove(key << 20);
+            expected.remove(key << 20);
+        }
+
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach((key, value) -> Assertions.assertNull(visited.put(key, value), "visited twice: " + key));
+
+        Assertions.assertEquals(expected, visited);
+    }
+
+    @Test
+    void shouldComputeAbsentValueOnce() {
+        LongObjectMap<List<String>> map = new LongObjectMap<>();
+        AtomicInteger computed = new AtomicInteger();
+
+        map.computeIfAbsent(7, key -> {
+            computed.incrementAndGet();
+
+            return new ArrayList<>();
+        }).add("first");
+        map.computeIfAbsent(7, key -> {
+            computed.incrementAndGet();
+
+            return new ArrayList<>();
+        }).add("second");
+
+        Assertions.assertEquals(1, computed.get());
+        Assertions.assertEquals(List.of("first", "second"), map.get(7));
+        Assertions.assertNull(map.computeIfAbsent(8, key -> null));
+        Assertions.assertFalse(map.containsKey(8));
+    }
+
+    @Test
+    void shouldFindEveryPublishedEntryWhileSegmentsRehash() throws Exception {
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        int count = 500_000;
+        AtomicLong published = new AtomicLong(-1);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (long key = 0; key < count; key++) {
+                    map.put(key, key);
+                    published.set(key);
+                }
+            });
+            List<Future<Long>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    long misses = 0;
+                    long highest;
+                    do {
+                        highest = published.get();
+                        for (long key = Math.max(0, highest - 1_000); key <= highest; key++) {
+                            Long value = map.get(key);
+                            if (value == null || value != key) {
+                                misses++;
+                            }
+                        }
+                    } while (highest < count - 1);
+
+                    return misses;
+                }));
+            }
+
+            writer.get(1, TimeUnit.MINUTES);
+            for (Future<Long> reader : readers) {
+                Assertions.assertEquals(0L, reader.get(1, TimeUnit.MINUTES));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals(count, map.size());
+    }
+
+    @Test
+    void shouldMissAbsentKeysWhileFreshSegmentsFill() throws Exception {
+        int maps = 20_000;
+        int keysPerMap = 1_024;
+        AtomicReference<LongObjectMap<Long>> current = new AtomicReference<>(new LongObjectMap<>());
+        AtomicBoolean writing = new AtomicBoolean(true);
+        // a reader stuck probing a full table ignores interrupts, so it must not keep the JVM alive
+        ExecutorService executor = Executors.newFixedThreadPool(3, Thread.ofPlatform().daemon().factory());
+        try {
+            Future<?> writer = executor.submit(() -> {
+                try {
+                    for (int m = 0; m < maps; m++) {
+                        LongObjectMap<Long> map = new LongObjectMap<>();
+                        current.set(map);
+                        for (long key = 0; key < keysPerMap; key++) {
+                            map.put(key, key);
+                        }
+                    }
+                } finally {
+                    writing.set(false);
+                }
+            });
+            List<Future<Long>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    long hits = 0;
+                    while (writing.get()) {
+                        LongObjectMap<Long> map = current.get();
+                        for (long key = -1; key >= -keysPerMap; key--) {
+                            if (map.get(key) != null) {
+                                hits++;
+                            }
+                        }
+                    }
+
+                    return hits;
+                }));
+            }
+
+            writer.get(1, TimeUnit.MINUTES);
+            for (Future<Long> reader : readers) {
+                Assertions.assertEquals(0L, reader.get(1, TimeUnit.MINUTES));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package dev.vudovenko.springbootmvcpractice.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class OrderedIdIndexTest {
+
+    @Test
+    void shouldWalkIdsAfterCursorInOrder() {
+        OrderedIdIndex index = new OrderedIdIndex();
+        TreeSet<Long> expected = new TreeSet<>();
+        for (long id = 1; id <= 3000; id += 7) {
+            index.add(id);
+            expected.add(id);
+        }
+        for (long id = 5000; id < 5200; id++) {
+            index.add(id);
+            expected.add(id);
+        }
+        index.add(Long.MAX_VALUE);
+        expected.add(Long.MAX_VALUE);
+
+        Assertions.assertEquals(List.copyOf(expected), idsAfter(index, -1));
+        Assertions.assertEquals(List.copyOf(expected.tailSet(1023L, false)), idsAfter(index, 1023));
+        Assertions.assertEquals(List.copyOf(expected.tailSet(5100L, false)), idsAfter(index, 5100));
+        Assertions.assertEquals(List.of(), idsAfter(index, Long.MAX_VALUE));
+
+        List<Long> firstThree = new ArrayList<>();
+        index.forEachAfter(5000, id -> {
+            firstThree.add(id);
+
+            return firstThree.size() < 3;
+        });
+        Assertions.assertEquals(List.of(5001L, 5002L, 5003L), firstThree);
+    }
+
+    @Test
+    void shouldKeepIdsWhilePageTurnsDenseAndSparseAgain() {
+        OrderedIdIndex index = new OrderedIdIndex();
+        TreeSet<Long> expected = new TreeSet<>();
+        for (long id = 2048; id < 3072; id += 3) {
+            index.add(id);
+            index.add(id);
+            expected.add(id);
+        }
+        Assertions.assertEquals(List.copyOf(expected), idsAfter(index, 0));
+
+        for (long id = 2048; id < 3072; id += 6) {
+            index.remove(id);
+            index.remove(id);
+            expected.remove(id);
+        }
+        Assertions.assertEquals(List.copyOf(expected), idsAfter(index, 0));
+
+        while (expected.size() > 1) {
+            long id = expected.pollLast();
+            index.remove(id);
+            Assertions.assertEquals(List.copyOf(expected), idsAfter(index, 0));
+        }
+        Assertions.assertEquals(1, index.pageCount());
+    }
+
+    @Test
+    void shouldDropPagesOnceTheirLastIdIsRemoved() {
+        OrderedIdIndex index = new OrderedIdIndex();
+        long snowflakeStep = 1L << 22;
+        for (long id = snowflakeStep; id <= 1000 * snowflakeStep; id += snowflakeStep) {
+            index.add(id);
+        }
+        index.add(5);
+        index.add(6);
+        Assertions.assertEquals(1001, index.pageCount());
+
+        for (long id = snowflakeStep; id <= 1000 * snowflakeStep; id += snowflakeStep) {
+            index.remove(id);
+        }
+        index.remove(5);
+        index.remove(7);
+
+        Assertions.assertEquals(1, index.pageCount());
+        Assertions.assertEquals(List.of(6L), idsAfter(index, 0));
+
+        index.remove(6);
+        Assertions.assertEquals(0, index.pageCount());
+        Assertions.assertEquals(List.of(), idsAfter(index, 0));
+    }
+
+    @Test
+    void shouldKeepConcurrentAddsAndRemovesOfSharedPages() throws Exception {
+        OrderedIdIndex index = new OrderedIdIndex();
+        int threads = 8;
+        int idsPerThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int first = thread;
+                futures.add(executor.submit(() -> {
+                    for (long id = first; id < (long) threads * idsPerThread; id += threads) {
+                        index.add(id);
+                    }
+                    for (long id = first; id < (long) threads * idsPerThread; id += 2L * threads) {
+                        index.remove(id);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Long> expected = new ArrayList<>();
+        for (long id = 0; id < (long) threads * idsPerThread; id++) {
+            if (id % (2L * threads) >= threads) {
+                expected.add(id);
+            }
+        }
+        Assertions.assertEquals(expected, idsAfter(index, -1));
+    }
+
+    private static List<Long> idsAfter(OrderedIdIndex index, long afterId) {
+        List<Long> ids = new ArrayList<>();
+        index.forEachAfter(afterId, id -> {
+            ids.add(id);
+
+            return true;
+        });
+
+        return ids;
+    }
+}
@@ -0,0 +1,52 @@
+package dev.vudovenko.springbootmvcpractice.storage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class VersionedLongSetTest {
+
+    @Test
+    void shouldBuildEachVersionOnceAndNeverRebuildPastVersions() {
+        VersionedLongSet set = new VersionedLongSet(1);
+        Assertions.assertArrayEquals(new long[0], set.snapshotOf(1));
+
+        set.add(10);
+        set.add(20);
+        set.publish(2);
+        Assertions.assertNull(set.snapshotOf(2));
+        long[] second = set.buildSnapshotOf(2);
+        Assertions.assertArrayEquals(new long[]{10, 20}, second);
+        Assertions.assertSame(second, set.snapshotOf(2));
+        Assertions.assertSame(second, set.buildSnapshotOf(2));
+
+        set.remove(10);
+        set.add(30);
+        set.publish(3);
+        Assertions.assertSame(second, set.snapshotOf(2), "readers of the previous version keep its array");
+        Assertions.assertNull(set.buildSnapshotOf(2));
+        Assertions.assertArrayEquals(new long[]{20, 30}, set.buildSnapshotOf(3));
+        Assertions.assertNull(set.snapshotOf(2));
+    }
+
+    @Test
+    void shouldHandUnchangedElementsToTheNextVersion() {
+        VersionedLongSet set = new VersionedLongSet(1);
+        set.add(10);
+        set.publish(2);
+        long[] built = set.buildSnapshotOf(2);
+
+        set.publish(3);
+        Assertions.assertSame(built, set.snapshotOf(3));
+
+        set.add(10);
+        set.remove(20);
+        set.publish(4);
+        Assertions.assertSame(built, set.snapshotOf(4));
+
+        set.remove(10);
+        set.add(10);
+        set.publish(5);
+        Assertions.assertNull(set.snapshotOf(5));
+        Assertions.assertArrayEquals(new long[]{10}, set.buildSnapshotOf(5));
+    }
+}
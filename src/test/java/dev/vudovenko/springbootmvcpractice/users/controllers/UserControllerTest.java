@@ -1,9 +1,14 @@
 package dev.vudovenko.springbootmvcpractice.users.controllers;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.vudovenko.springbootmvcpractice.batch.BatchItemResult;
+import dev.vudovenko.springbootmvcpractice.cascade.Tombstones;
 import dev.vudovenko.springbootmvcpractice.exceptionHandling.dto.ErrorMessageResponse;
+import dev.vudovenko.springbootmvcpractice.pagination.KeysetPage;
 import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
 import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import dev.vudovenko.springbootmvcpractice.storage.OwnerLocks;
 import dev.vudovenko.springbootmvcpractice.users.model.User;
 import dev.vudovenko.springbootmvcpractice.users.service.UserService;
 import org.junit.jupiter.api.Assertions;
@@ -11,12 +16,26 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -35,6 +54,12 @@ class UserControllerTest {
     @Autowired
     private PetService petService;
 
+    @Autowired
+    private Tombstones tombstones;
+
+    @Autowired
+    private OwnerLocks ownerLocks;
+
     @Test
     void shouldSuccessCreateUser() throws Exception {
         User userToCreate = new User(
@@ -229,7 +254,8 @@ class UserControllerTest {
         org.assertj.core.api.Assertions
                 .assertThat(foundUser)
                 .usingRecursiveComparison()
-                .isEqualTo(userToFind);
+                .ignoringFields("version", "petVersionSum", "pets.version")
+                .isEqualTo(userService.getById(userToFind.getId()));
     }
 
     @Test
@@ -299,4 +325,431 @@ class UserControllerTest {
 
         Assertions.assertFalse(userService.checkIfUserExists(nonExistentId));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldDeleteUserAndReclaimItsPetsInBackground() throws Exception {
+        User owner = userService.createUser(new User(null, "tombstoned", "tombstoned@tombstoned.com", 40, null));
+        List<Long> petIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            petIds.add(petService.createPet(new Pet(null, "reclaimed" + i, owner.getId())).getId());
+        }
+
+        mockMvc
+                .perform(delete("/users/{id}", owner.getId()).param("async", "true"))
+                .andExpect(status().isAccepted());
+
+        mockMvc
+                .perform(get("/users/{id}", owner.getId()))
+                .andExpect(status().isNotFound());
+        for (Long petId : petIds) {
+            mockMvc
+                    .perform(get("/pets/{id}", petId))
+                    .andExpect(status().isNotFound());
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (tombstones.pendingPets() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(0, tombstones.pendingPets());
+        Assertions.assertTrue(tombstones.isEmpty());
+        for (Long petId : petIds) {
+            Assertions.assertFalse(petService.checkIfPetExists(petId));
+        }
+    }
+
+    @Test
+    void shouldTransferPetsBetweenUsers() throws Exception {
+        User from = userService.createUser(new User(null, "transferFrom", "transferFrom@transfer.com", 40, null));
+        User to = userService.createUser(new User(null, "transferTo", "transferTo@transfer.com", 30, null));
+        User stranger = userService.createUser(new User(null, "stranger", "stranger@transfer.com", 20, null));
+        List<Long> petIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            petIds.add(petService.createPet(new Pet(null, "transferred" + i, from.getId())).getId());
+        }
+        Long strangersPetId = petService.createPet(new Pet(null, "strangers", stranger.getId())).getId();
+
+        mockMvc
+                .perform(
+                        post("/users/{id}/pets/transfer", from.getId())
+                                .param("to", to.getId().toString())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(List.of(petIds.get(0), strangersPetId)))
+                )
+                .andExpect(status().isNotFound());
+        Assertions.assertEquals(3, userService.getById(from.getId()).getPets().size());
+        Assertions.assertEquals(from.getId(), petService.getPetById(petIds.get(0)).getUserId());
+
+        String subsetJson = mockMvc
+                .perform(
+                        post("/users/{id}/pets/transfer", from.getId())
+                                .param("to", to.getId().toString())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(List.of(petIds.get(1), petIds.get(1))))
+                )
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        List<Pet> subset = objectMapper.readValue(subsetJson, new TypeReference<>() {
+        });
+        Assertions.assertEquals(List.of(petIds.get(1)), subset.stream().map(Pet::getId).toList());
+        Assertions.assertEquals(to.getId(), subset.getFirst().getUserId());
+        Assertions.assertEquals(
+                List.of(petIds.get(0), petIds.get(2)),
+                userService.getById(from.getId()).getPets().stream().map(Pet::getId).toList()
+        );
+
+        mockMvc
+                .perform(
+                        post("/users/{id}/pets/transfer", from.getId())
+                                .param("to", to.getId().toString())
+                )
+                .andExpect(status().isOk());
+
+        Assertions.assertTrue(userService.getById(from.getId()).getPets().isEmpty());
+        User newOwner = userService.getById(to.getId());
+        Assertions.assertEquals(
+                List.of(petIds.get(1), petIds.get(0), petIds.get(2)),
+                newOwner.getPets().stream().map(Pet::getId).toList()
+        );
+        for (Long petId : petIds) {
+            Assertions.assertEquals(to.getId(), petService.getPetById(petId).getUserId());
+        }
+
+        mockMvc
+                .perform(
+                        post("/users/{id}/pets/transfer", to.getId())
+                                .param("to", Long.toString(Long.MAX_VALUE))
+                )
+                .andExpect(status().isNotFound());
+        Assertions.assertEquals(3, userService.getById(to.getId()).getPets().size());
+    }
+
+    @Test
+    void shouldCreateUsersBatchWithPerItemErrors() throws Exception {
+        List<User> usersToCreate = List.of(
+                new User(null, "batchUser1", "batchUser1@batch.com", 31, null),
+                new User(Long.MAX_VALUE, "  ", "not an email", 101, null),
+                new User(null, "batchUser2", "batchUser2@batch.com", 32, null)
+        );
+
+        String usersJson = objectMapper.writeValueAsString(usersToCreate);
+
+        String resultsJson = mockMvc
+                .perform(
+                        post("/users/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(usersJson)
+                )
+                .andExpect(status().isMultiStatus())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        List<BatchItemResult<User>> results = objectMapper.readValue(resultsJson, new TypeReference<>() {
+        });
+
+        Assertions.assertEquals(3, results.size());
+        Assertions.assertEquals(201, results.get(0).status());
+        Assertions.assertEquals(400, results.get(1).status());
+        Assertions.assertEquals(201, results.get(2).status());
+
+        Assertions.assertEquals("Request validation failed", results.get(1).error().message());
+        Assertions.assertTrue(results.get(1).error().detailedMessage().contains("email:"));
+        Assertions.assertNull(results.get(1).entity());
+
+        User createdUser = results.get(2).entity();
+        Assertions.assertTrue(userService.checkIfUserExists(createdUser.getId()));
+        org.assertj.core.api.Assertions
+                .assertThat(createdUser)
+                .usingRecursiveComparison()
+                .ignoringFields("id", "pets")
+                .isEqualTo(usersToCreate.get(2));
+    }
+
+    @Test
+    void shouldRejectUsersBatchOverTheLimitAsAWhole() throws Exception {
+        List<User> usersToCreate = new ArrayList<>();
+        for (int i = 0; i <= 1000; i++) {
+            usersToCreate.add(new User(null, "oversizedBatchUser", "oversized%d@batch.com".formatted(i), 30, null));
+        }
+
+        String errorMessageResponseJson = mockMvc
+                .perform(
+                        post("/users/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(usersToCreate))
+                )
+                .andExpect(status().isPayloadTooLarge())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        ErrorMessageResponse errorMessageResponse = objectMapper
+                .readValue(errorMessageResponseJson, ErrorMessageResponse.class);
+
+        Assertions.assertEquals("Batch too large", errorMessageResponse.message());
+        Assertions.assertEquals(
+                "Batch of 1001 items exceeds the limit of 1000",
+                errorMessageResponse.detailedMessage()
+        );
+        Assertions.assertEquals(List.of(), userService.findByEmail("oversized0@batch.com"));
+    }
+
+    @Test
+    void shouldPageThroughUsersByCursor() throws Exception {
+        List<Long> createdIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            createdIds.add(userService.createUser(
+                    new User(null, "paged" + i, "paged" + i + "@paged.com", 40 + i, null)
+            ).getId());
+        }
+
+        List<Long> seenIds = new ArrayList<>();
+        Long cursor = null;
+        do {
+            var request = get("/users").param("limit", "2");
+            if (cursor != null) {
+                request.param("after", cursor.toString());
+            }
+
+            String pageJson = mockMvc
+                    .perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+
+            KeysetPage<User> page = objectMapper.readValue(pageJson, new TypeReference<>() {
+            });
+
+            Assertions.assertTrue(page.items().size() <= 2);
+            page.items().forEach(user -> seenIds.add(user.getId()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        Assertions.assertTrue(seenIds.containsAll(createdIds));
+        org.assertj.core.api.Assertions
+                .assertThat(seenIds)
+                .isSorted()
+                .doesNotHaveDuplicates();
+    }
+
+    @Test
+    void shouldFindUsersByEmailIgnoringCase() throws Exception {
+        User user = userService.createUser(new User(null, "lookup", "Lookup@Lookup.com", 28, null));
+
+        String usersJson = mockMvc
+                .perform(get("/users").param("email", "lookup@LOOKUP.com"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        List<User> foundUsers = objectMapper.readValue(usersJson, new TypeReference<>() {
+        });
+
+        Assertions.assertEquals(1, foundUsers.size());
+        Assertions.assertEquals(user.getId(), foundUsers.get(0).getId());
+
+        userService.updateUser(user.getId(), new User(null, "lookup", "moved@lookup.com", 28, null));
+        Assertions.assertTrue(userService.findByEmail("Lookup@Lookup.com").isEmpty());
+        Assertions.assertEquals(1, userService.findByEmail("moved@lookup.com").size());
+
+        userService.deleteUser(user.getId());
+        Assertions.assertTrue(userService.findByEmail("moved@lookup.com").isEmpty());
+    }
+
+    @Test
+    void shouldAnswerNotModifiedUntilUserOrItsPetsChange() throws Exception {
+        User user = userService.createUser(new User(null, "tagged", "tagged@tagged.com", 30, null));
+
+        String eTag = mockMvc
+                .perform(get("/users/{id}", user.getId()))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotNull(eTag);
+
+        String notModifiedBody = mockMvc
+                .perform(get("/users/{id}", user.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        Assertions.assertTrue(notModifiedBody.isEmpty());
+
+        petService.createPet(new Pet(null, "taggedPet", user.getId()));
+
+        String changedETag = mockMvc
+                .perform(get("/users/{id}", user.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotEquals(eTag, changedETag);
+    }
+
+    @Test
+    void shouldUpdateUserOnlyWhenIfMatchIsCurrent() throws Exception {
+        User user = userService.createUser(new User(null, "guarded", "guarded@guarded.com", 30, null));
+        String eTag = mockMvc
+                .perform(get("/users/{id}", user.getId()))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        String updateJson = objectMapper.writeValueAsString(
+                new User(null, "guarded2", "guarded@guarded.com", 31, null)
+        );
+
+        String updatedETag = mockMvc
+                .perform(
+                        put("/users/{id}", user.getId())
+                                .header(HttpHeaders.IF_MATCH, eTag)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(updateJson)
+                )
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotEquals(eTag, updatedETag);
+
+        String errorMessageResponseJson = mockMvc
+                .perform(
+                        put("/users/{id}", user.getId())
+                                .header(HttpHeaders.IF_MATCH, eTag)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(updateJson)
+                )
+                .andExpect(status().isPreconditionFailed())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        ErrorMessageResponse errorMessageResponse = objectMapper
+                .readValue(errorMessageResponseJson, ErrorMessageResponse.class);
+        Assertions.assertEquals("Precondition failed", errorMessageResponse.message());
+        Assertions.assertEquals("guarded2", userService.getById(user.getId()).getName());
+    }
+
+    @Test
+    void shouldReadUserWithoutWaitingForItsOwnerLock() throws Exception {
+        User user = userService.createUser(new User(null, "unlocked", "unlocked@unlocked.com", 30, null));
+        petService.createPet(new Pet(null, "unlockedPet", user.getId()));
+        String eTag = mockMvc.perform(get("/users/{id}", user.getId()))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch read = new CountDownLatch(1);
+        Thread writer = Thread.ofPlatform().start(() -> {
+            try (var ignored = ownerLocks.lock(user.getId())) {
+                locked.countDown();
+                read.await(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            Assertions.assertTrue(locked.await(1, TimeUnit.MINUTES));
+
+            mockMvc.perform(get("/users/{id}", user.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andExpect(status().isNotModified());
+            String body = mockMvc.perform(get("/users/{id}", user.getId()))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+            Assertions.assertEquals("unlockedPet", objectMapper.readValue(body, User.class).getPets().getFirst().getName());
+        } finally {
+            read.countDown();
+            writer.join();
+        }
+    }
+
+    @Test
+    void shouldNeverServeTornUserWhileItAndItsPetsChange() throws Exception {
+        User user = userService.createUser(new User(null, "torn-0", "torn0@torn.com", 0, null));
+        User otherUser = userService.createUser(new User(null, "other", "other@torn.com", 30, null));
+        for (int i = 0; i < 4; i++) {
+            petService.createPet(new Pet(null, "stayingPet" + i, user.getId()));
+        }
+        Pet movingPet = petService.createPet(new Pet(null, "movingPet", user.getId()));
+
+        int generations = 2_000;
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Queue<String> tornReads = new ConcurrentLinkedQueue<>();
+        Map<String, String> bodiesByETag = new ConcurrentHashMap<>();
+        AtomicInteger reads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?> userWriter = executor.submit(() -> {
+                for (int g = 1; g <= generations; g++) {
+                    userService.updateUser(
+                            user.getId(),
+                            new User(null, "torn-" + g, "torn" + g + "@torn.com", g % 100, null)
+                    );
+                }
+            });
+            Future<?> petWriter = executor.submit(() -> {
+                for (int g = 1; g <= generations; g++) {
+                    Long ownerId = g % 2 == 0 ? user.getId() : otherUser.getId();
+                    petService.updatePet(movingPet.getId(), new Pet(null, "movingPet" + g, ownerId));
+                }
+            });
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    while (writing.get()) {
+                        var response = mockMvc.perform(get("/users/{id}", user.getId()))
+                                .andReturn()
+                                .getResponse();
+                        String body = response.getContentAsString();
+                        String previousBody = bodiesByETag.putIfAbsent(response.getHeader(HttpHeaders.ETAG), body);
+                        if (previousBody != null && !previousBody.equals(body)) {
+                            tornReads.add("Different bodies for one ETag: " + previousBody + " and " + body);
+                        }
+                        checkNotTorn(objectMapper.readValue(body, User.class), tornReads);
+                        reads.incrementAndGet();
+                    }
+
+                    return null;
+                }));
+            }
+
+            userWriter.get(1, TimeUnit.MINUTES);
+            petWriter.get(1, TimeUnit.MINUTES);
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertTrue(reads.get() > 0);
+        Assertions.assertEquals(List.of(), List.copyOf(tornReads));
+    }
+
+    private static void checkNotTorn(User user, Queue<String> tornReads) {
+        String generation = user.getName().substring("torn-".length());
+        if (!user.getEmail().equals("torn" + generation + "@torn.com")
+                || user.getAge() != Integer.parseInt(generation) % 100) {
+            tornReads.add("Fields from different updates: " + user);
+        }
+        long petsOfUser = user.getPets().stream()
+                .filter(pet -> user.getId().equals(pet.getUserId()))
+                .map(Pet::getId)
+                .distinct()
+                .count();
+        if (petsOfUser != user.getPets().size() || petsOfUser < 4 || petsOfUser > 5) {
+            tornReads.add("Pets that do not belong to the user: " + user);
+        }
+    }
+}
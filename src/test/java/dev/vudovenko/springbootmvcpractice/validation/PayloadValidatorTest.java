@@ -0,0 +1,95 @@
+package dev.vudovenko.springbootmvcpractice.validation;
+
+import dev.vudovenko.springbootmvcpractice.pets.model.Pet;
+import dev.vudovenko.springbootmvcpractice.pets.services.PetService;
+import dev.vudovenko.springbootmvcpractice.users.model.User;
+import dev.vudovenko.springbootmvcpractice.users.service.UserService;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@SpringBootTest
+class PayloadValidatorTest {
+
+    @Autowired
+    private PayloadValidator payloadValidator;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PetService petService;
+
+    @Test
+    void shouldValidateLikeBeanValidation() {
+        Assertions.assertTrue(payloadValidator.isCompiled(User.class));
+        Assertions.assertTrue(payloadValidator.isCompiled(Pet.class));
+
+        List<Object> payloads = List.of(
+                new User(null, "Alice", "alice@example.com", 30, List.of()),
+                new User(null, "Bob", "bob@example.com", 0, null),
+                new User(null, "Mia", "mia@example.com", 100, new ArrayList<>()),
+                new User(1L, "Alice", "alice@example.com", 30, List.of()),
+                new User(null, null, null, null, null),
+                new User(null, "   ", "alice@example.com", 30, List.of()),
+                new User(null, "\u2003Al\u2003", "alice@example.com", 30, List.of()),
+                new User(null, "Al", "alice@example.com", 30, List.of()),
+                new User(null, "A".repeat(51), "alice@example.com", 30, List.of()),
+                new User(null, "Alice", "not an email", 30, List.of()),
+                new User(null, "Alice", "alice@", 30, List.of()),
+                new User(null, "Alice", "", 30, List.of()),
+                new User(null, "Alice", "a@b", 30, List.of()),
+                new User(null, "Alice", "\"alice smith\"@example.com", 30, List.of()),
+                new User(null, "Alice", "alice..smith@example.com", 30, List.of()),
+                new User(null, "Alice", "alice@example.com.", 30, List.of()),
+                new User(null, "Alice", "alice@-example.com", 30, List.of()),
+                new User(null, "Alice", "alice@[192.168.0.1]", 30, List.of()),
+                new User(null, "Alice", "alice@[IPv6:2001:db8::1]", 30, List.of()),
+                new User(null, "Alice", "alice@\u4f8b\u3048.jp", 30, List.of()),
+                new User(null, "Alice", "a".repeat(65) + "@example.com", 30, List.of()),
+                new User(null, "Alice", "alice@" + "a".repeat(256), 30, List.of()),
+                new User(null, "Alice", "alice@example.com", -1, List.of()),
+                new User(null, "Alice", "alice@example.com", 101, List.of()),
+                new User(null, "Alice", "alice@example.com", 30, List.of(new Pet(null, "Barsik", 1L))),
+                new Pet(null, "Barsik", 1L),
+                new Pet(2L, "Barsik", 1L),
+                new Pet(null, " Ba ", null),
+                new Pet(null, null, null)
+        );
+
+        SpringValidatorAdapter beanValidator = new SpringValidatorAdapter(validator);
+        for (Object payload : payloads) {
+            Errors expected = new BeanPropertyBindingResult(payload, "payload");
+            beanValidator.validate(payload, expected);
+            Errors actual = new BeanPropertyBindingResult(payload, "payload");
+            payloadValidator.validate(payload, actual);
+
+            Assertions.assertEquals(errorsOf(expected), errorsOf(actual), payload.toString());
+        }
+    }
+
+    @Test
+    void shouldNotValidateAgainInServices() {
+        Assertions.assertFalse(AopUtils.isAopProxy(userService));
+        Assertions.assertFalse(AopUtils.isAopProxy(petService));
+    }
+
+    private static List<String> errorsOf(Errors errors) {
+        return errors.getFieldErrors().stream()
+                .map(error -> error.getField() + ": " + error.getDefaultMessage() + " " + error.getRejectedValue())
+                .sorted()
+                .toList();
+    }
+}